@@ -115,6 +115,12 @@ public class BeanWrapperImpl implements BeanWrapper {
 	/** Map with custom PropertyEditor instances */
 	private Map customEditors;
 
+	/**
+	 * Map with default PropertyEditor instances, keyed by type, reused for all
+	 * properties of the wrapped object. Null values mark types without editor.
+	 */
+	private Map defaultEditorCache;
+
 	/**
 	 * Cached introspections results for this object, to prevent encountering the cost
 	 * of JavaBeans introspection every time.
@@ -424,6 +430,14 @@ public class BeanWrapperImpl implements BeanWrapper {
 		return nestedBw;
 	}
 
+	/**
+	 * Is the given property a simple property of the wrapped object,
+	 * that is, neither nested nor indexed?
+	 */
+	private boolean isSimpleProperty(String propertyName) {
+		return (propertyName.indexOf(NESTED_PROPERTY_SEPARATOR) == -1 && propertyName.indexOf('[') == -1);
+	}
+
 	private String[] getPropertyNameTokens(String propertyName) {
 		String actualName = propertyName;
 		String key = null;
@@ -536,6 +550,11 @@ public class BeanWrapperImpl implements BeanWrapper {
 				throw new NotWritablePropertyException(propertyName, getWrappedClass(), ex);
 			}
 		}
+		if (propertyName.indexOf('[') == -1) {
+			// no need to parse a plain property name
+			setPropertyValue(propertyName, propertyName, null, value);
+			return;
+		}
 		String[] tokens = getPropertyNameTokens(propertyName);
 		setPropertyValue(tokens[0], tokens[1], tokens[2], value);
 	}
@@ -582,10 +601,10 @@ public class BeanWrapperImpl implements BeanWrapper {
 			}
 		}
 		else {
-			if (!isWritableProperty(propertyName)) {
+			PropertyDescriptor pd = this.cachedIntrospectionResults.getPropertyDescriptorIfAvailable(propertyName);
+			if (pd == null || pd.getWriteMethod() == null) {
 				throw new NotWritablePropertyException(propertyName, getWrappedClass());
 			}
-			PropertyDescriptor pd = getPropertyDescriptor(propertyName);
 			Method writeMethod = pd.getWriteMethod();
 			Object newValue = null;
 			try {
@@ -662,6 +681,10 @@ public class BeanWrapperImpl implements BeanWrapper {
 		List propertyAccessExceptions = new ArrayList();
 		PropertyValue[] pvs = propertyValues.getPropertyValues();
 		for (int i = 0; i < pvs.length; i++) {
+			if (ignoreUnknown && isSimpleProperty(pvs[i].getName()) && !isWritableProperty(pvs[i].getName())) {
+				// skip unknown properties like submit buttons without creating exceptions
+				continue;
+			}
 			try {
 				// This method may throw ReflectionException, which won't be caught
 				// here, if there is a critical failure such as no matching field.
@@ -767,12 +790,7 @@ public class BeanWrapperImpl implements BeanWrapper {
 
 				if (newValue instanceof String) {
 					if (pe == null) {
-						// no custom editor -> check BeanWrapper's default editors
-						pe = findDefaultEditor(requiredType);
-						if (pe == null) {
-							// no BeanWrapper default editor -> check standard JavaBean editors
-							pe = PropertyEditorManager.findEditor(requiredType);
-						}
+						pe = getDefaultEditor(requiredType);
 					}
 					if (pe != null) {
 						// use PropertyEditor's setAsText in case of a String value
@@ -823,6 +841,30 @@ public class BeanWrapperImpl implements BeanWrapper {
 		return newValue;
 	}
 
+	/**
+	 * Return the default PropertyEditor for the given type: a BeanWrapper
+	 * default editor, or a standard JavaBeans editor. Editor instances are
+	 * cached, to reuse them for all properties of the same type.
+	 * @param type the type to find an editor for
+	 * @return the editor, or null if none found
+	 */
+	private PropertyEditor getDefaultEditor(Class type) {
+		if (this.defaultEditorCache == null) {
+			this.defaultEditorCache = new HashMap();
+		}
+		else if (this.defaultEditorCache.containsKey(type)) {
+			return (PropertyEditor) this.defaultEditorCache.get(type);
+		}
+		// check BeanWrapper's default editors
+		PropertyEditor pe = findDefaultEditor(type);
+		if (pe == null) {
+			// no BeanWrapper default editor -> check standard JavaBean editors
+			pe = PropertyEditorManager.findEditor(type);
+		}
+		this.defaultEditorCache.put(type, pe);
+		return pe;
+	}
+
 	private PropertyEditor findDefaultEditor(Class type) {
 		Class editorClass = (Class) defaultEditors.get(type);
 		if (editorClass != null) {
@@ -838,6 +880,23 @@ public class BeanWrapperImpl implements BeanWrapper {
 		return this.cachedIntrospectionResults.getBeanInfo().getPropertyDescriptors();
 	}
 
+	/**
+	 * Return the PropertyDescriptor for the given property, or null if there
+	 * is no such property. Does not create an exception for unknown properties.
+	 */
+	private PropertyDescriptor getPropertyDescriptorIfAvailable(String propertyName) {
+		if (isNestedProperty(propertyName)) {
+			try {
+				return getBeanWrapperForPropertyPath(propertyName).getPropertyDescriptorIfAvailable(getFinalPath(propertyName));
+			}
+			catch (BeansException ex) {
+				// error in the nested path
+				return null;
+			}
+		}
+		return this.cachedIntrospectionResults.getPropertyDescriptorIfAvailable(propertyName);
+	}
+
 	public PropertyDescriptor getPropertyDescriptor(String propertyName) throws BeansException {
 		if (propertyName == null) {
 			throw new FatalBeanException("Can't find property descriptor for null property");
@@ -855,13 +914,9 @@ public class BeanWrapperImpl implements BeanWrapper {
 		if (propertyName == null) {
 			throw new FatalBeanException("Can't find readability status for null property");
 		}
-		try {
-			return getPropertyDescriptor(propertyName).getReadMethod() != null;
-		}
-		catch (BeansException ex) {
-			// doesn't exist, so can't be readable
-			return false;
-		}
+		PropertyDescriptor pd = getPropertyDescriptorIfAvailable(propertyName);
+		// doesn't exist, so can't be readable
+		return (pd != null && pd.getReadMethod() != null);
 	}
 
 	public boolean isWritableProperty(String propertyName) {
@@ -870,13 +925,9 @@ public class BeanWrapperImpl implements BeanWrapper {
 		if (propertyName == null) {
 			throw new FatalBeanException("Can't find writability status for null property");
 		}
-		try {
-			return getPropertyDescriptor(propertyName).getWriteMethod() != null;
-		}
-		catch (BeansException ex) {
-			// doesn't exist, so can't be writable
-			return false;
-		}
+		PropertyDescriptor pd = getPropertyDescriptorIfAvailable(propertyName);
+		// doesn't exist, so can't be writable
+		return (pd != null && pd.getWriteMethod() != null);
 	}
 
 
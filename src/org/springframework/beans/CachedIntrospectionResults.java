@@ -108,11 +108,20 @@ final class CachedIntrospectionResults {
 	}
 
 	protected PropertyDescriptor getPropertyDescriptor(String propertyName) throws BeansException {
-		PropertyDescriptor pd = (PropertyDescriptor) this.propertyDescriptorMap.get(propertyName);
+		PropertyDescriptor pd = getPropertyDescriptorIfAvailable(propertyName);
 		if (pd == null) {
 			throw new FatalBeanException("No property '" + propertyName + "' in class [" + getBeanClass().getName() + "]", null);
 		}
 		return pd;
 	}
 
+	/**
+	 * Return the PropertyDescriptor for the given property,
+	 * or null if there is no such property. Does not create
+	 * an exception for unknown properties.
+	 */
+	protected PropertyDescriptor getPropertyDescriptorIfAvailable(String propertyName) {
+		return (PropertyDescriptor) this.propertyDescriptorMap.get(propertyName);
+	}
+
 }
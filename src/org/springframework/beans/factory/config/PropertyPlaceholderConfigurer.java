@@ -16,6 +16,7 @@
 
 package org.springframework.beans.factory.config;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -77,6 +78,12 @@ import org.springframework.util.ObjectUtils;
  * system properties (e.g. "user.dir") if it cannot resolve a placeholder with any
  * of the specified properties. This can be customized via "systemPropertiesMode".
  *
+ * <p>Each distinct value string is tokenized into literal text and placeholders
+ * only once per post-processing run, and each placeholder is resolved only once,
+ * with the result being cached for further occurrences. This keeps the cost
+ * linear in the number of bean definitions, also for expensive placeholder
+ * sources like the Preferences API.
+ *
  * <p>Note that the context definition <i>is</i> aware of being incomplete;
  * this is immediately obvious when looking at the XML definition file.
  *
@@ -124,6 +131,9 @@ public class PropertyPlaceholderConfigurer extends PropertyResourceConfigurer {
 
 	private boolean ignoreUnresolvablePlaceholders = false;
 
+	/** Resolution state for the current post-processing run, if any */
+	private PlaceholderResolutionContext resolutionContext;
+
 
 	/**
 	 * Set the prefix that a placeholder string starts with.
@@ -180,16 +190,22 @@ public class PropertyPlaceholderConfigurer extends PropertyResourceConfigurer {
 
 	protected void processProperties(ConfigurableListableBeanFactory beanFactory, Properties props)
 			throws BeansException {
-		String[] beanNames = beanFactory.getBeanDefinitionNames();
-		for (int i = 0; i < beanNames.length; i++) {
-			BeanDefinition bd = beanFactory.getBeanDefinition(beanNames[i]);
-			try {
-				parseBeanDefinition(props, bd);
-			}
-			catch (BeanDefinitionStoreException ex) {
-				throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanNames[i], ex.getMessage());
+		this.resolutionContext = new PlaceholderResolutionContext(props);
+		try {
+			String[] beanNames = beanFactory.getBeanDefinitionNames();
+			for (int i = 0; i < beanNames.length; i++) {
+				BeanDefinition bd = beanFactory.getBeanDefinition(beanNames[i]);
+				try {
+					parseBeanDefinition(props, bd);
+				}
+				catch (BeanDefinitionStoreException ex) {
+					throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanNames[i], ex.getMessage());
+				}
 			}
 		}
+		finally {
+			this.resolutionContext = null;
+		}
 	}
 
 	protected void parseBeanDefinition(Properties props, BeanDefinition beanDefinition) {
@@ -304,50 +320,20 @@ public class PropertyPlaceholderConfigurer extends PropertyResourceConfigurer {
 
 	/**
 	 * Parse values recursively to be able to resolve cross-references between placeholder values.
+	 * <p>Within a post-processing run, tokenized strings and resolved placeholders are cached.
+	 * @param props the merged properties of this configurer
+	 * @param strVal the String value to parse
+	 * @param originalPlaceholder not used anymore: circular references are detected
+	 * through the placeholders that are currently being resolved
+	 * @return the String value with all placeholders resolved
 	 */
 	protected String parseString(Properties props, String strVal, String originalPlaceholder)
 	    throws BeansException {
-		int startIndex = strVal.indexOf(this.placeholderPrefix);
-		while (startIndex != -1) {
-			int endIndex = strVal.indexOf(this.placeholderSuffix, startIndex + this.placeholderPrefix.length());
-			if (endIndex != -1) {
-				String placeholder = strVal.substring(startIndex + this.placeholderPrefix.length(), endIndex);
-				if (originalPlaceholder == null) {
-					originalPlaceholder = placeholder;
-				}
-				else if (placeholder.equals(originalPlaceholder)) {
-					throw new BeanDefinitionStoreException("Circular placeholder reference '" + placeholder +
-																								 "' in property definitions [" + props + "]");
-				}
-				String propVal = null;
-				if (this.systemPropertiesMode == SYSTEM_PROPERTIES_MODE_OVERRIDE) {
-					propVal = System.getProperty(placeholder);
-				}
-				if (propVal == null) {
-					propVal = resolvePlaceholder(placeholder, props);
-				}
-				if (propVal == null && this.systemPropertiesMode == SYSTEM_PROPERTIES_MODE_FALLBACK) {
-					propVal = System.getProperty(placeholder);
-				}
-				if (propVal != null) {
-					propVal = parseString(props, propVal, originalPlaceholder);
-					logger.debug("Resolving placeholder '" + placeholder + "' to [" + propVal + "]");
-					strVal = strVal.substring(0, startIndex) + propVal + strVal.substring(endIndex+1);
-					startIndex = strVal.indexOf(this.placeholderPrefix, startIndex + propVal.length());
-				}
-				else if (this.ignoreUnresolvablePlaceholders) {
-					// return unprocessed value
-					return strVal;
-				}
-				else {
-					throw new BeanDefinitionStoreException("Could not resolve placeholder '" + placeholder + "'");
-				}
-			}
-			else {
-				startIndex = -1;
-			}
+		PlaceholderResolutionContext context = this.resolutionContext;
+		if (context == null || context.props != props) {
+			context = new PlaceholderResolutionContext(props);
 		}
-		return strVal;
+		return context.resolveString(strVal);
 	}
 
 	/**
@@ -367,4 +353,134 @@ public class PropertyPlaceholderConfigurer extends PropertyResourceConfigurer {
 		return props.getProperty(placeholder);
 	}
 
+
+
+	/**
+	 * Placeholder within a tokenized String value.
+	 */
+	private static class Placeholder {
+
+		private final String name;
+
+		private final String text;
+
+		private Placeholder(String name, String text) {
+			this.name = name;
+			this.text = text;
+		}
+	}
+
+
+	/**
+	 * Holds the state of a post-processing run: tokenized String values,
+	 * already resolved placeholders, and the placeholders that are currently
+	 * being resolved, for detecting circular references.
+	 */
+	private class PlaceholderResolutionContext {
+
+		private final Properties props;
+
+		/** String value -> Object array with literal Strings and Placeholders */
+		private final Map tokenizedStrings = new HashMap();
+
+		/** Placeholder name -> resolved value (or null if unresolvable) */
+		private final Map resolvedPlaceholders = new HashMap();
+
+		private final Set currentPlaceholders = new HashSet();
+
+		private PlaceholderResolutionContext(Properties props) {
+			this.props = props;
+		}
+
+		private String resolveString(String strVal) throws BeansException {
+			if (strVal.indexOf(placeholderPrefix) == -1) {
+				return strVal;
+			}
+			Object[] tokens = tokenize(strVal);
+			StringBuffer result = new StringBuffer(strVal.length() + 16);
+			for (int i = 0; i < tokens.length; i++) {
+				if (tokens[i] instanceof Placeholder) {
+					Placeholder placeholder = (Placeholder) tokens[i];
+					String propVal = resolvePlaceholderValue(placeholder.name);
+					if (propVal != null) {
+						result.append(propVal);
+					}
+					else if (ignoreUnresolvablePlaceholders) {
+						// leave placeholder unprocessed
+						result.append(placeholder.text);
+					}
+					else {
+						throw new BeanDefinitionStoreException("Could not resolve placeholder '" + placeholder.name + "'");
+					}
+				}
+				else {
+					result.append((String) tokens[i]);
+				}
+			}
+			return result.toString();
+		}
+
+		private Object[] tokenize(String strVal) {
+			Object[] tokens = (Object[]) this.tokenizedStrings.get(strVal);
+			if (tokens != null) {
+				return tokens;
+			}
+			List tokenList = new ArrayList();
+			int index = 0;
+			int startIndex = strVal.indexOf(placeholderPrefix);
+			while (startIndex != -1) {
+				int endIndex = strVal.indexOf(placeholderSuffix, startIndex + placeholderPrefix.length());
+				if (endIndex == -1) {
+					break;
+				}
+				if (startIndex > index) {
+					tokenList.add(strVal.substring(index, startIndex));
+				}
+				index = endIndex + placeholderSuffix.length();
+				tokenList.add(new Placeholder(strVal.substring(startIndex + placeholderPrefix.length(), endIndex),
+				                              strVal.substring(startIndex, index)));
+				startIndex = strVal.indexOf(placeholderPrefix, index);
+			}
+			if (index < strVal.length()) {
+				tokenList.add(strVal.substring(index));
+			}
+			tokens = tokenList.toArray();
+			this.tokenizedStrings.put(strVal, tokens);
+			return tokens;
+		}
+
+		private String resolvePlaceholderValue(String placeholder) throws BeansException {
+			if (this.resolvedPlaceholders.containsKey(placeholder)) {
+				return (String) this.resolvedPlaceholders.get(placeholder);
+			}
+			if (!this.currentPlaceholders.add(placeholder)) {
+				throw new BeanDefinitionStoreException("Circular placeholder reference '" + placeholder +
+				                                       "' in property definitions [" + this.props + "]");
+			}
+			try {
+				String propVal = null;
+				if (systemPropertiesMode == SYSTEM_PROPERTIES_MODE_OVERRIDE) {
+					propVal = System.getProperty(placeholder);
+				}
+				if (propVal == null) {
+					propVal = resolvePlaceholder(placeholder, this.props);
+				}
+				if (propVal == null && systemPropertiesMode == SYSTEM_PROPERTIES_MODE_FALLBACK) {
+					propVal = System.getProperty(placeholder);
+				}
+				if (propVal != null) {
+					propVal = resolveString(propVal);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Resolving placeholder '" + placeholder + "' to [" + propVal + "]");
+					}
+				}
+				this.resolvedPlaceholders.put(placeholder, propVal);
+				return propVal;
+			}
+			finally {
+				this.currentPlaceholders.remove(placeholder);
+			}
+		}
+	}
+
 }
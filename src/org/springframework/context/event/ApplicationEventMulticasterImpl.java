@@ -16,53 +16,195 @@
 
 package org.springframework.context.event;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.task.TaskExecutor;
 
 /**
  * Concrete implementation of ApplicationEventMulticaster
  * Doesn't permit multiple instances of the same listener.
  *
- * <p>Note that this class doesn't try to do anything clever to ensure thread
- * safety if listeners are added or removed at runtime. A technique such as
- * Copy-on-Write (Lea:137) could be used to ensure this, but the assumption in
- * this version of this framework is that listeners will be added at application
- * configuration time and not added or removed as the application runs.
+ * <p>Listeners are kept in a copy-on-write array (Lea:137): adding or removing
+ * a listener creates a new array, while event notification works on an
+ * immutable snapshot without any locking. Listeners may thus safely be
+ * added or removed at runtime, even while events are being published.
+ *
+ * <p>The listeners that apply to a given event class are determined once
+ * and cached until the set of listeners changes. Listeners that implement
+ * SmartApplicationListener will only receive the event types they support;
+ * all other listeners receive all events.
  *
- * <p>All listeners are invoked in the calling thread. This allows the danger of
- * a rogue listener blocking the entire application, but adds minimal overhead.
+ * <p>By default, all listeners are invoked in the calling thread. This allows
+ * the danger of a rogue listener blocking the entire application, but adds
+ * minimal overhead. If a TaskExecutor is specified, listeners that implement
+ * the AsyncApplicationListener tag interface will be handed to that executor,
+ * for example a bounded ThreadPoolTaskExecutor.
  *
- * <p>An alternative implementation could be more sophisticated in both these respects.
+ * <p>Can be defined as bean with name "applicationEventMulticaster" in an
+ * application context, to customize the context's event multicasting.
  *
  * @author Rod Johnson
+ * @see SmartApplicationListener
+ * @see AsyncApplicationListener
+ * @see #setTaskExecutor
+ * @see org.springframework.context.support.AbstractApplicationContext#APPLICATION_EVENT_MULTICASTER_BEAN_NAME
  */
 public class ApplicationEventMulticasterImpl implements ApplicationEventMulticaster {
 
-	/** Set of listeners */
-	private Set eventListeners = new HashSet();
+	private static final ApplicationListener[] EMPTY_LISTENERS = new ApplicationListener[0];
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private TaskExecutor taskExecutor;
+
+	/** Copy-on-write array of listeners, replaced on modification */
+	private volatile ApplicationListener[] eventListeners = EMPTY_LISTENERS;
+
+	/**
+	 * Copy-on-write cache from event class to matching listener array,
+	 * replaced on modification and discarded when the listeners change.
+	 */
+	private volatile Map retrieverCache = new HashMap();
+
+	/** Monitor for modifications of listener array and cache */
+	private final Object listenerMonitor = new Object();
+
+
+	/**
+	 * Set the TaskExecutor to invoke AsyncApplicationListeners with.
+	 * Default is none, invoking all listeners in the calling thread.
+	 * <p>Note that a bounded executor might reject listener invocations:
+	 * Consider a ThreadPoolTaskExecutor with a "caller runs" or "discard"
+	 * rejection policy, depending on whether events may get lost.
+	 * @see AsyncApplicationListener
+	 * @see org.springframework.core.task.ThreadPoolTaskExecutor
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Return the TaskExecutor to invoke AsyncApplicationListeners with, if any.
+	 */
+	public TaskExecutor getTaskExecutor() {
+		return taskExecutor;
+	}
+
 
 	public void addApplicationListener(ApplicationListener l) {
-		eventListeners.add(l);
+		synchronized (this.listenerMonitor) {
+			ApplicationListener[] current = this.eventListeners;
+			for (int i = 0; i < current.length; i++) {
+				if (current[i].equals(l)) {
+					return;
+				}
+			}
+			ApplicationListener[] listeners = new ApplicationListener[current.length + 1];
+			System.arraycopy(current, 0, listeners, 0, current.length);
+			listeners[current.length] = l;
+			this.eventListeners = listeners;
+			this.retrieverCache = new HashMap();
+		}
 	}
 
 	public void removeApplicationListener(ApplicationListener l) {
-		eventListeners.remove(l);
+		synchronized (this.listenerMonitor) {
+			ApplicationListener[] current = this.eventListeners;
+			List listeners = new ArrayList(current.length);
+			for (int i = 0; i < current.length; i++) {
+				if (!current[i].equals(l)) {
+					listeners.add(current[i]);
+				}
+			}
+			if (listeners.size() < current.length) {
+				this.eventListeners = (ApplicationListener[]) listeners.toArray(new ApplicationListener[listeners.size()]);
+				this.retrieverCache = new HashMap();
+			}
+		}
 	}
 
-	public void onApplicationEvent(ApplicationEvent e) {
-		Iterator i = eventListeners.iterator();
-		while (i.hasNext()) {
-			ApplicationListener l = (ApplicationListener) i.next();
+	public void removeAllListeners() {
+		synchronized (this.listenerMonitor) {
+			this.eventListeners = EMPTY_LISTENERS;
+			this.retrieverCache = new HashMap();
+		}
+	}
+
+	public void onApplicationEvent(final ApplicationEvent e) {
+		ApplicationListener[] listeners = getApplicationListeners(e.getClass());
+		for (int i = 0; i < listeners.length; i++) {
+			final ApplicationListener l = listeners[i];
+			if (this.taskExecutor != null && l instanceof AsyncApplicationListener) {
+				this.taskExecutor.execute(new Runnable() {
+					public void run() {
+						invokeListener(l, e);
+					}
+				});
+			}
+			else {
+				l.onApplicationEvent(e);
+			}
+		}
+	}
+
+	/**
+	 * Invoke the given listener asynchronously, logging any exception
+	 * since there is no publisher to propagate it to.
+	 */
+	private void invokeListener(ApplicationListener l, ApplicationEvent e) {
+		try {
 			l.onApplicationEvent(e);
 		}
+		catch (Throwable ex) {
+			logger.error("Asynchronous listener [" + l + "] threw exception on event [" + e + "]", ex);
+		}
 	}
 
-	public void removeAllListeners() {
-		eventListeners.clear();
+	/**
+	 * Return the listeners that apply to the given event class,
+	 * building and caching the array on first access.
+	 * @param eventType the concrete class of the event
+	 * @return the matching listeners (never null)
+	 */
+	protected ApplicationListener[] getApplicationListeners(Class eventType) {
+		ApplicationListener[] listeners = (ApplicationListener[]) this.retrieverCache.get(eventType);
+		if (listeners != null) {
+			return listeners;
+		}
+		synchronized (this.listenerMonitor) {
+			listeners = (ApplicationListener[]) this.retrieverCache.get(eventType);
+			if (listeners == null) {
+				listeners = filterListeners(this.eventListeners, eventType);
+				Map cache = new HashMap(this.retrieverCache);
+				cache.put(eventType, listeners);
+				this.retrieverCache = cache;
+			}
+			return listeners;
+		}
+	}
+
+	/**
+	 * Determine the listeners out of the given ones that support
+	 * the given event type.
+	 */
+	private ApplicationListener[] filterListeners(ApplicationListener[] candidates, Class eventType) {
+		List listeners = new ArrayList(candidates.length);
+		for (int i = 0; i < candidates.length; i++) {
+			ApplicationListener candidate = candidates[i];
+			if (!(candidate instanceof SmartApplicationListener) ||
+					((SmartApplicationListener) candidate).supportsEventType(eventType)) {
+				listeners.add(candidate);
+			}
+		}
+		return (ApplicationListener[]) listeners.toArray(new ApplicationListener[listeners.size()]);
 	}
 
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.context.event;
+
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Tag interface for ApplicationListeners that can be invoked asynchronously,
+ * i.e. do not rely on being called in the thread that published the event.
+ *
+ * <p>If the ApplicationEventMulticasterImpl has been configured with a
+ * TaskExecutor, such listeners will be handed to the executor, while all
+ * other listeners will still be invoked in the calling thread. Without
+ * an executor, asynchronous listeners are invoked synchronously too.
+ *
+ * <p>Note that exceptions thrown by asynchronously invoked listeners
+ * cannot be propagated to the publisher; they will just be logged.
+ *
+ * @since 1.1
+ * @see ApplicationEventMulticasterImpl#setTaskExecutor
+ */
+public interface AsyncApplicationListener extends ApplicationListener {
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.context.event;
+
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Extended variant of the standard ApplicationListener interface,
+ * exposing the type of events that the listener is interested in.
+ *
+ * <p>ApplicationEventMulticasterImpl caches the matching listeners per
+ * event class, so a listener that declares its supported event types will
+ * not be invoked at all for other events: for example, for each
+ * RequestHandledEvent published by a FrameworkServlet.
+ *
+ * @since 1.1
+ * @see ApplicationEventMulticasterImpl
+ */
+public interface SmartApplicationListener extends ApplicationListener {
+
+	/**
+	 * Determine whether this listener actually supports the given event type.
+	 * <p>Will be called once per event class, with the result being cached.
+	 * @param eventType the concrete class of the published event
+	 * @return whether the listener wants to receive events of that type
+	 */
+	boolean supportsEventType(Class eventType);
+
+}
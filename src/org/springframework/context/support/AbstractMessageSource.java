@@ -17,8 +17,6 @@
 package org.springframework.context.support;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 
 import org.apache.commons.logging.Log;
@@ -38,6 +36,13 @@ import org.springframework.context.NoSuchMessageException;
  * but also resolution of message arguments that are in turn
  * MessageSourceResolvables themselves.
  *
+ * <p>Messages are represented as immutable MessageTemplates, which can be
+ * shared across threads without synchronization. Messages requested without
+ * arguments are returned straight from the pre-parsed template, without any
+ * formatting overhead. Subclasses that keep pre-parsed templates override
+ * resolveMessageTemplate; by default, it adapts the MessageFormat returned
+ * by resolveCode.
+ *
  * <p>This class does not implement caching, thus subclasses can
  * dynamically change messages over time.
  *
@@ -45,6 +50,8 @@ import org.springframework.context.NoSuchMessageException;
  * @author Juergen Hoeller
  * @author Seth Ladd
  * @see #resolveCode
+ * @see #resolveMessageTemplate
+ * @see MessageTemplate
  */
 public abstract class AbstractMessageSource implements HierarchicalMessageSource {
 
@@ -130,9 +137,12 @@ public abstract class AbstractMessageSource implements HierarchicalMessageSource
 		if (locale == null) {
 			locale = Locale.getDefault();
 		}
-		MessageFormat messageFormat = resolveCode(code, locale);
-		if (messageFormat != null) {
-			return messageFormat.format(resolveArguments(args, locale));
+		MessageTemplate messageTemplate = resolveMessageTemplate(code, locale);
+		if (messageTemplate != null) {
+			if (args == null || args.length == 0) {
+				return messageTemplate.format(null);
+			}
+			return messageTemplate.format(resolveArguments(args, locale));
 		}
 		else {
 			if (this.parentMessageSource != null) {
@@ -154,24 +164,69 @@ public abstract class AbstractMessageSource implements HierarchicalMessageSource
 	 * @param args array of arguments for a message
 	 * @param locale the locale to resolve through
 	 * @return an array of arguments with any MessageSourceResolvables resolved
+	 * (the given array itself if it does not contain any)
 	 */
 	private Object[] resolveArguments(Object[] args, Locale locale) {
-		if (args == null) {
-			return new Object[0];
-		}
-		List resolvedArgs = new ArrayList();
+		Object[] resolvedArgs = args;
 		for (int i = 0; i < args.length; i++) {
 			if (args[i] instanceof MessageSourceResolvable) {
-				resolvedArgs.add(getMessage((MessageSourceResolvable) args[i],
-				                            locale));
-			}
-			else {
-				resolvedArgs.add(args[i]);
+				if (resolvedArgs == args) {
+					resolvedArgs = new Object[args.length];
+					System.arraycopy(args, 0, resolvedArgs, 0, args.length);
+				}
+				resolvedArgs[i] = getMessage((MessageSourceResolvable) args[i], locale);
 			}
 		}
-		return resolvedArgs.toArray(new Object[resolvedArgs.size()]);
+		return resolvedArgs;
+	}
+
+
+	/**
+	 * Pre-parse the given message into a MessageTemplate, for subclasses
+	 * that parse all messages of a bundle at once. An invalid message pattern
+	 * is kept as String, to only fail when the message is actually requested.
+	 * @param msg the message pattern
+	 * @return the MessageTemplate, or the original String if invalid
+	 * @see #toMessageTemplate
+	 */
+	static Object preparseMessage(String msg) {
+		try {
+			return new MessageTemplate(msg);
+		}
+		catch (IllegalArgumentException ex) {
+			return msg;
+		}
+	}
+
+	/**
+	 * Turn a pre-parsed message back into a MessageTemplate.
+	 * @param preparsed the result of preparseMessage, or null
+	 * @throws IllegalArgumentException if the message pattern is invalid
+	 * @see #preparseMessage
+	 */
+	static MessageTemplate toMessageTemplate(Object preparsed) throws IllegalArgumentException {
+		if (preparsed instanceof String) {
+			return new MessageTemplate((String) preparsed);
+		}
+		return (MessageTemplate) preparsed;
+	}
+
+	/**
+	 * Resolve the given code into a MessageTemplate, for formatting the message.
+	 * <p>The default implementation adapts the MessageFormat returned by
+	 * resolveCode. Subclasses can override this method to return pre-parsed
+	 * templates from a cache: MessageTemplates are immutable, so they can be
+	 * shared across threads.
+	 * @param code the code of the message to resolve
+	 * @param locale the Locale to resolve the code for
+	 * @return the MessageTemplate for the message, or null if not found
+	 * @since 1.1
+	 * @see #resolveCode
+	 */
+	protected MessageTemplate resolveMessageTemplate(String code, Locale locale) {
+		MessageFormat messageFormat = resolveCode(code, locale);
+		return (messageFormat != null ? new MessageTemplate(messageFormat) : null);
 	}
-	
 
 	/**
 	 * Subclasses must implement this method to resolve a message.
@@ -181,6 +236,7 @@ public abstract class AbstractMessageSource implements HierarchicalMessageSource
 	 * @param locale the Locale to resolve the code for
 	 * (subclasses are encouraged to support internationalization)
 	 * @return the MessageFormat for the message, or null if not found
+	 * @see #resolveMessageTemplate
 	 */
 	protected abstract MessageFormat resolveCode(String code, Locale locale);
 
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.context.support;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable, pre-parsed representation of a message pattern in
+ * java.text.MessageFormat syntax. In contrast to MessageFormat,
+ * a MessageTemplate can be shared across threads without any
+ * synchronization.
+ *
+ * <p>Patterns that consist of plain text and simple "{0}" to "{9}"
+ * placeholders are parsed into literal segments and argument indexes,
+ * formatting arguments exactly like MessageFormat would (using the default
+ * Locale for numbers and dates). Patterns with format types or styles
+ * (like "{0,number,integer}" or choice formats) are delegated to a private
+ * MessageFormat prototype that gets cloned for each formatting call.
+ *
+ * <p>The result for a call without arguments is computed once on
+ * construction, so formatting a message without arguments is a simple
+ * field access.
+ *
+ * @since 1.1
+ * @see java.text.MessageFormat
+ * @see AbstractMessageSource#resolveCode
+ */
+public final class MessageTemplate {
+
+	private final String pattern;
+
+	/** Locale used for formatting numbers and dates, like MessageFormat's */
+	private final Locale locale;
+
+	/** Literal segments, one more than argument indexes (null if complex) */
+	private final String[] literals;
+
+	/** Argument indexes between the literal segments (null if complex) */
+	private final int[] argumentIndexes;
+
+	/** Prototype for complex patterns, never formatted directly */
+	private final MessageFormat prototype;
+
+	/** Result when formatted without arguments */
+	private final String messageWithoutArguments;
+
+
+	/**
+	 * Create a new MessageTemplate for the given pattern.
+	 * @param pattern the message pattern, in MessageFormat syntax
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public MessageTemplate(String pattern) throws IllegalArgumentException {
+		this.pattern = pattern;
+		this.locale = Locale.getDefault();
+		List literalList = new ArrayList(3);
+		List indexList = new ArrayList(2);
+		if (parse(pattern, literalList, indexList)) {
+			this.literals = (String[]) literalList.toArray(new String[literalList.size()]);
+			this.argumentIndexes = new int[indexList.size()];
+			for (int i = 0; i < this.argumentIndexes.length; i++) {
+				this.argumentIndexes[i] = ((Integer) indexList.get(i)).intValue();
+			}
+			this.prototype = null;
+			this.messageWithoutArguments = formatSimple(null);
+		}
+		else {
+			this.literals = null;
+			this.argumentIndexes = null;
+			this.prototype = new MessageFormat(pattern);
+			this.messageWithoutArguments = this.prototype.format(new Object[0]);
+		}
+	}
+
+	/**
+	 * Create a new MessageTemplate for the given MessageFormat, keeping its
+	 * Locale and formats. Formatting works on a clone of the MessageFormat.
+	 * @param messageFormat the MessageFormat to adapt
+	 * @see AbstractMessageSource#resolveMessageTemplate
+	 */
+	public MessageTemplate(MessageFormat messageFormat) {
+		this.prototype = (MessageFormat) messageFormat.clone();
+		this.pattern = this.prototype.toPattern();
+		this.locale = this.prototype.getLocale();
+		this.literals = null;
+		this.argumentIndexes = null;
+		this.messageWithoutArguments = this.prototype.format(new Object[0]);
+	}
+
+	/**
+	 * Parse the given pattern into literal segments and argument indexes,
+	 * following MessageFormat's quoting rules.
+	 * @return whether the pattern is simple, i.e. only contains plain
+	 * single-digit placeholders
+	 */
+	private static boolean parse(String pattern, List literalList, List indexList) {
+		StringBuffer literal = new StringBuffer(pattern.length());
+		boolean inQuote = false;
+		int length = pattern.length();
+		for (int i = 0; i < length; i++) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+					literal.append(ch);
+					i++;
+				}
+				else {
+					inQuote = !inQuote;
+				}
+			}
+			else if (ch == '{' && !inQuote) {
+				int end = pattern.indexOf('}', i + 1);
+				if (end != i + 2) {
+					// leave multi-digit indexes and format types to MessageFormat
+					return false;
+				}
+				char digit = pattern.charAt(i + 1);
+				if (digit < '0' || digit > '9') {
+					return false;
+				}
+				int index = digit - '0';
+				literalList.add(literal.toString());
+				literal.setLength(0);
+				indexList.add(new Integer(index));
+				i = end;
+			}
+			else {
+				literal.append(ch);
+			}
+		}
+		literalList.add(literal.toString());
+		return true;
+	}
+
+
+	/**
+	 * Return the original message pattern.
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Return whether this template contains argument placeholders.
+	 */
+	public boolean hasArguments() {
+		return (this.prototype != null || this.argumentIndexes.length > 0);
+	}
+
+	/**
+	 * Format this template with the given arguments.
+	 * @param args the arguments (can be null)
+	 * @return the formatted message
+	 */
+	public String format(Object[] args) {
+		if (args == null || args.length == 0 || !hasArguments()) {
+			return this.messageWithoutArguments;
+		}
+		if (this.prototype != null) {
+			return ((MessageFormat) this.prototype.clone()).format(args);
+		}
+		return formatSimple(args);
+	}
+
+	/**
+	 * Format a simple template, rendering arguments like MessageFormat
+	 * does for placeholders without format type.
+	 */
+	private String formatSimple(Object[] args) {
+		if (this.argumentIndexes.length == 0) {
+			return this.literals[0];
+		}
+		StringBuffer result = new StringBuffer(this.pattern.length() + 16);
+		for (int i = 0; i < this.argumentIndexes.length; i++) {
+			result.append(this.literals[i]);
+			int index = this.argumentIndexes[i];
+			if (args == null || index >= args.length) {
+				result.append('{').append(index).append('}');
+			}
+			else {
+				Object arg = args[index];
+				if (arg == null) {
+					result.append("null");
+				}
+				else if (arg instanceof String) {
+					result.append((String) arg);
+				}
+				else if (arg instanceof Number) {
+					result.append(NumberFormat.getInstance(this.locale).format(arg));
+				}
+				else if (arg instanceof Date) {
+					result.append(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, this.locale).format(arg));
+				}
+				else {
+					result.append(arg.toString());
+				}
+			}
+		}
+		result.append(this.literals[this.literals.length - 1]);
+		return result.toString();
+	}
+
+	/**
+	 * Create a new MessageFormat for the pattern of this template,
+	 * for callers that still work with MessageFormats.
+	 */
+	public MessageFormat toMessageFormat() {
+		if (this.prototype != null) {
+			return (MessageFormat) this.prototype.clone();
+		}
+		return new MessageFormat(this.pattern);
+	}
+
+	public String toString() {
+		return "MessageTemplate: pattern=[" + this.pattern + "]";
+	}
+
+}
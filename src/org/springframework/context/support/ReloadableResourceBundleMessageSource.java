@@ -21,16 +21,24 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.util.DefaultPropertiesPersister;
 import org.springframework.util.PropertiesPersister;
 import org.springframework.util.StringUtils;
@@ -55,6 +63,20 @@ import org.springframework.util.StringUtils;
  * resources can still be loaded from the classpath, but "cacheSeconds" values
  * other than "-1" (caching forever) will not work in this case.
  *
+ * <p>All messages of a properties file are pre-parsed into immutable
+ * MessageTemplates when the file is loaded, and the messages that apply
+ * to a Locale are merged into a single immutable code map on first access.
+ * All caches are copy-on-write, so message lookups do not need to lock.
+ *
+ * <p>With a positive "cacheSeconds" value, properties files are re-validated
+ * by a background timer, which performs the refresh itself unless a
+ * "refreshExecutor" has been specified to hand it off to.
+ * Lookups keep serving the previously loaded messages until the refreshed ones
+ * have been swapped in, and never perform file access once the files for a
+ * Locale have been loaded. Files that do not exist (typically locale-specific
+ * variants) are cached as such, and just re-checked by the background refresh.
+ * The timer gets cancelled on destruction, i.e. on close of the ApplicationContext.
+ *
  * <p>This MessageSource can easily be used outside an ApplicationContext: It uses
  * a DefaultResourceLoader as default, getting overridden with the ApplicationContext
  * if running in a context. It does not have any other specific dependencies.
@@ -67,13 +89,14 @@ import org.springframework.util.StringUtils;
  * @see #setFileEncodings
  * @see #setPropertiesPersister
  * @see #setResourceLoader
+ * @see #setRefreshExecutor
  * @see org.springframework.util.DefaultPropertiesPersister
  * @see org.springframework.core.io.DefaultResourceLoader
  * @see ResourceBundleMessageSource
  * @see java.util.ResourceBundle
  */
 public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
-    implements ResourceLoaderAware {
+    implements ResourceLoaderAware, DisposableBean {
 
 	public static final String PROPERTIES_SUFFIX = ".properties";
 
@@ -87,16 +110,30 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 
 	private long cacheMillis = -1;
 
-	/** Cache to hold filename lists per Locale */
-	private final Map cachedFilenames = new HashMap();
-
-	/** Cache to hold already loaded properties per filename */
-	private final Map cachedProperties = new HashMap();
-
 	private PropertiesPersister propertiesPersister = new DefaultPropertiesPersister();
 
 	private ResourceLoader resourceLoader = new DefaultResourceLoader();
 
+	private TaskExecutor refreshExecutor;
+
+	/** Copy-on-write cache to hold filename lists per basename and Locale */
+	private volatile Map cachedFilenames = new HashMap();
+
+	/** Copy-on-write cache to hold already loaded properties per filename */
+	private volatile Map cachedProperties = new HashMap();
+
+	/** Copy-on-write cache to hold merged code maps per Locale */
+	private volatile Map cachedMessages = new HashMap();
+
+	/** Monitor for modifications of the caches */
+	private final Object cacheMonitor = new Object();
+
+	/** Timer that triggers refresh attempts, started when the first file gets loaded */
+	private Timer refreshTimer;
+
+	/** Whether a background refresh has been triggered but not completed yet */
+	private boolean refreshActive = false;
+
 
 	/**
 	 * Set a single basename, following the basic ResourceBundle convention of
@@ -175,9 +212,14 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 	 * Note that a refresh attempt will first check the last-modified timestamp
 	 * of the file before actually reloading it; so if files don't change, this
 	 * interval can be set rather low, as refresh attempts will not actually reload.
-	 * <li>A value of "0" will check the last-modified timestamp of the file on
+	 * <li>A value of "0" will trigger a check of the last-modified timestamps on
 	 * every message access. <b>Do not use this in a production environment!</b>
 	 * </ul>
+	 * <p>Refresh attempts are scheduled by a background timer and performed by its
+	 * thread, or by the "refreshExecutor" if specified; message lookups will never
+	 * wait for them but keep returning the previously loaded messages until the
+	 * refreshed ones are available.
+	 * @see #setRefreshExecutor
 	 */
 	public void setCacheSeconds(int cacheSeconds) {
 		this.cacheMillis = cacheSeconds * 1000;
@@ -202,22 +244,89 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 		this.resourceLoader = resourceLoader;
 	}
 
+	/**
+	 * Set the TaskExecutor to perform refresh attempts with, if "cacheSeconds"
+	 * is not "-1". Default is none, performing refresh attempts in the thread
+	 * of the refresh timer, respectively in the thread that accesses a message
+	 * if "cacheSeconds" is "0". Refresh attempts that are triggered while
+	 * another one is still in progress are skipped.
+	 * <p>The lifecycle of a given TaskExecutor is not managed by this
+	 * MessageSource: for example, define it as a bean in the same context.
+	 * @see #setCacheSeconds
+	 */
+	public void setRefreshExecutor(TaskExecutor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Return the TaskExecutor to perform refresh attempts with, if any.
+	 */
+	public TaskExecutor getRefreshExecutor() {
+		return refreshExecutor;
+	}
+
 
 	protected MessageFormat resolveCode(String code, Locale locale) {
-		for (int i = 0; i < this.basenames.length; i++) {
+		MessageTemplate messageTemplate = resolveMessageTemplate(code, locale);
+		return (messageTemplate != null ? messageTemplate.toMessageFormat() : null);
+	}
+
+	protected MessageTemplate resolveMessageTemplate(String code, Locale locale) {
+		if (this.cacheMillis == 0) {
+			triggerRefresh();
+		}
+		return toMessageTemplate(getMergedMessages(locale).get(code));
+	}
+
+	/**
+	 * Return the pre-parsed messages of all bundles for the given Locale,
+	 * merged into a single immutable code map: Earlier basenames override
+	 * later ones, and more specific files override less specific ones.
+	 * <p>The code map is built on first access, loading properties files
+	 * as necessary, and rebuilt by the background refresh if any of the
+	 * files gets reloaded.
+	 * @param locale the Locale to resolve for
+	 * @return the Map with message codes as keys and pre-parsed messages as values
+	 * @see #refreshAllProperties
+	 */
+	protected Map getMergedMessages(Locale locale) {
+		Map messages = (Map) this.cachedMessages.get(locale);
+		if (messages != null) {
+			return messages;
+		}
+		// Take the cache instance first: A reload in the meantime will replace it,
+		// so the merged messages built here will never get cached if stale.
+		Map cachedMessages = this.cachedMessages;
+		messages = mergeMessages(locale, this.cachedProperties);
+		synchronized (this.cacheMonitor) {
+			if (this.cachedMessages == cachedMessages) {
+				Map newCache = new HashMap(cachedMessages);
+				newCache.put(locale, messages);
+				this.cachedMessages = newCache;
+			}
+		}
+		return messages;
+	}
+
+	/**
+	 * Merge the pre-parsed messages of all bundles for the given Locale,
+	 * taking PropertiesHolders from the given Map if available,
+	 * else from the cache respectively freshly loaded.
+	 */
+	private Map mergeMessages(Locale locale, Map propHolders) {
+		Map messages = new HashMap();
+		for (int i = this.basenames.length - 1; i >= 0; i--) {
 			List filenames = calculateAllFilenames(this.basenames[i], locale);
-			for (int j = 0; j < filenames.size(); j++) {
+			for (int j = filenames.size() - 1; j >= 0; j--) {
 				String filename = (String) filenames.get(j);
-				PropertiesHolder propHolder = getProperties(filename);
-				if (propHolder.getProperties() != null) {
-					MessageFormat result = propHolder.getMessageFormat(code);
-					if (result != null) {
-						return result;
-					}
+				PropertiesHolder propHolder = (PropertiesHolder) propHolders.get(filename);
+				if (propHolder == null) {
+					propHolder = getProperties(filename);
 				}
+				messages.putAll(propHolder.getMessages());
 			}
 		}
-		return null;
+		return Collections.unmodifiableMap(messages);
 	}
 
 	/**
@@ -231,30 +340,29 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 	 * @see #calculateFilenamesForLocale
 	 */
 	protected List calculateAllFilenames(String basename, Locale locale) {
-		synchronized (this.cachedFilenames) {
-			Map localeMap = (Map) this.cachedFilenames.get(basename);
-			if (localeMap != null) {
-				List filenames = (List) localeMap.get(locale);
-				if (filenames != null) {
-					return filenames;
-				}
-			}
-			List filenames = new ArrayList(7);
-			filenames.addAll(calculateFilenamesForLocale(basename, locale));
-			if (this.fallbackToSystemLocale && !locale.equals(Locale.getDefault())) {
-				filenames.addAll(calculateFilenamesForLocale(basename, Locale.getDefault()));
+		Map localeMap = (Map) this.cachedFilenames.get(basename);
+		if (localeMap != null) {
+			List filenames = (List) localeMap.get(locale);
+			if (filenames != null) {
+				return filenames;
 			}
-			filenames.add(basename);
-			if (localeMap != null) {
-				localeMap.put(locale, filenames);
-			}
-			else {
-				localeMap = new HashMap();
-				localeMap.put(locale, filenames);
-				this.cachedFilenames.put(basename, localeMap);
-			}
-			return filenames;
 		}
+		List filenames = new ArrayList(7);
+		filenames.addAll(calculateFilenamesForLocale(basename, locale));
+		if (this.fallbackToSystemLocale && !locale.equals(Locale.getDefault())) {
+			filenames.addAll(calculateFilenamesForLocale(basename, Locale.getDefault()));
+		}
+		filenames.add(basename);
+		filenames = Collections.unmodifiableList(filenames);
+		synchronized (this.cacheMonitor) {
+			Map newCache = new HashMap(this.cachedFilenames);
+			localeMap = (Map) newCache.get(basename);
+			localeMap = (localeMap != null ? new HashMap(localeMap) : new HashMap());
+			localeMap.put(locale, filenames);
+			newCache.put(basename, localeMap);
+			this.cachedFilenames = newCache;
+		}
+		return filenames;
 	}
 
 	/**
@@ -293,29 +401,148 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 
 	/**
 	 * Get PropertiesHolder for the given filename, either from the cache
-	 * or freshly loaded.
+	 * or freshly loaded. Expired holders are returned as-is: They will get
+	 * re-validated by the next background refresh.
+	 * <p>Starts the refresh timer when the first file gets loaded.
+	 * @see #triggerRefresh
+	 * @see #startRefreshTimer
 	 */
 	protected PropertiesHolder getProperties(String filename) {
-		synchronized (this.cachedProperties) {
-			PropertiesHolder propHolder = (PropertiesHolder) this.cachedProperties.get(filename);
-			if (propHolder != null &&
-					(propHolder.getRefreshTimestamp() < 0 ||
-					 propHolder.getRefreshTimestamp() > System.currentTimeMillis() - this.cacheMillis)) {
-				return propHolder;
+		PropertiesHolder propHolder = (PropertiesHolder) this.cachedProperties.get(filename);
+		if (propHolder != null) {
+			return propHolder;
+		}
+		propHolder = loadProperties(filename, null);
+		synchronized (this.cacheMonitor) {
+			PropertiesHolder existing = (PropertiesHolder) this.cachedProperties.get(filename);
+			if (existing != null) {
+				return existing;
+			}
+			Map newCache = new HashMap(this.cachedProperties);
+			newCache.put(filename, propHolder);
+			this.cachedProperties = newCache;
+			if (this.cacheMillis > 0 && this.refreshTimer == null) {
+				startRefreshTimer();
+			}
+		}
+		return propHolder;
+	}
+
+	/**
+	 * Start the daemon Timer that triggers a background refresh
+	 * every "cacheSeconds".
+	 * @see #setCacheSeconds
+	 * @see #triggerRefresh
+	 */
+	private void startRefreshTimer() {
+		if (logger.isInfoEnabled()) {
+			logger.info("Refreshing properties files of " + this + " every " + this.cacheMillis + " ms");
+		}
+		this.refreshTimer = new Timer(true);
+		this.refreshTimer.schedule(new TimerTask() {
+			public void run() {
+				triggerRefresh();
+			}
+		}, this.cacheMillis, this.cacheMillis);
+	}
+
+	/**
+	 * Trigger a refresh of all loaded properties files, unless there is
+	 * one in progress already. Performs the refresh in the calling thread,
+	 * or hands it to the "refreshExecutor" if specified.
+	 * @see #setRefreshExecutor
+	 * @see #refreshAllProperties
+	 */
+	protected void triggerRefresh() {
+		synchronized (this.cacheMonitor) {
+			if (this.refreshActive) {
+				return;
+			}
+			this.refreshActive = true;
+		}
+		Runnable refresh = new Runnable() {
+			public void run() {
+				try {
+					refreshAllProperties();
+				}
+				finally {
+					synchronized (cacheMonitor) {
+						refreshActive = false;
+					}
+				}
+			}
+		};
+		if (this.refreshExecutor == null) {
+			refresh.run();
+			return;
+		}
+		try {
+			this.refreshExecutor.execute(refresh);
+		}
+		catch (TaskRejectedException ex) {
+			logger.warn("Could not trigger refresh of properties files", ex);
+			synchronized (this.cacheMonitor) {
+				this.refreshActive = false;
+			}
+		}
+	}
+
+	/**
+	 * Re-validate all cached PropertiesHolders against their files.
+	 * If at least one of the files has been reloaded, the merged messages
+	 * for all cached Locales get rebuilt, and both caches are replaced
+	 * atomically: Lookups see either the old or the new messages.
+	 */
+	protected void refreshAllProperties() {
+		Map holders = this.cachedProperties;
+		Map changedHolders = new HashMap();
+		for (Iterator it = holders.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			String filename = (String) entry.getKey();
+			PropertiesHolder propHolder = (PropertiesHolder) entry.getValue();
+			PropertiesHolder newHolder = loadProperties(filename, propHolder);
+			if (newHolder != propHolder) {
+				changedHolders.put(filename, newHolder);
+			}
+		}
+		if (changedHolders.isEmpty()) {
+			return;
+		}
+		Map newHolders = new HashMap(holders);
+		newHolders.putAll(changedHolders);
+		Map newMessages = new HashMap();
+		for (Iterator it = this.cachedMessages.keySet().iterator(); it.hasNext();) {
+			Locale locale = (Locale) it.next();
+			newMessages.put(locale, mergeMessages(locale, newHolders));
+		}
+		synchronized (this.cacheMonitor) {
+			if (this.cachedProperties == holders) {
+				this.cachedProperties = newHolders;
+				this.cachedMessages = newMessages;
 			}
 			else {
-				return refreshProperties(filename, propHolder);
+				// files loaded or cache cleared in the meantime:
+				// just apply the changed holders that are still current
+				Map current = new HashMap(this.cachedProperties);
+				for (Iterator it = changedHolders.entrySet().iterator(); it.hasNext();) {
+					Map.Entry entry = (Map.Entry) it.next();
+					if (current.get(entry.getKey()) == holders.get(entry.getKey())) {
+						current.put(entry.getKey(), entry.getValue());
+					}
+				}
+				this.cachedProperties = current;
+				this.cachedMessages = new HashMap();
 			}
 		}
 	}
 
 	/**
-	 * Refresh the PropertiesHolder for the given bundle filename.
+	 * Load the PropertiesHolder for the given bundle filename.
 	 * The holder can be null if not cached before, or a timed-out cache entry
 	 * (potentially getting re-validated against the current last-modified timestamp).
+	 * @return the given holder if still valid, else a new holder
 	 */
-	protected PropertiesHolder refreshProperties(String filename, PropertiesHolder propHolder) {
-		long refreshTimestamp = (this.cacheMillis < 0) ? -1 : System.currentTimeMillis();
+	protected PropertiesHolder loadProperties(String filename, PropertiesHolder propHolder) {
 		Resource resource = this.resourceLoader.getResource(filename + PROPERTIES_SUFFIX);
 		try {
 			long fileTimestamp = -1;
@@ -324,13 +551,16 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 				// (allowing to use classpath resources if caching forever)
 				fileTimestamp = resource.getFile().lastModified();
 				if (fileTimestamp == 0) {
+					if (propHolder != null && propHolder.getProperties() == null) {
+						// still not found: keep negative cache entry
+						return propHolder;
+					}
 					throw new IOException("File [" + resource.getFile().getAbsolutePath() + "] does not exist");
 				}
 				if (propHolder != null && propHolder.getFileTimestamp() == fileTimestamp) {
 					if (logger.isDebugEnabled()) {
 						logger.debug("Re-caching properties for filename [" + filename + "] - file hasn't been modified");
 					}
-					propHolder.setRefreshTimestamp(refreshTimestamp);
 					return propHolder;
 				}
 			}
@@ -356,7 +586,7 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 					}
 					this.propertiesPersister.load(props, is);
 				}
-				propHolder = new PropertiesHolder(props, fileTimestamp);
+				return new PropertiesHolder(props, fileTimestamp);
 			}
 			finally {
 				is.close();
@@ -366,20 +596,37 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 			if (logger.isDebugEnabled()) {
 				logger.debug("Properties file [" + filename + "] not found for MessageSource: " + ex.getMessage());
 			}
+			if (propHolder != null && propHolder.getProperties() == null) {
+				// still not found
+				return propHolder;
+			}
 			// empty holder representing "not found"
-			propHolder = new PropertiesHolder();
+			return new PropertiesHolder();
 		}
-		propHolder.setRefreshTimestamp(refreshTimestamp);
-		this.cachedProperties.put(filename, propHolder);
-		return propHolder;
 	}
 
 	/**
 	 * Clear the resource bundle cache.
 	 * Following resolve calls will lead to reloading of the properties files.
 	 */
-	public synchronized void clearCache() {
-		this.cachedProperties.clear();
+	public void clearCache() {
+		synchronized (this.cacheMonitor) {
+			this.cachedProperties = new HashMap();
+			this.cachedMessages = new HashMap();
+		}
+	}
+
+	/**
+	 * Cancel the refresh timer, if started.
+	 */
+	public void destroy() {
+		synchronized (this.cacheMonitor) {
+			if (this.refreshTimer != null) {
+				logger.info("Cancelling refresh timer of " + this);
+				this.refreshTimer.cancel();
+				this.refreshTimer = null;
+			}
+		}
 	}
 
 	/**
@@ -399,28 +646,34 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 
 
 	/**
-	 * PropertiesHolder for caching.
+	 * Immutable PropertiesHolder for caching.
 	 * Stores the last-modified timestamp of the source file for efficient
-	 * change detection, and the timestamp of the last refresh attempt
-	 * (updated every time the cache entry gets re-validated).
+	 * change detection, and all messages pre-parsed into MessageTemplates.
 	 */
 	protected static class PropertiesHolder {
 
-		private Properties properties;
-
-		private long fileTimestamp = -1;
+		private final Properties properties;
 
-		private long refreshTimestamp = -1;
+		private final long fileTimestamp;
 
-		/** Cache to hold already generated MessageFormats per message code */
-		private final Map cachedMessageFormats = new HashMap();
+		/** Pre-parsed messages per message code */
+		private final Map messages;
 
 		protected PropertiesHolder(Properties properties, long fileTimestamp) {
 			this.properties = properties;
 			this.fileTimestamp = fileTimestamp;
+			Map messages = new HashMap();
+			for (Enumeration codes = properties.propertyNames(); codes.hasMoreElements();) {
+				String code = (String) codes.nextElement();
+				messages.put(code, preparseMessage(properties.getProperty(code)));
+			}
+			this.messages = Collections.unmodifiableMap(messages);
 		}
 
 		protected PropertiesHolder() {
+			this.properties = null;
+			this.fileTimestamp = -1;
+			this.messages = Collections.EMPTY_MAP;
 		}
 
 		protected Properties getProperties() {
@@ -431,29 +684,29 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 			return fileTimestamp;
 		}
 
-		protected void setRefreshTimestamp(long refreshTimestamp) {
-			this.refreshTimestamp = refreshTimestamp;
+		/**
+		 * Return the pre-parsed messages, with message codes as keys and
+		 * MessageTemplates (or Strings if not parseable) as values.
+		 * @see AbstractMessageSource#preparseMessage
+		 */
+		protected Map getMessages() {
+			return messages;
 		}
 
-		protected long getRefreshTimestamp() {
-			return refreshTimestamp;
+		/**
+		 * Return the MessageTemplate for the given code, or null if not found.
+		 */
+		protected MessageTemplate getMessageTemplate(String code) {
+			return toMessageTemplate(this.messages.get(code));
 		}
 
-		protected synchronized MessageFormat getMessageFormat(String code) {
-			synchronized (this.cachedMessageFormats) {
-				MessageFormat result = (MessageFormat) this.cachedMessageFormats.get(code);
-				if (result != null) {
-					return result;
-				}
-				else {
-					String msg = this.properties.getProperty(code);
-					if (msg != null) {
-						result = new MessageFormat(msg);
-						this.cachedMessageFormats.put(code, result);
-					}
-				}
-				return result;
-			}
+		/**
+		 * Return a new MessageFormat for the given code, or null if not found.
+		 * @see #getMessageTemplate
+		 */
+		protected MessageFormat getMessageFormat(String code) {
+			MessageTemplate messageTemplate = getMessageTemplate(code);
+			return (messageTemplate != null ? messageTemplate.toMessageFormat() : null);
 		}
 	}
 
@@ -17,6 +17,7 @@
 package org.springframework.context.support;
 
 import java.text.MessageFormat;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -34,6 +35,12 @@ import org.springframework.util.StringUtils;
  * As this MessageSource relies on ResourceBundle, it faces the same limitation.
  * Consider ReloadableResourceBundleMessageSource for an alternative.
  *
+ * <p>Loaded bundles are cached per basename and Locale, and all messages of a
+ * bundle are pre-parsed into immutable MessageTemplates on first access.
+ * Both caches are copy-on-write, so message lookups do not need to lock.
+ * Note that bundles are cached for the context ClassLoader that was active
+ * on first access.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @see #setBasenames
@@ -45,11 +52,22 @@ public class ResourceBundleMessageSource extends AbstractMessageSource {
 	private String[] basenames;
 
 	/**
-	 * Cache to hold already generated MessageFormats per message code.
-	 * Note that this Map contains the actual code Map, keyed with the Locale.
-	 * @see #getMessageFormat
+	 * Copy-on-write cache to hold loaded ResourceBundles per basename.
+	 * Note that this Map contains the actual Locale Map, keyed with the basename.
+	 * @see #getResourceBundle
+	 */
+	private volatile Map cachedResourceBundles = new HashMap();
+
+	/**
+	 * Copy-on-write cache to hold pre-parsed MessageTemplates per bundle.
+	 * Note that this Map contains the actual code Map, keyed with the ResourceBundle.
+	 * @see #getMessageTemplate
 	 */
-	private final Map cachedMessageFormats = new HashMap();
+	private volatile Map cachedMessageTemplates = new HashMap();
+
+	/** Monitor for modifications of the caches */
+	private final Object cacheMonitor = new Object();
+
 
 	/**
 	 * Set a single basename, following ResourceBundle conventions:
@@ -88,66 +106,124 @@ public class ResourceBundleMessageSource extends AbstractMessageSource {
 		return messageFormat;
 	}
 
+	protected final MessageTemplate resolveMessageTemplate(String code, Locale locale) {
+		MessageTemplate messageTemplate = null;
+		for (int i = 0; messageTemplate == null && i < this.basenames.length; i++) {
+			ResourceBundle bundle = getResourceBundle(this.basenames[i], locale);
+			if (bundle != null) {
+				messageTemplate = getMessageTemplate(bundle, code);
+			}
+		}
+		return messageTemplate;
+	}
+
 	/**
 	 * Return a MessageFormat for the given bundle basename, message code,
-	 * and Locale.
+	 * and Locale. Used by resolveCode; message resolution by this class
+	 * works on pre-parsed MessageTemplates instead.
 	 * @param basename the basename of the bundle
 	 * @param code the message code to retrieve
 	 * @param locale the Locale to resolve for
-	 * @return the resulting MessageFormat
+	 * @return the resulting MessageFormat, or null if not found
+	 * @see #resolveMessageTemplate
 	 */
 	protected MessageFormat resolve(String basename, String code, Locale locale) {
+		ResourceBundle bundle = getResourceBundle(basename, locale);
+		if (bundle == null) {
+			// assume bundle not found
+			// -> do NOT throw an exception to allow for checking parent message source
+			return null;
+		}
+		try {
+			return getMessageFormat(bundle, code);
+		}
+		catch (MissingResourceException ex) {
+			// assume key not found
+			// -> do NOT throw the exception to allow for checking parent message source
+			return null;
+		}
+	}
+
+	/**
+	 * Return a ResourceBundle for the given basename and Locale,
+	 * fetching already loaded bundles from the cache.
+	 * @param basename the basename of the bundle
+	 * @param locale the Locale to resolve for
+	 * @return the resulting ResourceBundle, or null if not found
+	 */
+	protected ResourceBundle getResourceBundle(String basename, Locale locale) {
+		Map localeMap = (Map) this.cachedResourceBundles.get(basename);
+		if (localeMap != null) {
+			ResourceBundle bundle = (ResourceBundle) localeMap.get(locale);
+			if (bundle != null) {
+				return bundle;
+			}
+		}
 		try {
 			ResourceBundle bundle = ResourceBundle.getBundle(basename, locale,
 			                                                 Thread.currentThread().getContextClassLoader());
-			try {
-				return getMessageFormat(bundle, code);
-			}
-			catch (MissingResourceException ex) {
-				// assume key not found
-				// -> do NOT throw the exception to allow for checking parent message source
-				return null;
+			synchronized (this.cacheMonitor) {
+				Map bundles = new HashMap(this.cachedResourceBundles);
+				localeMap = (Map) bundles.get(basename);
+				localeMap = (localeMap != null ? new HashMap(localeMap) : new HashMap());
+				localeMap.put(locale, bundle);
+				bundles.put(basename, localeMap);
+				this.cachedResourceBundles = bundles;
 			}
+			return bundle;
 		}
 		catch (MissingResourceException ex) {
 			logger.warn("ResourceBundle [" + basename + "] not found for MessageSource: " + ex.getMessage());
-			// assume bundle not found
-			// -> do NOT throw the exception to allow for checking parent message source
 			return null;
 		}
 	}
 
 	/**
-	 * Return a MessageFormat for the given bundle and code,
-	 * fetching already generated MessageFormats from the cache.
+	 * Return a MessageTemplate for the given bundle and code, pre-parsing
+	 * all messages of the bundle on first access.
 	 * @param bundle the ResourceBundle to work on
 	 * @param code the message code to retrieve
-	 * @return the resulting MessageFormat
+	 * @return the resulting MessageTemplate, or null if not found
 	 */
-	protected MessageFormat getMessageFormat(ResourceBundle bundle, String code) throws MissingResourceException {
-		synchronized (this.cachedMessageFormats) {
-			Map codeMap = (Map) this.cachedMessageFormats.get(bundle);
-			if (codeMap != null) {
-				MessageFormat result = (MessageFormat) codeMap.get(code);
-				if (result != null) {
-					return result;
-				}
-			}
-			String msg = bundle.getString(code);
-			if (msg != null) {
-				MessageFormat result = new MessageFormat(msg);
-				if (codeMap != null) {
-					codeMap.put(code, result);
-				}
-				else {
+	protected MessageTemplate getMessageTemplate(ResourceBundle bundle, String code) {
+		Map codeMap = (Map) this.cachedMessageTemplates.get(bundle);
+		if (codeMap == null) {
+			synchronized (this.cacheMonitor) {
+				codeMap = (Map) this.cachedMessageTemplates.get(bundle);
+				if (codeMap == null) {
 					codeMap = new HashMap();
-					codeMap.put(code, result);
-					this.cachedMessageFormats.put(bundle, codeMap);
+					for (Enumeration keys = bundle.getKeys(); keys.hasMoreElements();) {
+						String key = (String) keys.nextElement();
+						Object msg = bundle.getObject(key);
+						if (msg instanceof String) {
+							codeMap.put(key, preparseMessage((String) msg));
+						}
+					}
+					Map templates = new HashMap(this.cachedMessageTemplates);
+					templates.put(bundle, codeMap);
+					this.cachedMessageTemplates = templates;
 				}
-				return result;
 			}
-			return null;
 		}
+		return toMessageTemplate(codeMap.get(code));
+	}
+
+	/**
+	 * Return a new MessageFormat for the given bundle and code,
+	 * based on the pre-parsed MessageTemplate.
+	 * @param bundle the ResourceBundle to work on
+	 * @param code the message code to retrieve
+	 * @return the resulting MessageFormat
+	 * @throws MissingResourceException if the bundle does not contain the code
+	 * @see #getMessageTemplate
+	 */
+	protected MessageFormat getMessageFormat(ResourceBundle bundle, String code) throws MissingResourceException {
+		MessageTemplate messageTemplate = getMessageTemplate(bundle, code);
+		if (messageTemplate == null) {
+			throw new MissingResourceException("No message found for code '" + code + "'",
+			                                   bundle.getClass().getName(), code);
+		}
+		return messageTemplate.toMessageFormat();
 	}
 
 	/**
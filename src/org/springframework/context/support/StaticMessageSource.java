@@ -40,7 +40,12 @@ public class StaticMessageSource extends AbstractMessageSource {
 	private Map messages = new HashMap();
 
 	protected MessageFormat resolveCode(String code, Locale locale) {
-		return (MessageFormat) this.messages.get(code + "_" + locale.toString());
+		MessageTemplate messageTemplate = resolveMessageTemplate(code, locale);
+		return (messageTemplate != null ? messageTemplate.toMessageFormat() : null);
+	}
+
+	protected MessageTemplate resolveMessageTemplate(String code, Locale locale) {
+		return (MessageTemplate) this.messages.get(code + "_" + locale.toString());
 	}
 
 	/**
@@ -50,7 +55,7 @@ public class StaticMessageSource extends AbstractMessageSource {
 	 * @param message message associated with this lookup code
 	 */
 	public void addMessage(String code, Locale locale, String message) {
-		this.messages.put(code + "_" + locale.toString(), new MessageFormat(message));
+		this.messages.put(code + "_" + locale.toString(), new MessageTemplate(message));
 		logger.info("Added message [" + message + "] for code [" + code + "] and Locale [" + locale + "]");
 	}
 
@@ -28,7 +28,8 @@ import java.net.URL;
  *
  * <p>The "exists" method will check whether a File or InputStream can
  * be opened; "isOpen" will always return false; "getURL" and "getFile"
- * throw an exception; and "toString" will return the description.
+ * throw an exception; "lastModified" will check the File's timestamp;
+ * and "toString" will return the description.
  *
  * @author Juergen Hoeller
  * @since 28.12.2003
@@ -83,6 +84,26 @@ public abstract class AbstractResource implements Resource {
 		throw new FileNotFoundException(getDescription() + " cannot be resolved to absolute file path");
 	}
 
+	/**
+	 * Return the last-modified timestamp of this resource,
+	 * for example to validate cached content.
+	 * <p>This implementation checks the timestamp of the underlying File,
+	 * if available.
+	 * @throws IOException if the timestamp cannot be determined,
+	 * e.g. if the resource is not available in a file system
+	 * @since 1.1
+	 * @see #getFile
+	 * @see CachingResourceLoader
+	 */
+	public long lastModified() throws IOException {
+		long lastModified = getFile().lastModified();
+		if (lastModified == 0) {
+			throw new FileNotFoundException(getDescription() + " cannot be resolved in the file system " +
+			                                "for determining its last-modified timestamp");
+		}
+		return lastModified;
+	}
+
 	/**
 	 * This implementation returns the description of this resource.
 	 * @see #getDescription
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.core.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URL;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.CachedContent;
+import org.springframework.util.ContentCache;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * ResourceLoader decorator that caches the content of small resources
+ * in memory, keyed by location. Useful for files that get read again and
+ * again, like templates or message files, avoiding to reopen and re-read
+ * them on every access.
+ *
+ * <p>Content is kept in a least-recently-used cache that is bounded by the
+ * total number of bytes ("cacheSize"); resources that are larger than
+ * "maxEntrySize" are never cached but streamed from the target resource.
+ * Cached content is validated against the last-modified timestamp of the
+ * resource, at most once per "modificationCheckInterval". Resources whose
+ * timestamp cannot be determined, like class path resources within jar
+ * files, are cached without validation.
+ *
+ * <p>Resources that resolve to files are read via FileCopyUtils, using
+ * NIO FileChannels on JDK 1.4.
+ *
+ * <p>Can wrap any ResourceLoader, including an ApplicationContext,
+ * to be passed to components that load resources: for example, Velocity's
+ * SpringResourceLoader, FreeMarker's SpringTemplateLoader, or
+ * ReloadableResourceBundleMessageSource.
+ *
+ * @since 1.1
+ * @see Resource#lastModified
+ * @see org.springframework.util.FileCopyUtils#copyToByteArray(java.io.File)
+ */
+public class CachingResourceLoader implements ResourceLoader {
+
+	public static final int DEFAULT_CACHE_SIZE = 1024 * 1024;
+
+	public static final int DEFAULT_MAX_ENTRY_SIZE = 64 * 1024;
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final ResourceLoader targetResourceLoader;
+
+	private int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+	private long modificationCheckInterval = 0;
+
+	private volatile ContentCache contentCache = new ContentCache(DEFAULT_CACHE_SIZE);
+
+
+	/**
+	 * Create a new CachingResourceLoader for the given target ResourceLoader.
+	 * @param targetResourceLoader the ResourceLoader to load resources with
+	 */
+	public CachingResourceLoader(ResourceLoader targetResourceLoader) {
+		this.targetResourceLoader = targetResourceLoader;
+	}
+
+	/**
+	 * Return the ResourceLoader that this loader delegates to.
+	 */
+	public ResourceLoader getTargetResourceLoader() {
+		return targetResourceLoader;
+	}
+
+	/**
+	 * Set the maximum number of bytes to cache in total.
+	 * Default is 1 MB. Setting it clears the cache.
+	 */
+	public void setCacheSize(int cacheSize) {
+		this.contentCache = new ContentCache(cacheSize);
+	}
+
+	/**
+	 * Return the maximum number of bytes to cache in total.
+	 */
+	public int getCacheSize() {
+		return this.contentCache.getCapacity();
+	}
+
+	/**
+	 * Set the maximum size of a resource that gets cached, in bytes.
+	 * Default is 64 KB. Larger resources are always read from the target.
+	 */
+	public void setMaxEntrySize(int maxEntrySize) {
+		this.maxEntrySize = maxEntrySize;
+	}
+
+	/**
+	 * Return the maximum size of a resource that gets cached, in bytes.
+	 */
+	public int getMaxEntrySize() {
+		return maxEntrySize;
+	}
+
+	/**
+	 * Set the minimum interval between two checks of a cached resource's
+	 * last-modified timestamp, in milliseconds. Default is 0, checking the
+	 * timestamp on every access. A value of -1 will never check.
+	 * <p>Checking a file timestamp is still a lot cheaper than reopening
+	 * the file, but an interval of a few seconds is usually appropriate
+	 * in production.
+	 */
+	public void setModificationCheckInterval(long modificationCheckInterval) {
+		this.modificationCheckInterval = modificationCheckInterval;
+	}
+
+	/**
+	 * Return the minimum interval between two checks of a cached
+	 * resource's last-modified timestamp, in milliseconds.
+	 */
+	public long getModificationCheckInterval() {
+		return modificationCheckInterval;
+	}
+
+
+	/**
+	 * Return a Resource that caches the content of the target resource.
+	 * Open resources are returned as-is, as they can only be read once.
+	 * @see Resource#isOpen
+	 */
+	public Resource getResource(String location) {
+		Resource resource = this.targetResourceLoader.getResource(location);
+		if (resource.isOpen()) {
+			return resource;
+		}
+		return new CachedResource(location, resource);
+	}
+
+	/**
+	 * Return an InputStream for the content of the given resource,
+	 * taking the content from the cache if still valid.
+	 * @param location the location that the resource has been loaded with
+	 * @param resource the target resource
+	 * @return the InputStream
+	 * @throws IOException if the resource could not be read
+	 */
+	protected InputStream getInputStream(String location, Resource resource) throws IOException {
+		ContentCache contentCache = this.contentCache;
+		long now = System.currentTimeMillis();
+		CheckedContent content = (CheckedContent) contentCache.get(location);
+		if (content != null) {
+			if (content.getTimestamp() < 0 || this.modificationCheckInterval < 0 ||
+					now - content.lastChecked < this.modificationCheckInterval) {
+				return new ByteArrayInputStream(content.getContent());
+			}
+			if (determineLastModified(resource) == content.getTimestamp()) {
+				content.lastChecked = now;
+				return new ByteArrayInputStream(content.getContent());
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cached content of " + resource.getDescription() + " is outdated - re-reading");
+			}
+			contentCache.remove(location);
+		}
+
+		long lastModified = determineLastModified(resource);
+		File file = null;
+		try {
+			file = resource.getFile();
+		}
+		catch (IOException ex) {
+			// not available in the file system -> read from stream
+		}
+		if (file != null) {
+			if (file.length() > this.maxEntrySize) {
+				return resource.getInputStream();
+			}
+			byte[] bytes = FileCopyUtils.copyToByteArray(file);
+			contentCache.put(location, new CheckedContent(bytes, lastModified, now));
+			return new ByteArrayInputStream(bytes);
+		}
+
+		InputStream is = resource.getInputStream();
+		byte[] buffer = new byte[this.maxEntrySize + 1];
+		int length = 0;
+		int count = 0;
+		while (length < buffer.length && (count = is.read(buffer, length, buffer.length - length)) != -1) {
+			length += count;
+		}
+		if (length > this.maxEntrySize) {
+			// too large to cache: return what we've read plus the rest of the stream
+			return new SequenceInputStream(new ByteArrayInputStream(buffer, 0, length), is);
+		}
+		is.close();
+		byte[] bytes = new byte[length];
+		System.arraycopy(buffer, 0, bytes, 0, length);
+		contentCache.put(location, new CheckedContent(bytes, lastModified, now));
+		return new ByteArrayInputStream(bytes);
+	}
+
+	/**
+	 * Determine the last-modified timestamp of the given resource:
+	 * via AbstractResource's lastModified method, or via the timestamp
+	 * of the resource's File for other Resource implementations.
+	 * @return the timestamp, or -1 if it cannot be determined
+	 * @see AbstractResource#lastModified
+	 */
+	private long determineLastModified(Resource resource) {
+		try {
+			if (resource instanceof AbstractResource) {
+				return ((AbstractResource) resource).lastModified();
+			}
+			long lastModified = resource.getFile().lastModified();
+			return (lastModified != 0 ? lastModified : -1);
+		}
+		catch (IOException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Remove all cached content.
+	 */
+	public void clearCache() {
+		this.contentCache.clear();
+	}
+
+
+	/**
+	 * Resource handle returned by CachingResourceLoader, delegating to the
+	 * target resource except for the content.
+	 */
+	private class CachedResource extends AbstractResource {
+
+		private final String location;
+
+		private final Resource target;
+
+		private CachedResource(String location, Resource target) {
+			this.location = location;
+			this.target = target;
+		}
+
+		public boolean exists() {
+			return this.target.exists();
+		}
+
+		public URL getURL() throws IOException {
+			return this.target.getURL();
+		}
+
+		public File getFile() throws IOException {
+			return this.target.getFile();
+		}
+
+		public long lastModified() throws IOException {
+			if (this.target instanceof AbstractResource) {
+				return ((AbstractResource) this.target).lastModified();
+			}
+			return super.lastModified();
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return CachingResourceLoader.this.getInputStream(this.location, this.target);
+		}
+
+		public String getDescription() {
+			return this.target.getDescription();
+		}
+	}
+
+
+	/**
+	 * Cached content of a resource with its last-modified timestamp,
+	 * remembering when the timestamp has last been checked.
+	 */
+	private static class CheckedContent extends CachedContent {
+
+		private volatile long lastChecked;
+
+		private CheckedContent(byte[] bytes, long lastModified, long lastChecked) {
+			super(bytes, lastModified);
+			this.lastChecked = lastChecked;
+		}
+	}
+
+}
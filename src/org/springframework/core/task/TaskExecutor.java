@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.core.task;
+
+/**
+ * Simple task executor interface that abstracts the execution of a Runnable.
+ *
+ * <p>Implementations can use all sorts of different execution strategies,
+ * like synchronous execution in the calling thread, or asynchronous
+ * execution in a bounded pool of worker threads.
+ *
+ * <p>Mirrors the role of JDK 1.5's Executor interface, but is available
+ * on JDK 1.3 and does not depend on any backport library.
+ *
+ * @since 1.1
+ * @see SyncTaskExecutor
+ * @see ThreadPoolTaskExecutor
+ */
+public interface TaskExecutor {
+
+	/**
+	 * Execute the given task.
+	 * <p>The call might return immediately if the implementation uses
+	 * an asynchronous execution strategy, or might block in the case
+	 * of synchronous execution.
+	 * @param task the Runnable to execute
+	 * @throws TaskRejectedException if the given task was not accepted
+	 */
+	void execute(Runnable task) throws TaskRejectedException;
+
+}
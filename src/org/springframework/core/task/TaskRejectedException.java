@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.core.task;
+
+import org.springframework.core.NestedRuntimeException;
+
+/**
+ * Exception thrown when a TaskExecutor rejects to accept
+ * a given task for execution, e.g. because its queue is full.
+ *
+ * @since 1.1
+ * @see TaskExecutor#execute
+ */
+public class TaskRejectedException extends NestedRuntimeException {
+
+	/**
+	 * Create a new TaskRejectedException.
+	 * @param msg the detail message
+	 */
+	public TaskRejectedException(String msg) {
+		super(msg);
+	}
+
+	/**
+	 * Create a new TaskRejectedException.
+	 * @param msg the detail message
+	 * @param ex the root cause
+	 */
+	public TaskRejectedException(String msg, Throwable ex) {
+		super(msg, ex);
+	}
+
+}
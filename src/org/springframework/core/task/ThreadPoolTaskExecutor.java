@@ -0,0 +1,301 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.core.task;
+
+import java.util.LinkedList;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.Constants;
+
+/**
+ * TaskExecutor implementation that executes tasks asynchronously
+ * in a fixed number of worker threads, fed by a bounded queue.
+ *
+ * <p>Worker threads are started lazily on first use, up to "poolSize".
+ * A new task is handed to an idle worker or a newly started one if possible,
+ * else queued. If the queue has reached its "queueCapacity", the "rejectionPolicy"
+ * decides what happens to further tasks: they can be rejected with a
+ * TaskRejectedException (the default), silently discarded, or executed
+ * in the calling thread, which effectively throttles the submitter.
+ *
+ * <p>Only depends on JDK 1.3 facilities. Call "shutdown" to stop the
+ * worker threads. When defined as a bean, specify "shutdown" as destroy
+ * method, to stop the worker threads when the application context gets closed.
+ *
+ * @since 1.1
+ * @see #setPoolSize
+ * @see #setQueueCapacity
+ * @see #setRejectionPolicy
+ * @see #shutdown
+ */
+public class ThreadPoolTaskExecutor implements TaskExecutor {
+
+	/**
+	 * Prefix for rejection policy constants.
+	 */
+	public static final String REJECTION_POLICY_CONSTANT_PREFIX = "REJECTION_POLICY";
+
+	/**
+	 * Reject the task with a TaskRejectedException.
+	 */
+	public static final int REJECTION_POLICY_ABORT = 0;
+
+	/**
+	 * Silently discard the task.
+	 */
+	public static final int REJECTION_POLICY_DISCARD = 1;
+
+	/**
+	 * Execute the task in the calling thread.
+	 */
+	public static final int REJECTION_POLICY_CALLER_RUNS = 2;
+
+	/** Default name prefix for worker threads */
+	public static final String DEFAULT_THREAD_NAME_PREFIX = "ThreadPoolTaskExecutor-";
+
+
+	/** Constants instance for ThreadPoolTaskExecutor */
+	private static final Constants constants = new Constants(ThreadPoolTaskExecutor.class);
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private int poolSize = 1;
+
+	private int queueCapacity = Integer.MAX_VALUE;
+
+	private int rejectionPolicy = REJECTION_POLICY_ABORT;
+
+	private boolean daemon = true;
+
+	private String threadNamePrefix = DEFAULT_THREAD_NAME_PREFIX;
+
+	/** Pending tasks, guarded by itself */
+	private final LinkedList queue = new LinkedList();
+
+	/** Number of live worker threads, guarded by queue */
+	private int workerCount = 0;
+
+	/** Number of worker threads waiting for a task, guarded by queue */
+	private int idleWorkerCount = 0;
+
+	/** Whether shutdown has been called, guarded by queue */
+	private boolean shutdown = false;
+
+
+	/**
+	 * Set the number of worker threads. Default is 1.
+	 */
+	public void setPoolSize(int poolSize) {
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("poolSize must be at least 1");
+		}
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * Return the number of worker threads.
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * Set the maximum number of tasks waiting for execution.
+	 * Default is unbounded. A capacity of 0 accepts a task only
+	 * if it can be handed to an idle or newly started worker.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 0) {
+			throw new IllegalArgumentException("queueCapacity must not be negative");
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Return the maximum number of tasks waiting for execution.
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Set the rejection policy by the name of the corresponding constant
+	 * in this class, e.g. "REJECTION_POLICY_CALLER_RUNS".
+	 * @param constantName name of the constant
+	 * @throws java.lang.IllegalArgumentException if an invalid constant was specified
+	 * @see #REJECTION_POLICY_ABORT
+	 * @see #REJECTION_POLICY_DISCARD
+	 * @see #REJECTION_POLICY_CALLER_RUNS
+	 */
+	public void setRejectionPolicyName(String constantName) throws IllegalArgumentException {
+		if (constantName == null || !constantName.startsWith(REJECTION_POLICY_CONSTANT_PREFIX)) {
+			throw new IllegalArgumentException("Only rejection policy constants allowed");
+		}
+		setRejectionPolicy(constants.asNumber(constantName).intValue());
+	}
+
+	/**
+	 * Set what to do with tasks that do not fit into the queue anymore.
+	 * Default is REJECTION_POLICY_ABORT.
+	 * @see #REJECTION_POLICY_ABORT
+	 * @see #REJECTION_POLICY_DISCARD
+	 * @see #REJECTION_POLICY_CALLER_RUNS
+	 */
+	public void setRejectionPolicy(int rejectionPolicy) {
+		if (!constants.getValues(REJECTION_POLICY_CONSTANT_PREFIX).contains(new Integer(rejectionPolicy))) {
+			throw new IllegalArgumentException("Only values of rejection policy constants allowed");
+		}
+		this.rejectionPolicy = rejectionPolicy;
+	}
+
+	/**
+	 * Return what to do with tasks that do not fit into the queue anymore.
+	 */
+	public int getRejectionPolicy() {
+		return rejectionPolicy;
+	}
+
+	/**
+	 * Set whether worker threads should be daemon threads,
+	 * i.e. not keep the VM alive on their own. Default is true.
+	 */
+	public void setDaemon(boolean daemon) {
+		this.daemon = daemon;
+	}
+
+	/**
+	 * Set the name prefix for worker threads.
+	 * Default is "ThreadPoolTaskExecutor-".
+	 */
+	public void setThreadNamePrefix(String threadNamePrefix) {
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+
+	public void execute(Runnable task) throws TaskRejectedException {
+		synchronized (this.queue) {
+			if (this.shutdown) {
+				throw new TaskRejectedException("ThreadPoolTaskExecutor has been shut down");
+			}
+			// an idle worker that has not been claimed by a queued task yet?
+			boolean idleWorker = (this.idleWorkerCount > this.queue.size());
+			if (idleWorker || this.workerCount < this.poolSize || this.queue.size() < this.queueCapacity) {
+				this.queue.addLast(task);
+				if (idleWorker || this.workerCount >= this.poolSize) {
+					this.queue.notify();
+				}
+				else {
+					startWorker();
+				}
+				return;
+			}
+		}
+		// queue full: apply rejection policy outside of the lock
+		switch (this.rejectionPolicy) {
+			case REJECTION_POLICY_CALLER_RUNS:
+				task.run();
+				break;
+			case REJECTION_POLICY_DISCARD:
+				if (logger.isDebugEnabled()) {
+					logger.debug("Queue capacity of " + this.queueCapacity + " reached - discarding task [" + task + "]");
+				}
+				break;
+			default:
+				throw new TaskRejectedException("Queue capacity of " + this.queueCapacity +
+				                                " reached - rejecting task [" + task + "]");
+		}
+	}
+
+	/**
+	 * Start a new worker thread. Called with the queue lock held.
+	 */
+	private void startWorker() {
+		this.workerCount++;
+		Thread thread = new Thread(new Worker(), this.threadNamePrefix + this.workerCount);
+		thread.setDaemon(this.daemon);
+		thread.start();
+	}
+
+	/**
+	 * Return the number of tasks currently waiting for execution.
+	 */
+	public int getQueueSize() {
+		synchronized (this.queue) {
+			return this.queue.size();
+		}
+	}
+
+	/**
+	 * Stop accepting new tasks and let the worker threads terminate
+	 * once they have processed the tasks that are already queued.
+	 */
+	public void shutdown() {
+		synchronized (this.queue) {
+			this.shutdown = true;
+			this.queue.notifyAll();
+		}
+	}
+
+
+	/**
+	 * Worker that takes tasks from the queue until shutdown.
+	 * Exceptions thrown by tasks are logged and do not end the worker.
+	 */
+	private class Worker implements Runnable {
+
+		public void run() {
+			try {
+				while (true) {
+					Runnable task = null;
+					synchronized (queue) {
+						while (queue.isEmpty()) {
+							if (shutdown) {
+								return;
+							}
+							idleWorkerCount++;
+							try {
+								queue.wait();
+							}
+							catch (InterruptedException ex) {
+								return;
+							}
+							finally {
+								idleWorkerCount--;
+							}
+						}
+						task = (Runnable) queue.removeFirst();
+					}
+					try {
+						task.run();
+					}
+					catch (Throwable ex) {
+						logger.error("Task [" + task + "] threw exception", ex);
+					}
+				}
+			}
+			finally {
+				// a later execute call starts a replacement if necessary
+				synchronized (queue) {
+					workerCount--;
+				}
+			}
+		}
+	}
+
+}
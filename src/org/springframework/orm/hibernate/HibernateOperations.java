@@ -245,6 +245,28 @@ public interface HibernateOperations {
 	 */
 	void deleteAll(final Collection entities) throws DataAccessException;
 
+	/**
+	 * Save all given transient instances.
+	 * Flushes and clears the Session periodically if a bulk flush size is set.
+	 * @param entities the transient instances to save
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setBulkFlushSize
+	 * @see net.sf.hibernate.Session#save(Object)
+	 */
+	void saveAll(final Collection entities) throws DataAccessException;
+
+	/**
+	 * Save respectively update all given persistent instances,
+	 * according to their IDs (matching the configured "unsaved-value"?).
+	 * Flushes and clears the Session periodically if a bulk flush size is set.
+	 * @param entities the persistent instances to save respectively update
+	 * (to be associated with the Hibernate Session)
+	 * @throws DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setBulkFlushSize
+	 * @see net.sf.hibernate.Session#saveOrUpdate(Object)
+	 */
+	void saveOrUpdateAll(final Collection entities) throws DataAccessException;
+
 
 	//-------------------------------------------------------------------------
 	// Convenience finder methods
@@ -260,6 +282,30 @@ public interface HibernateOperations {
 	 */
 	List find(final String queryString) throws DataAccessException;
 
+	/**
+	 * Execute a query and stream its results to the given handler,
+	 * evicting each result from the Session after processing it.
+	 * @param queryString a query expressed in Hibernate's query language
+	 * @param handler the handler to process the results with
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see net.sf.hibernate.Query#scroll
+	 */
+	void scroll(final String queryString, final ResultCallbackHandler handler)
+			throws DataAccessException;
+
+	/**
+	 * Execute a query and stream its results to the given handler,
+	 * evicting each result from the Session after processing it.
+	 * Binds a number of values to "?" parameters in the query string.
+	 * @param queryString a query expressed in Hibernate's query language
+	 * @param values the values of the parameters
+	 * @param handler the handler to process the results with
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see net.sf.hibernate.Query#scroll
+	 */
+	void scroll(final String queryString, final Object[] values, final ResultCallbackHandler handler)
+			throws DataAccessException;
+
 	/**
 	 * Execute a query for persistent instances, binding
 	 * one value to a "?" parameter in the query string.
@@ -326,6 +372,40 @@ public interface HibernateOperations {
 	List findByValueBean(final String queryString, final Object valueBean)
 			throws DataAccessException;
 
+	/**
+	 * Execute a query for persistent instances, caching the result
+	 * in the given region of the template's QueryResultCache.
+	 * <p>Persistent instances are cached as identifiers and re-read through
+	 * the current Session on each call, like Hibernate's own query cache does.
+	 * Their classes must be mapped to Hibernate's second-level cache, to avoid
+	 * a database hit per instance: else an InvalidDataAccessApiUsageException
+	 * is thrown. Scalar values are cached as they are and must not be modified.
+	 * @param regionName the name of the QueryCacheRegion
+	 * @param queryString a query expressed in Hibernate's query language
+	 * @return a List containing 0 or more persistent instances
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setQueryResultCache
+	 * @see net.sf.hibernate.Session#load(Class, java.io.Serializable)
+	 */
+	List findCached(final String regionName, final String queryString)
+			throws DataAccessException;
+
+	/**
+	 * Execute a query for persistent instances, binding a
+	 * number of values to "?" parameters in the query string,
+	 * and caching the result in the given region of the template's
+	 * QueryResultCache. Persistent instances are cached as identifiers and
+	 * re-read through the current Session on each call.
+	 * @param regionName the name of the QueryCacheRegion
+	 * @param queryString a query expressed in Hibernate's query language
+	 * @param values the values of the parameters, or null if none
+	 * @return a List containing 0 or more persistent instances
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setQueryResultCache
+	 */
+	List findCached(final String regionName, final String queryString, final Object[] values)
+			throws DataAccessException;
+
 	/**
 	 * Execute a named query for persistent instances.
 	 * A named query is defined in a Hibernate mapping file.
@@ -469,4 +549,20 @@ public interface HibernateOperations {
 	List findByNamedQueryAndValueBean(final String queryName, final Object valueBean)
 			throws DataAccessException;
 
+	/**
+	 * Execute a named query for persistent instances, binding a
+	 * number of values to "?" parameters in the query string,
+	 * and caching the result in the given region of the template's
+	 * QueryResultCache. Persistent instances are cached as identifiers and
+	 * re-read through the current Session on each call.
+	 * @param regionName the name of the QueryCacheRegion
+	 * @param queryName the name of a Hibernate query in a mapping file
+	 * @param values the values of the parameters, or null if none
+	 * @return a List containing 0 or more persistent instances
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setQueryResultCache
+	 */
+	List findByNamedQueryCached(final String regionName, final String queryName, final Object[] values)
+			throws DataAccessException;
+
 }
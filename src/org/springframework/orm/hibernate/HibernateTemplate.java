@@ -18,20 +18,33 @@ package org.springframework.orm.hibernate;
 
 import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import net.sf.hibernate.Criteria;
 import net.sf.hibernate.FlushMode;
+import net.sf.hibernate.Hibernate;
 import net.sf.hibernate.HibernateException;
+import net.sf.hibernate.Interceptor;
 import net.sf.hibernate.LockMode;
 import net.sf.hibernate.Query;
+import net.sf.hibernate.ScrollableResults;
 import net.sf.hibernate.Session;
 import net.sf.hibernate.SessionFactory;
+import net.sf.hibernate.engine.SessionFactoryImplementor;
+import net.sf.hibernate.persister.ClassPersister;
 import net.sf.hibernate.type.Type;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.orm.support.QueryCacheKey;
+import org.springframework.orm.support.QueryResultCache;
+import org.springframework.orm.support.QueryResultLoader;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
@@ -72,6 +85,20 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
  * Spring configuration (use JtaTransactionManager instead), without needing
  * to touch application code.
  *
+ * <p>For large bulk operations, set a "bulkFlushSize" to flush and clear the
+ * Session periodically in saveAll, saveOrUpdateAll and deleteAll, and use the
+ * scroll methods for streaming reads. This keeps the Session's first-level
+ * cache from growing with the number of processed objects.
+ *
+ * <p>Results of frequently executed queries, typically for reference data,
+ * can be cached via the findCached methods, given a QueryResultCache.
+ * Persistent instances are cached as identifiers and re-read through the
+ * current Session, like Hibernate's own query cache does: their classes
+ * need to be mapped to Hibernate's second-level cache. Writes are registered
+ * with the cache once they have been flushed, by a QueryResultCacheInterceptor
+ * on the template's Sessions and by the template's write methods,
+ * invalidating the affected cache regions on commit.
+ *
  * <p>LocalSessionFactoryBean is the preferred way of obtaining a reference
  * to a specific Hibernate SessionFactory, at least in a non-EJB environment.
  *
@@ -90,6 +117,10 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 
 	private boolean allowCreate = true;
 
+	private int bulkFlushSize = 0;
+
+	private QueryResultCache queryResultCache;
+
 	/**
 	 * Create a new HibernateTemplate instance.
 	 */
@@ -136,11 +167,81 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 		return allowCreate;
 	}
 
+	/**
+	 * Set the number of objects after which bulk operations like saveAll
+	 * flush and clear the Session, to keep its first-level cache small.
+	 * Default is 0, i.e. no intermediate flushing.
+	 * <p>The size gets rounded up to a multiple of the JDBC batch size of the
+	 * SessionFactory ("hibernate.jdbc.batch_size", e.g. specified in the
+	 * LocalSessionFactoryBean's hibernateProperties), so that each flush
+	 * sends full JDBC batches.
+	 * <p>Note that clearing the Session detaches all persistent objects,
+	 * including those that have been loaded before the bulk operation.
+	 * @see #saveAll
+	 * @see #saveOrUpdateAll
+	 * @see #deleteAll
+	 * @see net.sf.hibernate.Session#clear
+	 * @see LocalSessionFactoryBean#setHibernateProperties
+	 */
+	public void setBulkFlushSize(int bulkFlushSize) {
+		this.bulkFlushSize = bulkFlushSize;
+	}
+
+	/**
+	 * Return the number of objects after which bulk operations
+	 * flush and clear the Session.
+	 */
+	public int getBulkFlushSize() {
+		return bulkFlushSize;
+	}
+
+	/**
+	 * Set the QueryResultCache to use for the findCached methods.
+	 * Default is none, executing those queries without caching.
+	 * <p>Sessions that this template opens itself get a QueryResultCacheInterceptor,
+	 * registering all flushed writes with the cache. For pre-bound Sessions,
+	 * for example from HibernateTransactionManager, specify such an
+	 * interceptor there or on LocalSessionFactoryBean.
+	 * <p>The cache can be shared with other templates, for example with a
+	 * JdoTemplate that accesses the same database. Other writes, for example
+	 * via JDBC, need to be registered with the cache manually.
+	 * @see QueryResultCacheInterceptor
+	 * @see #findCached
+	 * @see #findByNamedQueryCached
+	 * @see org.springframework.orm.support.QueryResultCache#registerWrite
+	 */
+	public void setQueryResultCache(QueryResultCache queryResultCache) {
+		this.queryResultCache = queryResultCache;
+	}
+
+	/**
+	 * Return the QueryResultCache to use for the findCached methods, if any.
+	 */
+	public QueryResultCache getQueryResultCache() {
+		return queryResultCache;
+	}
+
+
+	/**
+	 * Return the entity interceptor for Sessions that this template opens:
+	 * the specified entity interceptor, wrapped in a QueryResultCacheInterceptor
+	 * if a QueryResultCache has been set.
+	 * @see #setEntityInterceptor
+	 * @see #setQueryResultCache
+	 */
+	protected Interceptor getSessionInterceptor() {
+		Interceptor entityInterceptor = getEntityInterceptor();
+		if (this.queryResultCache == null || (entityInterceptor instanceof QueryResultCacheInterceptor &&
+				((QueryResultCacheInterceptor) entityInterceptor).getQueryResultCache() == this.queryResultCache)) {
+			return entityInterceptor;
+		}
+		return new QueryResultCacheInterceptor(this.queryResultCache, entityInterceptor);
+	}
 
 	public Object execute(HibernateCallback action) throws DataAccessException {
 		Session session = (!this.allowCreate ?
 				SessionFactoryUtils.getSession(getSessionFactory(), false) :
-				SessionFactoryUtils.getSession(getSessionFactory(), getEntityInterceptor(),
+				SessionFactoryUtils.getSession(getSessionFactory(), getSessionInterceptor(),
 																			 getJdbcExceptionTranslator()));
 		boolean existingTransaction = TransactionSynchronizationManager.hasResource(getSessionFactory());
 		if (!existingTransaction && getFlushMode() == FLUSH_NEVER) {
@@ -237,11 +338,13 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 	}
 
 	public Serializable save(final Object entity) throws DataAccessException {
-		return (Serializable) execute(new HibernateCallback() {
+		Serializable id = (Serializable) execute(new HibernateCallback() {
 			public Object doInHibernate(Session session) throws HibernateException {
 				return session.save(entity);
 			}
 		});
+		registerWrite(entity);
+		return id;
 	}
 
 	public void save(final Object entity, final Serializable id) throws DataAccessException {
@@ -251,6 +354,7 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 				return null;
 			}
 		});
+		registerWrite(entity);
 	}
 
 	public void saveOrUpdate(final Object entity) throws DataAccessException {
@@ -260,14 +364,17 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 				return null;
 			}
 		});
+		registerWrite(entity);
 	}
 
 	public Object saveOrUpdateCopy(final Object entity) throws DataAccessException {
-		return execute(new HibernateCallback() {
+		Object copy = execute(new HibernateCallback() {
 			public Object doInHibernate(Session session) throws HibernateException {
 				return session.saveOrUpdateCopy(entity);
 			}
 		});
+		registerWrite(entity);
+		return copy;
 	}
 
 	public void update(final Object entity) throws DataAccessException {
@@ -277,6 +384,7 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 				return null;
 			}
 		});
+		registerWrite(entity);
 	}
 
 	public void update(final Object entity, final LockMode lockMode) throws DataAccessException {
@@ -287,6 +395,7 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 				return null;
 			}
 		});
+		registerWrite(entity);
 	}
 
 	public void delete(final Object entity) throws DataAccessException {
@@ -296,6 +405,7 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 				return null;
 			}
 		});
+		registerWrite(entity);
 	}
 
 	public void delete(final Object entity, final LockMode lockMode) throws DataAccessException {
@@ -306,17 +416,116 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 				return null;
 			}
 		});
+		registerWrite(entity);
 	}
 
 	public void deleteAll(final Collection entities) throws DataAccessException {
 		execute(new HibernateCallback() {
 			public Object doInHibernate(Session session) throws HibernateException {
+				int flushSize = getEffectiveBulkFlushSize();
+				int count = 0;
 				for (Iterator it = entities.iterator(); it.hasNext();) {
 					session.delete(it.next());
+					flushAndClearIfNecessary(session, ++count, flushSize);
 				}
 				return null;
 			}
 		});
+		registerWrites(entities);
+	}
+
+	public void saveAll(final Collection entities) throws DataAccessException {
+		execute(new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException {
+				int flushSize = getEffectiveBulkFlushSize();
+				int count = 0;
+				for (Iterator it = entities.iterator(); it.hasNext();) {
+					session.save(it.next());
+					flushAndClearIfNecessary(session, ++count, flushSize);
+				}
+				return null;
+			}
+		});
+		registerWrites(entities);
+	}
+
+	public void saveOrUpdateAll(final Collection entities) throws DataAccessException {
+		execute(new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException {
+				int flushSize = getEffectiveBulkFlushSize();
+				int count = 0;
+				for (Iterator it = entities.iterator(); it.hasNext();) {
+					session.saveOrUpdate(it.next());
+					flushAndClearIfNecessary(session, ++count, flushSize);
+				}
+				return null;
+			}
+		});
+		registerWrites(entities);
+	}
+
+	/**
+	 * Return the bulk flush size to use, rounded up to a multiple
+	 * of the JDBC batch size of the SessionFactory, if available.
+	 * @see #setBulkFlushSize
+	 * @see net.sf.hibernate.engine.SessionFactoryImplementor#getJdbcBatchSize
+	 */
+	protected int getEffectiveBulkFlushSize() {
+		int flushSize = this.bulkFlushSize;
+		if (flushSize > 0 && getSessionFactory() instanceof SessionFactoryImplementor) {
+			int jdbcBatchSize = ((SessionFactoryImplementor) getSessionFactory()).getJdbcBatchSize();
+			if (jdbcBatchSize > 1 && flushSize % jdbcBatchSize != 0) {
+				flushSize += jdbcBatchSize - flushSize % jdbcBatchSize;
+			}
+		}
+		return flushSize;
+	}
+
+	/**
+	 * Flush and clear the given Session if the given number of processed
+	 * objects is a multiple of the given flush size.
+	 * @param session current Hibernate Session
+	 * @param count the number of objects processed so far
+	 * @param flushSize the bulk flush size, or 0 for no intermediate flushing
+	 * @throws HibernateException in case of Hibernate errors
+	 */
+	protected void flushAndClearIfNecessary(Session session, int count, int flushSize)
+			throws HibernateException {
+		if (flushSize > 0 && count % flushSize == 0) {
+			session.flush();
+			session.clear();
+		}
+	}
+
+	/**
+	 * Register a write to the given object with the QueryResultCache, if any.
+	 * Called once the write operation has been executed, that is, after the
+	 * Session has been flushed if not within a transaction.
+	 * @param entity the written persistent instance
+	 * @see org.springframework.orm.support.QueryResultCache#registerWrite
+	 */
+	protected void registerWrite(Object entity) {
+		if (this.queryResultCache != null) {
+			this.queryResultCache.registerWrite(entity.getClass());
+		}
+	}
+
+	/**
+	 * Register writes to the given objects with the QueryResultCache, if any,
+	 * registering each distinct class only once.
+	 * @param entities the written persistent instances
+	 * @see #registerWrite
+	 */
+	protected void registerWrites(Collection entities) {
+		if (this.queryResultCache != null) {
+			Set entityClasses = new HashSet();
+			for (Iterator it = entities.iterator(); it.hasNext();) {
+				Class entityClass = it.next().getClass();
+				if (entityClasses.add(entityClass)) {
+					this.queryResultCache.registerWrite(entityClass);
+				}
+			}
+		}
 	}
 
 
@@ -333,6 +542,41 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 		});
 	}
 
+	public void scroll(final String queryString, final ResultCallbackHandler handler)
+			throws DataAccessException {
+		scroll(queryString, null, handler);
+	}
+
+	public void scroll(final String queryString, final Object[] values, final ResultCallbackHandler handler)
+			throws DataAccessException {
+		execute(new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException, SQLException {
+				Query queryObject = createQuery(session, queryString);
+				if (values != null) {
+					for (int i = 0; i < values.length; i++) {
+						queryObject.setParameter(i, values[i]);
+					}
+				}
+				ScrollableResults results = queryObject.scroll();
+				try {
+					while (results.next()) {
+						Object[] row = results.get();
+						handler.processResult(row.length == 1 ? row[0] : row);
+						for (int i = 0; i < row.length; i++) {
+							if (row[i] != null) {
+								session.evict(row[i]);
+							}
+						}
+					}
+				}
+				finally {
+					results.close();
+				}
+				return null;
+			}
+		});
+	}
+
 	public List find(final String queryString, final Object value) throws DataAccessException {
 		return executeFind(new HibernateCallback() {
 			public Object doInHibernate(Session session) throws HibernateException {
@@ -395,6 +639,28 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 		});
 	}
 
+	public List findCached(String regionName, String queryString) throws DataAccessException {
+		return findCached(regionName, queryString, null);
+	}
+
+	public List findCached(String regionName, final String queryString, final Object[] values)
+			throws DataAccessException {
+		if (this.queryResultCache == null) {
+			return (values != null ? find(queryString, values) : find(queryString));
+		}
+		return executeCachedFind(regionName, new QueryCacheKey(queryString, values), new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException {
+				Query queryObject = createQuery(session, queryString);
+				if (values != null) {
+					for (int i = 0; i < values.length; i++) {
+						queryObject.setParameter(i, values[i]);
+					}
+				}
+				return queryObject.list();
+			}
+		});
+	}
+
 	public List findByNamedQuery(final String queryName) throws DataAccessException {
 		return executeFind(new HibernateCallback() {
 			public Object doInHibernate(Session session) throws HibernateException {
@@ -516,6 +782,132 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 		});
 	}
 
+	public List findByNamedQueryCached(String regionName, final String queryName, final Object[] values)
+			throws DataAccessException {
+		if (this.queryResultCache == null) {
+			return (values != null ? findByNamedQuery(queryName, values) : findByNamedQuery(queryName));
+		}
+		return executeCachedFind(regionName, new NamedQueryCacheKey(queryName, values), new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException {
+				Query queryObject = getNamedQuery(session, queryName);
+				if (values != null) {
+					for (int i = 0; i < values.length; i++) {
+						queryObject.setParameter(i, values[i]);
+					}
+				}
+				return queryObject.list();
+			}
+		});
+	}
+
+	/**
+	 * Execute the given query action within a Session, caching its result
+	 * in the given region of the QueryResultCache under the given key.
+	 * <p>Persistent instances are cached as references to their class and
+	 * identifier, and re-read through the current Session on each call,
+	 * so that they are never shared between Sessions or threads. Their
+	 * classes need to have a second-level cache, else each re-read would
+	 * hit the database. Other values, like scalar query results, are
+	 * cached as they are.
+	 * @param regionName the name of the QueryCacheRegion
+	 * @param key the cache key for the result
+	 * @param action callback that executes the query and returns its List
+	 * @return a new List with the (re-read) query result
+	 * @throws DataAccessException in case of Hibernate errors
+	 */
+	private List executeCachedFind(final String regionName, final Object key, final HibernateCallback action)
+			throws DataAccessException {
+		return executeFind(new HibernateCallback() {
+			public Object doInHibernate(final Session session) throws HibernateException, SQLException {
+				List cachedResult = (List) getQueryResultCache().execute(regionName, key, new QueryResultLoader() {
+					public Object loadResult() {
+						try {
+							return createCachedResult(session, (List) action.doInHibernate(session));
+						}
+						catch (HibernateException ex) {
+							throw convertHibernateAccessException(ex);
+						}
+						catch (SQLException ex) {
+							throw convertJdbcAccessException(ex);
+						}
+					}
+				});
+				List result = new ArrayList(cachedResult.size());
+				for (Iterator it = cachedResult.iterator(); it.hasNext();) {
+					Object row = it.next();
+					if (row instanceof Object[]) {
+						Object[] cachedValues = (Object[]) row;
+						Object[] values = new Object[cachedValues.length];
+						for (int i = 0; i < cachedValues.length; i++) {
+							values[i] = resolveCachedValue(session, cachedValues[i]);
+						}
+						result.add(values);
+					}
+					else {
+						result.add(resolveCachedValue(session, row));
+					}
+				}
+				return result;
+			}
+		});
+	}
+
+	/**
+	 * Create the cacheable form of the given query result,
+	 * replacing persistent instances with CachedEntityReferences.
+	 */
+	private List createCachedResult(Session session, List result) throws HibernateException {
+		List cachedResult = new ArrayList(result.size());
+		for (Iterator it = result.iterator(); it.hasNext();) {
+			Object row = it.next();
+			if (row instanceof Object[]) {
+				Object[] values = (Object[]) row;
+				Object[] cachedValues = new Object[values.length];
+				for (int i = 0; i < values.length; i++) {
+					cachedValues[i] = createCachedValue(session, values[i]);
+				}
+				cachedResult.add(cachedValues);
+			}
+			else {
+				cachedResult.add(createCachedValue(session, row));
+			}
+		}
+		return Collections.unmodifiableList(cachedResult);
+	}
+
+	private Object createCachedValue(Session session, Object value) throws HibernateException {
+		if (value != null && session.contains(value)) {
+			Class entityClass = Hibernate.getClass(value);
+			checkClassCache(entityClass);
+			return new CachedEntityReference(entityClass, session.getIdentifier(value));
+		}
+		return value;
+	}
+
+	/**
+	 * Check that the given persistent class is mapped to Hibernate's
+	 * second-level cache, if the SessionFactory allows for checking.
+	 * @throws InvalidDataAccessApiUsageException if there is no class cache
+	 */
+	private void checkClassCache(Class entityClass) throws HibernateException {
+		if (getSessionFactory() instanceof SessionFactoryImplementor) {
+			ClassPersister persister = ((SessionFactoryImplementor) getSessionFactory()).getPersister(entityClass);
+			if (!persister.hasCache()) {
+				throw new InvalidDataAccessApiUsageException(
+						"Cannot cache query results with instances of [" + entityClass.getName() +
+						"]: map the class to Hibernate's second-level cache, to avoid a database hit per instance");
+			}
+		}
+	}
+
+	private Object resolveCachedValue(Session session, Object value) throws HibernateException {
+		if (value instanceof CachedEntityReference) {
+			CachedEntityReference reference = (CachedEntityReference) value;
+			return session.load(reference.entityClass, reference.id);
+		}
+		return value;
+	}
+
 	public List findByNamedQueryAndValueBean(final String queryName, final Object valueBean)
 			throws DataAccessException {
 		return executeFind(new HibernateCallback() {
@@ -582,4 +974,32 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 		return criteria;
 	}
 
+
+	/**
+	 * Cache key for named queries, never equal to a key for a query string.
+	 */
+	private static class NamedQueryCacheKey extends QueryCacheKey {
+
+		private NamedQueryCacheKey(String queryName, Object[] values) {
+			super(queryName, values);
+		}
+	}
+
+
+	/**
+	 * Cached form of a persistent instance in a query result:
+	 * re-read through the current Session on each cache hit.
+	 */
+	private static class CachedEntityReference {
+
+		private final Class entityClass;
+
+		private final Serializable id;
+
+		private CachedEntityReference(Class entityClass, Serializable id) {
+			this.entityClass = entityClass;
+			this.id = id;
+		}
+	}
+
 }
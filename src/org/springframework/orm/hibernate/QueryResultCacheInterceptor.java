@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.hibernate;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import net.sf.hibernate.CallbackException;
+import net.sf.hibernate.Interceptor;
+import net.sf.hibernate.type.Type;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.orm.support.QueryResultCache;
+
+/**
+ * Hibernate entity Interceptor that registers all writes that a Session
+ * flushes with a QueryResultCache. Covers writes that do not go through
+ * HibernateTemplate's write methods: changes detected by dirty checking,
+ * cascaded saves and deletes, and deletes by query.
+ *
+ * <p>The classes of saved, updated and deleted instances are collected per
+ * thread, and registered with the cache once the Session has been flushed.
+ * Writes to collections only, without changes to the owning instance, and
+ * writes via plain JDBC still need to be registered manually.
+ *
+ * <p>HibernateTemplate applies this interceptor to the Sessions that it
+ * opens itself if a QueryResultCache is set. For Sessions opened by
+ * HibernateTransactionManager or OpenSessionInViewFilter, specify it as
+ * entity interceptor of LocalSessionFactoryBean or the transaction manager.
+ * A further entity interceptor can be given as target.
+ *
+ * @since 1.1
+ * @see HibernateTemplate#setQueryResultCache
+ * @see LocalSessionFactoryBean#setEntityInterceptor
+ * @see HibernateTransactionManager#setEntityInterceptor
+ * @see org.springframework.orm.support.QueryResultCache#registerWrite
+ */
+public class QueryResultCacheInterceptor implements Interceptor, InitializingBean {
+
+	private QueryResultCache queryResultCache;
+
+	private Interceptor targetInterceptor;
+
+	/** Set of written entity classes, not registered yet */
+	private final ThreadLocal writtenEntityClasses = new ThreadLocal();
+
+
+	/**
+	 * Create a new QueryResultCacheInterceptor for bean-style usage.
+	 * @see #setQueryResultCache
+	 */
+	public QueryResultCacheInterceptor() {
+	}
+
+	/**
+	 * Create a new QueryResultCacheInterceptor.
+	 * @param queryResultCache the cache to register writes with
+	 * @param targetInterceptor the entity interceptor to delegate to, or null if none
+	 */
+	public QueryResultCacheInterceptor(QueryResultCache queryResultCache, Interceptor targetInterceptor) {
+		this.queryResultCache = queryResultCache;
+		this.targetInterceptor = targetInterceptor;
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Set the QueryResultCache to register writes with.
+	 */
+	public void setQueryResultCache(QueryResultCache queryResultCache) {
+		this.queryResultCache = queryResultCache;
+	}
+
+	/**
+	 * Return the QueryResultCache to register writes with.
+	 */
+	public QueryResultCache getQueryResultCache() {
+		return queryResultCache;
+	}
+
+	/**
+	 * Set an entity interceptor to delegate all callbacks to, if any.
+	 */
+	public void setTargetInterceptor(Interceptor targetInterceptor) {
+		this.targetInterceptor = targetInterceptor;
+	}
+
+	/**
+	 * Return the entity interceptor to delegate all callbacks to, if any.
+	 */
+	public Interceptor getTargetInterceptor() {
+		return targetInterceptor;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.queryResultCache == null) {
+			throw new IllegalArgumentException("queryResultCache is required");
+		}
+	}
+
+
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types)
+			throws CallbackException {
+		addWrittenEntityClass(entity);
+		return (this.targetInterceptor != null &&
+				this.targetInterceptor.onSave(entity, id, state, propertyNames, types));
+	}
+
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+															String[] propertyNames, Type[] types) throws CallbackException {
+		addWrittenEntityClass(entity);
+		return (this.targetInterceptor != null &&
+				this.targetInterceptor.onFlushDirty(entity, id, currentState, previousState, propertyNames, types));
+	}
+
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types)
+			throws CallbackException {
+		addWrittenEntityClass(entity);
+		if (this.targetInterceptor != null) {
+			this.targetInterceptor.onDelete(entity, id, state, propertyNames, types);
+		}
+	}
+
+	/**
+	 * Registers the collected entity classes with the QueryResultCache,
+	 * as the writes have been executed now.
+	 */
+	public void postFlush(Iterator entities) throws CallbackException {
+		if (this.targetInterceptor != null) {
+			this.targetInterceptor.postFlush(entities);
+		}
+		Set entityClasses = (Set) this.writtenEntityClasses.get();
+		if (entityClasses != null) {
+			this.writtenEntityClasses.set(null);
+			for (Iterator it = entityClasses.iterator(); it.hasNext();) {
+				this.queryResultCache.registerWrite((Class) it.next());
+			}
+		}
+	}
+
+	private void addWrittenEntityClass(Object entity) {
+		Set entityClasses = (Set) this.writtenEntityClasses.get();
+		if (entityClasses == null) {
+			entityClasses = new HashSet();
+			this.writtenEntityClasses.set(entityClasses);
+		}
+		entityClasses.add(entity.getClass());
+	}
+
+
+	public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types)
+			throws CallbackException {
+		return (this.targetInterceptor != null &&
+				this.targetInterceptor.onLoad(entity, id, state, propertyNames, types));
+	}
+
+	public void preFlush(Iterator entities) throws CallbackException {
+		if (this.targetInterceptor != null) {
+			this.targetInterceptor.preFlush(entities);
+		}
+	}
+
+	public Boolean isUnsaved(Object entity) {
+		return (this.targetInterceptor != null ? this.targetInterceptor.isUnsaved(entity) : null);
+	}
+
+	public int[] findDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+												 String[] propertyNames, Type[] types) {
+		return (this.targetInterceptor != null ?
+				this.targetInterceptor.findDirty(entity, id, currentState, previousState, propertyNames, types) : null);
+	}
+
+	public Object instantiate(Class clazz, Serializable id) throws CallbackException {
+		return (this.targetInterceptor != null ? this.targetInterceptor.instantiate(clazz, id) : null);
+	}
+
+}
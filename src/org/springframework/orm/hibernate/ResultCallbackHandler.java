@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.hibernate;
+
+import java.sql.SQLException;
+
+import net.sf.hibernate.HibernateException;
+
+/**
+ * Callback interface for processing query results one at a time.
+ * To be used with HibernateTemplate's scroll methods, which stream
+ * the results of a query via Hibernate's ScrollableResults and evict
+ * each result from the Session after processing it.
+ *
+ * <p>Suitable for reading large numbers of persistent objects with flat
+ * memory consumption, e.g. for export or reporting jobs.
+ *
+ * @since 1.1
+ * @see HibernateTemplate#scroll(String, ResultCallbackHandler)
+ * @see org.springframework.jdbc.core.RowCallbackHandler
+ */
+public interface ResultCallbackHandler {
+
+	/**
+	 * Process a single query result. Results that consist of a single
+	 * object are passed as-is, results with multiple columns as Object array,
+	 * like the elements of the List returned by HibernateTemplate.find.
+	 * <p>The result will be evicted from the Session after this method
+	 * returned: changes to persistent objects will not be flushed.
+	 * @param result the current query result
+	 * @throws HibernateException in case of Hibernate errors
+	 * @throws SQLException in case of errors on direct JDBC access
+	 */
+	void processResult(Object result) throws HibernateException, SQLException;
+
+}
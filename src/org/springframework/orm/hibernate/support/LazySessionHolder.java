@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.hibernate.support;
+
+import net.sf.hibernate.HibernateException;
+import net.sf.hibernate.JDBCException;
+import net.sf.hibernate.Session;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.orm.hibernate.SessionHolder;
+
+/**
+ * SessionHolder that opens its Hibernate Session on first access,
+ * i.e. on the first SessionFactoryUtils.getSession call for the bound
+ * SessionFactory. Used by the "Open Session in View" filter and interceptor
+ * in lazy mode, to avoid opening a Session for requests that don't need one.
+ *
+ * @since 1.1
+ * @see OpenSessionInViewFilter#setLazySession
+ * @see OpenSessionInViewInterceptor#setLazySession
+ * @see org.springframework.orm.hibernate.SessionFactoryUtils#getSession
+ */
+abstract class LazySessionHolder extends SessionHolder {
+
+	private Session session;
+
+	LazySessionHolder() {
+		super(null);
+	}
+
+	/**
+	 * Return the Session, opening it if not done yet.
+	 * @throws DataAccessResourceFailureException if the Session couldn't be opened
+	 */
+	public Session getSession() throws DataAccessResourceFailureException {
+		if (this.session == null) {
+			try {
+				this.session = openSession();
+			}
+			catch (JDBCException ex) {
+				// SQLException underneath
+				throw new DataAccessResourceFailureException("Cannot open Hibernate session", ex.getSQLException());
+			}
+			catch (HibernateException ex) {
+				throw new DataAccessResourceFailureException("Cannot open Hibernate session", ex);
+			}
+		}
+		return this.session;
+	}
+
+	/**
+	 * Return whether the Session has actually been opened.
+	 */
+	public boolean isSessionOpened() {
+		return (this.session != null);
+	}
+
+	/**
+	 * Open the Session on first access.
+	 * @return the new Session
+	 * @throws HibernateException if thrown by Hibernate methods
+	 */
+	protected abstract Session openSession() throws HibernateException;
+
+}
@@ -24,6 +24,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import net.sf.hibernate.FlushMode;
+import net.sf.hibernate.HibernateException;
 import net.sf.hibernate.Session;
 import net.sf.hibernate.SessionFactory;
 
@@ -66,9 +67,16 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * filter to flush after completed request processing, override closeSession and
  * invoke flush on the Session before closing it.
  *
+ * <p>Supports a "lazySession" filter init-param: If true, the Session will only be
+ * opened on the first SessionFactoryUtils.getSession call within the request, and
+ * only be closed if actually opened. Requests that don't access Hibernate, like
+ * static pages, won't open a Session (and potentially a JDBC Connection) then.
+ * The request counters show how many requests actually used a Session.
+ *
  * @author Juergen Hoeller
  * @since 06.12.2003
  * @see OpenSessionInViewInterceptor
+ * @see #setLazySession
  * @see #closeSession
  * @see org.springframework.orm.hibernate.HibernateInterceptor
  * @see org.springframework.orm.hibernate.HibernateTransactionManager
@@ -81,6 +89,12 @@ public class OpenSessionInViewFilter extends OncePerRequestFilter {
 
 	private String sessionFactoryBeanName = DEFAULT_SESSION_FACTORY_BEAN_NAME;
 
+	private boolean lazySession = false;
+
+	private long requestCount = 0;
+
+	private long sessionRequestCount = 0;
+
 	/**
 	 * Set the bean name of the SessionFactory to fetch from Spring's
 	 * root application context.
@@ -97,6 +111,50 @@ public class OpenSessionInViewFilter extends OncePerRequestFilter {
 		return sessionFactoryBeanName;
 	}
 
+	/**
+	 * Set whether to defer opening the Session until it is first requested
+	 * via SessionFactoryUtils.getSession. Default is false.
+	 * <p>In lazy mode, the Session is opened via openSession instead of getSession.
+	 * @see #openSession
+	 * @see org.springframework.orm.hibernate.SessionFactoryUtils#getSession
+	 */
+	public void setLazySession(boolean lazySession) {
+		this.lazySession = lazySession;
+	}
+
+	/**
+	 * Return whether to defer opening the Session until it is first requested.
+	 */
+	protected boolean isLazySession() {
+		return lazySession;
+	}
+
+	/**
+	 * Return the number of requests processed by this filter.
+	 */
+	public synchronized long getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * Return the number of requests that actually used a Session.
+	 * Only lower than the request count in lazy mode.
+	 * @see #setLazySession
+	 */
+	public synchronized long getSessionRequestCount() {
+		return sessionRequestCount;
+	}
+
+	/**
+	 * Count a processed request.
+	 */
+	private synchronized void countRequest(boolean usedSession) {
+		this.requestCount++;
+		if (usedSession) {
+			this.sessionRequestCount++;
+		}
+	}
+
 	/**
 	 * This implementation appends the SessionFactory bean name to the class name,
 	 * to be executed one per SessionFactory. Can be overridden in subclasses,
@@ -109,17 +167,36 @@ public class OpenSessionInViewFilter extends OncePerRequestFilter {
 
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
 																	FilterChain filterChain) throws ServletException, IOException {
-		SessionFactory sessionFactory = lookupSessionFactory();
-		logger.debug("Opening Hibernate Session in OpenSessionInViewFilter");
-		Session session = getSession(sessionFactory);
-		TransactionSynchronizationManager.bindResource(sessionFactory, new SessionHolder(session));
+		final SessionFactory sessionFactory = lookupSessionFactory();
+		SessionHolder sessionHolder = null;
+		if (this.lazySession) {
+			logger.debug("Binding lazy Hibernate Session in OpenSessionInViewFilter");
+			sessionHolder = new LazySessionHolder() {
+				protected Session openSession() throws HibernateException {
+					logger.debug("Opening lazy Hibernate Session in OpenSessionInViewFilter");
+					return OpenSessionInViewFilter.this.openSession(sessionFactory);
+				}
+			};
+		}
+		else {
+			logger.debug("Opening Hibernate Session in OpenSessionInViewFilter");
+			sessionHolder = new SessionHolder(getSession(sessionFactory));
+		}
+		TransactionSynchronizationManager.bindResource(sessionFactory, sessionHolder);
+		boolean usedSession = true;
 		try {
 			filterChain.doFilter(request, response);
 		}
 		finally {
 			TransactionSynchronizationManager.unbindResource(sessionFactory);
-			logger.debug("Closing Hibernate Session in OpenSessionInViewFilter");
-			closeSession(session, sessionFactory);
+			if (sessionHolder instanceof LazySessionHolder) {
+				usedSession = ((LazySessionHolder) sessionHolder).isSessionOpened();
+			}
+			countRequest(usedSession);
+			if (usedSession) {
+				logger.debug("Closing Hibernate Session in OpenSessionInViewFilter");
+				closeSession(sessionHolder.getSession(), sessionFactory);
+			}
 		}
 	}
 
@@ -154,6 +231,24 @@ public class OpenSessionInViewFilter extends OncePerRequestFilter {
 		return session;
 	}
 
+	/**
+	 * Open a Session for the SessionFactory that this filter uses, in lazy mode.
+	 * The default implementation opens a new Session and sets its flushMode to NEVER.
+	 * <p>Can be overridden in subclasses for opening a Session with a custom
+	 * entity interceptor. Must not call SessionFactoryUtils.getSession, as the
+	 * lazy Session is already bound to the thread at this point.
+	 * @param sessionFactory the SessionFactory that this filter uses
+	 * @return the Session to use
+	 * @throws HibernateException if the Session could not be opened
+	 * @see #setLazySession
+	 * @see net.sf.hibernate.SessionFactory#openSession
+	 */
+	protected Session openSession(SessionFactory sessionFactory) throws HibernateException {
+		Session session = sessionFactory.openSession();
+		session.setFlushMode(FlushMode.NEVER);
+		return session;
+	}
+
 	/**
 	 * Close the given Session.
 	 * The default implementation invokes SessionFactoryUtils.closeSessionIfNecessary.
@@ -59,15 +59,28 @@ import org.springframework.web.servlet.ModelAndView;
  * interceptor to flush after the handler has been invoked but before view rendering,
  * set the flushMode of this interceptor to FLUSH_AUTO in such a scenario.
  *
+ * <p>In lazy mode, the Session will only be opened on the first
+ * SessionFactoryUtils.getSession call within the request, and only be flushed
+ * and closed if actually opened. The request counters show how many requests
+ * actually used a Session.
+ *
  * @author Juergen Hoeller
  * @since 06.12.2003
  * @see #setFlushMode
+ * @see #setLazySession
  * @see OpenSessionInViewFilter
  * @see org.springframework.orm.hibernate.HibernateInterceptor
  * @see org.springframework.orm.hibernate.HibernateTransactionManager
  */
 public class OpenSessionInViewInterceptor extends HibernateAccessor implements HandlerInterceptor {
 
+	private boolean lazySession = false;
+
+	private long requestCount = 0;
+
+	private long sessionRequestCount = 0;
+
+
 	/**
 	 * Create a new OpenSessionInViewInterceptor,
 	 * turning the default flushMode to FLUSH_NEVER.
@@ -77,21 +90,82 @@ public class OpenSessionInViewInterceptor extends HibernateAccessor implements H
 		setFlushMode(FLUSH_NEVER);
 	}
 
+	/**
+	 * Set whether to defer opening the Session until it is first requested
+	 * via SessionFactoryUtils.getSession. Default is false.
+	 * @see org.springframework.orm.hibernate.SessionFactoryUtils#getSession
+	 */
+	public void setLazySession(boolean lazySession) {
+		this.lazySession = lazySession;
+	}
+
+	/**
+	 * Return whether to defer opening the Session until it is first requested.
+	 */
+	public boolean isLazySession() {
+		return lazySession;
+	}
+
+	/**
+	 * Return the number of requests processed by this interceptor.
+	 */
+	public synchronized long getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * Return the number of requests that actually used a Session.
+	 * Only lower than the request count in lazy mode.
+	 * @see #setLazySession
+	 */
+	public synchronized long getSessionRequestCount() {
+		return sessionRequestCount;
+	}
+
+	/**
+	 * Count a processed request.
+	 */
+	private synchronized void countRequest(boolean usedSession) {
+		this.requestCount++;
+		if (usedSession) {
+			this.sessionRequestCount++;
+		}
+	}
+
 	/**
 	 * Opens a new Hibernate Session according to the settings of this HibernateAccessor
 	 * and binds in to the thread via TransactionSynchronizationManager.
+	 * In lazy mode, binds a holder that opens the Session on first access.
 	 * @see org.springframework.orm.hibernate.SessionFactoryUtils#getSession
 	 * @see org.springframework.transaction.support.TransactionSynchronizationManager
 	 */
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
 													 Object handler) throws DataAccessException {
-		logger.debug("Opening Hibernate Session in OpenSessionInViewInterceptor");
-		Session session = SessionFactoryUtils.getSession(getSessionFactory(), getEntityInterceptor(),
-																										 getJdbcExceptionTranslator());
-		if (getFlushMode() == FLUSH_NEVER) {
-			session.setFlushMode(FlushMode.NEVER);
+		SessionHolder sessionHolder = null;
+		if (this.lazySession) {
+			logger.debug("Binding lazy Hibernate Session in OpenSessionInViewInterceptor");
+			sessionHolder = new LazySessionHolder() {
+				protected Session openSession() throws HibernateException {
+					logger.debug("Opening lazy Hibernate Session in OpenSessionInViewInterceptor");
+					Session session = (getEntityInterceptor() != null ?
+							getSessionFactory().openSession(getEntityInterceptor()) : getSessionFactory().openSession());
+					if (getFlushMode() == FLUSH_NEVER) {
+						session.setFlushMode(FlushMode.NEVER);
+					}
+					return session;
+				}
+			};
 		}
-		TransactionSynchronizationManager.bindResource(getSessionFactory(), new SessionHolder(session));
+		else {
+			logger.debug("Opening Hibernate Session in OpenSessionInViewInterceptor");
+			Session session = SessionFactoryUtils.getSession(getSessionFactory(), getEntityInterceptor(),
+																											 getJdbcExceptionTranslator());
+			if (getFlushMode() == FLUSH_NEVER) {
+				session.setFlushMode(FlushMode.NEVER);
+			}
+			sessionHolder = new SessionHolder(session);
+		}
+		TransactionSynchronizationManager.bindResource(getSessionFactory(), sessionHolder);
 		return true;
 	}
 
@@ -102,8 +176,11 @@ public class OpenSessionInViewInterceptor extends HibernateAccessor implements H
 	 */
 	public void postHandle(HttpServletRequest request, HttpServletResponse response,
 												 Object handler, ModelAndView modelAndView) throws DataAccessException {
-		logger.debug("Flushing Hibernate Session in OpenSessionInViewInterceptor");
 		SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.getResource(getSessionFactory());
+		if (!isSessionOpened(sessionHolder)) {
+			return;
+		}
+		logger.debug("Flushing Hibernate Session in OpenSessionInViewInterceptor");
 		try {
 			flushIfNecessary(sessionHolder.getSession(), false);
 		}
@@ -120,8 +197,21 @@ public class OpenSessionInViewInterceptor extends HibernateAccessor implements H
 	public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
 															Object handler, Exception ex) throws DataAccessException {
 		SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.unbindResource(getSessionFactory());
-		logger.debug("Closing Hibernate Session in OpenSessionInViewInterceptor");
-		SessionFactoryUtils.closeSessionIfNecessary(sessionHolder.getSession(), getSessionFactory());
+		boolean usedSession = isSessionOpened(sessionHolder);
+		countRequest(usedSession);
+		if (usedSession) {
+			logger.debug("Closing Hibernate Session in OpenSessionInViewInterceptor");
+			SessionFactoryUtils.closeSessionIfNecessary(sessionHolder.getSession(), getSessionFactory());
+		}
+	}
+
+	/**
+	 * Return whether the Session of the given holder has been opened,
+	 * i.e. always true unless in lazy mode.
+	 */
+	private boolean isSessionOpened(SessionHolder sessionHolder) {
+		return (!(sessionHolder instanceof LazySessionHolder) ||
+				((LazySessionHolder) sessionHolder).isSessionOpened());
 	}
 
 }
@@ -21,6 +21,8 @@ import javax.jdo.PersistenceManager;
 import javax.jdo.PersistenceManagerFactory;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.orm.support.QueryResultCache;
+import org.springframework.orm.support.QueryResultLoader;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
@@ -58,6 +60,10 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
  * PlatformTransactionManager is a configuration issue, without introducing
  * code dependencies.
  *
+ * <p>Results of frequently executed queries can be cached via executeCached,
+ * given a QueryResultCache. As JDO tracks modifications transparently,
+ * writes need to be registered with the cache by the application.
+ *
  * <p>LocalPersistenceManagerFactoryBean is the preferred way of obtaining a
  * reference to a specific PersistenceManagerFactory, at least in a non-EJB
  * environment. Registering a PersistenceManagerFactory with JNDI is only
@@ -74,6 +80,8 @@ public class JdoTemplate extends JdoAccessor {
 
 	private boolean allowCreate = true;
 
+	private QueryResultCache queryResultCache;
+
 	/**
 	 * Create a new JdoTemplate instance.
 	 */
@@ -108,6 +116,24 @@ public class JdoTemplate extends JdoAccessor {
 		return allowCreate;
 	}
 
+	/**
+	 * Set the QueryResultCache to use for executeCached.
+	 * Default is none, executing the given actions without caching.
+	 * <p>The cache can be shared with other templates, for example with a
+	 * HibernateTemplate that accesses the same database.
+	 * @see #executeCached
+	 */
+	public void setQueryResultCache(QueryResultCache queryResultCache) {
+		this.queryResultCache = queryResultCache;
+	}
+
+	/**
+	 * Return the QueryResultCache to use for executeCached, if any.
+	 */
+	public QueryResultCache getQueryResultCache() {
+		return queryResultCache;
+	}
+
 	/**
 	 * Execute the action specified by the given action object within a
 	 * PersistenceManager. Application exceptions thrown by the action object
@@ -143,4 +169,36 @@ public class JdoTemplate extends JdoAccessor {
 		}
 	}
 
+	/**
+	 * Execute the action specified by the given action object, caching its
+	 * result in the given region of the QueryResultCache under the given key,
+	 * typically a QueryCacheKey with the JDOQL filter and its parameters.
+	 * Executes the action without caching if no QueryResultCache is set.
+	 * <p>The cached result is shared between callers, so it must not be
+	 * modified, and must be usable after the PersistenceManager has been
+	 * closed: for example, a copy of a query result with detached values.
+	 * <p>Writes of instances of the queried classes need to be registered
+	 * via the QueryResultCache's registerWrite method, to invalidate the
+	 * affected regions on commit.
+	 * @param regionName the name of the QueryCacheRegion
+	 * @param key the cache key for the result
+	 * @param action action object that specifies the JDO action
+	 * @return a result object returned by the action or cached, or null
+	 * @throws DataAccessException in case of JDO errors
+	 * @see #setQueryResultCache
+	 * @see org.springframework.orm.support.QueryCacheKey
+	 * @see org.springframework.orm.support.QueryResultCache#registerWrite
+	 */
+	public Object executeCached(String regionName, Object key, final JdoCallback action)
+			throws DataAccessException {
+		if (this.queryResultCache == null) {
+			return execute(action);
+		}
+		return this.queryResultCache.execute(regionName, key, new QueryResultLoader() {
+			public Object loadResult() {
+				return execute(action);
+			}
+		});
+	}
+
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.support;
+
+import java.util.Arrays;
+
+/**
+ * Cache key for query results, consisting of a query string and the values
+ * of its parameters. Keys of different classes are never equal, so subclasses
+ * can be used to distinguish different kinds of queries with the same string.
+ *
+ * @since 1.1
+ * @see QueryResultCache#execute
+ */
+public class QueryCacheKey {
+
+	private final String queryString;
+
+	private final Object[] values;
+
+	private final int hashCode;
+
+	/**
+	 * Create a new QueryCacheKey.
+	 * @param queryString the query string
+	 * @param values the values of the query parameters, or null if none.
+	 * The array is copied, so the caller may reuse it.
+	 */
+	public QueryCacheKey(String queryString, Object[] values) {
+		this.queryString = queryString;
+		this.values = (values != null ? (Object[]) values.clone() : new Object[0]);
+		int hashCode = queryString.hashCode();
+		for (int i = 0; i < this.values.length; i++) {
+			hashCode = 29 * hashCode + (this.values[i] != null ? this.values[i].hashCode() : 0);
+		}
+		this.hashCode = hashCode;
+	}
+
+	public String getQueryString() {
+		return queryString;
+	}
+
+	/**
+	 * Return a copy of the values of the query parameters.
+	 */
+	public Object[] getValues() {
+		return (Object[]) values.clone();
+	}
+
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (other == null || other.getClass() != getClass()) {
+			return false;
+		}
+		QueryCacheKey otherKey = (QueryCacheKey) other;
+		return (this.hashCode == otherKey.hashCode && this.queryString.equals(otherKey.queryString) &&
+				Arrays.equals(this.values, otherKey.values));
+	}
+
+	public int hashCode() {
+		return hashCode;
+	}
+
+	public String toString() {
+		return "QueryCacheKey: query '" + this.queryString + "', " + this.values.length + " parameters";
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.support;
+
+import org.springframework.util.LruCache;
+
+/**
+ * A region of a QueryResultCache: holds the cached results of a group of
+ * queries, with a common time to live and maximum number of results.
+ *
+ * <p>A region gets invalidated when a transaction that wrote instances of one
+ * of its "entityClasses" commits. A region without entity classes gets
+ * invalidated on any write.
+ *
+ * <p>Keeps statistics about cache hits and misses, for tuning the
+ * region settings.
+ *
+ * @since 1.1
+ * @see QueryResultCache#setRegions
+ */
+public class QueryCacheRegion {
+
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	public static final int DEFAULT_TIME_TO_LIVE = 300;
+
+
+	private String name;
+
+	private long timeToLive = DEFAULT_TIME_TO_LIVE * 1000L;
+
+	private LruCache results = new LruCache(DEFAULT_MAX_SIZE);
+
+	private Class[] entityClasses;
+
+	private long generation = 0;
+
+	private long hitCount = 0;
+
+	private long missCount = 0;
+
+
+	/**
+	 * Create a new QueryCacheRegion, to be configured via its bean properties.
+	 * @see #setName
+	 */
+	public QueryCacheRegion() {
+	}
+
+	/**
+	 * Create a new QueryCacheRegion with default settings.
+	 * @param name the name of the region
+	 */
+	public QueryCacheRegion(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Set the name of this region, to be used by queries.
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Set the number of seconds to cache a query result for.
+	 * Default is 300, i.e. 5 minutes.
+	 */
+	public void setTimeToLive(int timeToLive) {
+		this.timeToLive = timeToLive * 1000L;
+	}
+
+	public int getTimeToLive() {
+		return (int) (this.timeToLive / 1000);
+	}
+
+	/**
+	 * Set the maximum number of query results to cache,
+	 * evicting the least recently used results first.
+	 * Default is 1000.
+	 */
+	public void setMaxSize(int maxSize) {
+		this.results = new LruCache(maxSize);
+	}
+
+	public int getMaxSize() {
+		return this.results.getCapacity();
+	}
+
+	/**
+	 * Set the entity classes that the queries of this region depend on.
+	 * Writes to instances of these classes or their subclasses invalidate
+	 * the region. Default is none, i.e. invalidation on any write.
+	 */
+	public void setEntityClasses(Class[] entityClasses) {
+		this.entityClasses = entityClasses;
+	}
+
+	public Class[] getEntityClasses() {
+		return entityClasses;
+	}
+
+	/**
+	 * Return whether writing an instance of the given class invalidates this region.
+	 */
+	public boolean isAffectedBy(Class entityClass) {
+		if (this.entityClasses == null || this.entityClasses.length == 0) {
+			return true;
+		}
+		for (int i = 0; i < this.entityClasses.length; i++) {
+			if (this.entityClasses[i].isAssignableFrom(entityClass)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Return the cached result for the given key, or null if none or expired.
+	 */
+	Object get(Object key) {
+		CachedResult cachedResult = (CachedResult) this.results.get(key);
+		if (cachedResult != null && cachedResult.expires < System.currentTimeMillis()) {
+			this.results.remove(key);
+			cachedResult = null;
+		}
+		synchronized (this) {
+			if (cachedResult != null) {
+				this.hitCount++;
+			}
+			else {
+				this.missCount++;
+			}
+		}
+		return (cachedResult != null ? cachedResult.result : null);
+	}
+
+	/**
+	 * Return the current generation of this region, to be passed to put.
+	 * Changes on each invalidation.
+	 */
+	synchronized long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Cache the given result, unless the region has been invalidated
+	 * since the given generation, i.e. since the query has been started.
+	 */
+	synchronized void put(Object key, Object result, long generation) {
+		if (generation == this.generation) {
+			this.results.put(key, new CachedResult(result, System.currentTimeMillis() + this.timeToLive));
+		}
+	}
+
+	/**
+	 * Remove all cached results from this region.
+	 */
+	public synchronized void invalidate() {
+		this.generation++;
+		this.results.clear();
+	}
+
+	/**
+	 * Return the number of query results currently cached,
+	 * including expired results that have not been evicted yet.
+	 */
+	public int getResultCount() {
+		return this.results.getEntryCount();
+	}
+
+	/**
+	 * Return the number of lookups that found a cached result.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Return the number of lookups that did not find a cached result.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Return the ratio of lookups that found a cached result,
+	 * between 0.0 and 1.0, or 0.0 if there have not been any lookups.
+	 */
+	public synchronized double getHitRatio() {
+		long lookups = this.hitCount + this.missCount;
+		return (lookups > 0 ? (double) this.hitCount / lookups : 0.0);
+	}
+
+	public String toString() {
+		return "QueryCacheRegion '" + this.name + "': hit ratio " + getHitRatio();
+	}
+
+
+	private static class CachedResult {
+
+		private final Object result;
+
+		private final long expires;
+
+		private CachedResult(Object result, long expires) {
+			this.result = result;
+			this.expires = expires;
+		}
+	}
+
+}
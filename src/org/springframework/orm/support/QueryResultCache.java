@@ -0,0 +1,252 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.support;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache for the results of frequently executed queries, typically for
+ * reference data. Results are cached per region, keyed by query string and
+ * parameter values, with each region having its own time to live and
+ * maximum size. Used by HibernateTemplate's and JdoTemplate's cached
+ * query methods.
+ *
+ * <p>Data access code reports writes via registerWrite. Within a transaction
+ * with active synchronization, the written entity classes are collected,
+ * and the affected regions get invalidated when the transaction commits.
+ * Until then, queries of affected regions within the writing transaction
+ * bypass the cache, to see the transaction's own changes. Without
+ * transaction synchronization, writes invalidate the affected regions
+ * immediately: they need to be registered once they have been flushed
+ * to the database, like HibernateTemplate does.
+ *
+ * <p>Cached results are shared between all callers and threads: they must
+ * not be modified, and must not contain instances that are associated with
+ * a persistence framework session. HibernateTemplate caches persistent
+ * instances as identifiers and re-reads them through the current Session.
+ *
+ * @since 1.1
+ * @see QueryCacheRegion
+ * @see #execute
+ * @see #registerWrite
+ * @see org.springframework.orm.hibernate.HibernateTemplate#setQueryResultCache
+ * @see org.springframework.orm.jdo.JdoTemplate#setQueryResultCache
+ */
+public class QueryResultCache {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final Map regions = new HashMap();
+
+
+	/**
+	 * Set the regions of this cache.
+	 * @see QueryCacheRegion#setName
+	 */
+	public void setRegions(QueryCacheRegion[] regions) {
+		synchronized (this.regions) {
+			this.regions.clear();
+			for (int i = 0; i < regions.length; i++) {
+				if (regions[i].getName() == null) {
+					throw new IllegalArgumentException("QueryCacheRegion needs a name");
+				}
+				this.regions.put(regions[i].getName(), regions[i]);
+			}
+		}
+	}
+
+	/**
+	 * Return the region with the given name.
+	 * @throws IllegalArgumentException if there is no such region
+	 */
+	public QueryCacheRegion getRegion(String regionName) throws IllegalArgumentException {
+		QueryCacheRegion region = null;
+		synchronized (this.regions) {
+			region = (QueryCacheRegion) this.regions.get(regionName);
+		}
+		if (region == null) {
+			throw new IllegalArgumentException("No QueryCacheRegion '" + regionName + "' defined");
+		}
+		return region;
+	}
+
+	/**
+	 * Return the ratio of lookups in the given region that found a cached result.
+	 * @see QueryCacheRegion#getHitRatio
+	 */
+	public double getHitRatio(String regionName) {
+		return getRegion(regionName).getHitRatio();
+	}
+
+
+	/**
+	 * Return the cached result for the given key in the given region,
+	 * or load and cache it via the given loader.
+	 * <p>Bypasses the cache if the current transaction has written to
+	 * entity classes that the region depends on.
+	 * @param regionName the name of the region
+	 * @param key the cache key, typically a QueryCacheKey
+	 * @param loader the loader for the result on a cache miss
+	 * @return the (possibly cached) result
+	 * @throws IllegalArgumentException if there is no such region
+	 * @throws org.springframework.dao.DataAccessException if thrown by the loader
+	 * @see QueryCacheKey
+	 */
+	public Object execute(String regionName, Object key, QueryResultLoader loader)
+			throws IllegalArgumentException {
+		QueryCacheRegion region = getRegion(regionName);
+		if (hasPendingWrites(region)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Bypassing QueryCacheRegion '" + regionName + "' for transaction with pending writes");
+			}
+			return loader.loadResult();
+		}
+		Object result = region.get(key);
+		if (result == null) {
+			long generation = region.getGeneration();
+			result = loader.loadResult();
+			if (result != null) {
+				region.put(key, result, generation);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Register a write to an instance of the given entity class.
+	 * Invalidates the affected regions when the current transaction commits,
+	 * or immediately if there is no active transaction synchronization.
+	 * <p>Without transaction synchronization, call this method only once
+	 * the write has been flushed to the database: a concurrent query could
+	 * otherwise cache the old state again before the write takes effect.
+	 * @param entityClass the class of the written instance
+	 * @see QueryCacheRegion#isAffectedBy
+	 */
+	public void registerWrite(Class entityClass) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			WriteSynchronization synchronization =
+					(WriteSynchronization) TransactionSynchronizationManager.getResource(this);
+			if (synchronization == null) {
+				synchronization = new WriteSynchronization();
+				TransactionSynchronizationManager.bindResource(this, synchronization);
+				TransactionSynchronizationManager.registerSynchronization(synchronization);
+			}
+			synchronization.entityClasses.add(entityClass);
+		}
+		else {
+			invalidate(entityClass);
+		}
+	}
+
+	/**
+	 * Invalidate all regions that are affected by writes to the given class.
+	 * @param entityClass the class of a written instance
+	 */
+	public void invalidate(Class entityClass) {
+		QueryCacheRegion[] regions = getRegions();
+		for (int i = 0; i < regions.length; i++) {
+			if (regions[i].isAffectedBy(entityClass)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Invalidating QueryCacheRegion '" + regions[i].getName() +
+											 "' because of write to " + entityClass.getName());
+				}
+				regions[i].invalidate();
+			}
+		}
+	}
+
+	/**
+	 * Invalidate all regions.
+	 */
+	public void invalidateAll() {
+		QueryCacheRegion[] regions = getRegions();
+		for (int i = 0; i < regions.length; i++) {
+			regions[i].invalidate();
+		}
+	}
+
+	private QueryCacheRegion[] getRegions() {
+		synchronized (this.regions) {
+			return (QueryCacheRegion[]) this.regions.values().toArray(new QueryCacheRegion[this.regions.size()]);
+		}
+	}
+
+	/**
+	 * Return whether the current transaction has written to
+	 * entity classes that the given region depends on.
+	 */
+	private boolean hasPendingWrites(QueryCacheRegion region) {
+		WriteSynchronization synchronization =
+				(WriteSynchronization) TransactionSynchronizationManager.getResource(this);
+		if (synchronization != null) {
+			for (Iterator it = synchronization.entityClasses.iterator(); it.hasNext();) {
+				if (region.isAffectedBy((Class) it.next())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Collects the entity classes written by the current transaction,
+	 * invalidating the affected regions after commit.
+	 */
+	private class WriteSynchronization extends TransactionSynchronizationAdapter {
+
+		private final Set entityClasses = new HashSet();
+
+		private boolean bound = true;
+
+		public void suspend() {
+			TransactionSynchronizationManager.unbindResource(QueryResultCache.this);
+		}
+
+		public void resume() {
+			TransactionSynchronizationManager.bindResource(QueryResultCache.this, this);
+		}
+
+		public void beforeCompletion() {
+			TransactionSynchronizationManager.unbindResource(QueryResultCache.this);
+			this.bound = false;
+		}
+
+		public void afterCompletion(int status) {
+			if (this.bound) {
+				TransactionSynchronizationManager.unbindResource(QueryResultCache.this);
+			}
+			if (status != TransactionSynchronization.STATUS_ROLLED_BACK) {
+				for (Iterator it = this.entityClasses.iterator(); it.hasNext();) {
+					invalidate((Class) it.next());
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.support;
+
+/**
+ * Callback interface for loading a query result on a cache miss.
+ * Used with QueryResultCache's execute method.
+ *
+ * @since 1.1
+ * @see QueryResultCache#execute
+ */
+public interface QueryResultLoader {
+
+	/**
+	 * Execute the query and return its result.
+	 * @return the query result, or null if none
+	 * @throws org.springframework.dao.DataAccessException in case of data access errors
+	 */
+	Object loadResult();
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.util;
+
+/**
+ * Holder for cached binary content, like the bytes of a resource or the
+ * rendered output of a view, together with a timestamp that determines
+ * its validity, like a last-modified or an expiry timestamp.
+ * The byte array is never modified.
+ *
+ * <p>Subclasses can keep additional metadata about the content.
+ *
+ * @since 1.1
+ * @see ContentCache
+ */
+public class CachedContent {
+
+	private final byte[] content;
+
+	private final long timestamp;
+
+	/**
+	 * Create a new CachedContent instance.
+	 * @param content the content, not to be modified afterwards
+	 * @param timestamp the timestamp that the content is valid for
+	 */
+	public CachedContent(byte[] content, long timestamp) {
+		this.content = content;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Return the cached content. Must not be modified.
+	 */
+	public final byte[] getContent() {
+		return content;
+	}
+
+	/**
+	 * Return the timestamp that the content is valid for.
+	 */
+	public final long getTimestamp() {
+		return timestamp;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.util;
+
+/**
+ * LruCache for CachedContent values, bounded by the total number of
+ * cached bytes instead of the number of entries.
+ *
+ * @since 1.1
+ * @see CachedContent
+ */
+public class ContentCache extends LruCache {
+
+	/**
+	 * Create a new ContentCache.
+	 * @param cacheSize the maximum number of bytes to cache in total
+	 */
+	public ContentCache(int cacheSize) {
+		super(cacheSize);
+	}
+
+	/**
+	 * Returns the length of the content of the given CachedContent.
+	 */
+	protected int sizeOf(Object key, Object value) {
+		return ((CachedContent) value).getContent().length;
+	}
+
+}
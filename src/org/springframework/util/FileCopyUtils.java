@@ -26,8 +26,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +40,12 @@ import org.apache.commons.logging.LogFactory;
 /**
  * Utility methods for file and stream copying.
  * Mainly for use within the framework.
+ *
+ * <p>On JDK 1.4 or higher, File-based methods use NIO FileChannels:
+ * Files are copied via FileChannel.transferTo, allowing the operating
+ * system to avoid copying the content through the Java heap, and files
+ * are read into byte arrays with a single read of the known length.
+ *
  * @author Juergen Hoeller
  * @since 06.10.2003
  */
@@ -42,7 +53,20 @@ public abstract class FileCopyUtils {
 
 	private static final Log logger = LogFactory.getLog(FileCopyUtils.class);
 
-	public static final int BLOCK_SIZE = 1024;
+	public static final int BLOCK_SIZE = 4096;
+
+	private static boolean nioAvailable;
+
+	static {
+		// check whether java.nio is available, i.e. running on JDK 1.4 or higher
+		try {
+			Class.forName("java.nio.channels.FileChannel");
+			nioAvailable = true;
+		}
+		catch (ClassNotFoundException ex) {
+			nioAvailable = false;
+		}
+	}
 
 	/**
 	 * Copy the contents of the given InputStream to the given OutputStream.
@@ -115,7 +139,12 @@ public abstract class FileCopyUtils {
 	 * @throws IOException in case of I/O errors
 	 */
 	public static void copy(File in, File out) throws IOException {
-		copy(new BufferedInputStream(new FileInputStream(in)), new BufferedOutputStream(new FileOutputStream(out)));
+		if (nioAvailable) {
+			Jdk14FileCopier.copy(in, out);
+		}
+		else {
+			copy(new BufferedInputStream(new FileInputStream(in)), new BufferedOutputStream(new FileOutputStream(out)));
+		}
 	}
 
 	/**
@@ -149,7 +178,130 @@ public abstract class FileCopyUtils {
 	 * @throws IOException in case of I/O errors
 	 */
 	public static byte[] copyToByteArray(File in) throws IOException {
+		if (nioAvailable) {
+			return Jdk14FileCopier.copyToByteArray(in);
+		}
 		return copyToByteArray(new BufferedInputStream(new FileInputStream(in)));
 	}
 
+	/**
+	 * Copy a range of the contents of the given input File to the given
+	 * OutputStream. Leaves the OutputStream open, in contrast to the other
+	 * copy methods: for example, for writing to an HTTP response.
+	 * <p>On JDK 1.4, the content is transferred via FileChannel.transferTo,
+	 * avoiding intermediate buffers as far as the target stream allows.
+	 * @param in the file to copy from
+	 * @param start the position of the first byte to copy
+	 * @param length the number of bytes to copy
+	 * @param out the stream to copy to
+	 * @throws IOException in case of I/O errors
+	 */
+	public static void copyRange(File in, long start, long length, OutputStream out) throws IOException {
+		if (nioAvailable) {
+			Jdk14FileCopier.copyRange(in, start, length, out);
+			return;
+		}
+		RandomAccessFile file = new RandomAccessFile(in, "r");
+		try {
+			file.seek(start);
+			byte[] buffer = new byte[BLOCK_SIZE];
+			long remaining = length;
+			while (remaining > 0) {
+				int nrOfBytes = file.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (nrOfBytes == -1) {
+					throw new IOException("File [" + in.getAbsolutePath() + "] got truncated while copying");
+				}
+				out.write(buffer, 0, nrOfBytes);
+				remaining -= nrOfBytes;
+			}
+		}
+		finally {
+			try {
+				file.close();
+			}
+			catch (IOException ex) {
+				logger.warn("Could not close RandomAccessFile", ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Inner class to avoid hard-coded JDK 1.4 dependency on java.nio.
+	 * Only loaded if running on JDK 1.4 or higher.
+	 */
+	static class Jdk14FileCopier {
+
+		public static void copy(File in, File out) throws IOException {
+			FileChannel inChannel = new FileInputStream(in).getChannel();
+			try {
+				FileChannel outChannel = new FileOutputStream(out).getChannel();
+				try {
+					long size = inChannel.size();
+					long position = 0;
+					while (position < size) {
+						position += inChannel.transferTo(position, size - position, outChannel);
+					}
+				}
+				finally {
+					close(outChannel);
+				}
+			}
+			finally {
+				close(inChannel);
+			}
+		}
+
+		public static void copyRange(File in, long start, long length, OutputStream out) throws IOException {
+			FileChannel inChannel = new FileInputStream(in).getChannel();
+			try {
+				WritableByteChannel outChannel = Channels.newChannel(out);
+				long position = start;
+				long end = start + length;
+				while (position < end) {
+					long count = inChannel.transferTo(position, end - position, outChannel);
+					if (count <= 0 && position >= inChannel.size()) {
+						throw new IOException("File [" + in.getAbsolutePath() + "] got truncated while copying");
+					}
+					position += count;
+				}
+			}
+			finally {
+				close(inChannel);
+			}
+		}
+
+		public static byte[] copyToByteArray(File in) throws IOException {
+			FileChannel channel = new RandomAccessFile(in, "r").getChannel();
+			try {
+				long size = channel.size();
+				if (size > Integer.MAX_VALUE) {
+					throw new IOException("File [" + in.getAbsolutePath() + "] too large to be read into byte array");
+				}
+				ByteBuffer buffer = ByteBuffer.allocate((int) size);
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) == -1) {
+						// file got truncated in the meantime
+						byte[] result = new byte[buffer.position()];
+						System.arraycopy(buffer.array(), 0, result, 0, result.length);
+						return result;
+					}
+				}
+				return buffer.array();
+			}
+			finally {
+				close(channel);
+			}
+		}
+
+		private static void close(FileChannel channel) {
+			try {
+				channel.close();
+			}
+			catch (IOException ex) {
+				logger.warn("Could not close FileChannel", ex);
+			}
+		}
+	}
+
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simple thread-safe cache that evicts the least recently used entries
+ * once a given capacity is exceeded. Works on JDK 1.3, which does not
+ * offer java.util.LinkedHashMap yet.
+ *
+ * <p>By default, each entry counts as 1 towards the capacity. Subclasses
+ * can override <code>sizeOf</code> to bound the cache by a different
+ * measure, for example by the number of bytes of cached content.
+ *
+ * <p>All operations are O(1) and synchronized on the cache instance;
+ * callers are expected to keep values immutable.
+ *
+ * @since 1.1
+ * @see #sizeOf
+ */
+public class LruCache {
+
+	private final int capacity;
+
+	private final Map entries = new HashMap();
+
+	/** Sentinel of the doubly linked list, with the most recently used entry first */
+	private final Entry header = new Entry(null, null, 0);
+
+	private int size = 0;
+
+
+	/**
+	 * Create a new LruCache with the given capacity.
+	 * @param capacity the maximum total size of all entries
+	 * @see #sizeOf
+	 */
+	public LruCache(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.capacity = capacity;
+		this.header.before = this.header;
+		this.header.after = this.header;
+	}
+
+	/**
+	 * Return the maximum total size of all entries.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Return the value cached for the given key, marking it as most recently used.
+	 * @param key the key
+	 * @return the cached value, or null if none
+	 */
+	public synchronized Object get(Object key) {
+		Entry entry = (Entry) this.entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		entry.unlink();
+		entry.linkAfter(this.header);
+		return entry.value;
+	}
+
+	/**
+	 * Cache the given value for the given key, evicting least recently
+	 * used entries if the capacity is exceeded. A value that exceeds the
+	 * capacity on its own will not be cached.
+	 * @param key the key
+	 * @param value the value to cache
+	 */
+	public synchronized void put(Object key, Object value) {
+		remove(key);
+		int entrySize = sizeOf(key, value);
+		if (entrySize > this.capacity) {
+			return;
+		}
+		Entry entry = new Entry(key, value, entrySize);
+		entry.linkAfter(this.header);
+		this.entries.put(key, entry);
+		this.size += entrySize;
+		while (this.size > this.capacity) {
+			remove(this.header.before.key);
+		}
+	}
+
+	/**
+	 * Remove the value cached for the given key, if any.
+	 * @param key the key
+	 * @return the removed value, or null if none
+	 */
+	public synchronized Object remove(Object key) {
+		Entry entry = (Entry) this.entries.remove(key);
+		if (entry == null) {
+			return null;
+		}
+		entry.unlink();
+		this.size -= entry.size;
+		return entry.value;
+	}
+
+	/**
+	 * Remove all entries from this cache.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+		this.header.before = this.header;
+		this.header.after = this.header;
+		this.size = 0;
+	}
+
+	/**
+	 * Return the current total size of all entries.
+	 */
+	public synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return the number of cached entries.
+	 */
+	public synchronized int getEntryCount() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Determine the size of the given entry, counting towards the capacity.
+	 * <p>Default implementation returns 1, bounding the number of entries.
+	 * @param key the key of the entry
+	 * @param value the value of the entry
+	 * @return the size of the entry (should not be negative)
+	 */
+	protected int sizeOf(Object key, Object value) {
+		return 1;
+	}
+
+
+	private static class Entry {
+
+		private final Object key;
+
+		private final Object value;
+
+		private final int size;
+
+		private Entry before;
+
+		private Entry after;
+
+		private Entry(Object key, Object value, int size) {
+			this.key = key;
+			this.value = value;
+			this.size = size;
+		}
+
+		private void unlink() {
+			this.before.after = this.after;
+			this.after.before = this.before;
+		}
+
+		private void linkAfter(Entry existing) {
+			this.after = existing.after;
+			this.before = existing;
+			existing.after.before = this;
+			existing.after = this;
+		}
+	}
+
+}
@@ -17,15 +17,10 @@
 package org.springframework.validation;
 
 import java.beans.PropertyEditor;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 
 /**
  * Default implementation of the Errors interface, supporting
@@ -40,10 +35,19 @@ import org.springframework.beans.BeanWrapperImpl;
  * Thus, it is sometimes used as parameter type instead of the Errors interface
  * itself - if extracting the model makes sense in the respective context.
  *
+ * <p>As of Spring 1.1, the errors are held by a {@link BindingErrors}
+ * instance that this exception delegates to. The BindException that
+ * DataBinder creates by default does not fill in its stack trace on
+ * construction, as it is created for each binding process but rarely thrown:
+ * DataBinder's <code>close</code> method fills it in right before throwing.
+ * BindExceptions created through the public constructors capture their
+ * stack trace as usual.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @see #getModel
  * @see DataBinder#getErrors
+ * @see DataBinder#close
  */
 public class BindException extends Exception implements Errors {
 
@@ -53,13 +57,10 @@ public class BindException extends Exception implements Errors {
 	 */
 	public static final String ERROR_KEY_PREFIX = BindException.class.getName() + ".";
 
-	private List errors = new ArrayList();
-
-	private BeanWrapper beanWrapper;
+	private final BindingErrors bindingErrors;
 
-	private String objectName;
-
-	private String nestedPath = "";
+	/** Set once constructed: suppresses the implicit capture in Throwable's constructor */
+	private boolean constructed;
 
 	/**
 	 * Create a new BindException instance.
@@ -67,24 +68,47 @@ public class BindException extends Exception implements Errors {
 	 * @param name name of the target object
 	 */
 	public BindException(Object target, String name) {
-		this.beanWrapper = new BeanWrapperImpl(target);
-		this.objectName = name;
-		this.nestedPath = "";
+		this(new BindingErrors(target, name));
 	}
 
 	/**
-	 * Return the BeanWrapper that this instance uses.
+	 * Create a new BindException instance for the given errors.
+	 * @param bindingErrors the errors to expose
+	 * @since 1.1
 	 */
-	protected BeanWrapper getBeanWrapper() {
-		return beanWrapper;
+	public BindException(BindingErrors bindingErrors) {
+		this(bindingErrors, true);
 	}
 
 	/**
-	 * Transform the given field into its full path,
-	 * regarding the nested path of this instance.
+	 * Create a new BindException instance for the given errors,
+	 * optionally without capturing the stack trace.
+	 * Used by DataBinder for its default Errors instance.
+	 * @param bindingErrors the errors to expose
+	 * @param captureStackTrace whether to fill in the stack trace now
+	 * @see DataBinder#createErrors
 	 */
-	private String fixedField(String field) {
-		return this.nestedPath + field;
+	BindException(BindingErrors bindingErrors, boolean captureStackTrace) {
+		this.bindingErrors = bindingErrors;
+		this.constructed = true;
+		if (captureStackTrace) {
+			fillInStackTrace();
+		}
+	}
+
+	/**
+	 * Return the BindingErrors that this exception delegates to.
+	 * @since 1.1
+	 */
+	public final BindingErrors getBindingErrors() {
+		return bindingErrors;
+	}
+
+	/**
+	 * Return the BeanWrapper that this instance uses.
+	 */
+	protected BeanWrapper getBeanWrapper() {
+		return this.bindingErrors.getBeanWrapper();
 	}
 
 	/**
@@ -92,145 +116,94 @@ public class BindException extends Exception implements Errors {
 	 * Intended to be used by subclasses like DataBinder.
 	 */
 	protected void addFieldError(FieldError fe) {
-		this.errors.add(fe);
+		this.bindingErrors.addFieldError(fe);
 	}
 
 	/**
 	 * Return the wrapped target object.
 	 */
 	public Object getTarget() {
-		return this.beanWrapper.getWrappedInstance();
+		return this.bindingErrors.getTarget();
 	}
 
 	public String getObjectName() {
-		return objectName;
+		return this.bindingErrors.getObjectName();
 	}
 
 	public void reject(String errorCode, String defaultMessage) {
-		reject(errorCode, null, defaultMessage);
+		this.bindingErrors.reject(errorCode, defaultMessage);
 	}
 
 	public void reject(String errorCode, Object[] errorArgs, String defaultMessage) {
-		this.errors.add(new ObjectError(this.objectName, errorCode, errorArgs, defaultMessage));
+		this.bindingErrors.reject(errorCode, errorArgs, defaultMessage);
 	}
 
 	public void rejectValue(String field, String errorCode, String defaultMessage) {
-		rejectValue(field, errorCode, null, defaultMessage);
+		this.bindingErrors.rejectValue(field, errorCode, defaultMessage);
 	}
 
 	public void rejectValue(String field, String errorCode, Object[] errorArgs, String defaultMessage) {
-		field = fixedField(field);
-		Object newVal = getBeanWrapper().getPropertyValue(field);
-		FieldError fe = new FieldError(this.objectName, field, newVal, false, errorCode, errorArgs, defaultMessage);
-		this.errors.add(fe);
+		this.bindingErrors.rejectValue(field, errorCode, errorArgs, defaultMessage);
 	}
 
 	public boolean hasErrors() {
-		return !this.errors.isEmpty();
+		return this.bindingErrors.hasErrors();
 	}
 
 	public int getErrorCount() {
-		return this.errors.size();
+		return this.bindingErrors.getErrorCount();
 	}
 
 	public List getAllErrors() {
-		return Collections.unmodifiableList(this.errors);
+		return this.bindingErrors.getAllErrors();
 	}
 
 	public boolean hasGlobalErrors() {
-		return (getGlobalErrorCount() > 0);
+		return this.bindingErrors.hasGlobalErrors();
 	}
 
 	public int getGlobalErrorCount() {
-		return getGlobalErrors().size();
+		return this.bindingErrors.getGlobalErrorCount();
 	}
 
 	public List getGlobalErrors() {
-		List result = new ArrayList();
-		for (Iterator it = this.errors.iterator(); it.hasNext();) {
-			ObjectError fe = (ObjectError) it.next();
-			if (!(fe instanceof FieldError)) {
-				result.add(fe);
-			}
-		}
-		return Collections.unmodifiableList(result);
+		return this.bindingErrors.getGlobalErrors();
 	}
 
 	public ObjectError getGlobalError() {
-		for (Iterator it = this.errors.iterator(); it.hasNext();) {
-			ObjectError fe = (ObjectError) it.next();
-			if (!(fe instanceof FieldError)) {
-				return fe;
-			}
-		}
-		return null;
+		return this.bindingErrors.getGlobalError();
 	}
 
 	public boolean hasFieldErrors(String field) {
-		return (getFieldErrorCount(field) > 0);
+		return this.bindingErrors.hasFieldErrors(field);
 	}
 
 	public int getFieldErrorCount(String field) {
-		return getFieldErrors(field).size();
+		return this.bindingErrors.getFieldErrorCount(field);
 	}
 
 	public List getFieldErrors(String field) {
-		List result = new ArrayList();
-		field = fixedField(field);
-		for (Iterator it = this.errors.iterator(); it.hasNext();) {
-			ObjectError fe = (ObjectError) it.next();
-			if (fe instanceof FieldError && field.equals(((FieldError) fe).getField())) {
-				result.add(fe);
-			}
-		}
-		return Collections.unmodifiableList(result);
+		return this.bindingErrors.getFieldErrors(field);
 	}
 
 	public FieldError getFieldError(String field) {
-		field = fixedField(field);
-		for (Iterator it = this.errors.iterator(); it.hasNext();) {
-			ObjectError fe = (ObjectError) it.next();
-			if (fe instanceof FieldError && field.equals(((FieldError) fe).getField())) {
-				return (FieldError) fe;
-			}
-		}
-		return null;
+		return this.bindingErrors.getFieldError(field);
 	}
 
 	public Object getFieldValue(String field) {
-		field = fixedField(field);
-		FieldError fe = getFieldError(field);
-		// use rejected value in case of error, current bean property value else
-		Object value = (fe != null) ? fe.getRejectedValue() : getBeanWrapper().getPropertyValue(field);
-		// apply custom editor, but not on binding failures like type mismatches
-		if (value != null && (fe == null || !fe.isBindingFailure())) {
-			PropertyEditor customEditor = getBeanWrapper().findCustomEditor(null, field);
-			if (customEditor != null) {
-				customEditor.setValue(value);
-				return customEditor.getAsText();
-			}
-		}
-		return value;
+		return this.bindingErrors.getFieldValue(field);
 	}
 
 	public PropertyEditor getCustomEditor(String field) {
-		field = fixedField(field);
-		FieldError fe = getFieldError(field);
-		return (fe == null ? getBeanWrapper().findCustomEditor(null, field) : null);
+		return this.bindingErrors.getCustomEditor(field);
 	}
 
 	public void setNestedPath(String nestedPath) {
-		if (nestedPath == null) {
-			nestedPath = "";
-		}
-		if (nestedPath.length() > 0 && !nestedPath.endsWith(".")) {
-			nestedPath += ".";
-		}
-		this.nestedPath = nestedPath;
+		this.bindingErrors.setNestedPath(nestedPath);
 	}
 
 	public String getNestedPath() {
-		return nestedPath;
+		return this.bindingErrors.getNestedPath();
 	}
 
 	/**
@@ -243,24 +216,26 @@ public class BindException extends Exception implements Errors {
 	 * @see #ERROR_KEY_PREFIX
 	 */
 	public final Map getModel() {
-		Map model = new HashMap();
-		// errors instance, even if no errors
-		model.put(ERROR_KEY_PREFIX + this.objectName, this);
-		// mapping from name to target object
-		model.put(this.objectName, this.beanWrapper.getWrappedInstance());
-		return model;
+		return this.bindingErrors.createModel(this);
+	}
+
+	/**
+	 * Skips the implicit capture in Throwable's constructor: the stack trace
+	 * is filled in by the constructor of this class if requested, and
+	 * whenever called explicitly afterwards.
+	 */
+	public synchronized Throwable fillInStackTrace() {
+		if (!this.constructed) {
+			return this;
+		}
+		return super.fillInStackTrace();
 	}
 
 	/**
 	 * Returns diagnostic information about the errors held in this object.
 	 */
 	public String getMessage() {
-		StringBuffer sb = new StringBuffer("BindException: " + getErrorCount() + " errors");
-		Iterator it = this.errors.iterator();
-		while (it.hasNext()) {
-			sb.append("; " + it.next());
-		}
-		return sb.toString();
+		return "BindException: " + this.bindingErrors;
 	}
 
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.validation;
+
+import java.beans.PropertyEditor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+
+/**
+ * Lightweight implementation of the Errors interface, holding the errors
+ * of a binding or validation process. Unlike BindException, it is not an
+ * exception, so it can be created for each binding process without
+ * capturing a stack trace.
+ *
+ * <p>Field errors are indexed by field, and global errors are kept
+ * separately, so that looking up the errors of a single field does not
+ * need to scan all errors. This makes rendering forms with many fields
+ * via BindTag linear in the number of fields.
+ *
+ * <p>Supports exporting a model, like BindException does.
+ *
+ * @since 1.1
+ * @see BindException
+ * @see #getModel
+ */
+public class BindingErrors implements Errors {
+
+	private final BeanWrapper beanWrapper;
+
+	private final String objectName;
+
+	private String nestedPath = "";
+
+	/** All ObjectErrors and FieldErrors, in registration order */
+	private final List errors = new ArrayList();
+
+	private final List globalErrors = new ArrayList();
+
+	/** Lists of FieldErrors, keyed by full field path */
+	private final Map fieldErrors = new HashMap();
+
+
+	/**
+	 * Create a new BindingErrors instance.
+	 * @param target target object to bind onto
+	 * @param objectName name of the target object
+	 */
+	public BindingErrors(Object target, String objectName) {
+		this.beanWrapper = new BeanWrapperImpl(target);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Return the BeanWrapper that this instance uses.
+	 */
+	protected BeanWrapper getBeanWrapper() {
+		return beanWrapper;
+	}
+
+	/**
+	 * Transform the given field into its full path,
+	 * regarding the nested path of this instance.
+	 */
+	private String fixedField(String field) {
+		return this.nestedPath + field;
+	}
+
+	/**
+	 * Add a FieldError to the errors list.
+	 * Intended to be used by DataBinder.
+	 */
+	protected void addFieldError(FieldError fe) {
+		this.errors.add(fe);
+		List errorsForField = (List) this.fieldErrors.get(fe.getField());
+		if (errorsForField == null) {
+			errorsForField = new ArrayList(1);
+			this.fieldErrors.put(fe.getField(), errorsForField);
+		}
+		errorsForField.add(fe);
+	}
+
+	/**
+	 * Return the wrapped target object.
+	 */
+	public Object getTarget() {
+		return this.beanWrapper.getWrappedInstance();
+	}
+
+	public String getObjectName() {
+		return objectName;
+	}
+
+	public void reject(String errorCode, String defaultMessage) {
+		reject(errorCode, null, defaultMessage);
+	}
+
+	public void reject(String errorCode, Object[] errorArgs, String defaultMessage) {
+		ObjectError error = new ObjectError(this.objectName, errorCode, errorArgs, defaultMessage);
+		this.errors.add(error);
+		this.globalErrors.add(error);
+	}
+
+	public void rejectValue(String field, String errorCode, String defaultMessage) {
+		rejectValue(field, errorCode, null, defaultMessage);
+	}
+
+	public void rejectValue(String field, String errorCode, Object[] errorArgs, String defaultMessage) {
+		field = fixedField(field);
+		Object newVal = getBeanWrapper().getPropertyValue(field);
+		addFieldError(new FieldError(this.objectName, field, newVal, false, errorCode, errorArgs, defaultMessage));
+	}
+
+	public boolean hasErrors() {
+		return !this.errors.isEmpty();
+	}
+
+	public int getErrorCount() {
+		return this.errors.size();
+	}
+
+	public List getAllErrors() {
+		return Collections.unmodifiableList(this.errors);
+	}
+
+	public boolean hasGlobalErrors() {
+		return !this.globalErrors.isEmpty();
+	}
+
+	public int getGlobalErrorCount() {
+		return this.globalErrors.size();
+	}
+
+	public List getGlobalErrors() {
+		return Collections.unmodifiableList(this.globalErrors);
+	}
+
+	public ObjectError getGlobalError() {
+		return (!this.globalErrors.isEmpty() ? (ObjectError) this.globalErrors.get(0) : null);
+	}
+
+	public boolean hasFieldErrors(String field) {
+		return this.fieldErrors.containsKey(fixedField(field));
+	}
+
+	public int getFieldErrorCount(String field) {
+		List errorsForField = (List) this.fieldErrors.get(fixedField(field));
+		return (errorsForField != null ? errorsForField.size() : 0);
+	}
+
+	public List getFieldErrors(String field) {
+		List errorsForField = (List) this.fieldErrors.get(fixedField(field));
+		return (errorsForField != null ? Collections.unmodifiableList(errorsForField) : Collections.EMPTY_LIST);
+	}
+
+	public FieldError getFieldError(String field) {
+		return getFieldErrorForPath(fixedField(field));
+	}
+
+	/**
+	 * Return the first error for the given full field path, if any.
+	 */
+	private FieldError getFieldErrorForPath(String fieldPath) {
+		List errorsForField = (List) this.fieldErrors.get(fieldPath);
+		return (errorsForField != null ? (FieldError) errorsForField.get(0) : null);
+	}
+
+	public Object getFieldValue(String field) {
+		field = fixedField(field);
+		FieldError fe = getFieldErrorForPath(field);
+		// use rejected value in case of error, current bean property value else
+		Object value = (fe != null) ? fe.getRejectedValue() : getBeanWrapper().getPropertyValue(field);
+		// apply custom editor, but not on binding failures like type mismatches
+		if (value != null && (fe == null || !fe.isBindingFailure())) {
+			PropertyEditor customEditor = getBeanWrapper().findCustomEditor(null, field);
+			if (customEditor != null) {
+				customEditor.setValue(value);
+				return customEditor.getAsText();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Retrieve the custom PropertyEditor for the given field, if any.
+	 * @param field the field name
+	 * @return the custom PropertyEditor, or null if there is none
+	 * or if the field has errors
+	 */
+	public PropertyEditor getCustomEditor(String field) {
+		field = fixedField(field);
+		FieldError fe = getFieldErrorForPath(field);
+		return (fe == null ? getBeanWrapper().findCustomEditor(null, field) : null);
+	}
+
+	public void setNestedPath(String nestedPath) {
+		if (nestedPath == null) {
+			nestedPath = "";
+		}
+		if (nestedPath.length() > 0 && !nestedPath.endsWith(".")) {
+			nestedPath += ".";
+		}
+		this.nestedPath = nestedPath;
+	}
+
+	public String getNestedPath() {
+		return nestedPath;
+	}
+
+	/**
+	 * Return a model Map for the obtained state, exposing this Errors
+	 * instance as '{@link BindException#ERROR_KEY_PREFIX ERROR_KEY_PREFIX} + objectName'
+	 * and the object itself.
+	 * <p>Note that the Map is constructed each time you're calling this method,
+	 * as callers usually add their own entries to it.
+	 * @see #getObjectName
+	 * @see BindException#ERROR_KEY_PREFIX
+	 */
+	public Map getModel() {
+		return createModel(this);
+	}
+
+	/**
+	 * Create a model Map for the obtained state, exposing the given Errors
+	 * instance and the target object.
+	 */
+	Map createModel(Errors errorsToExpose) {
+		Map model = new HashMap(4);
+		// errors instance, even if no errors
+		model.put(BindException.ERROR_KEY_PREFIX + this.objectName, errorsToExpose);
+		// mapping from name to target object
+		model.put(this.objectName, this.beanWrapper.getWrappedInstance());
+		return model;
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer(getErrorCount() + " errors");
+		for (int i = 0; i < this.errors.size(); i++) {
+			sb.append("; ").append(this.errors.get(i));
+		}
+		return sb.toString();
+	}
+
+}
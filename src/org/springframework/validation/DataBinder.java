@@ -17,9 +17,9 @@
 package org.springframework.validation;
 
 import java.beans.PropertyEditor;
-import java.util.Arrays;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.PropertyAccessException;
@@ -56,6 +56,15 @@ public class DataBinder {
 
 	private String[] allowedFields;
 
+	/** Allowed field names without pattern, for quick lookup */
+	private Set allowedFieldNames;
+
+	/** Prefixes of "xxx*" allowed field patterns */
+	private String[] allowedFieldPrefixes;
+
+	/** Suffixes of "*xxx" allowed field patterns */
+	private String[] allowedFieldSuffixes;
+
 	private String[] requiredFields;
 
 	/**
@@ -77,7 +86,8 @@ public class DataBinder {
 	 * @see #close
 	 */
 	protected BindException createErrors(Object target, String objectName) {
-		return new BindException(target, objectName);
+		// lightweight default: the stack trace is filled in by close() if thrown
+		return new BindException(new BindingErrors(target, objectName), false);
 	}
 
 	/**
@@ -115,6 +125,29 @@ public class DataBinder {
 	 */
 	public void setAllowedFields(String[] allowedFields) {
 		this.allowedFields = allowedFields;
+		if (allowedFields != null) {
+			// split the allowed fields once, instead of for each bound value
+			this.allowedFieldNames = new HashSet();
+			Set prefixes = new HashSet();
+			Set suffixes = new HashSet();
+			for (int i = 0; i < allowedFields.length; i++) {
+				String allowed = allowedFields[i];
+				if (allowed.endsWith("*")) {
+					prefixes.add(allowed.substring(0, allowed.length() - 1));
+				}
+				if (allowed.startsWith("*")) {
+					suffixes.add(allowed.substring(1, allowed.length()));
+				}
+				this.allowedFieldNames.add(allowed);
+			}
+			this.allowedFieldPrefixes = (String[]) prefixes.toArray(new String[prefixes.size()]);
+			this.allowedFieldSuffixes = (String[]) suffixes.toArray(new String[suffixes.size()]);
+		}
+		else {
+			this.allowedFieldNames = null;
+			this.allowedFieldPrefixes = null;
+			this.allowedFieldSuffixes = null;
+		}
 	}
 
 	/**
@@ -179,12 +212,11 @@ public class DataBinder {
 	public void bind(PropertyValues pvs) {
 		// check for fields to bind
 		PropertyValue[] pvArray = pvs.getPropertyValues();
-		List allowedFieldsList = (this.allowedFields != null) ? Arrays.asList(this.allowedFields) : null;
 		MutablePropertyValues mpvs = (pvs instanceof MutablePropertyValues) ?
 		    (MutablePropertyValues) pvs : new MutablePropertyValues(pvs);
 		for (int i = 0; i < pvArray.length; i++) {
 			String field = pvArray[i].getName();
-			if (!((allowedFieldsList != null && allowedFieldsList.contains(field)) || isAllowed(field))) {
+			if (!((this.allowedFieldNames != null && this.allowedFieldNames.contains(field)) || isAllowed(field))) {
 				mpvs.removePropertyValue(pvArray[i]);
 			}
 		}
@@ -232,10 +264,13 @@ public class DataBinder {
 	 */
 	protected boolean isAllowed(String field) {
 		if (this.allowedFields != null) {
-			for (int i = 0; i < this.allowedFields.length; i++) {
-				String allowed = this.allowedFields[i];
-				if ((allowed.endsWith("*") && field.startsWith(allowed.substring(0, allowed.length() - 1))) ||
-						(allowed.startsWith("*") && field.endsWith(allowed.substring(1, allowed.length())))) {
+			for (int i = 0; i < this.allowedFieldPrefixes.length; i++) {
+				if (field.startsWith(this.allowedFieldPrefixes[i])) {
+					return true;
+				}
+			}
+			for (int i = 0; i < this.allowedFieldSuffixes.length; i++) {
+				if (field.endsWith(this.allowedFieldSuffixes[i])) {
 					return true;
 				}
 			}
@@ -253,6 +288,8 @@ public class DataBinder {
 	 */
 	public Map close() throws BindException {
 		if (this.errors.hasErrors()) {
+			// the default BindException does not capture its stack trace on construction
+			this.errors.fillInStackTrace();
 			throw this.errors;
 		}
 		return this.errors.getModel();
@@ -0,0 +1,644 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.LinkedList;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Servlet 2.3 Filter that compresses responses with gzip, for clients that
+ * accept the gzip content encoding. HTML pages typically shrink to a fifth
+ * of their size, at a moderate CPU cost.
+ *
+ * <p>A response gets compressed if all of the following hold:
+ * <ul>
+ * <li>the request's "Accept-Encoding" header allows "gzip";
+ * <li>the response status is 200 and no "Content-Encoding" has been set;
+ * <li>the content type matches one of the "contentTypes" (by default,
+ * textual types like HTML, XML, CSS and JavaScript);
+ * <li>the content is larger than "minSize" bytes (default 1024).
+ * </ul>
+ *
+ * <p>Content is buffered until "minSize" bytes have been written; from then
+ * on, it is streamed through a deflater, without further buffering. Smaller
+ * responses are sent uncompressed, with a proper content length. An explicit
+ * flush before "minSize" has been reached decides about compression based on
+ * the content type only.
+ *
+ * <p>Both getOutputStream and getWriter can be used on the wrapped response,
+ * even within the same request: for example, by views that include JSPs,
+ * like InternalResourceView with a forward or include. The response is not
+ * committed before content is actually written, so forwards still work.
+ *
+ * <p>Deflaters and their buffers are pooled and reused across requests,
+ * as a Deflater allocates a considerable amount of native memory.
+ *
+ * @since 1.1
+ * @see #setMinSize
+ * @see #setContentTypes
+ * @see org.springframework.web.servlet.view.InternalResourceView
+ */
+public class GzipFilter extends OncePerRequestFilter {
+
+	public static final int DEFAULT_MIN_SIZE = 1024;
+
+	public static final String[] DEFAULT_CONTENT_TYPES = {
+		"text/html", "text/plain", "text/xml", "text/css", "text/javascript",
+		"application/x-javascript", "application/xml", "application/xhtml+xml"};
+
+	public static final int DEFAULT_MAX_POOL_SIZE = 32;
+
+	private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+	private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+
+	private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+	private static final String HEADER_CONTENT_TYPE = "Content-Type";
+
+	private static final String HEADER_VARY = "Vary";
+
+	private static final String GZIP = "gzip";
+
+	private static final int DEFLATE_BUFFER_SIZE = 8192;
+
+	/** Header of a gzip stream without file name and timestamp */
+	private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+
+	private int minSize = DEFAULT_MIN_SIZE;
+
+	private String[] contentTypes = DEFAULT_CONTENT_TYPES;
+
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	private int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+
+	/** Pool of CompressionResources, used as stack */
+	private final LinkedList resourcePool = new LinkedList();
+
+
+	/**
+	 * Set the minimum content size in bytes for a response to get compressed.
+	 * Default is 1024. Smaller content does not benefit much from compression.
+	 */
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	/**
+	 * Set the content types to compress, without parameters like charset.
+	 * Entries can end with "/*" to match all subtypes, like "text/*".
+	 * Default is a list of common textual types.
+	 * <p>Binary formats like images and PDF are usually compressed already,
+	 * so compressing them again would just waste CPU time.
+	 * @see #DEFAULT_CONTENT_TYPES
+	 */
+	public void setContentTypes(String[] contentTypes) {
+		this.contentTypes = contentTypes;
+	}
+
+	/**
+	 * Set the deflater compression level, from 1 (fastest) to 9 (best).
+	 * Default is the deflater's default level, a good compromise.
+	 * @see java.util.zip.Deflater#DEFAULT_COMPRESSION
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Set the maximum number of deflaters to keep for reuse.
+	 * Default is 32; should roughly match the number of concurrent requests.
+	 */
+	public void setMaxPoolSize(int maxPoolSize) {
+		this.maxPoolSize = maxPoolSize;
+	}
+
+
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+	                                FilterChain filterChain) throws ServletException, IOException {
+		if (!acceptsGzip(request)) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		GzipResponseWrapper responseWrapper = new GzipResponseWrapper(response);
+		try {
+			filterChain.doFilter(request, responseWrapper);
+			responseWrapper.finishResponse();
+		}
+		finally {
+			responseWrapper.releaseResources();
+		}
+	}
+
+	/**
+	 * Determine whether the client accepts gzip-encoded content,
+	 * according to the request's "Accept-Encoding" header.
+	 * @param request current HTTP request
+	 * @return whether the response may be compressed with gzip
+	 */
+	protected boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HEADER_ACCEPT_ENCODING);
+		if (acceptEncoding == null) {
+			return false;
+		}
+		String[] codings = StringUtils.commaDelimitedListToStringArray(acceptEncoding);
+		for (int i = 0; i < codings.length; i++) {
+			String coding = codings[i].trim().toLowerCase();
+			String qValue = null;
+			int paramIndex = coding.indexOf(';');
+			if (paramIndex != -1) {
+				qValue = coding.substring(paramIndex + 1).trim();
+				coding = coding.substring(0, paramIndex).trim();
+			}
+			if (GZIP.equals(coding) || "x-gzip".equals(coding) || "*".equals(coding)) {
+				// "gzip;q=0" explicitly refuses gzip
+				return (qValue == null || !qValue.startsWith("q=") || !isZero(qValue.substring(2).trim()));
+			}
+		}
+		return false;
+	}
+
+	private static boolean isZero(String qValue) {
+		try {
+			return (Double.parseDouble(qValue) == 0);
+		}
+		catch (NumberFormatException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Determine whether content of the given type should be compressed.
+	 * @param contentType the content type of the response, possibly
+	 * with parameters (may be null if not set)
+	 * @return whether to compress the content
+	 * @see #setContentTypes
+	 */
+	protected boolean isCompressibleContentType(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		int paramIndex = contentType.indexOf(';');
+		String mimeType = (paramIndex != -1 ? contentType.substring(0, paramIndex) : contentType).trim().toLowerCase();
+		for (int i = 0; i < this.contentTypes.length; i++) {
+			String candidate = this.contentTypes[i].trim().toLowerCase();
+			if (candidate.equals(mimeType) ||
+			    (candidate.endsWith("/*") && mimeType.startsWith(candidate.substring(0, candidate.length() - 1)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private CompressionResources obtainResources() {
+		synchronized (this.resourcePool) {
+			if (!this.resourcePool.isEmpty()) {
+				return (CompressionResources) this.resourcePool.removeLast();
+			}
+		}
+		return new CompressionResources(this.compressionLevel, this.minSize);
+	}
+
+	private void releaseResources(CompressionResources resources) {
+		resources.reset();
+		synchronized (this.resourcePool) {
+			if (this.resourcePool.size() < this.maxPoolSize) {
+				this.resourcePool.addLast(resources);
+				return;
+			}
+		}
+		resources.deflater.end();
+	}
+
+
+	/**
+	 * Reusable state for compressing one response: a deflater for raw
+	 * deflate data, a checksum for the gzip trailer, a buffer for the
+	 * uncompressed content up to the minimum size, and a buffer for the
+	 * deflater's output.
+	 */
+	private static class CompressionResources {
+
+		private final Deflater deflater;
+
+		private final CRC32 crc = new CRC32();
+
+		private final byte[] buffer;
+
+		private final byte[] deflateBuffer = new byte[DEFLATE_BUFFER_SIZE];
+
+		private CompressionResources(int compressionLevel, int bufferSize) {
+			this.deflater = new Deflater(compressionLevel, true);
+			this.buffer = new byte[bufferSize];
+		}
+
+		private void reset() {
+			this.deflater.reset();
+			this.crc.reset();
+		}
+	}
+
+
+	/**
+	 * Response wrapper that decides about compression once "minSize" bytes
+	 * have been written, or when the response gets flushed or finished.
+	 */
+	private class GzipResponseWrapper extends HttpServletResponseWrapper {
+
+		private final GzipResponseStream stream = new GzipResponseStream();
+
+		private PrintWriter writer;
+
+		private int statusCode = HttpServletResponse.SC_OK;
+
+		private boolean contentEncodingSet = false;
+
+		private int contentLength = -1;
+
+		private GzipResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+
+		public void setStatus(int statusCode) {
+			super.setStatus(statusCode);
+			this.statusCode = statusCode;
+		}
+
+		public void setStatus(int statusCode, String message) {
+			super.setStatus(statusCode, message);
+			this.statusCode = statusCode;
+		}
+
+		public void sendError(int statusCode) throws IOException {
+			abortContent();
+			super.sendError(statusCode);
+			this.statusCode = statusCode;
+		}
+
+		public void sendError(int statusCode, String message) throws IOException {
+			abortContent();
+			super.sendError(statusCode, message);
+			this.statusCode = statusCode;
+		}
+
+		public void sendRedirect(String location) throws IOException {
+			abortContent();
+			super.sendRedirect(location);
+			this.statusCode = HttpServletResponse.SC_MOVED_TEMPORARILY;
+		}
+
+		/**
+		 * Drop content that has not been written to the target response yet,
+		 * and ignore any further content, like a container does after an
+		 * error or redirect has been sent.
+		 */
+		private void abortContent() {
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+			this.stream.abort();
+		}
+
+		public void setContentLength(int len) {
+			// the actual length is determined on writing
+			this.contentLength = len;
+		}
+
+		public void setHeader(String name, String value) {
+			if (!interceptHeader(name, value)) {
+				super.setHeader(name, value);
+			}
+		}
+
+		public void addHeader(String name, String value) {
+			if (!interceptHeader(name, value)) {
+				super.addHeader(name, value);
+			}
+		}
+
+		public void setIntHeader(String name, int value) {
+			if (!interceptHeader(name, Integer.toString(value))) {
+				super.setIntHeader(name, value);
+			}
+		}
+
+		public void addIntHeader(String name, int value) {
+			if (!interceptHeader(name, Integer.toString(value))) {
+				super.addIntHeader(name, value);
+			}
+		}
+
+		/**
+		 * Keep track of headers that affect compression.
+		 * @return whether the header has been handled
+		 */
+		private boolean interceptHeader(String name, String value) {
+			if (HEADER_CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				try {
+					this.contentLength = Integer.parseInt(value.trim());
+				}
+				catch (NumberFormatException ex) {
+					this.contentLength = -1;
+				}
+				return true;
+			}
+			if (HEADER_CONTENT_TYPE.equalsIgnoreCase(name)) {
+				setContentType(value);
+				return true;
+			}
+			if (HEADER_CONTENT_ENCODING.equalsIgnoreCase(name)) {
+				this.contentEncodingSet = true;
+			}
+			return false;
+		}
+
+		public ServletOutputStream getOutputStream() {
+			return this.stream;
+		}
+
+		public PrintWriter getWriter() throws IOException {
+			if (this.writer == null) {
+				String characterEncoding = getCharacterEncoding();
+				if (characterEncoding == null) {
+					characterEncoding = WebUtils.DEFAULT_CHARACTER_ENCODING;
+				}
+				this.writer = new PrintWriter(new OutputStreamWriter(this.stream, characterEncoding));
+			}
+			return this.writer;
+		}
+
+		public void flushBuffer() throws IOException {
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+			this.stream.forceDecision();
+			super.flushBuffer();
+		}
+
+		public void resetBuffer() {
+			super.resetBuffer();
+			this.stream.discard();
+		}
+
+		public void reset() {
+			super.reset();
+			this.stream.discard();
+			this.statusCode = HttpServletResponse.SC_OK;
+			this.contentEncodingSet = false;
+			this.contentLength = -1;
+		}
+
+		/**
+		 * Decide whether to compress the content written so far and the
+		 * rest of the response.
+		 * @param sizeKnown whether the complete content has been written
+		 * @param size the content size so far
+		 */
+		private boolean shouldCompress(boolean sizeKnown, int size) {
+			if (this.statusCode != HttpServletResponse.SC_OK || this.contentEncodingSet ||
+			    !isCompressibleContentType(getContentTypeOfResponse())) {
+				return false;
+			}
+			if (sizeKnown || (this.contentLength >= 0 && this.contentLength <= minSize)) {
+				return (size > minSize);
+			}
+			return true;
+		}
+
+		private String getContentTypeOfResponse() {
+			return this.stream.contentType;
+		}
+
+		public void setContentType(String contentType) {
+			super.setContentType(contentType);
+			this.stream.contentType = contentType;
+		}
+
+		private void finishResponse() throws IOException {
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+			this.stream.finish();
+		}
+
+		private void releaseResources() {
+			this.stream.releaseResources();
+		}
+
+
+		/**
+		 * ServletOutputStream that buffers content up to the minimum size,
+		 * then writes it to the target response - compressed or not.
+		 */
+		private class GzipResponseStream extends ServletOutputStream {
+
+			private String contentType;
+
+			private CompressionResources resources;
+
+			/** Number of bytes buffered while undecided */
+			private int count = 0;
+
+			/** Target stream once decided (null while undecided) */
+			private OutputStream out;
+
+			private boolean compressing = false;
+
+			private boolean finished = false;
+
+			public void write(int b) throws IOException {
+				write(new byte[] {(byte) b}, 0, 1);
+			}
+
+			public void write(byte[] b, int off, int len) throws IOException {
+				if (this.finished) {
+					return;
+				}
+				if (this.out == null) {
+					if (this.count + len <= minSize) {
+						if (this.resources == null) {
+							this.resources = obtainResources();
+						}
+						System.arraycopy(b, off, this.resources.buffer, this.count, len);
+						this.count += len;
+						return;
+					}
+					decide(false);
+				}
+				if (this.compressing) {
+					deflate(b, off, len);
+				}
+				else {
+					this.out.write(b, off, len);
+				}
+			}
+
+			/**
+			 * Only flushes once the compression decision has been made:
+			 * writers flush their stream on every include, which must not
+			 * lead to decisions based on partial content.
+			 */
+			public void flush() throws IOException {
+				if (this.out != null && !this.finished) {
+					this.out.flush();
+				}
+			}
+
+			/**
+			 * Decide about compression based on the content written so far,
+			 * on an explicit flush of the response buffer.
+			 */
+			private void forceDecision() throws IOException {
+				if (this.out == null && this.count > 0 && !this.finished) {
+					decide(false);
+				}
+				flush();
+			}
+
+			/**
+			 * Decide about compression, and write the buffered content.
+			 */
+			private void decide(boolean complete) throws IOException {
+				this.compressing = shouldCompress(complete, this.count);
+				if (this.compressing) {
+					GzipResponseWrapper.super.setHeader(HEADER_CONTENT_ENCODING, GZIP);
+					GzipResponseWrapper.super.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+				}
+				else if (complete) {
+					GzipResponseWrapper.super.setContentLength(this.count);
+				}
+				else if (contentLength >= 0) {
+					GzipResponseWrapper.super.setContentLength(contentLength);
+				}
+				this.out = GzipResponseWrapper.super.getOutputStream();
+				if (this.resources == null) {
+					this.resources = obtainResources();
+				}
+				if (this.compressing) {
+					this.out.write(GZIP_HEADER);
+				}
+				if (this.count > 0) {
+					if (this.compressing) {
+						deflate(this.resources.buffer, 0, this.count);
+					}
+					else {
+						this.out.write(this.resources.buffer, 0, this.count);
+					}
+					this.count = 0;
+				}
+			}
+
+			private void deflate(byte[] b, int off, int len) throws IOException {
+				Deflater deflater = this.resources.deflater;
+				this.resources.crc.update(b, off, len);
+				deflater.setInput(b, off, len);
+				while (!deflater.needsInput()) {
+					writeDeflated();
+				}
+			}
+
+			private void writeDeflated() throws IOException {
+				byte[] buffer = this.resources.deflateBuffer;
+				int length = this.resources.deflater.deflate(buffer, 0, buffer.length);
+				if (length > 0) {
+					this.out.write(buffer, 0, length);
+				}
+			}
+
+			/**
+			 * Write remaining content, and the gzip trailer if compressing.
+			 */
+			private void finish() throws IOException {
+				if (this.finished) {
+					return;
+				}
+				if (this.out == null) {
+					if (this.count == 0) {
+						// nothing written, e.g. for a HEAD request: pass on a declared length
+						if (contentLength >= 0) {
+							GzipResponseWrapper.super.setContentLength(contentLength);
+						}
+						this.finished = true;
+						return;
+					}
+					decide(true);
+				}
+				if (this.compressing) {
+					Deflater deflater = this.resources.deflater;
+					deflater.finish();
+					while (!deflater.finished()) {
+						writeDeflated();
+					}
+					writeIntLE((int) this.resources.crc.getValue());
+					writeIntLE(deflater.getTotalIn());
+				}
+				this.out.flush();
+				this.finished = true;
+			}
+
+			private void writeIntLE(int value) throws IOException {
+				this.out.write(value & 0xff);
+				this.out.write((value >> 8) & 0xff);
+				this.out.write((value >> 16) & 0xff);
+				this.out.write((value >> 24) & 0xff);
+			}
+
+			/**
+			 * Discard buffered content that has not been written yet,
+			 * e.g. on reset or on sending an error.
+			 */
+			private void discard() {
+				if (this.out == null) {
+					this.count = 0;
+				}
+			}
+
+			private void abort() {
+				if (this.out == null) {
+					this.count = 0;
+					this.finished = true;
+				}
+			}
+
+			private void releaseResources() {
+				if (this.resources != null) {
+					CompressionResources resourcesToRelease = this.resources;
+					this.resources = null;
+					GzipFilter.this.releaseResources(resourcesToRelease);
+				}
+			}
+		}
+	}
+
+}
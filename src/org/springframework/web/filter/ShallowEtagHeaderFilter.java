@@ -0,0 +1,264 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Servlet 2.3 Filter that generates an "ETag" header for each successful
+ * GET and HEAD response, based on an MD5 hash of the response content.
+ * If the ETag matches the "If-None-Match" header of the request, the
+ * response is answered with "304 Not Modified" and no content.
+ *
+ * <p>This is a "shallow" ETag: the complete response still gets generated,
+ * as the content needs to be hashed. It thus saves bandwidth, but not
+ * server-side processing. For the latter, the resource itself needs to
+ * determine whether the client's copy is current: see WebContentGenerator's
+ * checkNotModified method, and LastModified controllers.
+ *
+ * <p>Note that the entire response content of GET and HEAD requests is
+ * buffered in memory, and that the response is not committed before the
+ * filter chain has completed: flushBuffer calls are ignored. Don't apply
+ * this filter to large or streamed content. Other requests pass through
+ * unbuffered.
+ *
+ * @since 1.1
+ * @see org.springframework.web.servlet.support.WebContentGenerator#checkNotModified
+ * @see org.springframework.web.servlet.mvc.LastModified
+ */
+public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
+
+	private static final String METHOD_GET = "GET";
+
+	private static final String METHOD_HEAD = "HEAD";
+
+	private static final String HEADER_ETAG = "ETag";
+
+	private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+	private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+	                                FilterChain filterChain) throws ServletException, IOException {
+
+		String method = request.getMethod();
+		if (!METHOD_GET.equals(method) && !METHOD_HEAD.equals(method)) {
+			// no ETag for other methods: don't buffer the response
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		ShallowEtagResponseWrapper responseWrapper = new ShallowEtagResponseWrapper(response);
+		filterChain.doFilter(request, responseWrapper);
+		if (responseWrapper.isRedirectedOrError()) {
+			// response has already been completed by the container
+			return;
+		}
+
+		byte[] body = responseWrapper.toByteArray();
+		if (!responseWrapper.containsHeader(HEADER_ETAG) &&
+				isEligibleForEtag(request, responseWrapper.getStatusCode(), body)) {
+			String eTag = generateETagHeaderValue(body);
+			response.setHeader(HEADER_ETAG, eTag);
+			if (WebUtils.matchesETag(request.getHeader(HEADER_IF_NONE_MATCH), eTag)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("ETag [" + eTag + "] equal to If-None-Match - answering with 304");
+				}
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+		}
+		response.setContentLength(body.length);
+		if (body.length > 0) {
+			ServletOutputStream out = response.getOutputStream();
+			out.write(body);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Determine whether the given response is eligible for an ETag.
+	 * Only called for responses that did not set an ETag header themselves.
+	 * <p>Default implementation returns true for successful GET and HEAD
+	 * responses (status code 200).
+	 * @param request current HTTP request
+	 * @param statusCode the status code of the response
+	 * @param body the content of the response
+	 * @return whether an ETag should be generated
+	 */
+	protected boolean isEligibleForEtag(HttpServletRequest request, int statusCode, byte[] body) {
+		String method = request.getMethod();
+		return (statusCode == HttpServletResponse.SC_OK &&
+				(METHOD_GET.equals(method) || METHOD_HEAD.equals(method)));
+	}
+
+	/**
+	 * Generate the ETag header value from the given response content.
+	 * <p>Default implementation returns the MD5 hash of the content as
+	 * hex string, prefixed with "0" and enclosed in quotes.
+	 * @param body the content of the response
+	 * @return the ETag header value, including quotes
+	 */
+	protected String generateETagHeaderValue(byte[] body) {
+		byte[] digest = null;
+		try {
+			digest = MessageDigest.getInstance("MD5").digest(body);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("MD5 algorithm not available: " + ex.getMessage());
+		}
+		StringBuffer sb = new StringBuffer(2 * digest.length + 3);
+		sb.append("\"0");
+		for (int i = 0; i < digest.length; i++) {
+			sb.append(HEX_CHARS[(digest[i] >> 4) & 0x0f]);
+			sb.append(HEX_CHARS[digest[i] & 0x0f]);
+		}
+		sb.append('"');
+		return sb.toString();
+	}
+
+
+	/**
+	 * HttpServletResponse wrapper that buffers all content written to it,
+	 * and keeps track of the status code.
+	 */
+	private static class ShallowEtagResponseWrapper extends HttpServletResponseWrapper {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private final ServletOutputStream outputStream = new ResponseServletOutputStream();
+
+		private PrintWriter writer;
+
+		private int statusCode = HttpServletResponse.SC_OK;
+
+		private boolean redirectedOrError = false;
+
+		private ShallowEtagResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+
+		public void setStatus(int statusCode) {
+			super.setStatus(statusCode);
+			this.statusCode = statusCode;
+		}
+
+		public void setStatus(int statusCode, String message) {
+			super.setStatus(statusCode, message);
+			this.statusCode = statusCode;
+		}
+
+		public void sendError(int statusCode) throws IOException {
+			super.sendError(statusCode);
+			this.statusCode = statusCode;
+			this.redirectedOrError = true;
+		}
+
+		public void sendError(int statusCode, String message) throws IOException {
+			super.sendError(statusCode, message);
+			this.statusCode = statusCode;
+			this.redirectedOrError = true;
+		}
+
+		public void sendRedirect(String location) throws IOException {
+			super.sendRedirect(location);
+			this.statusCode = HttpServletResponse.SC_MOVED_TEMPORARILY;
+			this.redirectedOrError = true;
+		}
+
+		public void setContentLength(int len) {
+			// content length will be set for the buffered content
+		}
+
+		public ServletOutputStream getOutputStream() {
+			return this.outputStream;
+		}
+
+		public PrintWriter getWriter() throws IOException {
+			if (this.writer == null) {
+				String characterEncoding = getCharacterEncoding();
+				if (characterEncoding == null) {
+					characterEncoding = WebUtils.DEFAULT_CHARACTER_ENCODING;
+				}
+				this.writer = new PrintWriter(new OutputStreamWriter(this.content, characterEncoding));
+			}
+			return this.writer;
+		}
+
+		public void flushBuffer() {
+			// don't commit the response before the ETag has been determined
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+		}
+
+		public void resetBuffer() {
+			super.resetBuffer();
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+			this.content.reset();
+		}
+
+		public void reset() {
+			super.reset();
+			resetBuffer();
+			this.statusCode = HttpServletResponse.SC_OK;
+		}
+
+		private int getStatusCode() {
+			return this.statusCode;
+		}
+
+		private boolean isRedirectedOrError() {
+			return this.redirectedOrError;
+		}
+
+		private byte[] toByteArray() {
+			flushBuffer();
+			return this.content.toByteArray();
+		}
+
+
+		private class ResponseServletOutputStream extends ServletOutputStream {
+
+			public void write(int b) {
+				content.write(b);
+			}
+
+			public void write(byte[] b, int off, int len) {
+				content.write(b, off, len);
+			}
+		}
+	}
+
+}
@@ -41,6 +41,7 @@ import javax.servlet.http.HttpServletRequest;
  * @author Trevor D. Cook
  * @since 29.9.2003
  * @see MultipartHttpServletRequest
+ * @see StreamingMultipartHttpServletRequest
  * @see MultipartFile
  * @see org.springframework.web.multipart.commons.CommonsMultipartResolver
  * @see org.springframework.web.multipart.cos.CosMultipartResolver
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.multipart;
+
+/**
+ * Extension of the MultipartHttpServletRequest interface for requests that
+ * are parsed lazily, allowing handlers to read uploaded files straight from
+ * the request body instead of from a temporary storage.
+ *
+ * <p>Files are returned one by one by <code>nextFile</code>, in the order of
+ * the request body. The InputStream of such a file can be obtained once, and
+ * is only valid until the next call of <code>nextFile</code>. This allows for
+ * transferring large uploads to a file store or a database at constant memory.
+ *
+ * <p>Any access to the size or the bytes of a file, to a request parameter
+ * that has not been parsed yet, or to the file map parses the rest of the
+ * request body, spilling the remaining files to temporary files. Therefore,
+ * handlers should read all files before accessing request parameters that
+ * might follow them in the request body.
+ *
+ * @since 1.1
+ * @see org.springframework.web.multipart.cos.CosMultipartResolver#setStreaming
+ */
+public interface StreamingMultipartHttpServletRequest extends MultipartHttpServletRequest {
+
+	/**
+	 * Parse the request body up to the next uploaded file,
+	 * collecting the form fields in front of it.
+	 * @return the next file, whose InputStream reads straight from the
+	 * request body, or null if the request body has been parsed completely
+	 * @throws MultipartException if the request body could not be parsed
+	 * @see MultipartFile#getInputStream
+	 * @see MultipartFile#transferTo
+	 */
+	MultipartFile nextFile() throws MultipartException;
+
+}
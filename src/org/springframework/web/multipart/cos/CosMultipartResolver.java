@@ -24,6 +24,7 @@ import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 
 import com.oreilly.servlet.MultipartRequest;
+import com.oreilly.servlet.multipart.MultipartParser;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -43,10 +44,16 @@ import org.springframework.web.util.WebUtils;
  * see respective MultipartRequest constructor parameters for details.
  * Default maximum file size is unlimited; fallback encoding is the platform's default.
  *
+ * <p>In "streaming" mode, requests get parsed lazily with a COS MultipartParser,
+ * exposing uploaded files straight from the request body through the
+ * StreamingMultipartHttpServletRequest interface.
+ *
  * @author Juergen Hoeller
  * @since 06.10.2003
  * @see CosMultipartHttpServletRequest
+ * @see CosStreamingMultipartHttpServletRequest
  * @see com.oreilly.servlet.MultipartRequest
+ * @see #setStreaming
  */
 public class CosMultipartResolver implements MultipartResolver, ServletContextAware {
 
@@ -61,6 +68,8 @@ public class CosMultipartResolver implements MultipartResolver, ServletContextAw
 
 	private File uploadTempDir;
 
+	private boolean streaming = false;
+
 
 	/**
 	 * Constructor for use as bean. Determines the servlet container's
@@ -143,6 +152,27 @@ public class CosMultipartResolver implements MultipartResolver, ServletContextAw
 		return uploadTempDir;
 	}
 
+	/**
+	 * Set whether to parse multipart requests lazily, returning a
+	 * StreamingMultipartHttpServletRequest that lets handlers read uploaded
+	 * files straight from the request body. Default is false, parsing the
+	 * whole request and storing all files in the upload directory up front.
+	 * <p>In streaming mode, files only get written to the upload directory
+	 * if the rest of the request body needs to be parsed before they have
+	 * been read, e.g. to access request parameters that follow them.
+	 * @see org.springframework.web.multipart.StreamingMultipartHttpServletRequest
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * Return whether to parse multipart requests lazily.
+	 */
+	protected boolean isStreaming() {
+		return streaming;
+	}
+
 	public void setServletContext(ServletContext servletContext) {
 		if (this.uploadTempDir == null) {
 			this.uploadTempDir = WebUtils.getTempDir(servletContext);
@@ -156,6 +186,11 @@ public class CosMultipartResolver implements MultipartResolver, ServletContextAw
 
 	public MultipartHttpServletRequest resolveMultipart(HttpServletRequest request) throws MultipartException {
 		try {
+			if (this.streaming) {
+				MultipartParser multipartParser = newMultipartParser(request);
+				return new CosStreamingMultipartHttpServletRequest(request, multipartParser, this.uploadTempDir,
+				                                                   determineEncoding(request));
+			}
 			MultipartRequest multipartRequest = newMultipartRequest(request);
 			if (logger.isDebugEnabled()) {
 				Enumeration fileNames = multipartRequest.getFileNames();
@@ -187,6 +222,19 @@ public class CosMultipartResolver implements MultipartResolver, ServletContextAw
 		return new MultipartRequest(request, tempPath, this.maxUploadSize, enc);
 	}
 
+	/**
+	 * Create a com.oreilly.servlet.multipart.MultipartParser for the given HTTP
+	 * request, for parsing the request lazily in streaming mode.
+	 * Can be overridden to use a custom subclass, e.g. for testing purposes.
+	 * @param request current HTTP request
+	 * @return the new MultipartParser
+	 * @throws IOException if thrown by the MultipartParser constructor
+	 * @see #setStreaming
+	 */
+	protected MultipartParser newMultipartParser(HttpServletRequest request) throws IOException {
+		return new MultipartParser(request, this.maxUploadSize, true, true, determineEncoding(request));
+	}
+
 	/**
 	 * Determine the encoding for the given request.
 	 * Can be overridden in subclasses.
@@ -206,6 +254,10 @@ public class CosMultipartResolver implements MultipartResolver, ServletContextAw
 	}
 
 	public void cleanupMultipart(MultipartHttpServletRequest request) {
+		if (request instanceof CosStreamingMultipartHttpServletRequest) {
+			((CosStreamingMultipartHttpServletRequest) request).cleanup();
+			return;
+		}
 		MultipartRequest multipartRequest = ((CosMultipartHttpServletRequest) request).getMultipartRequest();
 		Enumeration fileNames = multipartRequest.getFileNames();
 		while (fileNames.hasMoreElements()) {
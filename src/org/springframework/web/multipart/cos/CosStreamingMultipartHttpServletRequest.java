@@ -0,0 +1,394 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.multipart.cos;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpUtils;
+
+import com.oreilly.servlet.multipart.FilePart;
+import com.oreilly.servlet.multipart.MultipartParser;
+import com.oreilly.servlet.multipart.ParamPart;
+import com.oreilly.servlet.multipart.Part;
+
+import org.springframework.util.FileCopyUtils;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.StreamingMultipartHttpServletRequest;
+import org.springframework.web.multipart.support.AbstractMultipartHttpServletRequest;
+
+/**
+ * StreamingMultipartHttpServletRequest implementation for Jason Hunter's COS.
+ * Parses the request body lazily with a COS MultipartParser.
+ *
+ * <p>Files that are accessed via <code>nextFile</code> can be read straight
+ * from the request body. Files that have to be kept because the rest of the
+ * request body is parsed get spilled to temporary files in the upload
+ * directory, to be deleted by <code>cleanup</code>.
+ *
+ * <p>Like COS' MultipartRequest, exposes the parameters of the query string
+ * in addition to the form fields, with query string values first.
+ *
+ * <p>Not intended for direct application usage: use the
+ * StreamingMultipartHttpServletRequest interface instead.
+ *
+ * @since 1.1
+ * @see CosMultipartResolver#setStreaming
+ * @see com.oreilly.servlet.multipart.MultipartParser
+ */
+public class CosStreamingMultipartHttpServletRequest extends AbstractMultipartHttpServletRequest
+		implements StreamingMultipartHttpServletRequest {
+
+	private final MultipartParser multipartParser;
+
+	private final File uploadTempDir;
+
+	private final String encoding;
+
+	/** Lists of String values from query string and form fields, keyed by parameter name */
+	private final Map parameters = new HashMap();
+
+	private final Map files = new HashMap();
+
+	private StreamingCosMultipartFile currentFile;
+
+	private boolean parsed = false;
+
+
+	protected CosStreamingMultipartHttpServletRequest(HttpServletRequest originalRequest,
+																										MultipartParser multipartParser,
+																										File uploadTempDir, String encoding) {
+		super(originalRequest);
+		this.multipartParser = multipartParser;
+		this.uploadTempDir = uploadTempDir;
+		this.encoding = encoding;
+		setMultipartFiles(this.files);
+		String queryString = originalRequest.getQueryString();
+		if (queryString != null) {
+			Map queryParameters = HttpUtils.parseQueryString(queryString);
+			for (Iterator it = queryParameters.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				this.parameters.put(entry.getKey(), new ArrayList(Arrays.asList((String[]) entry.getValue())));
+			}
+		}
+	}
+
+	public MultipartFile nextFile() throws MultipartException {
+		if (this.currentFile != null) {
+			this.currentFile.skip();
+		}
+		this.currentFile = readNextFile();
+		return this.currentFile;
+	}
+
+	/**
+	 * Read the request body up to the next file part,
+	 * collecting the parameter parts in front of it.
+	 * @return the next file, or null if the request body has been parsed completely
+	 */
+	private StreamingCosMultipartFile readNextFile() throws MultipartException {
+		if (this.parsed) {
+			return null;
+		}
+		try {
+			Part part = null;
+			while ((part = this.multipartParser.readNextPart()) != null) {
+				if (part.isParam()) {
+					List values = (List) this.parameters.get(part.getName());
+					if (values == null) {
+						values = new ArrayList(1);
+						this.parameters.put(part.getName(), values);
+					}
+					values.add(((ParamPart) part).getStringValue(this.encoding));
+				}
+				else if (part.isFile()) {
+					StreamingCosMultipartFile file = new StreamingCosMultipartFile((FilePart) part);
+					this.files.put(file.getName(), file);
+					return file;
+				}
+			}
+			this.parsed = true;
+			return null;
+		}
+		catch (IOException ex) {
+			throw new MultipartException("Could not parse multipart request", ex);
+		}
+	}
+
+	/**
+	 * Parse the rest of the request body, spilling the current file
+	 * (if not read yet) and all further files to temporary files.
+	 */
+	protected void parseRemainingParts() {
+		if (this.parsed) {
+			return;
+		}
+		try {
+			if (this.currentFile != null) {
+				this.currentFile.spill();
+				this.currentFile = null;
+			}
+			StreamingCosMultipartFile file = null;
+			while ((file = readNextFile()) != null) {
+				file.spill();
+			}
+		}
+		catch (MultipartException ex) {
+			logger.warn("Could not parse multipart request", ex);
+			throw new IllegalStateException("Could not parse multipart request: " + ex.getMessage());
+		}
+		catch (IOException ex) {
+			logger.warn("Could not store multipart file in upload directory", ex);
+			throw new IllegalStateException("Could not store multipart file in upload directory: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Delete the temporary files that uploaded files have been spilled to.
+	 */
+	public void cleanup() {
+		for (Iterator it = this.files.values().iterator(); it.hasNext();) {
+			((StreamingCosMultipartFile) it.next()).cleanup();
+		}
+	}
+
+
+	public Iterator getFileNames() {
+		parseRemainingParts();
+		return super.getFileNames();
+	}
+
+	public MultipartFile getFile(String name) {
+		parseRemainingParts();
+		return super.getFile(name);
+	}
+
+	public Map getFileMap() {
+		parseRemainingParts();
+		return super.getFileMap();
+	}
+
+	/**
+	 * Returns the first value of the given parameter without parsing
+	 * the rest of the request body, if that value has been parsed already.
+	 */
+	public String getParameter(String name) {
+		List values = (List) this.parameters.get(name);
+		if (values == null && !this.parsed) {
+			parseRemainingParts();
+			values = (List) this.parameters.get(name);
+		}
+		return (values != null ? (String) values.get(0) : null);
+	}
+
+	public String[] getParameterValues(String name) {
+		parseRemainingParts();
+		List values = (List) this.parameters.get(name);
+		return (values != null ? (String[]) values.toArray(new String[values.size()]) : null);
+	}
+
+	public Enumeration getParameterNames() {
+		parseRemainingParts();
+		return Collections.enumeration(this.parameters.keySet());
+	}
+
+	public Map getParameterMap() {
+		parseRemainingParts();
+		Map params = new HashMap();
+		for (Iterator it = this.parameters.keySet().iterator(); it.hasNext();) {
+			String name = (String) it.next();
+			params.put(name, getParameterValues(name));
+		}
+		return Collections.unmodifiableMap(params);
+	}
+
+
+	/**
+	 * MultipartFile that reads its contents straight from the request body
+	 * until the rest of the request body needs to be parsed, spilling its
+	 * contents to a temporary file in that case.
+	 */
+	private class StreamingCosMultipartFile implements MultipartFile {
+
+		private final String name;
+
+		private final String originalFilename;
+
+		private final String contentType;
+
+		/** Part to read the contents from, null once read, skipped or spilled */
+		private FilePart part;
+
+		private File tempFile;
+
+		private StreamingCosMultipartFile(FilePart part) {
+			this.name = part.getName();
+			this.originalFilename = part.getFileName();
+			this.contentType = part.getContentType();
+			this.part = (this.originalFilename != null ? part : null);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isEmpty() {
+			return (this.originalFilename == null);
+		}
+
+		public String getOriginalFilename() {
+			return originalFilename;
+		}
+
+		public String getContentType() {
+			return (!isEmpty() ? this.contentType : null);
+		}
+
+		public long getSize() {
+			checkContentsAvailable();
+			try {
+				spill();
+			}
+			catch (IOException ex) {
+				logger.warn("Could not store multipart file in upload directory", ex);
+				throw new IllegalStateException("Could not determine size of multipart file: " + ex.getMessage());
+			}
+			return (this.tempFile != null ? this.tempFile.length() : 0);
+		}
+
+		public byte[] getBytes() throws IOException {
+			checkContentsAvailable();
+			spill();
+			return (this.tempFile != null ? FileCopyUtils.copyToByteArray(this.tempFile) : new byte[0]);
+		}
+
+		/**
+		 * Returns a stream that reads straight from the request body,
+		 * if the contents have neither been read nor spilled yet.
+		 */
+		public InputStream getInputStream() throws IOException {
+			if (this.part != null) {
+				InputStream in = this.part.getInputStream();
+				this.part = null;
+				return in;
+			}
+			checkContentsAvailable();
+			if (this.tempFile != null) {
+				return new FileInputStream(this.tempFile);
+			}
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		public void transferTo(File dest) throws IOException, IllegalStateException {
+			checkContentsAvailable();
+			if (this.tempFile != null && !this.tempFile.exists()) {
+				throw new IllegalStateException("File has already been moved - cannot be transferred again");
+			}
+			if (dest.exists() && !dest.delete()) {
+				throw new IOException("Destination file [" + dest.getAbsolutePath() +
+				                      "] already exists and could not be deleted");
+			}
+			if (this.part != null) {
+				FileCopyUtils.copy(getInputStream(), new BufferedOutputStream(new FileOutputStream(dest)));
+				if (logger.isDebugEnabled()) {
+					logger.debug("Multipart file [" + getName() + "] with original file name [" +
+					             getOriginalFilename() + "]: streamed to [" + dest.getAbsolutePath() + "]");
+				}
+			}
+			else if (this.tempFile != null) {
+				if (!this.tempFile.renameTo(dest)) {
+					FileCopyUtils.copy(this.tempFile, dest);
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Multipart file [" + getName() + "] with original file name [" +
+					             getOriginalFilename() + "], stored at [" + this.tempFile.getAbsolutePath() +
+					             "]: transferred to [" + dest.getAbsolutePath() + "]");
+				}
+			}
+			else {
+				dest.createNewFile();
+			}
+		}
+
+		/**
+		 * Write the contents to a temporary file, if not read yet.
+		 */
+		private void spill() throws IOException {
+			if (this.part != null) {
+				this.tempFile = File.createTempFile("upload", ".tmp", uploadTempDir);
+				OutputStream out = new BufferedOutputStream(new FileOutputStream(this.tempFile));
+				try {
+					this.part.writeTo(out);
+				}
+				finally {
+					out.close();
+				}
+				this.part = null;
+				if (logger.isDebugEnabled()) {
+					logger.debug("Multipart file [" + getName() + "] with original file name [" +
+					             getOriginalFilename() + "] of size " + this.tempFile.length() +
+					             " bytes spilled to [" + this.tempFile.getAbsolutePath() + "]");
+				}
+			}
+		}
+
+		/**
+		 * Check that the contents have neither been read from the request body
+		 * nor skipped, unless they have been spilled to a temporary file.
+		 */
+		private void checkContentsAvailable() throws IllegalStateException {
+			if (this.part == null && this.tempFile == null && !isEmpty()) {
+				throw new IllegalStateException("Contents of multipart file [" + getName() +
+				                                "] are not available anymore: read from the request body " +
+				                                "or skipped by nextFile");
+			}
+		}
+
+		/**
+		 * Give up the contents, as the parser moves on to the next part.
+		 */
+		private void skip() {
+			this.part = null;
+		}
+
+		private void cleanup() {
+			if (this.tempFile != null && this.tempFile.exists()) {
+				if (!this.tempFile.delete()) {
+					logger.warn("Could not delete multipart file '" + getName() + "' with original file name [" +
+					            getOriginalFilename() + "], stored at [" + this.tempFile.getAbsolutePath() + "]");
+				}
+			}
+		}
+	}
+
+}
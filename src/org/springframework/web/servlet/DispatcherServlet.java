@@ -16,8 +16,10 @@
 
 package org.springframework.web.servlet;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -82,8 +84,18 @@ import org.springframework.web.servlet.view.InternalResourceViewResolver;
  * <li>Its theme resolution strategy is determined by a ThemeResolver implementation.
  * Implementations for a fixed theme and for cookie and session storage are included.
  * The ThemeResolver bean name is "themeResolver"; default is FixedThemeResolver.
+ *
+ * <li>The time spent in each phase of request processing can be recorded by a
+ * RequestTimingCollector. The RequestTimingCollector bean name is
+ * "requestTimingCollector"; default is none. Phase timings can also be exposed
+ * to clients via a "Server-Timing" response header ("exposeServerTiming").
  * </ul>
  *
+ * <p>The HandlerAdapter for a handler gets resolved once per handler class
+ * and cached, together with an execution plan per handler class and mapped
+ * interceptor array. HandlerAdapters are thus expected to base their
+ * <code>supports</code> decision on the handler type, as recommended.
+ *
  * <p>A web application can use any number of dispatcher servlets.
  * Each servlet will operate in its own namespace. Only the root application context,
  * and any config objects set for the application as a whole, will be shared.
@@ -127,6 +139,17 @@ public class DispatcherServlet extends FrameworkServlet {
 	 */
 	public static final String VIEW_RESOLVER_BEAN_NAME = "viewResolver";
 
+	/**
+	 * Well-known name for the RequestTimingCollector object in the bean factory for this namespace.
+	 */
+	public static final String REQUEST_TIMING_COLLECTOR_BEAN_NAME = "requestTimingCollector";
+
+	/**
+	 * Name of the response header that exposes phase timings.
+	 * @see #setExposeServerTiming
+	 */
+	public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
 	/**
 	 * Request attribute to hold current web application context.
 	 * Otherwise only the global web app context is obtainable by tags etc.
@@ -151,6 +174,18 @@ public class DispatcherServlet extends FrameworkServlet {
 	 */
 	public static final String THEME_RESOLVER_ATTRIBUTE = DispatcherServlet.class.getName() + ".THEME";
 
+	/**
+	 * Prefix of the request attribute that holds the mapped handler determined
+	 * by getLastModified, for reuse in doService. Suffixed with the servlet name.
+	 */
+	private static final String MAPPED_HANDLER_ATTRIBUTE_PREFIX = DispatcherServlet.class.getName() + ".MAPPED_HANDLER.";
+
+	/**
+	 * Maximum number of execution plans to cache. Protects against
+	 * HandlerMappings that create a new interceptor array for each request.
+	 */
+	private static final int EXECUTION_PLAN_CACHE_LIMIT = 256;
+
 	/**
 	 * Additional logger for use when no mapping handlers are found for a request.
 	 */
@@ -177,6 +212,43 @@ public class DispatcherServlet extends FrameworkServlet {
 	/** ViewResolver used by this servlet */
 	private ViewResolver viewResolver;
 
+	/** RequestTimingCollector used by this servlet */
+	private RequestTimingCollector requestTimingCollector;
+
+	/** Should we add a Server-Timing header to each response? */
+	private boolean exposeServerTiming = false;
+
+	/** Request attribute for the mapped handler determined by getLastModified */
+	private String mappedHandlerAttribute;
+
+	/** HandlerAdapters per handler class, replaced on modification */
+	private volatile Map handlerAdapterCache = Collections.EMPTY_MAP;
+
+	/** HandlerExecutionPlans per ExecutionPlanKey, replaced on modification */
+	private volatile Map executionPlanCache = Collections.EMPTY_MAP;
+
+	private final Object cacheMonitor = new Object();
+
+
+	/**
+	 * Set whether to add a "Server-Timing" header with the time spent in each
+	 * phase to every response that renders a view. Default is false.
+	 * <p>As the header needs to be set before the response gets committed,
+	 * it includes all phases up to handler execution, but not view resolution
+	 * and rendering.
+	 * @see #SERVER_TIMING_HEADER
+	 */
+	public void setExposeServerTiming(boolean exposeServerTiming) {
+		this.exposeServerTiming = exposeServerTiming;
+	}
+
+	/**
+	 * Return whether to add a "Server-Timing" header to every response.
+	 */
+	public boolean isExposeServerTiming() {
+		return exposeServerTiming;
+	}
+
 
 	/**
 	 * Overridden method, invoked after any bean properties have been set and the
@@ -185,6 +257,7 @@ public class DispatcherServlet extends FrameworkServlet {
 	 * ViewResolver and a LocaleResolver.
 	 */
 	protected void initFrameworkServlet() throws ServletException, BeansException {
+		this.mappedHandlerAttribute = MAPPED_HANDLER_ATTRIBUTE_PREFIX + getServletName();
 		initMultipartResolver();
 		initLocaleResolver();
 		initThemeResolver();
@@ -192,6 +265,7 @@ public class DispatcherServlet extends FrameworkServlet {
 		initHandlerAdapters();
 		initHandlerExceptionResolvers();
 		initViewResolver();
+		initRequestTimingCollector();
 	}
 
 	/**
@@ -291,6 +365,10 @@ public class DispatcherServlet extends FrameworkServlet {
 			// we keep HandlerAdapters in sorted order
 			Collections.sort(this.handlerAdapters, new OrderComparator());
 		}
+		synchronized (this.cacheMonitor) {
+			this.handlerAdapterCache = Collections.EMPTY_MAP;
+			this.executionPlanCache = Collections.EMPTY_MAP;
+		}
 	}
 
 	/**
@@ -327,6 +405,24 @@ public class DispatcherServlet extends FrameworkServlet {
 	}
 
 
+	/**
+	 * Initialize the RequestTimingCollector used by this class.
+	 * If no bean is defined with the given name in the BeanFactory
+	 * for this namespace, no timing information is collected.
+	 */
+	private void initRequestTimingCollector() throws BeansException {
+		try {
+			this.requestTimingCollector = (RequestTimingCollector)
+					getWebApplicationContext().getBean(REQUEST_TIMING_COLLECTOR_BEAN_NAME);
+			logger.info("Loaded request timing collector [" + this.requestTimingCollector + "]");
+		}
+		catch (NoSuchBeanDefinitionException ex) {
+			// default is no request timing collector
+			this.requestTimingCollector = null;
+		}
+	}
+
+
 	/**
 	 * Obtain and use the handler for this method.
 	 * The handler will be obtained by applying the servlet's HandlerMappings in order.
@@ -336,8 +432,16 @@ public class DispatcherServlet extends FrameworkServlet {
 	 * It's up to HandlerAdapters to decide which methods are acceptable.
 	 */
 	protected void doService(HttpServletRequest request, HttpServletResponse response) throws Exception {
-		logger.debug("DispatcherServlet with name '" + getServletName() + "' received request for [" +
-		             request.getRequestURI() + "]");
+		if (logger.isDebugEnabled()) {
+			logger.debug("DispatcherServlet with name '" + getServletName() + "' received request for [" +
+			             request.getRequestURI() + "]");
+		}
+
+		// Only measure phase timings if anybody is interested in them
+		RequestTiming timing = null;
+		if (this.requestTimingCollector != null || this.exposeServerTiming) {
+			timing = new RequestTiming();
+		}
 
 		// Make framework objects available for handlers
 		request.setAttribute(WEB_APPLICATION_CONTEXT_ATTRIBUTE, getWebApplicationContext());
@@ -354,14 +458,33 @@ public class DispatcherServlet extends FrameworkServlet {
 			}
 			else {
 				request.setAttribute(MULTIPART_RESOLVER_ATTRIBUTE, this.multipartResolver);
+				if (timing != null) {
+					timing.startPhase(RequestTimingCollector.PHASE_MULTIPART);
+				}
 				processedRequest = this.multipartResolver.resolveMultipart(request);
+				if (timing != null) {
+					timing.endPhase();
+				}
 			}
 		}
 
 		HandlerExecutionChain mappedHandler = null;
 		int interceptorIndex = -1;
 		try {
-			mappedHandler = getHandler(processedRequest);
+			// reuse the handler that getLastModified has mapped for this request, if any
+			mappedHandler = (HandlerExecutionChain) request.getAttribute(this.mappedHandlerAttribute);
+			if (mappedHandler != null) {
+				request.removeAttribute(this.mappedHandlerAttribute);
+			}
+			else {
+				if (timing != null) {
+					timing.startPhase(RequestTimingCollector.PHASE_HANDLER_MAPPING);
+				}
+				mappedHandler = getHandler(processedRequest);
+				if (timing != null) {
+					timing.endPhase();
+				}
+			}
 			if (mappedHandler == null || mappedHandler.getHandler() == null) {
 				// if we didn't find a handler
 				pageNotFoundLogger.warn("No mapping for [" + request.getRequestURI() +
@@ -370,41 +493,55 @@ public class DispatcherServlet extends FrameworkServlet {
 				return;
 			}
 
+			Object handler = mappedHandler.getHandler();
+			HandlerExecutionPlan plan = getExecutionPlan(handler, mappedHandler.getInterceptors());
+			HandlerInterceptor[] interceptors = plan.interceptors;
+
 			ModelAndView mv = null;
 			try {
 				// apply preHandle methods of registered interceptors
-				if (mappedHandler.getInterceptors() != null) {
-					for (int i = 0; i < mappedHandler.getInterceptors().length; i++) {
-						HandlerInterceptor interceptor = mappedHandler.getInterceptors()[i];
-						if (!interceptor.preHandle(processedRequest, response, mappedHandler.getHandler())) {
-							triggerAfterCompletion(mappedHandler, interceptorIndex, processedRequest, response, null);
-							return;
-						}
-						interceptorIndex = i;
+				if (timing != null) {
+					timing.startPhase(RequestTimingCollector.PHASE_INTERCEPTORS);
+				}
+				for (int i = 0; i < interceptors.length; i++) {
+					if (!interceptors[i].preHandle(processedRequest, response, handler)) {
+						triggerAfterCompletion(mappedHandler, interceptorIndex, processedRequest, response, null);
+						return;
 					}
+					interceptorIndex = i;
 				}
 
 				// actually invoke the handler
-				HandlerAdapter ha = getHandlerAdapter(mappedHandler.getHandler());
-				mv = ha.handle(processedRequest, response, mappedHandler.getHandler());
+				if (plan.handlerAdapter == null) {
+					throw noHandlerAdapterException(handler);
+				}
+				if (timing != null) {
+					timing.startPhase(RequestTimingCollector.PHASE_HANDLER);
+				}
+				mv = plan.handlerAdapter.handle(processedRequest, response, handler);
 
 				// apply postHandle methods of registered interceptors
-				if (mappedHandler.getInterceptors() != null) {
-					for (int i = mappedHandler.getInterceptors().length - 1; i >= 0; i--) {
-						HandlerInterceptor interceptor = mappedHandler.getInterceptors()[i];
-						interceptor.postHandle(processedRequest, response, mappedHandler.getHandler(), mv);
-					}
+				if (timing != null) {
+					timing.startPhase(RequestTimingCollector.PHASE_INTERCEPTORS);
+				}
+				for (int i = interceptors.length - 1; i >= 0; i--) {
+					interceptors[i].postHandle(processedRequest, response, handler, mv);
+				}
+				if (timing != null) {
+					timing.endPhase();
 				}
 			}
 			catch (ModelAndViewDefiningException ex) {
-				logger.debug("ModelAndViewDefiningException encountered", ex);
+				if (logger.isDebugEnabled()) {
+					logger.debug("ModelAndViewDefiningException encountered", ex);
+				}
 				mv = ex.getModelAndView();
 			}
 			catch (Exception ex) {
 				ModelAndView exMv = null;
 				for (Iterator it = this.handlerExceptionResolvers.iterator(); exMv == null && it.hasNext();) {
 					HandlerExceptionResolver resolver = (HandlerExceptionResolver) it.next();
-					exMv = resolver.resolveException(request, response, mappedHandler.getHandler(), ex);
+					exMv = resolver.resolveException(request, response, handler, ex);
 				}
 				if (exMv != null) {
 					if (logger.isDebugEnabled()) {
@@ -420,12 +557,17 @@ public class DispatcherServlet extends FrameworkServlet {
 
 			// did the handler return a view to render?
 			if (mv != null) {
-				logger.debug("Will render view in DispatcherServlet with name '" + getServletName() + "'");
+				if (logger.isDebugEnabled()) {
+					logger.debug("Will render view in DispatcherServlet with name '" + getServletName() + "'");
+				}
+				if (this.exposeServerTiming) {
+					response.setHeader(SERVER_TIMING_HEADER, timing.getServerTimingHeaderValue());
+				}
 				Locale locale = this.localeResolver.resolveLocale(processedRequest);
 				response.setLocale(locale);
-				render(mv, processedRequest, response, locale);
+				render(mv, processedRequest, response, locale, timing);
 			}
-			else {
+			else if (logger.isDebugEnabled()) {
 				logger.debug("Null ModelAndView returned to DispatcherServlet with name '" +
 										 getServletName() + "': assuming HandlerAdapter completed request handling");
 			}
@@ -442,12 +584,41 @@ public class DispatcherServlet extends FrameworkServlet {
 			if (processedRequest instanceof MultipartHttpServletRequest && processedRequest != request) {
 				this.multipartResolver.cleanupMultipart((MultipartHttpServletRequest) processedRequest);
 			}
+			if (timing != null) {
+				// account for a phase that has been aborted by an exception or interceptor
+				timing.endPhase();
+			}
+			if (timing != null && this.requestTimingCollector != null) {
+				Object handler = (mappedHandler != null ? mappedHandler.getHandler() : null);
+				this.requestTimingCollector.requestProcessed(
+						request, handler, timing.getPhaseNanos(), timing.getElapsedNanos());
+			}
+		}
+	}
+
+	/**
+	 * Removes the mapped handler kept by getLastModified once the request
+	 * has been processed, even if doService has not been reached, for
+	 * example on a "304 Not Modified" response.
+	 * @see #getLastModified
+	 */
+	protected void service(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		try {
+			super.service(request, response);
+		}
+		finally {
+			request.removeAttribute(this.mappedHandlerAttribute);
 		}
 	}
 
 	/**
 	 * Override HttpServlet's getLastModified to evaluate the Last-Modified
 	 * value of the mapped handler.
+	 * <p>The mapped handler is kept as request attribute, to be reused by
+	 * the subsequent doService call instead of mapping the request again.
+	 * It is removed after the request has been processed.
+	 * @see #service
 	 */
 	protected long getLastModified(HttpServletRequest request) {
 		try {
@@ -457,10 +628,13 @@ public class DispatcherServlet extends FrameworkServlet {
 				logger.debug("No handler found in getLastModified");
 				return -1;
 			}
+			request.setAttribute(this.mappedHandlerAttribute, mappedHandler);
 
 			HandlerAdapter ha = getHandlerAdapter(mappedHandler.getHandler());
 			long lastModified = ha.getLastModified(request, mappedHandler.getHandler());
-			logger.debug("Last-Modified value for [" + request.getRequestURI() + "] is [" + lastModified + "]");
+			if (logger.isDebugEnabled()) {
+				logger.debug("Last-Modified value for [" + request.getRequestURI() + "] is [" + lastModified + "]");
+			}
 			return lastModified;
 		}
 		catch (Exception ex) {
@@ -479,7 +653,9 @@ public class DispatcherServlet extends FrameworkServlet {
 		Iterator itr = this.handlerMappings.iterator();
 		while (itr.hasNext()) {
 			HandlerMapping hm = (HandlerMapping) itr.next();
-			logger.debug("Testing handler map [" + hm  + "] in DispatcherServlet with name '" + getServletName() + "'");
+			if (logger.isDebugEnabled()) {
+				logger.debug("Testing handler map [" + hm  + "] in DispatcherServlet with name '" + getServletName() + "'");
+			}
 			HandlerExecutionChain handler = hm.getHandler(request);
 			if (handler != null)
 				return handler;
@@ -493,29 +669,87 @@ public class DispatcherServlet extends FrameworkServlet {
 	 * This is a fatal error.
 	 */
 	private HandlerAdapter getHandlerAdapter(Object handler) throws ServletException {
+		HandlerAdapter ha = lookupHandlerAdapter(handler);
+		if (ha == null) {
+			throw noHandlerAdapterException(handler);
+		}
+		return ha;
+	}
+
+	/**
+	 * Return the HandlerAdapter for this handler class, querying the
+	 * HandlerAdapters only once per handler class.
+	 * @return the HandlerAdapter, or null if none supports the handler
+	 */
+	private HandlerAdapter lookupHandlerAdapter(Object handler) {
+		Class handlerClass = handler.getClass();
+		HandlerAdapter ha = (HandlerAdapter) this.handlerAdapterCache.get(handlerClass);
+		if (ha != null) {
+			return ha;
+		}
 		Iterator itr = this.handlerAdapters.iterator();
 		while (itr.hasNext()) {
-			HandlerAdapter ha = (HandlerAdapter) itr.next();
-			logger.debug("Testing handler adapter [" + ha + "]");
+			ha = (HandlerAdapter) itr.next();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Testing handler adapter [" + ha + "]");
+			}
 			if (ha.supports(handler)) {
+				synchronized (this.cacheMonitor) {
+					Map newCache = new HashMap(this.handlerAdapterCache);
+					newCache.put(handlerClass, ha);
+					this.handlerAdapterCache = newCache;
+				}
 				return ha;
 			}
 		}
-		throw new ServletException("No adapter for handler [" + handler +
-		                           "]: Does your handler implement a supported interface like Controller?");
+		return null;
+	}
+
+	/**
+	 * Return the execution plan for the given handler and interceptors,
+	 * building and caching it on first access.
+	 * @param handler the mapped handler
+	 * @param interceptors the mapped interceptors (may be null)
+	 */
+	private HandlerExecutionPlan getExecutionPlan(Object handler, HandlerInterceptor[] interceptors) {
+		ExecutionPlanKey key = new ExecutionPlanKey(handler.getClass(), interceptors);
+		HandlerExecutionPlan plan = (HandlerExecutionPlan) this.executionPlanCache.get(key);
+		if (plan == null) {
+			plan = new HandlerExecutionPlan(lookupHandlerAdapter(handler), interceptors);
+			synchronized (this.cacheMonitor) {
+				if (this.executionPlanCache.size() < EXECUTION_PLAN_CACHE_LIMIT) {
+					Map newCache = new HashMap(this.executionPlanCache);
+					newCache.put(key, plan);
+					this.executionPlanCache = newCache;
+				}
+			}
+		}
+		return plan;
+	}
+
+	private ServletException noHandlerAdapterException(Object handler) {
+		return new ServletException("No adapter for handler [" + handler +
+		                            "]: Does your handler implement a supported interface like Controller?");
 	}
 
 	/**
 	 * Render the given ModelAndView. This is the last stage in handling a request.
 	 * It may involve resolving the view by name.
+	 * @param timing the timing to record the view phases in, or null if none
 	 * @throws Exception if there's a problem rendering the view
 	 */
-	private void render(ModelAndView mv, HttpServletRequest request, HttpServletResponse response, Locale locale)
-	    throws Exception {
+	private void render(ModelAndView mv, HttpServletRequest request, HttpServletResponse response, Locale locale,
+	                    RequestTiming timing) throws Exception {
 		View view = null;
 		if (mv.isReference()) {
 			// we need to resolve this view name
+			if (timing != null) {
+				timing.startPhase(RequestTimingCollector.PHASE_VIEW_RESOLUTION);
+			}
 			view = this.viewResolver.resolveViewName(mv.getViewName(), locale);
+			if (timing != null) {
+				timing.endPhase();
+			}
 		}
 		else {
 			// no need to lookup: the ModelAndView object contains the actual View object
@@ -525,7 +759,13 @@ public class DispatcherServlet extends FrameworkServlet {
 			throw new ServletException("Error in ModelAndView object or View resolution encountered by servlet with name '" +
 																 getServletName() + "': View to render cannot be null with ModelAndView [" + mv + "]");
 		}
+		if (timing != null) {
+			timing.startPhase(RequestTimingCollector.PHASE_RENDERING);
+		}
 		view.render(mv.getModel(), request, response);
+		if (timing != null) {
+			timing.endPhase();
+		}
 	}
 
 	/**
@@ -561,4 +801,54 @@ public class DispatcherServlet extends FrameworkServlet {
 		}
 	}
 
+
+	/**
+	 * Immutable execution plan for a handler class and interceptor array:
+	 * the HandlerAdapter to invoke plus the interceptors to apply.
+	 */
+	private static class HandlerExecutionPlan {
+
+		private static final HandlerInterceptor[] NO_INTERCEPTORS = new HandlerInterceptor[0];
+
+		/** null if no HandlerAdapter supports the handler */
+		private final HandlerAdapter handlerAdapter;
+
+		/** never null */
+		private final HandlerInterceptor[] interceptors;
+
+		private HandlerExecutionPlan(HandlerAdapter handlerAdapter, HandlerInterceptor[] interceptors) {
+			this.handlerAdapter = handlerAdapter;
+			this.interceptors = (interceptors != null ? interceptors : NO_INTERCEPTORS);
+		}
+	}
+
+
+	/**
+	 * Cache key for a HandlerExecutionPlan, comparing the interceptor array
+	 * by identity, as HandlerMappings usually return the same array each time.
+	 */
+	private static class ExecutionPlanKey {
+
+		private final Class handlerClass;
+
+		private final HandlerInterceptor[] interceptors;
+
+		private ExecutionPlanKey(Class handlerClass, HandlerInterceptor[] interceptors) {
+			this.handlerClass = handlerClass;
+			this.interceptors = interceptors;
+		}
+
+		public boolean equals(Object other) {
+			if (!(other instanceof ExecutionPlanKey)) {
+				return false;
+			}
+			ExecutionPlanKey otherKey = (ExecutionPlanKey) other;
+			return (this.handlerClass == otherKey.handlerClass && this.interceptors == otherKey.interceptors);
+		}
+
+		public int hashCode() {
+			return this.handlerClass.hashCode() * 29 + System.identityHashCode(this.interceptors);
+		}
+	}
+
 }
@@ -43,7 +43,8 @@ import org.springframework.web.context.support.XmlWebApplicationContext;
  * <li>Uses a WebApplicationContext to access a BeanFactory. The servlet's
  * configuration is determined by beans in the servlet's namespace.
  * <li>Publishes events on request processing, whether or not a request is
- * successfully handled.
+ * successfully handled. This can be switched off via the "publishEvents"
+ * init-param if no listener is interested in RequestHandledEvents.
  * </ul>
  *
  * <p>Subclasses must implement doService() to handle requests. Because this extends
@@ -78,6 +79,7 @@ import org.springframework.web.context.support.XmlWebApplicationContext;
  * @see #setContextClass
  * @see #setContextConfigLocation
  * @see #setNamespace
+ * @see #setPublishEvents
  */
 public abstract class FrameworkServlet extends HttpServletBean {
 
@@ -113,6 +115,9 @@ public abstract class FrameworkServlet extends HttpServletBean {
 	/** Should we publish the context as a ServletContext attribute? */
 	private boolean publishContext = true;
 
+	/** Should we publish a RequestHandledEvent at the end of each request? */
+	private boolean publishEvents = true;
+
 	/** WebApplicationContext for this servlet */
 	private WebApplicationContext webApplicationContext;
 
@@ -185,6 +190,24 @@ public abstract class FrameworkServlet extends HttpServletBean {
 		return publishContext;
 	}
 
+	/**
+	 * Set whether this servlet should publish a RequestHandledEvent at the end
+	 * of each request. Default is true; can be turned off for a slight performance
+	 * improvement, provided that no ApplicationListeners rely on such events.
+	 * @see org.springframework.web.context.support.RequestHandledEvent
+	 */
+	public final void setPublishEvents(boolean publishEvents) {
+		this.publishEvents = publishEvents;
+	}
+
+	/**
+	 * Return whether this servlet should publish a RequestHandledEvent
+	 * at the end of each request.
+	 */
+	public boolean isPublishEvents() {
+		return publishEvents;
+	}
+
 	/**
 	 * Return this servlet's WebApplicationContext.
 	 */
@@ -356,18 +379,17 @@ public abstract class FrameworkServlet extends HttpServletBean {
 		}
 		finally {
 			long processingTime = System.currentTimeMillis() - startTime;
-			// whether or not we succeeded, publish an event
 			if (failureCause != null) {
 				logger.error("Could not complete request", failureCause);
-				this.webApplicationContext.publishEvent(
-				    new RequestHandledEvent(this, request.getRequestURI(), processingTime, request.getRemoteAddr(),
-				                            request.getMethod(), getServletConfig().getServletName(), failureCause));
 			}
 			else {
 				logger.debug("Successfully completed request");
+			}
+			// whether or not we succeeded, publish an event
+			if (this.publishEvents) {
 				this.webApplicationContext.publishEvent(
 				    new RequestHandledEvent(this, request.getRequestURI(), processingTime, request.getRemoteAddr(),
-				                            request.getMethod(), getServletConfig().getServletName()));
+				                            request.getMethod(), getServletConfig().getServletName(), failureCause));
 			}
 		}
 	}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet;
+
+import java.lang.reflect.Method;
+
+/**
+ * Records the time spent in each phase of processing a single request,
+ * on behalf of DispatcherServlet. Not thread-safe, as it is only used by
+ * the thread that processes the request.
+ *
+ * <p>Uses the nanosecond clock of JDK 1.5's System.nanoTime, invoked via
+ * reflection to keep compatibility with older JDKs. Falls back to
+ * System.currentTimeMillis, at millisecond resolution, on JDK 1.3/1.4.
+ *
+ * @since 1.1
+ * @see RequestTimingCollector
+ */
+class RequestTiming {
+
+	private static final Method nanoTimeMethod;
+
+	static {
+		Method method = null;
+		try {
+			method = System.class.getMethod("nanoTime", null);
+		}
+		catch (NoSuchMethodException ex) {
+			// not on JDK 1.5 -> fall back to currentTimeMillis
+		}
+		nanoTimeMethod = method;
+	}
+
+	/**
+	 * Return the current value of the most precise clock available,
+	 * in nanoseconds. Only useful for measuring elapsed time.
+	 */
+	static long currentNanos() {
+		if (nanoTimeMethod != null) {
+			try {
+				return ((Long) nanoTimeMethod.invoke(null, null)).longValue();
+			}
+			catch (Exception ex) {
+				// should not happen -> fall back to currentTimeMillis
+			}
+		}
+		return System.currentTimeMillis() * 1000000L;
+	}
+
+
+	private final long startNanos = currentNanos();
+
+	private final long[] phaseNanos = new long[RequestTimingCollector.PHASE_COUNT];
+
+	/** The phase currently being measured, or -1 if none */
+	private int currentPhase = -1;
+
+	private long phaseStartNanos;
+
+	/**
+	 * Start measuring the given phase, ending the current phase if any.
+	 * @param phase the phase index, as defined by RequestTimingCollector
+	 */
+	void startPhase(int phase) {
+		endPhase();
+		this.currentPhase = phase;
+		this.phaseStartNanos = currentNanos();
+	}
+
+	/**
+	 * Stop measuring the current phase, if any, adding the elapsed time to it.
+	 * Can be called in a finally block to account for aborted phases.
+	 */
+	void endPhase() {
+		if (this.currentPhase != -1) {
+			this.phaseNanos[this.currentPhase] += currentNanos() - this.phaseStartNanos;
+			this.currentPhase = -1;
+		}
+	}
+
+	/**
+	 * Return the time spent in each phase so far, in nanoseconds.
+	 */
+	long[] getPhaseNanos() {
+		return phaseNanos;
+	}
+
+	/**
+	 * Return the time elapsed since this timing was created, in nanoseconds.
+	 */
+	long getElapsedNanos() {
+		return currentNanos() - this.startNanos;
+	}
+
+	/**
+	 * Build a value for a "Server-Timing" response header, listing the
+	 * phases measured so far with their durations in milliseconds,
+	 * e.g. "mapping;dur=0.042, handler;dur=12.5".
+	 */
+	String getServerTimingHeaderValue() {
+		StringBuffer value = new StringBuffer();
+		for (int i = 0; i < this.phaseNanos.length; i++) {
+			if (this.phaseNanos[i] > 0) {
+				if (value.length() > 0) {
+					value.append(", ");
+				}
+				long micros = this.phaseNanos[i] / 1000;
+				value.append(RequestTimingCollector.PHASE_NAMES[i]).append(";dur=");
+				value.append(micros / 1000).append('.');
+				String fraction = Long.toString(micros % 1000 + 1000);
+				value.append(fraction.substring(1));
+			}
+		}
+		return value.toString();
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Strategy interface for collecting the time that DispatcherServlet spends
+ * in each phase of processing a request: multipart resolution, handler
+ * mapping, interceptors, handler execution, view resolution and rendering.
+ *
+ * <p>DispatcherServlet detects a collector bean with the well-known name
+ * "requestTimingCollector" in its application context. Without such a bean,
+ * no timing information is gathered at all.
+ *
+ * <p>Implementations get called by all request threads concurrently, so they
+ * need to be thread-safe, and should return quickly.
+ *
+ * @since 1.1
+ * @see DispatcherServlet#REQUEST_TIMING_COLLECTOR_BEAN_NAME
+ * @see org.springframework.web.servlet.support.RequestTimingMetrics
+ */
+public interface RequestTimingCollector {
+
+	/** Phase index for resolving a multipart request */
+	int PHASE_MULTIPART = 0;
+
+	/** Phase index for determining the handler via the HandlerMappings */
+	int PHASE_HANDLER_MAPPING = 1;
+
+	/** Phase index for preHandle and postHandle of HandlerInterceptors */
+	int PHASE_INTERCEPTORS = 2;
+
+	/** Phase index for executing the handler via its HandlerAdapter */
+	int PHASE_HANDLER = 3;
+
+	/** Phase index for resolving the view name via the ViewResolver */
+	int PHASE_VIEW_RESOLUTION = 4;
+
+	/** Phase index for rendering the view */
+	int PHASE_RENDERING = 5;
+
+	/** Number of phases, i.e. length of the phase time arrays */
+	int PHASE_COUNT = 6;
+
+	/**
+	 * Names of the phases, indexed by phase index.
+	 * Used as metric names in the "Server-Timing" response header.
+	 */
+	String[] PHASE_NAMES = {"multipart", "mapping", "interceptors", "handler", "viewResolution", "rendering"};
+
+	/**
+	 * Record the timing of a processed request. Called after the request
+	 * has been processed, whether it completed successfully or not.
+	 * @param request current HTTP request
+	 * @param handler the handler that processed the request,
+	 * or null if no handler has been found
+	 * @param phaseNanos the time spent in each phase, in nanoseconds,
+	 * indexed by the PHASE constants of this interface (not to be modified).
+	 * Phases that have been skipped are reported as 0. A phase that has been
+	 * aborted by an exception is reported with the time spent until then.
+	 * @param totalNanos the total processing time, in nanoseconds
+	 */
+	void requestProcessed(HttpServletRequest request, Object handler, long[] phaseNanos, long totalNanos);
+
+}
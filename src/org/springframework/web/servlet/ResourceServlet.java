@@ -16,13 +16,25 @@
 
 package org.springframework.web.servlet;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.core.io.Resource;
+import org.springframework.util.CachedContent;
+import org.springframework.util.ContentCache;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.support.ServletContextResource;
+import org.springframework.web.servlet.support.WebContentGenerator;
+import org.springframework.web.util.UrlPathHelper;
+
 /**
  * Simple servlet that can expose an internal resource, including a 
  * default URL if the specified resource is not found. An alternative,
@@ -36,7 +48,17 @@ import javax.servlet.http.HttpServletResponse;
  * <p>The defaultUrl bean property must be set to the
  * internal path of the default (placeholder) URL.
  *
+ * <p>Resources that match the "staticResources" patterns are served by
+ * this servlet itself when requested directly, i.e. not via an include:
+ * for example, downloads. Such responses carry "Last-Modified" and "ETag"
+ * headers, answer conditional requests with "304 Not Modified", and
+ * support single byte ranges for resumed downloads. Small files are kept
+ * in an in-memory cache, larger files are transferred via FileChannels
+ * on JDK 1.4. Cache headers can be configured via "cacheSeconds".
+ *
  * @author Rod Johnson
+ * @see #setStaticResources
+ * @see #setCacheSeconds
  */
 public class ResourceServlet extends HttpServletBean {
 	
@@ -44,6 +66,22 @@ public class ResourceServlet extends HttpServletBean {
 	 * Name of the parameter that must contain the actual resource path.
 	 */
 	public static final String RESOURCE_PARAM = "resource";
+
+	public static final int DEFAULT_CONTENT_CACHE_SIZE = 1024 * 1024;
+
+	public static final int DEFAULT_MAX_CACHE_ENTRY_SIZE = 64 * 1024;
+
+	private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+
+	private static final String HEADER_RANGE = "Range";
+
+	private static final String HEADER_IF_RANGE = "If-Range";
+
+	private static final String HEADER_CONTENT_RANGE = "Content-Range";
+
+	private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+	private static final String BYTES_UNIT = "bytes";
 	
 	/**
 	 * URL within the current web application from which to include
@@ -51,6 +89,19 @@ public class ResourceServlet extends HttpServletBean {
 	 */
 	private String defaultUrl;
 
+	private String[] staticResources;
+
+	private int cacheSeconds = -1;
+
+	private int contentCacheSize = DEFAULT_CONTENT_CACHE_SIZE;
+
+	private int maxCacheEntrySize = DEFAULT_MAX_CACHE_ENTRY_SIZE;
+
+	private ResourceContentGenerator contentGenerator;
+
+	private ContentCache contentCache;
+
+
 	public void setDefaultUrl(String defaultUrl) {
 		this.defaultUrl = defaultUrl;
 	}
@@ -59,11 +110,65 @@ public class ResourceServlet extends HttpServletBean {
 		return defaultUrl;
 	}
 
+	/**
+	 * Set the resources to serve directly, as comma-separated path patterns
+	 * like "/downloads/**,/images/*.gif". Default is none: all resources are
+	 * included via a RequestDispatcher.
+	 * <p>Only specify resources with static content here, as they will be
+	 * sent as-is: JSPs would be served as source code.
+	 * @see org.springframework.util.PathMatcher
+	 */
+	public void setStaticResources(String staticResources) {
+		this.staticResources = StringUtils.commaDelimitedListToStringArray(staticResources);
+		for (int i = 0; i < this.staticResources.length; i++) {
+			this.staticResources[i] = this.staticResources[i].trim();
+		}
+	}
+
+	/**
+	 * Set the number of seconds that clients may cache static resources.
+	 * Default is -1, generating no cache headers apart from "Last-Modified"
+	 * and "ETag". 0 prevents caching.
+	 * @see org.springframework.web.servlet.support.WebContentGenerator#setCacheSeconds
+	 */
+	public void setCacheSeconds(int cacheSeconds) {
+		this.cacheSeconds = cacheSeconds;
+	}
+
+	/**
+	 * Set the maximum number of bytes of static resources to cache in
+	 * memory, in total. Default is 1 MB.
+	 */
+	public void setContentCacheSize(int contentCacheSize) {
+		this.contentCacheSize = contentCacheSize;
+	}
+
+	/**
+	 * Set the maximum size of a static resource that gets cached in memory,
+	 * in bytes. Default is 64 KB. Larger files are read on every request.
+	 */
+	public void setMaxCacheEntrySize(int maxCacheEntrySize) {
+		this.maxCacheEntrySize = maxCacheEntrySize;
+	}
+
+	protected void initServletBean() throws ServletException {
+		this.contentGenerator = new ResourceContentGenerator(this.cacheSeconds);
+		this.contentCache = new ContentCache(this.contentCacheSize);
+	}
+
+
 	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 		String resource = request.getParameter(RESOURCE_PARAM);
 		if (resource == null) {
 			throw new ServletException("Path is required");
 		}
+		if (isStaticResource(resource) && request.getAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE) == null) {
+			if (serveResource(resource, request, response)) {
+				logger.debug("Served content of static resource [" + resource + "]");
+				return;
+			}
+			logger.warn("Static resource [" + resource + "] not found");
+		}
 		try {
 			RequestDispatcher rd = request.getRequestDispatcher(resource);
 			rd.include(request, response);
@@ -76,4 +181,209 @@ public class ResourceServlet extends HttpServletBean {
 		}
 	}
 
+	/**
+	 * Determine whether the given resource should be served directly.
+	 * Paths that refer to parent directories never are.
+	 * @param resource the resource path
+	 * @see #setStaticResources
+	 */
+	protected boolean isStaticResource(String resource) {
+		if (this.staticResources == null || resource.indexOf("..") != -1) {
+			return false;
+		}
+		for (int i = 0; i < this.staticResources.length; i++) {
+			if (PathMatcher.match(this.staticResources[i], resource)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Write the content of the given static resource to the response,
+	 * answering conditional and range requests.
+	 * @param path the path of the resource within the web application
+	 * @return whether the resource has been found
+	 */
+	private boolean serveResource(String path, HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		ServletContextResource resource = new ServletContextResource(getServletContext(), path);
+		if (!resource.exists()) {
+			return false;
+		}
+		long lastModified = -1;
+		try {
+			lastModified = resource.lastModified();
+		}
+		catch (IOException ex) {
+			// timestamp not available
+		}
+		File file = null;
+		try {
+			file = resource.getFile();
+		}
+		catch (IOException ex) {
+			// not available in the file system -> read from stream
+		}
+
+		byte[] content = null;
+		long length;
+		if (file != null && file.length() > this.maxCacheEntrySize) {
+			length = file.length();
+		}
+		else {
+			content = getContent(path, resource, file, lastModified);
+			length = content.length;
+		}
+
+		String eTag = (lastModified >= 0 ? "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"" : null);
+		this.contentGenerator.prepare(request, response, lastModified >= 0);
+		if (this.contentGenerator.isNotModified(request, response, lastModified, eTag)) {
+			return true;
+		}
+		String contentType = getServletContext().getMimeType(path);
+		if (contentType != null) {
+			response.setContentType(contentType);
+		}
+		response.setHeader(HEADER_ACCEPT_RANGES, BYTES_UNIT);
+
+		long start = 0;
+		long end = length - 1;
+		long[] range = determineRange(request, length, lastModified, eTag);
+		if (range != null) {
+			if (range.length == 0) {
+				response.setHeader(HEADER_CONTENT_RANGE, BYTES_UNIT + " */" + length);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return true;
+			}
+			start = range[0];
+			end = range[1];
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader(HEADER_CONTENT_RANGE, BYTES_UNIT + " " + start + "-" + end + "/" + length);
+		}
+		long contentLength = end - start + 1;
+		if (contentLength <= Integer.MAX_VALUE) {
+			response.setContentLength((int) contentLength);
+		}
+		else {
+			response.setHeader(HEADER_CONTENT_LENGTH, Long.toString(contentLength));
+		}
+		if (content != null) {
+			response.getOutputStream().write(content, (int) start, (int) (end - start + 1));
+		}
+		else {
+			FileCopyUtils.copyRange(file, start, end - start + 1, response.getOutputStream());
+		}
+		return true;
+	}
+
+	/**
+	 * Return the content of the given small resource, from the content cache
+	 * if the cached content is still current.
+	 */
+	private byte[] getContent(String path, Resource resource, File file, long lastModified) throws IOException {
+		CachedContent cachedContent = (CachedContent) this.contentCache.get(path);
+		if (cachedContent != null && lastModified >= 0 && cachedContent.getTimestamp() == lastModified) {
+			return cachedContent.getContent();
+		}
+		byte[] content = null;
+		if (file != null) {
+			content = FileCopyUtils.copyToByteArray(file);
+		}
+		else {
+			InputStream is = resource.getInputStream();
+			content = FileCopyUtils.copyToByteArray(is);
+		}
+		if (lastModified >= 0 && content.length <= this.maxCacheEntrySize) {
+			this.contentCache.put(path, new CachedContent(content, lastModified));
+		}
+		return content;
+	}
+
+	/**
+	 * Determine the byte range requested via the "Range" header.
+	 * Only supports a single range; multiple ranges are answered with
+	 * the full content, as allowed by HTTP 1.1.
+	 * @return an array with first and last position, an empty array
+	 * if the range is not satisfiable, or null to send the full content
+	 */
+	private long[] determineRange(HttpServletRequest request, long length, long lastModified, String eTag) {
+		String rangeHeader = request.getHeader(HEADER_RANGE);
+		if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT + "=") || rangeHeader.indexOf(',') != -1) {
+			return null;
+		}
+		String ifRange = request.getHeader(HEADER_IF_RANGE);
+		if (ifRange != null && !ifRange.equals(eTag)) {
+			long ifRangeDate = -1;
+			try {
+				ifRangeDate = request.getDateHeader(HEADER_IF_RANGE);
+			}
+			catch (IllegalArgumentException ex) {
+				// an entity tag that does not match
+			}
+			if (ifRangeDate == -1 || lastModified < 0 || lastModified / 1000 > ifRangeDate / 1000) {
+				// resource has changed: send it completely
+				return null;
+			}
+		}
+		String rangeSpec = rangeHeader.substring(BYTES_UNIT.length() + 1).trim();
+		int dashIndex = rangeSpec.indexOf('-');
+		if (dashIndex == -1) {
+			return null;
+		}
+		try {
+			long start;
+			long end;
+			if (dashIndex == 0) {
+				// suffix range: the last n bytes
+				long suffixLength = Long.parseLong(rangeSpec.substring(1));
+				start = Math.max(length - suffixLength, 0);
+				end = length - 1;
+				if (suffixLength == 0 || length == 0) {
+					return new long[0];
+				}
+			}
+			else {
+				start = Long.parseLong(rangeSpec.substring(0, dashIndex));
+				String endSpec = rangeSpec.substring(dashIndex + 1);
+				end = (endSpec.length() > 0 ? Long.parseLong(endSpec) : length - 1);
+				if (end < start) {
+					// syntactically invalid: ignore
+					return null;
+				}
+				if (start >= length) {
+					return new long[0];
+				}
+				end = Math.min(end, length - 1);
+			}
+			return new long[] {start, end};
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * WebContentGenerator that applies the servlet's cache settings
+	 * and checks conditional requests.
+	 */
+	private static class ResourceContentGenerator extends WebContentGenerator {
+
+		private ResourceContentGenerator(int cacheSeconds) {
+			setSupportedMethods(new String[] {METHOD_GET, METHOD_HEAD});
+			setCacheSeconds(cacheSeconds);
+		}
+
+		private void prepare(HttpServletRequest request, HttpServletResponse response, boolean lastModified)
+				throws ServletException {
+			checkAndPrepare(request, response, lastModified);
+		}
+
+		private boolean isNotModified(HttpServletRequest request, HttpServletResponse response,
+		                              long lastModified, String eTag) {
+			return checkNotModified(request, response, lastModified, eTag);
+		}
+	}
+
 }
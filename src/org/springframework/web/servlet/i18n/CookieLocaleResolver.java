@@ -41,9 +41,10 @@ import org.springframework.web.util.WebUtils;
 public class CookieLocaleResolver implements LocaleResolver {
 
 	/**
-	 * Name of the request attribute that holds the locale. Only used for
+	 * Name of the request attribute that holds the locale. Used for
 	 * overriding a cookie value if the locale has been changed in the
-	 * course of the current request! Use RequestContext.getLocale() to
+	 * course of the current request, and for caching the resolved locale
+	 * for the rest of the request. Use RequestContext.getLocale() to
 	 * retrieve the current locale in controllers or views.
 	 * @see org.springframework.web.servlet.support.RequestContext#getLocale
 	 */
@@ -128,7 +129,9 @@ public class CookieLocaleResolver implements LocaleResolver {
 		}
 
 		// fallback
-		return request.getLocale();
+		locale = request.getLocale();
+		request.setAttribute(LOCALE_REQUEST_ATTRIBUTE_NAME, locale);
+		return locale;
 	}
 
 	public void setLocale(HttpServletRequest request, HttpServletResponse response, Locale locale) {
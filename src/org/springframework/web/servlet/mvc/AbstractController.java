@@ -43,6 +43,9 @@ import org.springframework.web.servlet.support.WebContentGenerator;
  *      is not support)</li>
  *  <li>If session is required, try to get it (ServletException if not found)</li>
  *  <li>Set caching headers if needed according to cacheSeconds propery</li>
+ *  <li>For controllers that implement LastModified: answer GET and HEAD requests
+ *      with "304 Not Modified" if the client's copy is current, without calling
+ *      handleRequestInternal</li>
  *  <li>Call abstract method {@link #handleRequestInternal(HttpServletRequest,HttpServletResponse) handleRequestInternal()},
  *      which should be implemented by extending classes to provide actual
  *      functionality to return {@link org.springframework.web.servlet.ModelAndView ModelAndView} objects.</li>
@@ -89,6 +92,12 @@ import org.springframework.web.servlet.support.WebContentGenerator;
  */
 public abstract class AbstractController extends WebContentGenerator implements Controller {
 
+	/**
+	 * Request attribute for the last-modified value determined by
+	 * SimpleControllerHandlerAdapter, to avoid determining it again.
+	 */
+	private static final String LAST_MODIFIED_ATTRIBUTE = AbstractController.class.getName() + ".LAST_MODIFIED";
+
 	private boolean synchronizeOnSession = false;
 
 	/**
@@ -108,6 +117,12 @@ public abstract class AbstractController extends WebContentGenerator implements
 		// delegate to WebContentGenerator for checking and preparing
 		checkAndPrepare(request, response, this instanceof LastModified);
 
+		// answer conditional requests without executing the controller, if possible
+		if (this instanceof LastModified &&
+		    checkNotModified(request, response, determineLastModified(request), null)) {
+			return null;
+		}
+
 		// execute in synchronized block if required
 		HttpSession session = request.getSession(false);
 		if (this.synchronizeOnSession && session != null) {
@@ -120,6 +135,35 @@ public abstract class AbstractController extends WebContentGenerator implements
 		}
 	}
 
+	/**
+	 * Determine the last-modified timestamp of this controller for the given
+	 * request, preferably reusing the value that has already been determined
+	 * for the Servlet API's getLastModified method.
+	 * @see #exposeLastModified
+	 */
+	private long determineLastModified(HttpServletRequest request) {
+		Object exposed = request.getAttribute(LAST_MODIFIED_ATTRIBUTE);
+		if (exposed instanceof ExposedLastModified && ((ExposedLastModified) exposed).handler == this) {
+			request.removeAttribute(LAST_MODIFIED_ATTRIBUTE);
+			return ((ExposedLastModified) exposed).lastModified;
+		}
+		if (!METHOD_GET.equals(request.getMethod()) && !METHOD_HEAD.equals(request.getMethod())) {
+			return -1;
+		}
+		return ((LastModified) this).getLastModified(request);
+	}
+
+	/**
+	 * Expose the last-modified timestamp that has been determined for the
+	 * given handler, for reuse when the handler processes the request.
+	 * @see SimpleControllerHandlerAdapter#getLastModified
+	 */
+	static void exposeLastModified(HttpServletRequest request, Object handler, long lastModified) {
+		if (handler instanceof AbstractController) {
+			request.setAttribute(LAST_MODIFIED_ATTRIBUTE, new ExposedLastModified(handler, lastModified));
+		}
+	}
+
 	/**
 	 * Template method. Subclasses must implement this.
 	 * The contract is the same as for handleRequest.
@@ -128,4 +172,20 @@ public abstract class AbstractController extends WebContentGenerator implements
 	protected abstract ModelAndView handleRequestInternal(HttpServletRequest request, HttpServletResponse response)
 	    throws Exception;
 
+
+	/**
+	 * Last-modified timestamp of a specific handler, exposed as request attribute.
+	 */
+	private static class ExposedLastModified {
+
+		private final Object handler;
+
+		private final long lastModified;
+
+		private ExposedLastModified(Object handler, long lastModified) {
+			this.handler = handler;
+			this.lastModified = lastModified;
+		}
+	}
+
 }
@@ -21,12 +21,13 @@ import java.util.Map;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import org.springframework.validation.BindException;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.ServletRequestDataBinder;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.formstate.FormStateStore;
+import org.springframework.web.servlet.mvc.formstate.SessionFormStateStore;
 
 /**
  * <p>Form controller that autopopulates a form bean from the request.
@@ -142,6 +143,13 @@ import org.springframework.web.servlet.ModelAndView;
  *          a new command object will be created on all requests (both
  *          requests for the form and submissions of the form)</td>
  *  </tr>
+ *  <tr>
+ *      <td>formStateStore</td>
+ *      <td>SessionFormStateStore</td>
+ *      <td>Strategy for keeping the command object between requests in
+ *          session form mode. Alternatives keep it on the client or in
+ *          a bounded server-side store, outside of the HTTP session</td>
+ *  </tr>
  * </table>
  * </p>
  *
@@ -157,6 +165,8 @@ public abstract class AbstractFormController extends BaseCommandController {
 
 	private boolean sessionForm = false;
 
+	private FormStateStore formStateStore = new SessionFormStateStore();
+
 	/**
 	 * Create a new AbstractFormController.
 	 * <p>Subclasses should set the following properties, either in the constructor
@@ -207,9 +217,30 @@ public abstract class AbstractFormController extends BaseCommandController {
 		return sessionForm;
 	}
 
+	/**
+	 * Set the strategy for keeping the form object between requests
+	 * in session form mode. Default is a SessionFormStateStore.
+	 * <p>Note that views need to render the form state exposed by
+	 * stores that keep the state or a reference to it on the client.
+	 * @see org.springframework.web.servlet.mvc.formstate.SessionFormStateStore
+	 * @see org.springframework.web.servlet.mvc.formstate.ClientSideFormStateStore
+	 * @see org.springframework.web.servlet.mvc.formstate.ServerSideFormStateStore
+	 */
+	public final void setFormStateStore(FormStateStore formStateStore) {
+		this.formStateStore = formStateStore;
+	}
+
+	/**
+	 * Return the strategy for keeping the form object between requests.
+	 */
+	protected final FormStateStore getFormStateStore() {
+		return formStateStore;
+	}
+
 	/**
 	 * Return the name of the session attribute that holds
 	 * the form object for this controller.
+	 * <p>Used as state name for the FormStateStore.
 	 * @return the name of the form session attribute,
 	 * or null if not in session form mode.
 	 */
@@ -226,8 +257,8 @@ public abstract class AbstractFormController extends BaseCommandController {
 	protected final ModelAndView handleRequestInternal(HttpServletRequest request, HttpServletResponse response)
 			throws Exception {
 		if (isFormSubmission(request)) {
-		  if (isSessionForm() && request.getSession().getAttribute(getFormSessionAttributeName()) == null) {
-			  // cannot submit a session form if no form object is in the session
+		  if (isSessionForm() && this.formStateStore.getState(request, getFormSessionAttributeName()) == null) {
+			  // cannot submit a session form if no form object is in the form state store
 			  return handleInvalidSubmit(request, response);
 		  }
 			// process submit
@@ -358,7 +389,7 @@ public abstract class AbstractFormController extends BaseCommandController {
 	protected final ModelAndView showForm(HttpServletRequest request, BindException errors, String viewName,
 	                                      Map controlModel) throws Exception {
 		if (isSessionForm()) {
-			request.getSession().setAttribute(getFormSessionAttributeName(), errors.getTarget());
+			this.formStateStore.setState(request, getFormSessionAttributeName(), errors.getTarget());
 		}
 		Map model = errors.getModel();
 		Map referenceData = referenceData(request, errors.getTarget(), errors);
@@ -368,6 +399,9 @@ public abstract class AbstractFormController extends BaseCommandController {
 		if (controlModel != null) {
 			model.putAll(controlModel);
 		}
+		if (isSessionForm()) {
+			this.formStateStore.exposeState(request, model);
+		}
 		return new ModelAndView(viewName, model);
 	}
 
@@ -425,14 +459,10 @@ public abstract class AbstractFormController extends BaseCommandController {
 		if (!isSessionForm()) {
 			return formBackingObject(request);
 		}
-		HttpSession session = request.getSession(false);
-		if (session == null) {
-			throw new ServletException("Must have session when trying to bind");
-		}
-		Object formObject = session.getAttribute(getFormSessionAttributeName());
-		session.removeAttribute(getFormSessionAttributeName());
+		Object formObject = this.formStateStore.getState(request, getFormSessionAttributeName());
+		this.formStateStore.removeState(request, getFormSessionAttributeName());
 		if (formObject == null) {
-			throw new ServletException("Form object not found in session");
+			throw new ServletException("Form object not found in form state store");
 		}
 		return formObject;
 	}
@@ -100,7 +100,7 @@ public abstract class AbstractWizardFormController extends AbstractFormControlle
 	 * Create a new AbstractWizardFormController.
 	 */
 	public AbstractWizardFormController() {
-		// always needs session to keep data from all pages
+		// always needs session form mode to keep data from all pages
 		setSessionForm(true);
 		// never validate everything on binding ->
 		// wizards validate individual pages
@@ -235,8 +235,8 @@ public abstract class AbstractWizardFormController extends AbstractFormControlle
 	    throws Exception {
 		if (page >= 0 && page < this.pages.length) {
 			logger.debug("Showing wizard page " + page + " for form bean '" + getCommandName() + "'");
-			// set page session attribute for tracking
-			request.getSession().setAttribute(getPageSessionAttributeName(), new Integer(page));
+			// set page state for tracking
+			getFormStateStore().setState(request, getPageSessionAttributeName(), new Integer(page));
 			// set page request attribute for evaluation by views
 			Map controlModel = new HashMap();
 			if (this.pageAttribute != null) {
@@ -275,6 +275,7 @@ public abstract class AbstractWizardFormController extends AbstractFormControlle
 	/**
 	 * Return the name of the session attribute that holds
 	 * the page object for this controller.
+	 * <p>Used as state name for the FormStateStore.
 	 * @return the name of the page session attribute
 	 */
 	protected final String getPageSessionAttributeName() {
@@ -305,7 +306,7 @@ public abstract class AbstractWizardFormController extends AbstractFormControlle
 	protected final ModelAndView processFormSubmission(HttpServletRequest request, HttpServletResponse response,
 	                                                   Object command, BindException errors) throws Exception {
 		int currentPage = getCurrentPage(request);
-		request.getSession().removeAttribute(getPageSessionAttributeName());
+		getFormStateStore().removeState(request, getPageSessionAttributeName());
 
 		// cancel?
 		if (isCancel(request)) {
@@ -341,14 +342,20 @@ public abstract class AbstractWizardFormController extends AbstractFormControlle
 	 * Return the current page number. Used by processFormSubmission.
 	 * Can also be called by page-specific onBindAndValidate implementations,
 	 * as methods like validatePage explicitly feature a page parameter.
-	 * <p>The default implementation checks the page session attribute.
+	 * <p>The default implementation checks the page state in the FormStateStore.
 	 * Subclasses can override this for customized target page determination.
 	 * @throws IllegalStateException if the page attribute isn't in the session
 	 * anymore, i.e. when called after processFormSubmission.
 	 * @see #getPageSessionAttributeName
 	 */
 	protected int getCurrentPage(HttpServletRequest request) throws IllegalStateException {
-		Integer pageAttr = (Integer) request.getSession().getAttribute(getPageSessionAttributeName());
+		Integer pageAttr = null;
+		try {
+			pageAttr = (Integer) getFormStateStore().getState(request, getPageSessionAttributeName());
+		}
+		catch (ServletException ex) {
+			throw new IllegalStateException("Could not retrieve page state: " + ex.getMessage());
+		}
 		if (pageAttr == null) {
 			throw new IllegalStateException("Page attribute isn't in session anymore - called after processFormSubmission?");
 		}
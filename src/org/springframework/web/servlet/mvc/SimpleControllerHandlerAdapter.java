@@ -47,7 +47,9 @@ public class SimpleControllerHandlerAdapter implements HandlerAdapter {
 	
 	public long getLastModified(HttpServletRequest request, Object handler) {
 		if (handler instanceof LastModified) {
-			return ((LastModified) handler).getLastModified(request);
+			long lastModified = ((LastModified) handler).getLastModified(request);
+			AbstractController.exposeLastModified(request, handler, lastModified);
+			return lastModified;
 		}
 		return -1L;
 	}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.mvc.formstate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Abstract base class for FormStateStores that send the form state, or a
+ * reference to it, to the client in a hidden form field.
+ *
+ * <p>All state of a request is kept in a Map, decoded from the request
+ * parameter on first access and encoded into a single String value when
+ * exposed. The value is exposed in the model under the parameter name,
+ * to be rendered by the form view like:
+ * <pre>
+ * &lt;input type="hidden" name="_formState" value="${_formState}"/&gt;</pre>
+ *
+ * @since 1.1
+ * @see #encodeStates
+ * @see #decodeStates
+ */
+public abstract class AbstractHiddenFieldFormStateStore implements FormStateStore {
+
+	public static final String DEFAULT_PARAMETER_NAME = "_formState";
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private String parameterName = DEFAULT_PARAMETER_NAME;
+
+
+	/**
+	 * Set the name of the hidden field that carries the form state,
+	 * also used as model key for the encoded value.
+	 * Default is "_formState".
+	 */
+	public void setParameterName(String parameterName) {
+		this.parameterName = parameterName;
+	}
+
+	/**
+	 * Return the name of the hidden field that carries the form state.
+	 */
+	public String getParameterName() {
+		return parameterName;
+	}
+
+
+	public Object getState(HttpServletRequest request, String name) throws ServletException {
+		return getStates(request).get(name);
+	}
+
+	public void setState(HttpServletRequest request, String name, Object state) throws ServletException {
+		getStates(request).put(name, state);
+	}
+
+	public void removeState(HttpServletRequest request, String name) throws ServletException {
+		getStates(request).remove(name);
+	}
+
+	public void exposeState(HttpServletRequest request, Map model) throws ServletException {
+		Map states = getStates(request);
+		if (!states.isEmpty()) {
+			model.put(this.parameterName, encodeStates(states));
+		}
+	}
+
+	/**
+	 * Return the states of the given request, decoding them
+	 * from the hidden field on first access.
+	 */
+	private Map getStates(HttpServletRequest request) throws ServletException {
+		String attributeName = getClass().getName() + ".STATES." + this.parameterName;
+		Map states = (Map) request.getAttribute(attributeName);
+		if (states == null) {
+			String value = request.getParameter(this.parameterName);
+			if (value != null && value.length() > 0) {
+				states = decodeStates(value);
+			}
+			if (states == null) {
+				states = new HashMap();
+			}
+			request.setAttribute(attributeName, states);
+		}
+		return states;
+	}
+
+	/**
+	 * Encode the given states into a value to be sent to the client.
+	 * @param states the states of the current request, keyed by name
+	 * @return the encoded value
+	 * @throws ServletException if the states could not be encoded
+	 */
+	protected abstract String encodeStates(Map states) throws ServletException;
+
+	/**
+	 * Decode the states from the given value received from the client.
+	 * Implementations must not trust the value.
+	 * @param value the encoded value
+	 * @return the states, keyed by name, or null if the value is invalid
+	 * or refers to states that are not available anymore
+	 * @throws ServletException if the states could not be decoded
+	 */
+	protected abstract Map decodeStates(String value) throws ServletException;
+
+}
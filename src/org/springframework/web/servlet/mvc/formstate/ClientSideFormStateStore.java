@@ -0,0 +1,252 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.mvc.formstate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.ServletException;
+
+/**
+ * FormStateStore that keeps the form state on the client: serialized,
+ * compressed and signed with an HMAC, in a hidden form field. This keeps
+ * form objects out of replicated HTTP sessions completely.
+ *
+ * <p>All form state needs to be serializable. The signature guarantees that
+ * only state created by this store gets deserialized, but the state is not
+ * encrypted: it must not contain data that the user must not see. Note that
+ * a submitted form can be submitted again, as the state travels with it.
+ *
+ * <p>All servers that handle the form need to share the same "secretKey".
+ * If none is set, a random key gets generated, only valid for this instance.
+ * Requires J2SE 1.4 or a JCE provider for HmacSHA1.
+ *
+ * @since 1.1
+ * @see #setSecretKey
+ * @see ServerSideFormStateStore
+ */
+public class ClientSideFormStateStore extends AbstractHiddenFieldFormStateStore {
+
+	private static final String MAC_ALGORITHM = "HmacSHA1";
+
+	private static final char[] BASE64_CHARS =
+			"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+	private static final int[] BASE64_VALUES = new int[128];
+
+	static {
+		for (int i = 0; i < BASE64_VALUES.length; i++) {
+			BASE64_VALUES[i] = -1;
+		}
+		for (int i = 0; i < BASE64_CHARS.length; i++) {
+			BASE64_VALUES[BASE64_CHARS[i]] = i;
+		}
+	}
+
+
+	private SecretKeySpec secretKey;
+
+
+	/**
+	 * Set the secret key to sign the form state with.
+	 * Must be the same on all servers that handle the form.
+	 */
+	public void setSecretKey(String secretKey) throws UnsupportedEncodingException {
+		this.secretKey = new SecretKeySpec(secretKey.getBytes("UTF-8"), MAC_ALGORITHM);
+	}
+
+	/**
+	 * Return the key to sign the form state with,
+	 * generating a random one if none has been set.
+	 */
+	private synchronized SecretKeySpec getSecretKey() {
+		if (this.secretKey == null) {
+			logger.warn("No secretKey set for ClientSideFormStateStore - generating a random key, " +
+			            "only valid for this server instance");
+			byte[] key = new byte[20];
+			new SecureRandom().nextBytes(key);
+			this.secretKey = new SecretKeySpec(key, MAC_ALGORITHM);
+		}
+		return this.secretKey;
+	}
+
+	private Mac createMac() throws ServletException {
+		try {
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(getSecretKey());
+			return mac;
+		}
+		catch (GeneralSecurityException ex) {
+			throw new ServletException("Could not initialize " + MAC_ALGORITHM + " for form state", ex);
+		}
+	}
+
+
+	protected String encodeStates(Map states) throws ServletException {
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+			ObjectOutputStream oos = new ObjectOutputStream(
+					new DeflaterOutputStream(bos, new Deflater(Deflater.BEST_COMPRESSION)));
+			oos.writeObject(new HashMap(states));
+			oos.close();
+			byte[] data = bos.toByteArray();
+			byte[] signature = createMac().doFinal(data);
+			byte[] value = new byte[signature.length + data.length];
+			System.arraycopy(signature, 0, value, 0, signature.length);
+			System.arraycopy(data, 0, value, signature.length, data.length);
+			return encodeBase64(value);
+		}
+		catch (IOException ex) {
+			throw new ServletException("Could not serialize form state - is it serializable?", ex);
+		}
+	}
+
+	protected Map decodeStates(String value) throws ServletException {
+		byte[] bytes = decodeBase64(value);
+		Mac mac = createMac();
+		int signatureLength = mac.getMacLength();
+		if (bytes == null || bytes.length <= signatureLength) {
+			logger.warn("Ignoring malformed form state");
+			return null;
+		}
+		mac.update(bytes, signatureLength, bytes.length - signatureLength);
+		byte[] signature = mac.doFinal();
+		int diff = 0;
+		for (int i = 0; i < signatureLength; i++) {
+			diff |= signature[i] ^ bytes[i];
+		}
+		if (diff != 0) {
+			logger.warn("Ignoring form state with invalid signature");
+			return null;
+		}
+		try {
+			ObjectInputStream ois = new ContextClassLoaderObjectInputStream(new InflaterInputStream(
+					new ByteArrayInputStream(bytes, signatureLength, bytes.length - signatureLength)));
+			try {
+				return (Map) ois.readObject();
+			}
+			finally {
+				ois.close();
+			}
+		}
+		catch (IOException ex) {
+			throw new ServletException("Could not deserialize form state", ex);
+		}
+		catch (ClassNotFoundException ex) {
+			throw new ServletException("Could not deserialize form state", ex);
+		}
+	}
+
+
+	private static String encodeBase64(byte[] bytes) {
+		char[] chars = new char[(bytes.length + 2) / 3 * 4];
+		int index = 0;
+		for (int i = 0; i < bytes.length; i += 3) {
+			int b = (bytes[i] & 0xff) << 16;
+			if (i + 1 < bytes.length) {
+				b |= (bytes[i + 1] & 0xff) << 8;
+			}
+			if (i + 2 < bytes.length) {
+				b |= (bytes[i + 2] & 0xff);
+			}
+			chars[index++] = BASE64_CHARS[(b >> 18) & 0x3f];
+			chars[index++] = BASE64_CHARS[(b >> 12) & 0x3f];
+			chars[index++] = (i + 1 < bytes.length ? BASE64_CHARS[(b >> 6) & 0x3f] : '=');
+			chars[index++] = (i + 2 < bytes.length ? BASE64_CHARS[b & 0x3f] : '=');
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Decode the given Base64 value.
+	 * @return the decoded bytes, or null if the value is malformed
+	 */
+	private static byte[] decodeBase64(String value) {
+		int length = value.length();
+		if (length % 4 != 0) {
+			return null;
+		}
+		int padding = 0;
+		if (length > 0 && value.charAt(length - 1) == '=') {
+			padding++;
+			if (value.charAt(length - 2) == '=') {
+				padding++;
+			}
+		}
+		byte[] bytes = new byte[length / 4 * 3 - padding];
+		int index = 0;
+		for (int i = 0; i < length; i += 4) {
+			int b = 0;
+			for (int j = 0; j < 4; j++) {
+				char c = value.charAt(i + j);
+				int digit = (c < 128 ? BASE64_VALUES[c] : -1);
+				if (digit == -1) {
+					if (c != '=' || i + 4 < length) {
+						return null;
+					}
+					digit = 0;
+				}
+				b = (b << 6) | digit;
+			}
+			bytes[index++] = (byte) (b >> 16);
+			if (index < bytes.length) {
+				bytes[index++] = (byte) (b >> 8);
+			}
+			if (index < bytes.length) {
+				bytes[index++] = (byte) b;
+			}
+		}
+		return bytes;
+	}
+
+
+	/**
+	 * ObjectInputStream that resolves classes via the thread context
+	 * ClassLoader, i.e. the ClassLoader of the web application.
+	 */
+	private static class ContextClassLoaderObjectInputStream extends ObjectInputStream {
+
+		private ContextClassLoaderObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		protected Class resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			try {
+				return Class.forName(desc.getName(), false, Thread.currentThread().getContextClassLoader());
+			}
+			catch (ClassNotFoundException ex) {
+				return super.resolveClass(desc);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.mvc.formstate;
+
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Strategy for keeping the state of a form between requests, like the form
+ * object of a session form controller and the current page of a wizard.
+ *
+ * <p>The state is set while preparing the form view, and retrieved and
+ * removed when the form gets submitted. Implementations that keep the state
+ * on the client, or keep a reference to it on the client, can expose form
+ * fields to be rendered by the form view.
+ *
+ * @since 1.1
+ * @see SessionFormStateStore
+ * @see ClientSideFormStateStore
+ * @see ServerSideFormStateStore
+ * @see org.springframework.web.servlet.mvc.AbstractFormController#setFormStateStore
+ */
+public interface FormStateStore {
+
+	/**
+	 * Return the state stored under the given name for the given request.
+	 * @param request current HTTP request
+	 * @param name the name of the state
+	 * @return the state, or null if none
+	 * @throws ServletException if the state could not be retrieved
+	 */
+	Object getState(HttpServletRequest request, String name) throws ServletException;
+
+	/**
+	 * Store the given state under the given name, to be retrieved
+	 * when the form gets submitted.
+	 * @param request current HTTP request
+	 * @param name the name of the state
+	 * @param state the state to store
+	 * @throws ServletException if the state could not be stored
+	 */
+	void setState(HttpServletRequest request, String name, Object state) throws ServletException;
+
+	/**
+	 * Remove the state stored under the given name, if any.
+	 * @param request current HTTP request
+	 * @param name the name of the state
+	 * @throws ServletException if the state could not be removed
+	 */
+	void removeState(HttpServletRequest request, String name) throws ServletException;
+
+	/**
+	 * Expose the state that needs to be sent to the client in the given
+	 * model of the form view, typically to be rendered as hidden field.
+	 * Called after all state of the form has been set.
+	 * @param request current HTTP request
+	 * @param model the model of the form view
+	 * @throws ServletException if the state could not be exposed
+	 */
+	void exposeState(HttpServletRequest request, Map model) throws ServletException;
+
+}
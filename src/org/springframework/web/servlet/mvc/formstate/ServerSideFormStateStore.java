@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.mvc.formstate;
+
+import java.security.SecureRandom;
+import java.util.Map;
+
+import org.springframework.util.LruCache;
+
+/**
+ * FormStateStore that keeps the form state in memory on the server,
+ * sending only a random token to the client in a hidden form field.
+ * This keeps form objects out of replicated HTTP sessions, at the price
+ * of losing the state if a form gets submitted to another server.
+ *
+ * <p>The number of stored forms is bounded by "maxForms", evicting the least
+ * recently stored forms first, and stored forms expire after "timeToLive"
+ * seconds. A form whose state has been lost is handled as invalid submit.
+ *
+ * <p>The state of a form is removed from the store when the form gets
+ * submitted: each token can only be used once, guarding against duplicate
+ * submissions like session forms do.
+ *
+ * @since 1.1
+ * @see #setMaxForms
+ * @see #setTimeToLive
+ * @see org.springframework.web.servlet.mvc.AbstractFormController#handleInvalidSubmit
+ */
+public class ServerSideFormStateStore extends AbstractHiddenFieldFormStateStore {
+
+	public static final int DEFAULT_MAX_FORMS = 1000;
+
+	public static final int DEFAULT_TIME_TO_LIVE = 1800;
+
+	private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+
+	private final SecureRandom random = new SecureRandom();
+
+	private LruCache forms = new LruCache(DEFAULT_MAX_FORMS);
+
+	private long timeToLive = DEFAULT_TIME_TO_LIVE * 1000L;
+
+
+	/**
+	 * Set the maximum number of forms to keep state for.
+	 * Default is 1000.
+	 */
+	public void setMaxForms(int maxForms) {
+		this.forms = new LruCache(maxForms);
+	}
+
+	/**
+	 * Set the number of seconds to keep the state of a form for.
+	 * Default is 1800, i.e. 30 minutes.
+	 */
+	public void setTimeToLive(int timeToLive) {
+		this.timeToLive = timeToLive * 1000L;
+	}
+
+	/**
+	 * Return the number of forms that state is currently kept for,
+	 * including expired forms that have not been evicted yet.
+	 */
+	public int getFormCount() {
+		return this.forms.getEntryCount();
+	}
+
+
+	protected String encodeStates(Map states) {
+		byte[] bytes = new byte[16];
+		synchronized (this.random) {
+			this.random.nextBytes(bytes);
+		}
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX_CHARS[(bytes[i] >> 4) & 0x0f];
+			chars[i * 2 + 1] = HEX_CHARS[bytes[i] & 0x0f];
+		}
+		String token = new String(chars);
+		this.forms.put(token, new FormState(states, System.currentTimeMillis() + this.timeToLive));
+		return token;
+	}
+
+	protected Map decodeStates(String token) {
+		FormState formState = (FormState) this.forms.remove(token);
+		if (formState == null) {
+			logger.debug("No form state found for token - expired or already submitted");
+			return null;
+		}
+		if (formState.expires < System.currentTimeMillis()) {
+			logger.debug("Form state expired");
+			return null;
+		}
+		return formState.states;
+	}
+
+
+	private static class FormState {
+
+		private final Map states;
+
+		private final long expires;
+
+		private FormState(Map states, long expires) {
+			this.states = states;
+			this.expires = expires;
+		}
+	}
+
+}
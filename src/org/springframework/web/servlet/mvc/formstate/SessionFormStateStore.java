@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.mvc.formstate;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * FormStateStore that keeps form state in HttpSession attributes,
+ * using the state names as attribute names. The default strategy
+ * of AbstractFormController.
+ *
+ * @since 1.1
+ * @see javax.servlet.http.HttpSession#setAttribute
+ */
+public class SessionFormStateStore implements FormStateStore {
+
+	public Object getState(HttpServletRequest request, String name) {
+		HttpSession session = request.getSession(false);
+		return (session != null ? session.getAttribute(name) : null);
+	}
+
+	public void setState(HttpServletRequest request, String name, Object state) {
+		request.getSession().setAttribute(name, state);
+	}
+
+	public void removeState(HttpServletRequest request, String name) {
+		HttpSession session = request.getSession(false);
+		if (session != null) {
+			session.removeAttribute(name);
+		}
+	}
+
+	/**
+	 * This implementation does not expose anything,
+	 * as the session is identified by the servlet container.
+	 */
+	public void exposeState(HttpServletRequest request, Map model) {
+	}
+
+}
@@ -87,7 +87,9 @@ public abstract class AbstractUrlMethodNameResolver implements MethodNameResolve
 		if (name == null) {
 			throw new NoSuchRequestHandlingMethodException(request);
 		}
-		logger.debug("Returning MultiActionController method name '" + name + "' for lookup path '" + urlPath + "'");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Returning MultiActionController method name '" + name + "' for lookup path '" + urlPath + "'");
+		}
 		return name;
 	}
 
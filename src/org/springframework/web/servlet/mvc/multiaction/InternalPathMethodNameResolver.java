@@ -16,6 +16,10 @@
 
 package org.springframework.web.servlet.mvc.multiaction;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Simple implementation of MethodNameResolver that maps URL to method
  * name. Although this is the default implementation used by the
@@ -28,24 +32,48 @@ package org.springframework.web.servlet.mvc.multiaction;
  * controller mapping to the respective MultiActionController.
  * Doesn't support wildcards.
  *
+ * <p>Caches the method names for up to MAX_CACHE_SIZE distinct URL paths,
+ * to avoid string operations for each request.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
 */
 public class InternalPathMethodNameResolver extends AbstractUrlMethodNameResolver {
 
+	/**
+	 * Maximum number of URL paths to cache method names for,
+	 * to not let arbitrary request URLs fill the cache
+	 */
+	public static final int MAX_CACHE_SIZE = 1024;
+
+	/** Method names, keyed by URL path */
+	private final Map methodNameCache = Collections.synchronizedMap(new HashMap());
+
 	protected String getHandlerMethodNameForUrlPath(String urlPath) {
-		String name = urlPath;
-		// look at resource name after last slash
-		int slashIndex = name.lastIndexOf('/');
-		if (slashIndex != -1) {
-			name = name.substring(slashIndex+1);
+		String name = (String) this.methodNameCache.get(urlPath);
+		if (name == null) {
+			name = extractHandlerMethodNameFromUrlPath(urlPath);
+			if (this.methodNameCache.size() < MAX_CACHE_SIZE) {
+				this.methodNameCache.put(urlPath, name);
+			}
 		}
+		return name;
+	}
+
+	/**
+	 * Extract the resource name after the last slash, ignoring an extension.
+	 * @param urlPath the URL path to extract the method name from
+	 * @return the method name
+	 */
+	protected String extractHandlerMethodNameFromUrlPath(String urlPath) {
+		// look at resource name after last slash
+		int begin = urlPath.lastIndexOf('/') + 1;
 		// ignore extension
-		int dotIndex = name.lastIndexOf('.');
-		if (dotIndex != -1) {
-			name = name.substring(0, dotIndex);
+		int end = urlPath.lastIndexOf('.');
+		if (end < begin) {
+			end = urlPath.length();
 		}
-		return name;
+		return urlPath.substring(begin, end);
 	}
 
 }
@@ -18,9 +18,8 @@ package org.springframework.web.servlet.mvc.multiaction;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -83,6 +82,9 @@ public class MultiActionController extends AbstractController implements LastMod
 	/** Prefix for last modified methods */
 	public static final String LAST_MODIFIED_METHOD_SUFFIX = "LastModified";
 
+	/** Marker for exception classes without handler in the exception handler cache */
+	private static final Object NO_EXCEPTION_HANDLER = new Object();
+
 
 	//---------------------------------------------------------------------
 	// Instance data
@@ -97,7 +99,7 @@ public class MultiActionController extends AbstractController implements LastMod
 	/** Object we'll invoke methods on. Defaults to this. */
 	private Object delegate;
 
-	/** Methods, keyed by name */
+	/** HandlerMethods, keyed by name */
 	private Map methodHash;
 	
 	/** LastModified methods, keyed by handler method name (without LAST_MODIFIED_SUFFIX) */
@@ -106,6 +108,12 @@ public class MultiActionController extends AbstractController implements LastMod
 	/** Methods, keyed by exception class */
 	private Map exceptionHandlerHash;
 
+	/**
+	 * Methods or NO_EXCEPTION_HANDLER, keyed by the class of a thrown exception,
+	 * to avoid walking the exception class hierarchy for each exception
+	 */
+	private Map exceptionHandlerCache;
+
 
 	//---------------------------------------------------------------------
 	// Constructors
@@ -187,7 +195,7 @@ public class MultiActionController extends AbstractController implements LastMod
 				if (params.length >= 2 && params[0].equals(HttpServletRequest.class) && params[1].equals(HttpServletResponse.class)) {
 					// We're in business
 					logger.info("Found action method [" + methods[i] + "]");
-					this.methodHash.put(methods[i].getName(), methods[i]);
+					this.methodHash.put(methods[i].getName(), new HandlerMethod(methods[i]));
 					
 					// Look for corresponding LastModified method
 					try {
@@ -212,6 +220,7 @@ public class MultiActionController extends AbstractController implements LastMod
 		
 		// Now look for exception handlers
 		this.exceptionHandlerHash = new HashMap();
+		this.exceptionHandlerCache = Collections.synchronizedMap(new HashMap());
 		for (int i = 0; i < methods.length; i++) {
 			if (methods[i].getReturnType().equals(ModelAndView.class) &&
 					methods[i].getParameterTypes().length == 3) {
@@ -284,36 +293,34 @@ public class MultiActionController extends AbstractController implements LastMod
 	 */
 	protected final ModelAndView invokeNamedMethod(String method, HttpServletRequest request, HttpServletResponse response)
 			throws Exception {
-		Method m = (Method) this.methodHash.get(method);
-		if (m == null) {
+		HandlerMethod handlerMethod = (HandlerMethod) this.methodHash.get(method);
+		if (handlerMethod == null) {
 			throw new NoSuchRequestHandlingMethodException(method, this);
 		}
 
 		try {
-			// A real generic Collection! Parameters to method
-			List params = new LinkedList();
-			params.add(request);
-			params.add(response);
-				
-			if (m.getParameterTypes().length >= 3 && m.getParameterTypes()[2].equals(HttpSession.class) ){
+			// Parameters to method, as analyzed on startup
+			Object[] params = new Object[handlerMethod.parameterCount];
+			params[0] = request;
+			params[1] = response;
+			int index = 2;
+
+			if (handlerMethod.sessionRequired) {
 				// Require a session
 				HttpSession session = request.getSession(false);
 				if (session == null) {
-					//throw new SessionRequiredException("Session was required for method '" + method + "'");
 					return handleException(request, response, new SessionRequiredException("Session was required for method '" + method + "'"));
 				}
-				params.add(session);
+				params[index++] = session;
 			}
-			
-			// If last parameter isn't of HttpSession type it's a command
-			if (m.getParameterTypes().length >= 3 && !m.getParameterTypes()[m.getParameterTypes().length - 1].equals(HttpSession.class)) {
-				Object command = newCommandObject(m.getParameterTypes()[m.getParameterTypes().length - 1]);
-				params.add(command);
+
+			if (handlerMethod.commandClass != null) {
+				Object command = newCommandObject(handlerMethod.commandClass);
+				params[index] = command;
 				bind(request, command);
 			}
-			
-			Object[] parray = params.toArray(new Object[params.size()]);
-			return (ModelAndView) m.invoke(this.delegate, parray);
+
+			return (ModelAndView) handlerMethod.method.invoke(this.delegate, params);
 		}
 		catch (InvocationTargetException ex) {
 			// This is what we're looking for: the handler method threw an exception
@@ -355,7 +362,9 @@ public class MultiActionController extends AbstractController implements LastMod
 	 * public no arg constructors.
 	 */
 	protected Object newCommandObject(Class clazz) throws ServletException {
-		logger.info("Must create new command of " + clazz);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Must create new command of " + clazz);
+		}
 		try {
 			Object command = clazz.newInstance();
 			return command;
@@ -371,7 +380,7 @@ public class MultiActionController extends AbstractController implements LastMod
 	 * @param command command object, that must be a JavaBean
 	 */
 	protected void bind(ServletRequest request, Object command) throws ServletException {
-		logger.info("Binding request parameters onto command");
+		logger.debug("Binding request parameters onto command");
 		ServletRequestDataBinder binder = new ServletRequestDataBinder(command, "command");
 		binder.bind(request);
 		binder.closeNoCatch();
@@ -379,18 +388,27 @@ public class MultiActionController extends AbstractController implements LastMod
 	
 	/**
 	 * Can return null if not found.
+	 * <p>The handler found for an exception class, or the fact that there
+	 * is none, is cached: the class hierarchy is only walked once.
 	 * @return a handler for the given exception type
 	 * @param exception Won't be a ServletException or IOException
 	 */
 	protected Method getExceptionHandler(Throwable exception) {
-		Class exceptionClass = exception.getClass();
-		logger.info("Trying to find handler for exception of " + exceptionClass);
+		Class thrownClass = exception.getClass();
+		Object cachedHandler = this.exceptionHandlerCache.get(thrownClass);
+		if (cachedHandler != null) {
+			return (cachedHandler != NO_EXCEPTION_HANDLER ? (Method) cachedHandler : null);
+		}
+		Class exceptionClass = thrownClass;
+		if (logger.isDebugEnabled()) {
+			logger.debug("Trying to find handler for exception of " + exceptionClass);
+		}
 		Method handler = (Method) this.exceptionHandlerHash.get(exceptionClass);
 		while (handler == null && !exceptionClass.equals(Throwable.class)) {
-			logger.info("Looking at superclass " + exceptionClass);
 			exceptionClass = exceptionClass.getSuperclass();
 			handler = (Method) this.exceptionHandlerHash.get(exceptionClass);
 		}
+		this.exceptionHandlerCache.put(thrownClass, (handler != null ? (Object) handler : NO_EXCEPTION_HANDLER));
 		return handler;
 	}
 
@@ -405,7 +423,9 @@ public class MultiActionController extends AbstractController implements LastMod
 		}
 
 		// If we get here, we have a handler
-		logger.info("Invoking exception handler [" + handler + "] for exception [" + exception + "]");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Invoking exception handler [" + handler + "] for exception [" + exception + "]");
+		}
 		try {
 			ModelAndView mv = (ModelAndView) handler.invoke(this.delegate, new Object[] { request, response, exception }); 
 			return mv;
@@ -423,4 +443,35 @@ public class MultiActionController extends AbstractController implements LastMod
 		}
 	}
 	
+
+
+	/**
+	 * Handler method with its parameters analyzed on startup,
+	 * to avoid inspecting the parameter types on each request.
+	 */
+	private static class HandlerMethod {
+
+		private final Method method;
+
+		private final int parameterCount;
+
+		private final boolean sessionRequired;
+
+		private final Class commandClass;
+
+		private HandlerMethod(Method method) {
+			this.method = method;
+			Class[] params = method.getParameterTypes();
+			this.sessionRequired = (params.length >= 3 && params[2].equals(HttpSession.class));
+			// If last parameter isn't of HttpSession type it's a command
+			if (params.length >= 3 && !params[params.length - 1].equals(HttpSession.class)) {
+				this.commandClass = params[params.length - 1];
+			}
+			else {
+				this.commandClass = null;
+			}
+			this.parameterCount = 2 + (this.sessionRequired ? 1 : 0) + (this.commandClass != null ? 1 : 0);
+		}
+	}
+
 }
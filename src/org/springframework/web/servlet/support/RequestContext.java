@@ -44,6 +44,10 @@ import org.springframework.web.util.HtmlUtils;
  * <p>Can be instantiated manually, or automatically exposed to views as
  * model attribute via AbstractView's requestContextAttribute property.
  *
+ * <p>The current locale and theme are resolved lazily on first access,
+ * and kept for the lifetime of this RequestContext. Creating an instance
+ * is therefore cheap, even if a view does not need any of this state.
+ *
  * @author Juergen Hoeller
  * @since 03.03.2003
  * @see org.springframework.web.servlet.view.AbstractView#setRequestContextAttribute
@@ -88,8 +92,6 @@ public class RequestContext {
 		throws ServletException {
 		this.request = request;
 		this.webApplicationContext = RequestContextUtils.getWebApplicationContext(request);
-		this.locale = RequestContextUtils.getLocale(request);
-		this.theme = RequestContextUtils.getTheme(request);
 		this.model = model;
 	}
 
@@ -110,17 +112,28 @@ public class RequestContext {
 	}
 
 	/**
-	 * Return the current locale.
+	 * Return the current locale, resolving it via the
+	 * LocaleResolver of the request on first access.
+	 * @see RequestContextUtils#getLocale
 	 */
 	public Locale getLocale() {
-		return locale;
+		if (this.locale == null) {
+			this.locale = RequestContextUtils.getLocale(this.request);
+		}
+		return this.locale;
 	}
 
 	/**
-	 * Return the current theme.
+	 * Return the current theme, resolving it via the
+	 * ThemeResolver of the request on first access.
+	 * @see RequestContextUtils#getThemeResolver
 	 */
 	public Theme getTheme() {
-		return theme;
+		if (this.theme == null) {
+			String themeName = RequestContextUtils.getThemeResolver(this.request).resolveThemeName(this.request);
+			this.theme = this.webApplicationContext.getTheme(themeName);
+		}
+		return this.theme;
 	}
 
 	/**
@@ -167,7 +180,7 @@ public class RequestContext {
 	 * @return the message
 	 */
 	public String getMessage(String code, Object[] args, String defaultMessage, boolean htmlEscape) {
-		String msg = this.webApplicationContext.getMessage(code, args, defaultMessage, this.locale);
+		String msg = this.webApplicationContext.getMessage(code, args, defaultMessage, getLocale());
 		return (htmlEscape ? HtmlUtils.htmlEscape(msg) : msg);
 	}
 
@@ -201,7 +214,7 @@ public class RequestContext {
 	 * @throws NoSuchMessageException if not found
 	 */
 	public String getMessage(String code, Object[] args, boolean htmlEscape) throws NoSuchMessageException {
-		String msg = this.webApplicationContext.getMessage(code, args, this.locale);
+		String msg = this.webApplicationContext.getMessage(code, args, getLocale());
 		return (htmlEscape ? HtmlUtils.htmlEscape(msg) : msg);
 	}
 
@@ -224,7 +237,7 @@ public class RequestContext {
 	 * @throws NoSuchMessageException if not found
 	 */
 	public String getMessage(MessageSourceResolvable resolvable, boolean htmlEscape) throws NoSuchMessageException {
-		String msg = this.webApplicationContext.getMessage(resolvable, this.locale);
+		String msg = this.webApplicationContext.getMessage(resolvable, getLocale());
 		return (htmlEscape ? HtmlUtils.htmlEscape(msg) : msg);
 	}
 
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.web.servlet.RequestTimingCollector;
+
+/**
+ * RequestTimingCollector that keeps a TimingHistogram per handler and
+ * processing phase, plus one for the total processing time, in memory.
+ * Handlers are identified by their class name.
+ *
+ * <p>Define an instance with the bean name "requestTimingCollector" in a
+ * DispatcherServlet's context, and query it - for example from a monitoring
+ * controller, or via JMX - to find out where request processing time goes.
+ * Requests that could not be mapped to a handler are not recorded.
+ *
+ * @since 1.1
+ * @see org.springframework.web.servlet.DispatcherServlet#REQUEST_TIMING_COLLECTOR_BEAN_NAME
+ */
+public class RequestTimingMetrics implements RequestTimingCollector {
+
+	/** Map from handler name to HandlerTimings, replaced on modification */
+	private volatile Map handlerTimings = Collections.EMPTY_MAP;
+
+	private final Object monitor = new Object();
+
+
+	public void requestProcessed(HttpServletRequest request, Object handler, long[] phaseNanos, long totalNanos) {
+		if (handler == null) {
+			return;
+		}
+		HandlerTimings timings = getHandlerTimings(handler.getClass().getName(), true);
+		for (int i = 0; i < PHASE_COUNT; i++) {
+			if (phaseNanos[i] > 0) {
+				timings.phases[i].record(phaseNanos[i]);
+			}
+		}
+		timings.total.record(totalNanos);
+	}
+
+	private HandlerTimings getHandlerTimings(String handlerName, boolean create) {
+		HandlerTimings timings = (HandlerTimings) this.handlerTimings.get(handlerName);
+		if (timings == null && create) {
+			synchronized (this.monitor) {
+				timings = (HandlerTimings) this.handlerTimings.get(handlerName);
+				if (timings == null) {
+					timings = new HandlerTimings();
+					Map newTimings = new HashMap(this.handlerTimings);
+					newTimings.put(handlerName, timings);
+					this.handlerTimings = newTimings;
+				}
+			}
+		}
+		return timings;
+	}
+
+
+	/**
+	 * Return the names of all handlers that have been recorded, in
+	 * alphabetical order.
+	 */
+	public String[] getHandlerNames() {
+		String[] names = (String[]) this.handlerTimings.keySet().toArray(new String[0]);
+		Arrays.sort(names);
+		return names;
+	}
+
+	/**
+	 * Return the histogram for the given phase of the given handler.
+	 * Phases that took no measurable time are not recorded.
+	 * @param handlerName the class name of the handler
+	 * @param phase the phase index, as defined by RequestTimingCollector
+	 * @return the histogram, or null if the handler has not been recorded
+	 * @see RequestTimingCollector#PHASE_HANDLER
+	 */
+	public TimingHistogram getPhaseHistogram(String handlerName, int phase) {
+		HandlerTimings timings = getHandlerTimings(handlerName, false);
+		return (timings != null ? timings.phases[phase] : null);
+	}
+
+	/**
+	 * Return the histogram for the total processing time of the given handler.
+	 * @param handlerName the class name of the handler
+	 * @return the histogram, or null if the handler has not been recorded
+	 */
+	public TimingHistogram getTotalHistogram(String handlerName) {
+		HandlerTimings timings = getHandlerTimings(handlerName, false);
+		return (timings != null ? timings.total : null);
+	}
+
+	/**
+	 * Discard all recorded timings.
+	 */
+	public void reset() {
+		synchronized (this.monitor) {
+			this.handlerTimings = Collections.EMPTY_MAP;
+		}
+	}
+
+	/**
+	 * Return a summary of all recorded timings, one line per handler and phase.
+	 */
+	public String toString() {
+		StringBuffer sb = new StringBuffer("RequestTimingMetrics");
+		String[] handlerNames = getHandlerNames();
+		for (int i = 0; i < handlerNames.length; i++) {
+			HandlerTimings timings = getHandlerTimings(handlerNames[i], false);
+			sb.append('\n').append(handlerNames[i]).append(": total ").append(timings.total);
+			for (int j = 0; j < PHASE_COUNT; j++) {
+				if (timings.phases[j].getCount() > 0) {
+					sb.append("\n  ").append(PHASE_NAMES[j]).append(' ').append(timings.phases[j]);
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Histograms for one handler.
+	 */
+	private static class HandlerTimings {
+
+		private final TimingHistogram[] phases = new TimingHistogram[PHASE_COUNT];
+
+		private final TimingHistogram total = new TimingHistogram();
+
+		private HandlerTimings() {
+			for (int i = 0; i < PHASE_COUNT; i++) {
+				this.phases[i] = new TimingHistogram();
+			}
+		}
+	}
+
+}
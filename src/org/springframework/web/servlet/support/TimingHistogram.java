@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.support;
+
+/**
+ * Thread-safe histogram of durations in nanoseconds, with buckets of
+ * exponentially growing size: bucket n holds durations from 2^n up to
+ * 2^(n+1) nanoseconds. Recording a duration is cheap and needs constant
+ * memory, at the price of percentiles being estimates within a factor of 2.
+ *
+ * @since 1.1
+ * @see RequestTimingMetrics
+ */
+public class TimingHistogram {
+
+	private static final int BUCKET_COUNT = 64;
+
+	private final long[] buckets = new long[BUCKET_COUNT];
+
+	private long count;
+
+	private long totalNanos;
+
+	private long maxNanos;
+
+
+	/**
+	 * Record the given duration.
+	 * @param nanos the duration in nanoseconds (negative values count as 0)
+	 */
+	public synchronized void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		this.buckets[bucketIndex(nanos)]++;
+		this.count++;
+		this.totalNanos += nanos;
+		if (nanos > this.maxNanos) {
+			this.maxNanos = nanos;
+		}
+	}
+
+	/**
+	 * Return the index of the bucket for the given duration,
+	 * i.e. the position of its highest bit.
+	 */
+	private static int bucketIndex(long nanos) {
+		int index = 0;
+		while (nanos > 1) {
+			nanos >>>= 1;
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Return the number of recorded durations.
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Return the sum of all recorded durations, in nanoseconds.
+	 */
+	public synchronized long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Return the longest recorded duration, in nanoseconds.
+	 */
+	public synchronized long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * Return the mean of all recorded durations, in nanoseconds,
+	 * or 0 if none have been recorded.
+	 */
+	public synchronized long getMeanNanos() {
+		return (this.count > 0 ? this.totalNanos / this.count : 0);
+	}
+
+	/**
+	 * Estimate the given percentile of the recorded durations, returning the
+	 * upper bound of the bucket that contains it (but at most the maximum).
+	 * @param percentile the percentile, between 0 and 100 (e.g. 99 for p99)
+	 * @return the estimated duration in nanoseconds, or 0 if none have been recorded
+	 */
+	public synchronized long getPercentileNanos(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		}
+		if (this.count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(this.count * percentile / 100);
+		if (rank < 1) {
+			rank = 1;
+		}
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += this.buckets[i];
+			if (seen >= rank) {
+				long upperBound = (i < BUCKET_COUNT - 2 ? (2L << i) - 1 : Long.MAX_VALUE);
+				return Math.min(upperBound, this.maxNanos);
+			}
+		}
+		return this.maxNanos;
+	}
+
+	/**
+	 * Discard all recorded durations.
+	 */
+	public synchronized void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.buckets[i] = 0;
+		}
+		this.count = 0;
+		this.totalNanos = 0;
+		this.maxNanos = 0;
+	}
+
+	public synchronized String toString() {
+		return "count=" + this.count + ", mean=" + getMeanNanos() / 1000 + "us, p99=" +
+				getPercentileNanos(99) / 1000 + "us, max=" + this.maxNanos / 1000 + "us";
+	}
+
+}
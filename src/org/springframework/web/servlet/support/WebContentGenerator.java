@@ -25,6 +25,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.springframework.web.context.support.WebApplicationObjectSupport;
+import org.springframework.web.util.WebUtils;
 
 /**
  * Convenient superclass for any kind of web content generator,
@@ -35,10 +36,15 @@ import org.springframework.web.context.support.WebApplicationObjectSupport;
  * HTTP headers can be determined via the "useExpiresHeader" and
  * "userCacheControlHeader" properties.
  *
+ * <p>Also supports conditional GET requests: checkNotModified answers a request
+ * with "304 Not Modified" if the client's cached copy is still current,
+ * according to the resource's last-modified timestamp or entity tag.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @see #setUseExpiresHeader
  * @see #setUseCacheControlHeader
+ * @see #checkNotModified
  * @see org.springframework.web.servlet.mvc.AbstractController
  * @see org.springframework.web.servlet.mvc.WebContentInterceptor
  */
@@ -48,12 +54,22 @@ public abstract class WebContentGenerator extends WebApplicationObjectSupport {
 
 	public static final String METHOD_POST = "POST";
 
+	public static final String METHOD_HEAD = "HEAD";
+
 	public static final String HEADER_PRAGMA = "Pragma";
 
 	public static final String HEADER_EXPIRES = "Expires";
 
 	public static final String HEADER_CACHE_CONTROL = "Cache-Control";
 
+	public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+
+	public static final String HEADER_ETAG = "ETag";
+
+	public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+	public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
 
 	/** Set of supported methods. GET and POST by default. */
 	private Set	supportedMethods;
@@ -160,6 +176,63 @@ public abstract class WebContentGenerator extends WebApplicationObjectSupport {
 		applyCacheSeconds(response, this.cacheSeconds, lastModified);
 	}
 
+	/**
+	 * Check whether the client's cached copy of the requested resource is
+	 * still current, given the resource's last-modified timestamp and/or
+	 * entity tag. If so, the response status is set to "304 Not Modified",
+	 * and the caller is supposed to return without generating any content.
+	 * Else, "Last-Modified" and "ETag" headers are set for the given values.
+	 * <p>An "If-None-Match" request header takes precedence over an
+	 * "If-Modified-Since" header, as defined by HTTP 1.1. Only applies
+	 * to GET and HEAD requests.
+	 * @param request current HTTP request
+	 * @param response current HTTP response
+	 * @param lastModified the last-modified timestamp of the resource,
+	 * or -1 if not known
+	 * @param eTag the entity tag of the resource, including quotes,
+	 * or null if none
+	 * @return true if the response has been completed with "304 Not Modified"
+	 * @see org.springframework.web.util.WebUtils#matchesETag
+	 */
+	protected final boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+	                                         long lastModified, String eTag) {
+		String method = request.getMethod();
+		if (!METHOD_GET.equals(method) && !METHOD_HEAD.equals(method)) {
+			return false;
+		}
+
+		boolean notModified = false;
+		String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+		if (ifNoneMatch != null && eTag != null) {
+			notModified = WebUtils.matchesETag(ifNoneMatch, eTag);
+		}
+		else if (lastModified >= 0) {
+			long ifModifiedSince = -1;
+			try {
+				ifModifiedSince = request.getDateHeader(HEADER_IF_MODIFIED_SINCE);
+			}
+			catch (IllegalArgumentException ex) {
+				// invalid date header -> treat as absent
+			}
+			// HTTP dates have a resolution of seconds
+			notModified = (ifModifiedSince >= 0 && lastModified / 1000 * 1000 <= ifModifiedSince);
+		}
+
+		if (eTag != null) {
+			response.setHeader(HEADER_ETAG, eTag);
+		}
+		if (lastModified >= 0) {
+			response.setDateHeader(HEADER_LAST_MODIFIED, lastModified);
+		}
+		if (notModified) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Resource [" + request.getRequestURI() + "] not modified - answering with 304");
+			}
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		}
+		return notModified;
+	}
+
 	/**
 	 * Prevent the response from being cached.
 	 * See www.mnot.net.cache docs.
@@ -24,6 +24,7 @@ import javax.servlet.jsp.JspTagException;
 
 import org.springframework.context.NoSuchMessageException;
 import org.springframework.validation.BindException;
+import org.springframework.validation.BindingErrors;
 import org.springframework.validation.Errors;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.util.ExpressionEvaluationUtils;
@@ -139,9 +140,12 @@ public class BindTag extends RequestContextAwareTag {
 				if (this.errors instanceof BindException) {
 					this.editor = ((BindException) this.errors).getCustomEditor(this.property);
 				}
+				else if (this.errors instanceof BindingErrors) {
+					this.editor = ((BindingErrors) this.errors).getCustomEditor(this.property);
+				}
 				else {
 					logger.warn("Cannot not expose custom property editor because Errors instance [" + this.errors +
-											"] is not of type BindException");
+											"] is not of type BindException or BindingErrors");
 				}
 				if (isHtmlEscape() && value instanceof String) {
 					value = HtmlUtils.htmlEscape((String)value);
@@ -16,6 +16,10 @@
 
 package org.springframework.web.servlet.tags;
 
+import java.util.Locale;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.JspTagException;
@@ -24,6 +28,8 @@ import javax.servlet.jsp.tagext.TagSupport;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.ui.context.Theme;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.support.RequestContext;
 import org.springframework.web.util.ExpressionEvaluationUtils;
 
@@ -35,6 +41,12 @@ import org.springframework.web.util.ExpressionEvaluationUtils;
  * <p>Supports an HTML escaping setting per tag instance,
  * overriding any default setting at the page or web.xml level.
  *
+ * <p>Each tag uses its own RequestContext, but the locale and theme are
+ * taken from a RequestContext kept as request attribute: they get resolved
+ * at most once per request, no matter how many tags a page contains.
+ * Errors instances are still retrieved per tag, so views rendered later
+ * in the same request see their own Errors.
+ *
  * <p>Note: Only intended for DispatcherServlet requests!
  *
  * @author Rod Johnson
@@ -45,6 +57,12 @@ import org.springframework.web.util.ExpressionEvaluationUtils;
  */
 public abstract class RequestContextAwareTag extends TagSupport {
 
+	/**
+	 * Request attribute that holds the RequestContext that resolves
+	 * the locale and theme for all tags of the current request.
+	 */
+	public static final String REQUEST_CONTEXT_ATTRIBUTE = RequestContextAwareTag.class.getName() + ".REQUEST_CONTEXT";
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private String htmlEscape;
@@ -81,12 +99,20 @@ public abstract class RequestContextAwareTag extends TagSupport {
 	}
 
 	/**
-	 * Create and set the current RequestContext.
+	 * Retrieve the RequestContext of the current request, creating it if necessary.
 	 * Delegates to doStartTagInternal for actual work.
 	 */
 	public final int doStartTag() throws JspException {
 		try {
-			this.requestContext =	new RequestContext((HttpServletRequest) this.pageContext.getRequest());
+			ServletRequest request = this.pageContext.getRequest();
+			RequestContext sharedContext = (RequestContext) request.getAttribute(REQUEST_CONTEXT_ATTRIBUTE);
+			// create a new shared RequestContext if the request has been dispatched to another servlet
+			if (sharedContext == null || sharedContext.getWebApplicationContext() !=
+					request.getAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE)) {
+				sharedContext = new RequestContext((HttpServletRequest) request);
+				request.setAttribute(REQUEST_CONTEXT_ATTRIBUTE, sharedContext);
+			}
+			this.requestContext = new TagRequestContext((HttpServletRequest) request, sharedContext);
 			return doStartTagInternal();
 		}
 		catch (JspException ex) {
@@ -112,4 +138,28 @@ public abstract class RequestContextAwareTag extends TagSupport {
 		return super.doStartTag();
 	}
 
+
+	/**
+	 * RequestContext for a single tag, delegating locale and theme
+	 * to the RequestContext shared by all tags of the request.
+	 */
+	private static class TagRequestContext extends RequestContext {
+
+		private final RequestContext sharedContext;
+
+		public TagRequestContext(HttpServletRequest request, RequestContext sharedContext)
+			throws ServletException {
+			super(request);
+			this.sharedContext = sharedContext;
+		}
+
+		public Locale getLocale() {
+			return this.sharedContext.getLocale();
+		}
+
+		public Theme getTheme() {
+			return this.sharedContext.getTheme();
+		}
+	}
+
 }
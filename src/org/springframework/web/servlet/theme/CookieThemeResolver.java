@@ -37,9 +37,10 @@ import org.springframework.web.util.WebUtils;
 public class CookieThemeResolver extends AbstractThemeResolver {
 
 	/**
-	 * Name of the request attribute that holds the theme name. Only used
-	 * for overriding a cookie value if the theme has been changed in the
-	 * course of the current request! Use RequestContext.getTheme() to
+	 * Name of the request attribute that holds the theme name. Used for
+	 * overriding a cookie value if the theme has been changed in the
+	 * course of the current request, and for caching the resolved theme
+	 * name for the rest of the request. Use RequestContext.getTheme() to
 	 * retrieve the current theme in controllers or views.
 	 * @see org.springframework.web.servlet.support.RequestContext#getTheme
 	 */
@@ -98,15 +99,11 @@ public class CookieThemeResolver extends AbstractThemeResolver {
 		if (theme != null)
 			return theme;
 
-		// retrieve cookie value
+		// retrieve cookie value, falling back to the default theme
 		Cookie cookie = WebUtils.getCookie(request, getCookieName());
-
-		if (cookie != null) {
-			return cookie.getValue();
-		}
-
-		// fallback
-		return getDefaultThemeName();
+		theme = (cookie != null ? cookie.getValue() : getDefaultThemeName());
+		request.setAttribute(THEME_REQUEST_ATTRIBUTE_NAME, theme);
+		return theme;
 	}
 
 	public void setThemeName(HttpServletRequest request, HttpServletResponse response, String themeName) {
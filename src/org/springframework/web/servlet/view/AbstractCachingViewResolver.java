@@ -16,8 +16,8 @@
 
 package org.springframework.web.servlet.view;
 
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 
@@ -33,18 +33,39 @@ import org.springframework.web.servlet.ViewResolver;
  *
  * <p>View retrieval is deferred to subclasses via the loadView template method.
  *
+ * <p>The cache is bounded by the "cacheLimit", evicting views that have not
+ * been used recently when full: This matters for view names that contain ids,
+ * like "redirect:/order/123". The cache is split into segments with separate
+ * locks, so concurrent resolutions of different views hardly contend, and
+ * adding a view only affects its own segment. Views that could not be
+ * resolved, i.e. for which loadView returned null, are cached too. Each view
+ * gets created only once, even if requested by multiple threads at the same time.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @see #loadView
+ * @see #setCacheLimit
  */
 public abstract class AbstractCachingViewResolver extends WebApplicationObjectSupport implements ViewResolver {
 
-	/** View name --> View instance */
-	private final Map viewMap = Collections.synchronizedMap(new HashMap());
+	/** Default maximum number of entries for the view cache: 1024 */
+	public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+	/** Maximum number of segments of the view cache */
+	private static final int MAX_SEGMENTS = 16;
+
+	/** Minimum share of the cache limit per segment, for meaningful eviction */
+	private static final int MIN_SEGMENT_LIMIT = 16;
 
 	/** Whether we should cache views, once resolved */
 	private boolean cache = true;
 
+	private int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	/** Segments of the view cache, replaced on reconfiguration */
+	private volatile Segment[] segments = createSegments(DEFAULT_CACHE_LIMIT);
+
+
 	/**
 	 * Enable respectively disable caching. Disable this only for debugging
 	 * and development. Default is for caching to be enabled.
@@ -63,23 +84,93 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		return cache;
 	}
 
+	/**
+	 * Set the maximum number of entries for the view cache.
+	 * Default is 1024. Clears the cache.
+	 * <p>When the limit is reached, views that have not been used since the
+	 * last eviction are removed from the cache, to be recreated on next use.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		if (cacheLimit <= 0) {
+			throw new IllegalArgumentException("cacheLimit must be positive");
+		}
+		this.cacheLimit = cacheLimit;
+		this.segments = createSegments(cacheLimit);
+	}
+
+	/**
+	 * Return the maximum number of entries for the view cache.
+	 */
+	public int getCacheLimit() {
+		return cacheLimit;
+	}
+
+	/**
+	 * Create the segments for the given cache limit, splitting the limit
+	 * evenly so that the segments together never exceed it. Small caches
+	 * use fewer segments, down to a single one.
+	 */
+	private static Segment[] createSegments(int cacheLimit) {
+		int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, cacheLimit / MIN_SEGMENT_LIMIT));
+		Segment[] segments = new Segment[segmentCount];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(cacheLimit / segments.length);
+		}
+		return segments;
+	}
+
 	public View resolveViewName(String viewName, Locale locale) throws Exception {
-		View view = null;
 		if (!this.cache) {
 			logger.warn("View caching is SWITCHED OFF -- DEVELOPMENT SETTING ONLY: This can severely impair performance");
-			view = loadAndConfigureView(viewName, locale);
+			return loadAndConfigureView(viewName, locale);
 		}
-		else {
-			String cacheKey = getCacheKey(viewName, locale);
-			view = (View) this.viewMap.get(cacheKey);
-			if (view == null) {
+
+		String cacheKey = getCacheKey(viewName, locale);
+		Segment[] segments = this.segments;
+		Segment segment = segments[(cacheKey.hashCode() & 0x7fffffff) % segments.length];
+		Object lock = null;
+		synchronized (segment) {
+			CacheEntry entry = segment.get(cacheKey);
+			if (entry != null) {
+				return entry.view;
+			}
+			lock = segment.creationLocks.get(cacheKey);
+			if (lock == null) {
+				lock = new Object();
+				segment.creationLocks.put(cacheKey, lock);
+			}
+		}
+		try {
+			synchronized (lock) {
+				// check again: another thread might have created the view in the meantime
+				synchronized (segment) {
+					CacheEntry entry = segment.get(cacheKey);
+					if (entry != null) {
+						return entry.view;
+					}
+				}
 				// ask the subclass to load the View
-				view = loadAndConfigureView(viewName, locale);
-				this.viewMap.put(cacheKey, view);
-				logger.info("Cached view '" + cacheKey + "'");
+				View view = loadAndConfigureView(viewName, locale);
+				synchronized (segment) {
+					segment.put(cacheKey, new CacheEntry(view));
+				}
+				if (view != null) {
+					logger.info("Cached view '" + cacheKey + "'");
+				}
+				else if (logger.isDebugEnabled()) {
+					logger.debug("Cached unresolvable view '" + cacheKey + "'");
+				}
+				return view;
+			}
+		}
+		finally {
+			synchronized (segment) {
+				// only remove our own lock, not one registered by a later thread
+				if (segment.creationLocks.get(cacheKey) == lock) {
+					segment.creationLocks.remove(cacheKey);
+				}
 			}
 		}
-		return view;
 	}
 
 	/**
@@ -105,15 +196,177 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		return viewName + "_" + locale;
 	}
 
+	/**
+	 * Remove the cached view for the given view name and locale, if any,
+	 * so that it gets recreated on next resolution.
+	 * @param viewName the name of the view
+	 * @param locale the Locale that the view has been resolved for
+	 */
+	public void removeFromCache(String viewName, Locale locale) {
+		String cacheKey = getCacheKey(viewName, locale);
+		Segment[] segments = this.segments;
+		Segment segment = segments[(cacheKey.hashCode() & 0x7fffffff) % segments.length];
+		synchronized (segment) {
+			segment.entries.remove(cacheKey);
+		}
+	}
+
+	/**
+	 * Clear the entire view cache, removing all cached views.
+	 * Subsequent resolve calls will lead to recreation of views.
+	 */
+	public void clearCache() {
+		Segment[] segments = this.segments;
+		for (int i = 0; i < segments.length; i++) {
+			synchronized (segments[i]) {
+				segments[i].entries.clear();
+			}
+		}
+	}
+
+	/**
+	 * Return the number of currently cached views, including unresolvable ones.
+	 */
+	public int getCacheSize() {
+		Segment[] segments = this.segments;
+		int size = 0;
+		for (int i = 0; i < segments.length; i++) {
+			synchronized (segments[i]) {
+				size += segments[i].entries.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Return the number of view resolutions that have been served from the cache.
+	 */
+	public long getCacheHitCount() {
+		Segment[] segments = this.segments;
+		long count = 0;
+		for (int i = 0; i < segments.length; i++) {
+			synchronized (segments[i]) {
+				count += segments[i].hitCount;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of view resolutions that had to load the view.
+	 */
+	public long getCacheMissCount() {
+		Segment[] segments = this.segments;
+		long count = 0;
+		for (int i = 0; i < segments.length; i++) {
+			synchronized (segments[i]) {
+				count += segments[i].missCount;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of views that have been evicted because of the cache limit.
+	 */
+	public long getCacheEvictionCount() {
+		Segment[] segments = this.segments;
+		long count = 0;
+		for (int i = 0; i < segments.length; i++) {
+			synchronized (segments[i]) {
+				count += segments[i].evictionCount;
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Subclasses must implement this method. There need be no concern for efficiency,
 	 * as this class will cache views. Not all subclasses may support internationalization:
 	 * A subclass that doesn't can simply ignore the locale parameter.
 	 * @param viewName the name of the view to retrieve
 	 * @param locale the Locale to retrieve the view for
-	 * @return the View instance
+	 * @return the View instance, or null if not found
+	 * (which will be cached as well)
 	 * @throws Exception if the view couldn't be resolved
 	 */
 	protected abstract View loadView(String viewName, Locale locale) throws Exception;
 
+
+	/**
+	 * Segment of the view cache, with its own share of the cache limit,
+	 * statistics and creation locks. All access is synchronized on the segment.
+	 */
+	private static class Segment {
+
+		/** Cache key --> CacheEntry */
+		private final Map entries = new HashMap();
+
+		/** Cache key --> lock object, for views that are currently being created */
+		private final Map creationLocks = new HashMap();
+
+		private final int limit;
+
+		private long hitCount = 0;
+
+		private long missCount = 0;
+
+		private long evictionCount = 0;
+
+		private Segment(int limit) {
+			this.limit = limit;
+		}
+
+		private CacheEntry get(String cacheKey) {
+			CacheEntry entry = (CacheEntry) this.entries.get(cacheKey);
+			if (entry != null) {
+				this.hitCount++;
+				entry.accessed = true;
+			}
+			return entry;
+		}
+
+		/**
+		 * Add the given entry, evicting entries that have not been accessed
+		 * since the last eviction run if the segment is full (a "second chance"
+		 * approximation of least-recently-used eviction).
+		 */
+		private void put(String cacheKey, CacheEntry entry) {
+			this.missCount++;
+			if (this.entries.size() >= this.limit) {
+				int targetSize = this.limit - Math.max(1, this.limit / 4);
+				for (int pass = 0; pass < 2 && this.entries.size() > targetSize; pass++) {
+					for (Iterator it = this.entries.values().iterator(); it.hasNext() && this.entries.size() > targetSize;) {
+						CacheEntry existing = (CacheEntry) it.next();
+						if (existing.accessed) {
+							existing.accessed = false;
+						}
+						else {
+							it.remove();
+							this.evictionCount++;
+						}
+					}
+				}
+			}
+			this.entries.put(cacheKey, entry);
+		}
+	}
+
+
+	/**
+	 * Entry of the view cache, holding a View (or null if unresolvable)
+	 * and a flag for least-recently-used eviction.
+	 */
+	private static class CacheEntry {
+
+		private final View view;
+
+		/** Whether the entry has been accessed since the last eviction run */
+		private boolean accessed = false;
+
+		private CacheEntry(View view) {
+			this.view = view;
+		}
+	}
+
 }
@@ -30,6 +30,7 @@ import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.web.context.support.WebApplicationObjectSupport;
 import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.support.RequestContext;
+import org.springframework.web.util.UrlPathHelper;
 
 /**
  * Abstract view superclass. Standard framework view implementations
@@ -44,13 +45,22 @@ import org.springframework.web.servlet.support.RequestContext;
  * quest for efficiency. This class offers caching. However, it's possible
  * to disable this class's caching, which is useful during development.
  *
+ * <p>Views that render the same output for many requests can cache their
+ * rendered output, via the "outputCacheSeconds" property. The output is
+ * cached per locale and per value of the model attributes specified as
+ * "outputCacheModelKeys", and written directly to the response on
+ * subsequent GET requests, without rendering the view again.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @version $Id: AbstractView.java,v 1.9 2004/03/18 02:46:11 trisberg Exp $
  * @see #renderMergedOutputModel
+ * @see #setOutputCacheSeconds
  */
 public abstract class AbstractView extends WebApplicationObjectSupport implements View, BeanNameAware {
 
+	public static final int DEFAULT_OUTPUT_CACHE_SIZE = 1024 * 1024;
+
 	/** The name by which this View is known */
 	private String beanName;
 
@@ -63,6 +73,15 @@ public abstract class AbstractView extends WebApplicationObjectSupport implement
 	/** Map of static attributes, keyed by attribute name (String) */
 	private final Map	staticAttributes = new HashMap();
 
+	private int outputCacheSeconds = 0;
+
+	private String[] outputCacheModelKeys;
+
+	private int outputCacheSize = DEFAULT_OUTPUT_CACHE_SIZE;
+
+	/** Cache for rendered output, or null if not caching */
+	private ViewOutputCache outputCache;
+
 
 	/**
 	 * Set the view's name. Helpful for traceability.
@@ -194,12 +213,86 @@ public abstract class AbstractView extends WebApplicationObjectSupport implement
 		return Collections.unmodifiableMap(this.staticAttributes);
 	}
 
+	/**
+	 * Set the number of seconds to cache the rendered output of this view.
+	 * Default is 0, rendering the view for every request.
+	 * <p>Only use this for views whose output does not depend on anything
+	 * but the locale and the model attributes specified as
+	 * "outputCacheModelKeys": for example, not for views that show the
+	 * current user's name. Headers and cookies set by the view itself are
+	 * not cached; the content type is.
+	 * <p>Output is only cached for GET requests with a 200 response status,
+	 * and never for includes, as cached output is replayed via the response's
+	 * OutputStream, including a Content-Length header. Concurrent requests for the same output wait for a single rendering.
+	 * @see #setOutputCacheModelKeys
+	 * @see #setOutputCacheSize
+	 */
+	public void setOutputCacheSeconds(int outputCacheSeconds) {
+		this.outputCacheSeconds = outputCacheSeconds;
+		resetOutputCache();
+	}
+
+	/**
+	 * Return the number of seconds to cache the rendered output of this view.
+	 */
+	public int getOutputCacheSeconds() {
+		return outputCacheSeconds;
+	}
+
+	/**
+	 * Set the names of the model attributes that determine the output of
+	 * this view, in addition to the locale. Their values are part of the
+	 * cache key, so they need to implement equals and hashCode properly.
+	 * Default is none: one cached output per locale.
+	 * @see #setOutputCacheSeconds
+	 */
+	public void setOutputCacheModelKeys(String[] outputCacheModelKeys) {
+		this.outputCacheModelKeys = outputCacheModelKeys;
+		resetOutputCache();
+	}
+
+	/**
+	 * Set the maximum number of bytes of output to cache for this view.
+	 * Default is 1 MB; least recently used output gets evicted first.
+	 * @see #setOutputCacheSeconds
+	 */
+	public void setOutputCacheSize(int outputCacheSize) {
+		this.outputCacheSize = outputCacheSize;
+		resetOutputCache();
+	}
+
+	/**
+	 * Recreate the output cache according to the current settings.
+	 */
+	private void resetOutputCache() {
+		if (this.outputCacheSeconds > 0) {
+			this.outputCache = new ViewOutputCache(this.outputCacheSeconds, this.outputCacheModelKeys,
+			                                       this.outputCacheSize);
+		}
+		else {
+			this.outputCache = null;
+		}
+	}
+
+	/**
+	 * Remove all cached output of this view, if any.
+	 * @see #setOutputCacheSeconds
+	 */
+	public void clearOutputCache() {
+		ViewOutputCache outputCache = this.outputCache;
+		if (outputCache != null) {
+			outputCache.clear();
+		}
+	}
+
 
 	/**
 	 * Prepares the view given the specified model, merging it with static
 	 * attributes and a RequestContext attribute, if necessary.
-	 * Delegates to renderMergedOutputModel for the actual rendering.
+	 * Delegates to renderMergedOutputModel for the actual rendering,
+	 * unless the output is taken from the output cache.
 	 * @see #renderMergedOutputModel
+	 * @see #setOutputCacheSeconds
 	 */
 	public void render(Map model, HttpServletRequest request, HttpServletResponse response) throws Exception {
 		if (logger.isDebugEnabled()) {
@@ -207,6 +300,22 @@ public abstract class AbstractView extends WebApplicationObjectSupport implement
 				"] and static attributes=[" + this.staticAttributes + "]");
 		}
 
+		ViewOutputCache outputCache = this.outputCache;
+		if (outputCache != null && "GET".equals(request.getMethod()) &&
+				request.getAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE) == null) {
+			outputCache.render(this, model, request, response);
+		}
+		else {
+			renderUncached(model, request, response);
+		}
+	}
+
+	/**
+	 * Render the view without output cache.
+	 * Called by render, or by the output cache on a cache miss.
+	 */
+	final void renderUncached(Map model, HttpServletRequest request, HttpServletResponse response)
+			throws Exception {
 		// Consolidate static and dynamic model attributes
 		Map mergedModel = new HashMap(this.staticAttributes);
 		mergedModel.putAll(model);
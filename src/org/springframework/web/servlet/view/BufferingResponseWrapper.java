@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.LinkedList;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Response wrapper that buffers the content written by a view, to send it
+ * with a Content-Length header in a single write, instead of many small
+ * writes that the container might send with chunked encoding.
+ *
+ * <p>Characters are encoded with the response's character encoding as they
+ * are written, into a byte buffer that is reused across requests. Once more
+ * than "bufferSize" bytes have been written, the wrapper switches to
+ * streaming: the buffered content and all further content gets written to
+ * the target response in chunks, flushing after each chunk, so that huge
+ * pages are not held in memory completely.
+ *
+ * <p>Writes to the target response's OutputStream, so must not be used for
+ * views that are rendered within an include. The view must call
+ * <code>finish</code> after rendering and <code>release</code> in any case.
+ *
+ * @since 1.1
+ * @see #finish
+ * @see #release
+ * @see org.springframework.web.servlet.view.velocity.VelocityView#setOutputBufferSize
+ * @see org.springframework.web.servlet.view.freemarker.FreeMarkerView#setOutputBufferSize
+ */
+public class BufferingResponseWrapper extends HttpServletResponseWrapper {
+
+	/** Number of bytes to write at once when streaming */
+	private static final int STREAMING_CHUNK_SIZE = 8192;
+
+	private static final int MAX_POOL_SIZE = 32;
+
+	/** Pool of OutputBuffers, used as stack */
+	private static final LinkedList bufferPool = new LinkedList();
+
+
+	private final int bufferSize;
+
+	private OutputBuffer buffer;
+
+	private PrintWriter writer;
+
+	private ServletOutputStream outputStream;
+
+	/** Target stream once streaming (null while buffering) */
+	private OutputStream targetStream;
+
+
+	/**
+	 * Create a new BufferingResponseWrapper for the given response.
+	 * @param response the response to write the content to
+	 * @param bufferSize the maximum number of bytes to buffer
+	 * before switching to streaming
+	 */
+	public BufferingResponseWrapper(HttpServletResponse response, int bufferSize) {
+		super(response);
+		this.bufferSize = bufferSize;
+	}
+
+	public PrintWriter getWriter() throws IOException {
+		if (this.writer == null) {
+			this.writer = new PrintWriter(new BufferingWriter());
+		}
+		return this.writer;
+	}
+
+	public ServletOutputStream getOutputStream() {
+		if (this.outputStream == null) {
+			this.outputStream = new BufferingOutputStream();
+		}
+		return this.outputStream;
+	}
+
+	/**
+	 * Ignored while buffering, as template engines tend to flush at the end
+	 * of their output.
+	 */
+	public void flushBuffer() throws IOException {
+		if (this.targetStream != null) {
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+			super.flushBuffer();
+		}
+	}
+
+	public void setContentLength(int len) {
+		// determined from the buffered content
+	}
+
+	public void resetBuffer() {
+		super.resetBuffer();
+		if (this.buffer != null && this.targetStream == null) {
+			this.buffer.reset();
+		}
+	}
+
+	public void reset() {
+		super.reset();
+		if (this.buffer != null && this.targetStream == null) {
+			this.buffer.reset();
+		}
+	}
+
+	/**
+	 * Write the buffered content to the target response, with a
+	 * Content-Length header if the content has not been streamed.
+	 * @throws IOException if writing failed
+	 */
+	public void finish() throws IOException {
+		if (this.writer != null) {
+			this.writer.flush();
+		}
+		if (this.buffer == null) {
+			return;
+		}
+		if (this.targetStream != null) {
+			drainBuffer();
+		}
+		else {
+			this.buffer.encoder.flush();
+			super.setContentLength(this.buffer.bytes.size());
+			this.buffer.bytes.writeTo(super.getOutputStream());
+			this.buffer.bytes.reset();
+		}
+	}
+
+	/**
+	 * Return the buffer to the pool for reuse. Must be called after
+	 * rendering, even if rendering failed.
+	 */
+	public void release() {
+		if (this.buffer != null) {
+			OutputBuffer bufferToRelease = this.buffer;
+			this.buffer = null;
+			bufferToRelease.reset();
+			synchronized (bufferPool) {
+				if (bufferPool.size() < MAX_POOL_SIZE) {
+					bufferPool.addLast(bufferToRelease);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the buffer for this response, taking it from the pool if possible.
+	 * The encoder of a pooled buffer is reused if the encoding matches.
+	 */
+	private OutputBuffer getBuffer() throws IOException {
+		if (this.buffer == null) {
+			String encoding = getCharacterEncoding();
+			if (encoding == null) {
+				encoding = WebUtils.DEFAULT_CHARACTER_ENCODING;
+			}
+			OutputBuffer buffer = null;
+			synchronized (bufferPool) {
+				if (!bufferPool.isEmpty()) {
+					buffer = (OutputBuffer) bufferPool.removeLast();
+				}
+			}
+			if (buffer == null) {
+				buffer = new OutputBuffer(this.bufferSize);
+			}
+			buffer.setEncoding(encoding);
+			this.buffer = buffer;
+		}
+		return this.buffer;
+	}
+
+	/**
+	 * Check the amount of buffered content after a write:
+	 * switch to streaming above the buffer size, and write
+	 * chunks to the target stream once streaming.
+	 */
+	private void checkBuffer() throws IOException {
+		int size = this.buffer.bytes.size();
+		if (this.targetStream == null) {
+			if (size > this.bufferSize) {
+				this.targetStream = super.getOutputStream();
+				drainBuffer();
+			}
+		}
+		else if (size >= STREAMING_CHUNK_SIZE) {
+			drainBuffer();
+		}
+	}
+
+	private void drainBuffer() throws IOException {
+		this.buffer.encoder.flush();
+		this.buffer.bytes.writeTo(this.targetStream);
+		this.buffer.bytes.reset();
+		this.targetStream.flush();
+	}
+
+
+	/**
+	 * Writer that encodes characters into the buffer.
+	 */
+	private class BufferingWriter extends Writer {
+
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			getBuffer().encoder.write(cbuf, off, len);
+			checkBuffer();
+		}
+
+		public void write(String str, int off, int len) throws IOException {
+			getBuffer().encoder.write(str, off, len);
+			checkBuffer();
+		}
+
+		public void flush() {
+			// see flushBuffer
+		}
+
+		public void close() {
+			// the target response is closed by the container
+		}
+	}
+
+
+	/**
+	 * ServletOutputStream that writes bytes into the buffer.
+	 */
+	private class BufferingOutputStream extends ServletOutputStream {
+
+		public void write(int b) throws IOException {
+			OutputBuffer buffer = getBuffer();
+			buffer.encoder.flush();
+			buffer.bytes.write(b);
+			checkBuffer();
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+			OutputBuffer buffer = getBuffer();
+			buffer.encoder.flush();
+			buffer.bytes.write(b, off, len);
+			checkBuffer();
+		}
+	}
+
+
+	/**
+	 * Reusable byte buffer with an encoder that writes into it.
+	 */
+	private static class OutputBuffer {
+
+		private final ByteArrayOutputStream bytes;
+
+		private String encoding;
+
+		private Writer encoder;
+
+		private OutputBuffer(int initialSize) {
+			this.bytes = new ByteArrayOutputStream(Math.min(initialSize, STREAMING_CHUNK_SIZE));
+		}
+
+		private void setEncoding(String encoding) throws IOException {
+			if (!encoding.equals(this.encoding)) {
+				this.encoder = new OutputStreamWriter(this.bytes, encoding);
+				this.encoding = encoding;
+			}
+		}
+
+		/**
+		 * Discard all content, including characters pending in the encoder.
+		 */
+		private void reset() {
+			if (this.encoder != null) {
+				try {
+					this.encoder.flush();
+				}
+				catch (IOException ex) {
+					// cannot happen when writing to a ByteArrayOutputStream
+				}
+			}
+			this.bytes.reset();
+		}
+	}
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.util.CachedContent;
+import org.springframework.util.ContentCache;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Cache for the rendered output of a single AbstractView, keyed by locale
+ * and the values of selected model attributes. Used by AbstractView if
+ * "outputCacheSeconds" is positive.
+ *
+ * <p>Content is kept as bytes in a least-recently-used cache that is bounded
+ * by the total number of bytes. Only the content and its content type are
+ * cached: headers or cookies set by the view are not replayed.
+ *
+ * <p>If concurrent requests miss the cache for the same key, only the first
+ * one renders the view; the others wait for its output.
+ *
+ * @since 1.1
+ * @see AbstractView#setOutputCacheSeconds
+ */
+class ViewOutputCache {
+
+	private final long timeToLive;
+
+	private final String[] modelKeys;
+
+	private final ContentCache outputCache;
+
+	/** Renderings in progress, keyed by OutputKey */
+	private final Map pendingRenderings = new HashMap();
+
+
+	/**
+	 * Create a new ViewOutputCache.
+	 * @param cacheSeconds the number of seconds to cache output for
+	 * @param modelKeys the names of the model attributes that determine
+	 * the output, in addition to the locale (can be null)
+	 * @param cacheSize the maximum number of bytes to cache in total
+	 */
+	ViewOutputCache(int cacheSeconds, String[] modelKeys, int cacheSize) {
+		this.timeToLive = cacheSeconds * 1000L;
+		this.modelKeys = (modelKeys != null ? modelKeys : new String[0]);
+		this.outputCache = new ContentCache(cacheSize);
+	}
+
+	/**
+	 * Write the cached output for the given model to the response,
+	 * rendering the view if no valid output has been cached yet.
+	 * @param view the view to render
+	 * @param model the model, without static attributes
+	 * @param request current HTTP request
+	 * @param response current HTTP response
+	 * @throws Exception if rendering failed
+	 */
+	void render(AbstractView view, Map model, HttpServletRequest request, HttpServletResponse response)
+			throws Exception {
+		OutputKey key = new OutputKey(getLocale(request), getModelValues(view, model));
+		CachedOutput output = (CachedOutput) this.outputCache.get(key);
+		if (output != null && output.getTimestamp() > System.currentTimeMillis()) {
+			output.writeTo(response);
+			return;
+		}
+
+		PendingRendering pending = null;
+		boolean renderHere = false;
+		synchronized (this.pendingRenderings) {
+			pending = (PendingRendering) this.pendingRenderings.get(key);
+			if (pending == null) {
+				pending = new PendingRendering();
+				this.pendingRenderings.put(key, pending);
+				renderHere = true;
+			}
+		}
+
+		if (!renderHere) {
+			output = pending.awaitOutput();
+			if (output != null) {
+				output.writeTo(response);
+			}
+			else {
+				// rendering failed or was not cacheable: try on our own
+				view.renderUncached(model, request, response);
+			}
+			return;
+		}
+
+		output = null;
+		try {
+			OutputCapturingResponseWrapper responseToUse = new OutputCapturingResponseWrapper(response);
+			view.renderUncached(model, request, responseToUse);
+			byte[] content = responseToUse.getContent();
+			if (responseToUse.isCacheable()) {
+				output = new CachedOutput(content, responseToUse.getCapturedContentType(),
+				                          System.currentTimeMillis() + this.timeToLive);
+				this.outputCache.put(key, output);
+				output.writeTo(response);
+			}
+			else if (content.length > 0) {
+				response.getOutputStream().write(content);
+			}
+		}
+		finally {
+			synchronized (this.pendingRenderings) {
+				this.pendingRenderings.remove(key);
+			}
+			pending.setOutput(output);
+		}
+	}
+
+	/**
+	 * Determine the locale for the given request, via the LocaleResolver
+	 * if running in a DispatcherServlet, else via the request itself.
+	 */
+	private Locale getLocale(HttpServletRequest request) {
+		LocaleResolver localeResolver =
+		    (LocaleResolver) request.getAttribute(DispatcherServlet.LOCALE_RESOLVER_ATTRIBUTE);
+		return (localeResolver != null ? localeResolver.resolveLocale(request) : request.getLocale());
+	}
+
+	private Object[] getModelValues(AbstractView view, Map model) {
+		Object[] values = new Object[this.modelKeys.length];
+		for (int i = 0; i < this.modelKeys.length; i++) {
+			String modelKey = this.modelKeys[i];
+			if (model != null && model.containsKey(modelKey)) {
+				values[i] = model.get(modelKey);
+			}
+			else {
+				values[i] = view.getStaticAttributes().get(modelKey);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Remove all cached output.
+	 */
+	void clear() {
+		this.outputCache.clear();
+	}
+
+
+	/**
+	 * Cache key: locale plus the values of the configured model keys.
+	 * Relies on the equals and hashCode implementations of the values.
+	 */
+	private static class OutputKey {
+
+		private final Locale locale;
+
+		private final Object[] modelValues;
+
+		private final int hashCode;
+
+		private OutputKey(Locale locale, Object[] modelValues) {
+			this.locale = locale;
+			this.modelValues = modelValues;
+			int hashCode = (locale != null ? locale.hashCode() : 0);
+			for (int i = 0; i < modelValues.length; i++) {
+				hashCode = 29 * hashCode + (modelValues[i] != null ? modelValues[i].hashCode() : 0);
+			}
+			this.hashCode = hashCode;
+		}
+
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof OutputKey)) {
+				return false;
+			}
+			OutputKey otherKey = (OutputKey) other;
+			return ((this.locale != null ? this.locale.equals(otherKey.locale) : otherKey.locale == null) &&
+			    Arrays.equals(this.modelValues, otherKey.modelValues));
+		}
+
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * Rendered output of a view with its content type,
+	 * valid until the expiry timestamp.
+	 */
+	private static class CachedOutput extends CachedContent {
+
+		private final String contentType;
+
+		private CachedOutput(byte[] content, String contentType, long expires) {
+			super(content, expires);
+			this.contentType = contentType;
+		}
+
+		private void writeTo(HttpServletResponse response) throws IOException {
+			if (this.contentType != null) {
+				response.setContentType(this.contentType);
+			}
+			response.setContentLength(getContent().length);
+			response.getOutputStream().write(getContent());
+		}
+	}
+
+
+	/**
+	 * Rendering in progress, which other threads can wait for.
+	 */
+	private static class PendingRendering {
+
+		private boolean done = false;
+
+		private CachedOutput output;
+
+		private synchronized void setOutput(CachedOutput output) {
+			this.output = output;
+			this.done = true;
+			notifyAll();
+		}
+
+		/**
+		 * Wait for the rendering to complete.
+		 * @return the output, or null if rendering failed or the output
+		 * was not cacheable
+		 */
+		private synchronized CachedOutput awaitOutput() throws InterruptedException {
+			while (!this.done) {
+				wait();
+			}
+			return this.output;
+		}
+	}
+
+
+	/**
+	 * Response wrapper that captures content, passing everything else
+	 * through to the target response. Output is not cacheable if the view
+	 * sends an error or a redirect, or sets a status other than 200.
+	 */
+	private static class OutputCapturingResponseWrapper extends HttpServletResponseWrapper {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private final ServletOutputStream outputStream = new ServletOutputStream() {
+			public void write(int b) {
+				content.write(b);
+			}
+			public void write(byte[] b, int off, int len) {
+				content.write(b, off, len);
+			}
+		};
+
+		private PrintWriter writer;
+
+		private String contentType;
+
+		private boolean cacheable = true;
+
+		private OutputCapturingResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+
+		public void setContentType(String contentType) {
+			super.setContentType(contentType);
+			this.contentType = contentType;
+		}
+
+		public void setContentLength(int len) {
+			// determined from the captured content
+		}
+
+		public void setStatus(int statusCode) {
+			super.setStatus(statusCode);
+			this.cacheable = this.cacheable && (statusCode == HttpServletResponse.SC_OK);
+		}
+
+		public void setStatus(int statusCode, String message) {
+			super.setStatus(statusCode, message);
+			this.cacheable = this.cacheable && (statusCode == HttpServletResponse.SC_OK);
+		}
+
+		public void sendError(int statusCode) throws IOException {
+			this.cacheable = false;
+			super.sendError(statusCode);
+		}
+
+		public void sendError(int statusCode, String message) throws IOException {
+			this.cacheable = false;
+			super.sendError(statusCode, message);
+		}
+
+		public void sendRedirect(String location) throws IOException {
+			this.cacheable = false;
+			super.sendRedirect(location);
+		}
+
+		public ServletOutputStream getOutputStream() {
+			return this.outputStream;
+		}
+
+		public PrintWriter getWriter() throws IOException {
+			if (this.writer == null) {
+				String characterEncoding = getCharacterEncoding();
+				if (characterEncoding == null) {
+					characterEncoding = WebUtils.DEFAULT_CHARACTER_ENCODING;
+				}
+				this.writer = new PrintWriter(new OutputStreamWriter(this.content, characterEncoding));
+			}
+			return this.writer;
+		}
+
+		public void flushBuffer() {
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+		}
+
+		public void resetBuffer() {
+			super.resetBuffer();
+			flushBuffer();
+			this.content.reset();
+		}
+
+		public void reset() {
+			super.reset();
+			flushBuffer();
+			this.content.reset();
+			this.cacheable = true;
+		}
+
+		private String getCapturedContentType() {
+			return this.contentType;
+		}
+
+		private boolean isCacheable() {
+			return this.cacheable;
+		}
+
+		private byte[] getContent() {
+			flushBuffer();
+			return this.content.toByteArray();
+		}
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.web.servlet.view.document;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -96,7 +97,10 @@ import org.springframework.web.servlet.view.AbstractView;
  * <br>    &lt;url-pattern&gt;*.xls&lt;/url-pattern&gt;
  * <br>&lt;/servlet-mapping&gt;
  * </code>
- * <br>The use of this view is close to the AbstractPdfView
+ * <br>The use of this view is close to the AbstractPdfView.
+ * <br>The workbook is sent with a Content-Length header, spilling large documents
+ * to a temporary file: see the "spillThreshold" and "streamDocument" properties.
+ * Note that HSSF itself keeps the complete workbook in memory while building it.
  * @see AbstractPdfView
  * @author <a href="mailto:jp.pawlak@tiscali.fr">Jean-Pierre Pawlak</a>
  */
@@ -106,10 +110,15 @@ public abstract class AbstractExcelView extends AbstractView {
 
 	private static final String SEPARATOR = "_";
 
+	/** Default maximum number of bytes to keep in memory: 1 MB */
+	public static final int DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+
 
 	private String url;
 
-	private HSSFWorkbook wb;
+	private int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+
+	private boolean streamDocument = false;
 
 
 	public AbstractExcelView() {
@@ -123,27 +132,57 @@ public abstract class AbstractExcelView extends AbstractView {
 		this.url = url;
 	}
 
+	/**
+	 * Set the maximum number of bytes of a serialized workbook to keep in memory.
+	 * Larger documents get spilled to a temporary file in the web application's
+	 * temp directory, to still be sent with a Content-Length header.
+	 * Default is 1 MB.
+	 */
+	public void setSpillThreshold(int spillThreshold) {
+		this.spillThreshold = spillThreshold;
+	}
+
+	/**
+	 * Set whether to write the workbook directly to the response,
+	 * without a Content-Length header. Default is false.
+	 */
+	public void setStreamDocument(boolean streamDocument) {
+		this.streamDocument = streamDocument;
+	}
 
 	/**
 	 * Renders the view given the specified model.
 	 */
 	protected final void renderMergedOutputModel(Map model, HttpServletRequest request,
 	                                             HttpServletResponse response) throws Exception {
+		HSSFWorkbook wb = null;
 		if (this.url != null) {
-			this.wb = getTemplateSource(this.url, request);
+			wb = getTemplateSource(this.url, request);
 		}
 		else {
-			this.wb = new HSSFWorkbook();
+			wb = new HSSFWorkbook();
 			logger.info("Excel WorkBook created from scratch");
 		}
 
-		buildExcelDocument(model, this.wb, request, response);
+		buildExcelDocument(model, wb, request, response);
 
-		// response.setContentLength(wb.getBytes().length);
 		response.setContentType(getContentType());
-		ServletOutputStream out = response.getOutputStream();
-		this.wb.write(out);
-		out.flush();
+		if (this.streamDocument) {
+			ServletOutputStream out = response.getOutputStream();
+			wb.write(out);
+			out.flush();
+		}
+		else {
+			File tempDir = (getApplicationContext() != null ? getTempDir() : null);
+			DocumentOutputBuffer buffer = new DocumentOutputBuffer(this.spillThreshold, tempDir);
+			try {
+				wb.write(buffer);
+				buffer.writeTo(response);
+			}
+			finally {
+				buffer.release();
+			}
+		}
 	}
 
 	/**
@@ -16,10 +16,10 @@
 
 package org.springframework.web.servlet.view.document;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
 import java.util.Map;
 
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -38,12 +38,23 @@ import org.springframework.web.servlet.view.AbstractView;
  * <br>NB: Internet Explorer requires a .pdf extension, as
  * it doesn't always respect the declared content type.
  * <br>Exposes page width and height as bean properties.
+ * <br>Documents are sent with a Content-Length header, spilling large documents
+ * to a temporary file: see the "spillThreshold" and "streamDocument" properties.
  * @version $Id: AbstractPdfView.java,v 1.8 2004/03/18 02:46:18 trisberg Exp $
  * @author Rod Johnson
  * @author Jean-Pierre Pawlak
  */
 public abstract class AbstractPdfView extends AbstractView {
-	
+
+	/** Default maximum number of bytes to keep in memory: 1 MB */
+	public static final int DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+
+
+	private int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+
+	private boolean streamDocument = false;
+
+
 	/**
 	 * Sets the appropriate content type.
 	 * Note that IE won't take much notice of this, but there's not a lot we
@@ -52,35 +63,56 @@ public abstract class AbstractPdfView extends AbstractView {
 	public AbstractPdfView() {
 		setContentType("application/pdf");
 	}
-	
-	protected final void renderMergedOutputModel(Map model, HttpServletRequest request,
-	                                             HttpServletResponse response) throws Exception {
-		Document document = getDocument();
-
-		// The following simple method doesn't work in IE, which
-		// needs to know the content length.
-		// PdfWriter.getInstance(document, response.getOutputStream());
-		//document.open();
-		//doPdfDocument(model, document);
-		//document.close();
-
-		// See	http://www.lowagie.com/iText/faq.html#msie
-		// for an explanation of why we can't use the obvious form above.
 
-		// IE workaround
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		PdfWriter writer = PdfWriter.getInstance(document, baos);
+	/**
+	 * Set the maximum number of bytes of a generated document to keep in memory.
+	 * Larger documents get spilled to a temporary file in the web application's
+	 * temp directory, to still be sent with a Content-Length header.
+	 * Default is 1 MB.
+	 */
+	public void setSpillThreshold(int spillThreshold) {
+		this.spillThreshold = spillThreshold;
+	}
 
-		writer.setViewerPreferences(getViewerPreferences());
-		document.open();
-		buildPdfDocument(model, document, writer, request, response);
-		document.close();
+	/**
+	 * Set whether to write the document directly to the response, page by page
+	 * as iText completes it, without a Content-Length header. Default is false.
+	 * <p>Avoids buffering the document completely, but note that Internet
+	 * Explorer needs to know the content length of PDF documents.
+	 */
+	public void setStreamDocument(boolean streamDocument) {
+		this.streamDocument = streamDocument;
+	}
 
-		response.setContentLength(baos.size());
+	protected final void renderMergedOutputModel(Map model, HttpServletRequest request,
+	                                             HttpServletResponse response) throws Exception {
+		Document document = getDocument();
 		response.setContentType(getContentType());
-		ServletOutputStream out = response.getOutputStream();
-		baos.writeTo(out);
-		out.flush();
+
+		// Writing to the response directly doesn't work in IE, which
+		// needs to know the content length: see
+		// http://www.lowagie.com/iText/faq.html#msie
+		DocumentOutputBuffer buffer = null;
+		if (!this.streamDocument) {
+			File tempDir = (getApplicationContext() != null ? getTempDir() : null);
+			buffer = new DocumentOutputBuffer(this.spillThreshold, tempDir);
+		}
+		try {
+			OutputStream out = (buffer != null ? (OutputStream) buffer : response.getOutputStream());
+			PdfWriter writer = PdfWriter.getInstance(document, out);
+			writer.setViewerPreferences(getViewerPreferences());
+			document.open();
+			buildPdfDocument(model, document, writer, request, response);
+			document.close();
+			if (buffer != null) {
+				buffer.writeTo(response);
+			}
+		}
+		finally {
+			if (buffer != null) {
+				buffer.release();
+			}
+		}
 	}
 
 	/**
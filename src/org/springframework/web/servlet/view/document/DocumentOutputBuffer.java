@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view.document;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * OutputStream that collects a generated document to determine its length,
+ * keeping up to "threshold" bytes in memory and spilling larger documents
+ * to a temporary file. Allows to send documents with a Content-Length
+ * header without holding them in memory completely.
+ *
+ * <p>Not thread-safe: to be used for a single rendering operation.
+ * <code>release</code> must be called in any case, to delete the temporary
+ * file. Closing the stream, as document writers tend to do, keeps the
+ * content available for <code>writeTo</code>.
+ *
+ * @since 1.1
+ * @see AbstractPdfView#setSpillThreshold
+ * @see AbstractExcelView#setSpillThreshold
+ */
+class DocumentOutputBuffer extends OutputStream {
+
+	private static final Log logger = LogFactory.getLog(DocumentOutputBuffer.class);
+
+	private final int threshold;
+
+	private final File tempDir;
+
+	private ByteArrayOutputStream memoryBuffer;
+
+	private File tempFile;
+
+	private OutputStream fileStream;
+
+	private long size = 0;
+
+	private boolean closed = false;
+
+
+	/**
+	 * Create a new DocumentOutputBuffer.
+	 * @param threshold the maximum number of bytes to keep in memory
+	 * @param tempDir the directory to create the temporary file in,
+	 * or null for the default temporary directory
+	 */
+	DocumentOutputBuffer(int threshold, File tempDir) {
+		this.threshold = threshold;
+		this.tempDir = tempDir;
+		this.memoryBuffer = new ByteArrayOutputStream(Math.min(threshold, 8192));
+	}
+
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (this.closed) {
+			throw new IOException("DocumentOutputBuffer already closed");
+		}
+		if (this.fileStream == null && this.size + len > this.threshold) {
+			spill();
+		}
+		if (this.fileStream != null) {
+			this.fileStream.write(b, off, len);
+		}
+		else {
+			this.memoryBuffer.write(b, off, len);
+		}
+		this.size += len;
+	}
+
+	/**
+	 * Move the content buffered so far into a temporary file,
+	 * and write all further content to it.
+	 */
+	private void spill() throws IOException {
+		this.tempFile = File.createTempFile("document", ".tmp", this.tempDir);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Document exceeds " + this.threshold + " bytes - spilling to temporary file [" +
+			    this.tempFile.getAbsolutePath() + "]");
+		}
+		this.fileStream = new BufferedOutputStream(new FileOutputStream(this.tempFile), 8192);
+		this.memoryBuffer.writeTo(this.fileStream);
+		this.memoryBuffer = null;
+	}
+
+	/**
+	 * Return the number of bytes written so far.
+	 */
+	long size() {
+		return this.size;
+	}
+
+	/**
+	 * Return whether the content has been spilled to a temporary file.
+	 */
+	boolean isSpilled() {
+		return (this.tempFile != null);
+	}
+
+	/**
+	 * Write the collected document to the given response,
+	 * with a Content-Length header.
+	 * @param response the response to write to
+	 * @throws IOException if writing failed
+	 */
+	void writeTo(HttpServletResponse response) throws IOException {
+		if (this.size <= Integer.MAX_VALUE) {
+			response.setContentLength((int) this.size);
+		}
+		ServletOutputStream out = response.getOutputStream();
+		if (this.tempFile != null) {
+			close();
+			FileCopyUtils.copyRange(this.tempFile, 0, this.size, out);
+		}
+		else {
+			this.memoryBuffer.writeTo(out);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Finish writing, keeping the content for <code>writeTo</code>.
+	 */
+	public void close() throws IOException {
+		this.closed = true;
+		if (this.fileStream != null) {
+			OutputStream fileStream = this.fileStream;
+			this.fileStream = null;
+			fileStream.close();
+		}
+	}
+
+	/**
+	 * Release the buffered content, deleting the temporary file if any.
+	 */
+	void release() {
+		try {
+			close();
+		}
+		catch (IOException ex) {
+			logger.warn("Could not close stream for temporary file [" + this.tempFile.getAbsolutePath() + "]", ex);
+		}
+		if (this.tempFile != null) {
+			if (!this.tempFile.delete()) {
+				logger.warn("Could not delete temporary file [" + this.tempFile.getAbsolutePath() + "]");
+			}
+			this.tempFile = null;
+		}
+		this.memoryBuffer = null;
+	}
+
+}
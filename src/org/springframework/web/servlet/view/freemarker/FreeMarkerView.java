@@ -33,6 +33,8 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContextException;
 import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springframework.web.servlet.view.AbstractUrlBasedView;
+import org.springframework.web.servlet.view.BufferingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
 
 /**
  * View using the FreeMarker template engine.
@@ -43,6 +45,9 @@ import org.springframework.web.servlet.view.AbstractUrlBasedView;
  * relative to the FreeMarker template context (directory).
  * <li><b>encoding</b> (optional, default is determined by Velocity configuration):
  * the encoding of the Velocity template file
+ * <li><b>outputBufferSize</b> (optional, default=0): the number of bytes of
+ * output to buffer, to be sent with a Content-Length header; larger output
+ * is streamed. 0 writes directly to the response.
  * </ul>
  *
  * <p>Depends on a single FreeMarkerConfig object such as FreeMarkerConfigurer
@@ -67,6 +72,8 @@ public class FreeMarkerView extends AbstractUrlBasedView {
 
 	private Configuration configuration;
 
+	private int outputBufferSize = 0;
+
 	/**
 	 * Set the encoding of the FreeMarker template file. Default is determined
 	 * by the FreeMarker Configuration: "ISO-8859-1" if not specified otherwise.
@@ -101,6 +108,19 @@ public class FreeMarkerView extends AbstractUrlBasedView {
 		return configuration;
 	}
 
+	/**
+	 * Set the number of bytes of output to buffer before sending it to the
+	 * client. Default is 0, processing the template directly into the response.
+	 * <p>Buffered output is sent with a Content-Length header in a single
+	 * write, avoiding chunked encoding. Output that exceeds the buffer size
+	 * is streamed in chunks. Not applied when the view is rendered within
+	 * an include.
+	 * @see org.springframework.web.servlet.view.BufferingResponseWrapper
+	 */
+	public void setOutputBufferSize(int outputBufferSize) {
+		this.outputBufferSize = outputBufferSize;
+	}
+
 	/**
 	 * Invoked on startup. Looks for a single FreeMarkerConfig bean to
 	 * find the relevant Configuration for this factory.
@@ -150,7 +170,19 @@ public class FreeMarkerView extends AbstractUrlBasedView {
 									 "] with model [" + model + "] ");
 		}
 		response.setContentType(getContentType());
-		processTemplate(template, model, response);
+		if (this.outputBufferSize > 0 && request.getAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE) == null) {
+			BufferingResponseWrapper responseWrapper = new BufferingResponseWrapper(response, this.outputBufferSize);
+			try {
+				processTemplate(template, model, responseWrapper);
+				responseWrapper.finish();
+			}
+			finally {
+				responseWrapper.release();
+			}
+		}
+		else {
+			processTemplate(template, model, response);
+		}
 	}
 
 	/**
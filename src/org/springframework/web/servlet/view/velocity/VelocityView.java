@@ -37,6 +37,8 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContextException;
 import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springframework.web.servlet.view.AbstractUrlBasedView;
+import org.springframework.web.servlet.view.BufferingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
 
 /**
  * View using the Velocity template engine.
@@ -62,6 +64,9 @@ import org.springframework.web.servlet.view.AbstractUrlBasedView;
  * this to false enables us to modify Velocity templates without restarting the
  * application (similar to JSPs). Note that this is a minor optimization only,
  * as Velocity itself caches templates in a modification-aware fashion.
+ * <li><b>outputBufferSize</b> (optional, default=0): the number of bytes of
+ * output to buffer, to be sent with a Content-Length header; larger output
+ * is streamed. 0 writes directly to the response.
  * </ul>
  *
  * <p>Depends on a VelocityConfig object such as VelocityConfigurer being
@@ -96,6 +101,8 @@ public class VelocityView extends AbstractUrlBasedView {
 
 	private boolean cacheTemplate;
 
+	private int outputBufferSize = 0;
+
 	private VelocityEngine velocityEngine;
 
 	private Template template;
@@ -157,6 +164,19 @@ public class VelocityView extends AbstractUrlBasedView {
 		this.cacheTemplate = cacheTemplate;
 	}
 
+	/**
+	 * Set the number of bytes of output to buffer before sending it to the
+	 * client. Default is 0, merging the template directly into the response.
+	 * <p>Buffered output is sent with a Content-Length header in a single
+	 * write, avoiding chunked encoding. Output that exceeds the buffer size
+	 * is streamed in chunks. Not applied when the view is rendered within
+	 * an include.
+	 * @see org.springframework.web.servlet.view.BufferingResponseWrapper
+	 */
+	public void setOutputBufferSize(int outputBufferSize) {
+		this.outputBufferSize = outputBufferSize;
+	}
+
 	/**
 	 * Set the VelocityEngine to be used by this view.
 	 * If this is not set, the default lookup will occur: A single VelocityConfig
@@ -238,7 +258,19 @@ public class VelocityView extends AbstractUrlBasedView {
 			}
 		}
 
-		mergeTemplate(template, velocityContext, response);
+		if (this.outputBufferSize > 0 && request.getAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE) == null) {
+			BufferingResponseWrapper responseWrapper = new BufferingResponseWrapper(response, this.outputBufferSize);
+			try {
+				mergeTemplate(template, velocityContext, responseWrapper);
+				responseWrapper.finish();
+			}
+			finally {
+				responseWrapper.release();
+			}
+		}
+		else {
+			mergeTemplate(template, velocityContext, response);
+		}
 		if (logger.isDebugEnabled()) {
 			logger.debug("Merged with Velocity template '" + getUrl() + "' in VelocityView '" + getBeanName() + "'");
 		}
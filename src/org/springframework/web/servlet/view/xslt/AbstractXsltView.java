@@ -18,7 +18,9 @@ package org.springframework.web.servlet.view.xslt;
 
 import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -41,10 +43,15 @@ import org.w3c.dom.Node;
 import org.springframework.context.ApplicationContextException;
 import org.springframework.core.io.Resource;
 import org.springframework.web.servlet.view.AbstractView;
+import org.springframework.web.servlet.view.BufferingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
 
 /**
  * Convenient superclass for views rendered using an XSLT stylesheet.
- * Subclasses must provide the XML W3C document to transform.
+ * Subclasses must provide the XML to transform, either as W3C DOM node
+ * via createDomNode, or as any TrAX Source via createXsltSource: for
+ * example, a SAXSource whose XMLReader emits SAX events for the model,
+ * which avoids building a DOM tree for each request.
  * They do not need to concern themselves with XSLT.
  *
  * <p>Properties:
@@ -53,20 +60,30 @@ import org.springframework.web.servlet.view.AbstractView;
  * <li>root: name of the root element
  * <li>uriResolver: URIResolver used in the transform
  * <li>cache (optional, default=true): debug setting only
+ * <li>transformerPoolSize (optional, default=16): maximum number of idle
+ * Transformers to keep for reuse
+ * <li>outputBufferSize (optional, default=0): the number of bytes of
+ * output to buffer, to be sent with a Content-Length header; larger output
+ * is streamed. 0 writes directly to the response.
  * </ul>
  *
  * <p>Setting cache to false will cause the templates object to be reloaded
  * for each rendering. This is useful during development, but will seriously
  * affect performance in production and isn't threadsafe.
  *
+ * <p>A single model object that is a W3C DOM Node or a TrAX Source
+ * gets transformed as-is.
+ *
  * @author Rod Johnson
  * @author Darren Davison
  * @version $Id: AbstractXsltView.java,v 1.10 2004/03/18 02:46:14 trisberg Exp $
  */
 public abstract class AbstractXsltView extends AbstractView {
 
+	public static final int DEFAULT_TRANSFORMER_POOL_SIZE = 16;
+
 	private String DEFAULT_ROOT_TAGNAME = "DocRoot";
-	
+
 	
 	/** URL of stylesheet */
 	private Resource stylesheetLocation;
@@ -79,11 +96,18 @@ public abstract class AbstractXsltView extends AbstractView {
 
 	private boolean cache = true;
 
+	private int transformerPoolSize = DEFAULT_TRANSFORMER_POOL_SIZE;
+
+	private int outputBufferSize = 0;
+
 	private TransformerFactory transformerFactory;
 
 	/** XSLT Template */
 	private Templates templates;
 
+	/** Idle Transformers for the current templates, used as stack */
+	private final LinkedList transformerPool = new LinkedList();
+
 
 	/**
 	 * Set the location of the XSLT stylesheet.
@@ -122,6 +146,35 @@ public abstract class AbstractXsltView extends AbstractView {
 		this.cache = cache;
 	}
 
+	/**
+	 * Set the maximum number of idle Transformers to keep for reuse.
+	 * Default is 16; 0 creates a new Transformer for each rendering.
+	 * <p>A Transformer is used by one rendering at a time, and returned
+	 * to the pool afterwards. Pooling is not applied when the cache
+	 * is deactivated.
+	 * <p>The pool is shared by all threads rather than holding a Transformer
+	 * per thread: it bounds the number of idle Transformers independent of
+	 * the container's thread count, and does not keep Transformers of a
+	 * reloaded stylesheet referenced from container threads.
+	 */
+	public final void setTransformerPoolSize(int transformerPoolSize) {
+		this.transformerPoolSize = transformerPoolSize;
+	}
+
+	/**
+	 * Set the number of bytes of output to buffer before sending it to the
+	 * client. Default is 0, writing the transformation result directly to
+	 * the response.
+	 * <p>Buffered output is sent with a Content-Length header in a single
+	 * write, reusing pooled buffers. Output that exceeds the buffer size
+	 * is streamed in chunks. Not applied when the view is rendered within
+	 * an include.
+	 * @see org.springframework.web.servlet.view.BufferingResponseWrapper
+	 */
+	public final void setOutputBufferSize(int outputBufferSize) {
+		this.outputBufferSize = outputBufferSize;
+	}
+
 
 	/**
 	 * Here we load our template, as we need the ApplicationContext to do it.
@@ -138,6 +191,9 @@ public abstract class AbstractXsltView extends AbstractView {
 	}	
 
 	private void cacheTemplates() throws ApplicationContextException {
+		synchronized (this.transformerPool) {
+			this.transformerPool.clear();
+		}
 		if (this.stylesheetLocation != null && !"".equals(this.stylesheetLocation)) {
 			try {
 				this.templates = this.transformerFactory.newTemplates(getStylesheetSource(this.stylesheetLocation));
@@ -183,7 +239,7 @@ public abstract class AbstractXsltView extends AbstractView {
 			response.setContentType(getContentType());
 		}
 
-		Node dom = null;
+		Source source = null;
 		String docRoot = null;
 
 		// value of a single element in the map, if there is one
@@ -196,23 +252,76 @@ public abstract class AbstractXsltView extends AbstractView {
 		}
 
 		// handle special case when we have a single node
-		if (singleModel != null && (singleModel instanceof Node)) {
+		if (singleModel instanceof Node) {
 			// Don't domify if the model is already an XML node
 			// We don't need to worry about model name, either:
 			// we leave the Node alone
 			logger.debug("No need to domify: was passed an XML node");
-			dom = (Node) singleModel;
+			source = new DOMSource((Node) singleModel);
+		}
+		else if (singleModel instanceof Source) {
+			logger.debug("No need to domify: was passed an XML source");
+			source = (Source) singleModel;
 		}
-		else 			
+		else {
 			// docRoot local variable takes precedence
-			dom = createDomNode(model, (docRoot == null) ? this.root : docRoot, request, response);
-		
-		doTransform(response, dom);
+			source = createXsltSource(model, (docRoot == null) ? this.root : docRoot, request, response);
+		}
+
+		if (this.outputBufferSize > 0 && request.getAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE) == null) {
+			BufferingResponseWrapper responseWrapper = new BufferingResponseWrapper(response, this.outputBufferSize);
+			try {
+				transform(source, responseWrapper);
+				responseWrapper.finish();
+			}
+			finally {
+				responseWrapper.release();
+			}
+		}
+		else {
+			transform(source, response);
+		}
+	}
+
+	/**
+	 * Transform the given source, passing DOM sources through the DOM-based
+	 * doTransform hook that subclasses may have overridden.
+	 * @see #doTransform(HttpServletResponse, Node)
+	 * @see #doTransform(Source, HttpServletResponse)
+	 */
+	private void transform(Source source, HttpServletResponse response) throws ServletException, IOException {
+		if (source instanceof DOMSource) {
+			doTransform(response, ((DOMSource) source).getNode());
+		}
+		else {
+			doTransform(source, response);
+		}
+	}
+
+	/**
+	 * Return the XML source to transform.
+	 * <p>Default implementation delegates to createDomNode. Subclasses can
+	 * override this method to provide a source that does not require a DOM
+	 * tree, like a SAXSource with an XMLReader that generates SAX events
+	 * for the model, or a StreamSource for XML text.
+	 * @param model the model Map
+	 * @param root name for root element
+	 * @param request HTTP request
+	 * @param response HTTP response
+	 * @return the XML source to transform
+	 * @throws Exception we let this method throw any exception; the
+	 * AbstractXlstView superclass will catch exceptions
+	 * @see #createDomNode
+	 * @see javax.xml.transform.sax.SAXSource
+	 */
+	protected Source createXsltSource(Map model, String root, HttpServletRequest request,
+	                                  HttpServletResponse response) throws Exception {
+		return new DOMSource(createDomNode(model, root, request, response));
 	}
 
 	/**
 	 * Return the XML node to transform.
-	 * Subclasses must implement this method.
+	 * Subclasses must implement either this method or createXsltSource.
 	 * @param model the model Map
 	 * @param root name for root element.  This can be supplied as a bean property
 	 * to concrete subclasses within the view definition file, but will be overridden
@@ -226,9 +335,13 @@ public abstract class AbstractXsltView extends AbstractView {
 	 * however there may sometimes be a need to set cookies.
 	 * @throws Exception we let this method throw any exception; the
 	 * AbstractXlstView superclass will catch exceptions
+	 * @see #createXsltSource
 	 */
-	protected abstract Node createDomNode(Map model, String root, HttpServletRequest request,
-	                                      HttpServletResponse response) throws Exception;
+	protected Node createDomNode(Map model, String root, HttpServletRequest request,
+	                             HttpServletResponse response) throws Exception {
+		throw new ServletException("XSLT view with name [" + getBeanName() +
+		    "] must override either createXsltSource or createDomNode");
+	}
 
 	/**
 	 * Return a <code>Map</code> of parameters to be applied to the stylesheet.  Subclasses
@@ -242,14 +355,23 @@ public abstract class AbstractXsltView extends AbstractView {
 	}
 	
 	/**
-	 * Use TrAX to perform the transform.
+	 * Use TrAX to perform the transform of a DOM node. Invoked for
+	 * DOM nodes, whether given as model or created by createDomNode.
+	 * <p>Default implementation delegates to the Source-based doTransform.
+	 * @see #doTransform(Source, HttpServletResponse)
 	 */
 	protected void doTransform(HttpServletResponse response, Node dom) throws ServletException, IOException {
+		doTransform(new DOMSource(dom), response);
+	}
+
+	/**
+	 * Use TrAX to perform the transform, with a pooled Transformer.
+	 * Invoked for non-DOM sources, and for DOM nodes by default.
+	 */
+	protected void doTransform(Source source, HttpServletResponse response) throws ServletException, IOException {
 		try {
-			Transformer trans = (this.templates != null) ?
-			    this.templates.newTransformer() : // we have a stylesheet
-						this.transformerFactory.newTransformer(); // just a copy
-				
+			Transformer trans = obtainTransformer();
+
 			// apply any subclass supplied parameters to the transformer
 			Map parameters = getParameters();		
 			if (parameters != null) {
@@ -260,11 +382,16 @@ public abstract class AbstractXsltView extends AbstractView {
 				logger.debug("Added parameters [" + parameters + "] to transformer object");
 			}
 
-			trans.setOutputProperty(OutputKeys.INDENT, "yes");
-			// Xalan-specific, but won't do any harm in other XSLT engines
-			trans.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-			trans.transform(new DOMSource(dom), new StreamResult(new BufferedOutputStream(response.getOutputStream())));
+			// a BufferingResponseWrapper buffers the output itself
+			OutputStream out = response.getOutputStream();
+			if (!(response instanceof BufferingResponseWrapper)) {
+				out = new BufferedOutputStream(out);
+			}
+			trans.transform(source, new StreamResult(out));
+			out.flush();
 
+			// only reuse Transformers that completed their transform
+			releaseTransformer(trans);
 			logger.debug("XSLT transformed OK with stylesheet [" + this.stylesheetLocation + "]");
 		}
 		catch (TransformerConfigurationException ex) {
@@ -279,4 +406,38 @@ public abstract class AbstractXsltView extends AbstractView {
 		}
 	}
 
+	/**
+	 * Take an idle Transformer from the pool, or create a new one.
+	 */
+	private Transformer obtainTransformer() throws TransformerConfigurationException {
+		if (this.cache) {
+			synchronized (this.transformerPool) {
+				if (!this.transformerPool.isEmpty()) {
+					return (Transformer) this.transformerPool.removeLast();
+				}
+			}
+		}
+		Transformer trans = (this.templates != null) ?
+		    this.templates.newTransformer() : // we have a stylesheet
+		    this.transformerFactory.newTransformer(); // just a copy
+		trans.setOutputProperty(OutputKeys.INDENT, "yes");
+		// Xalan-specific, but won't do any harm in other XSLT engines
+		trans.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+		return trans;
+	}
+
+	/**
+	 * Return the given Transformer to the pool, if there is room.
+	 */
+	private void releaseTransformer(Transformer trans) {
+		if (this.cache) {
+			trans.clearParameters();
+			synchronized (this.transformerPool) {
+				if (this.transformerPool.size() < this.transformerPoolSize) {
+					this.transformerPool.addLast(trans);
+				}
+			}
+		}
+	}
+
 }
@@ -17,6 +17,7 @@
 package org.springframework.web.util;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -34,9 +35,7 @@ import java.util.Map;
  */
 public abstract class HtmlUtils {
 
-	private static final String EMPTY_REFERENCE = "&;";
 	private static final String REFERENCE_START = "&#";
-	private static final String MALFORMED_REFERENCE = "&#;";
 
 	private static final Map ENTITIES = new HashMap();
 
@@ -295,11 +294,37 @@ public abstract class HtmlUtils {
 		ENTITIES.put("euro", new Integer(8364));
 	}
 
+	/**
+	 * Decimal character references for all characters that have an entity
+	 * reference, indexed by character; null for characters that don't need
+	 * to be escaped.
+	 */
+	private static final char[][] CHARACTER_REFERENCES;
+
+	/** Root node of the trie of entity names, for unescaping */
+	private static final EntityNode ENTITY_TRIE = new EntityNode();
+
+	static {
+		int maxCharacter = 0;
+		for (Iterator it = ENTITIES.values().iterator(); it.hasNext();) {
+			maxCharacter = Math.max(maxCharacter, ((Integer) it.next()).intValue());
+		}
+		CHARACTER_REFERENCES = new char[maxCharacter + 1][];
+		for (Iterator it = ENTITIES.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			int character = ((Integer) entry.getValue()).intValue();
+			CHARACTER_REFERENCES[character] = (REFERENCE_START + character + ";").toCharArray();
+			ENTITY_TRIE.addEntity((String) entry.getKey(), (char) character);
+		}
+	}
+
 	/**
 	 * Turn special characters into HTML character references.
 	 * Handles complete character set defined in HTML 4.01 recommendation.
 	 * <p>Escapes all special characters to their corresponding numerial reference
 	 * in the decimal format: &#<i>Decimal</i>;
+	 * <p>Returns the given String itself if it does not contain any special
+	 * characters.
 	 * <p>Reference:
 	 * <a href="http://www.w3.org/TR/html4/sgml/entities.html">
 	 * http://www.w3.org/TR/html4/sgml/entities.html
@@ -310,293 +335,38 @@ public abstract class HtmlUtils {
 			return null;
 		}
 
-		StringBuffer escaped = new StringBuffer(s.length());
-		for (int i = 0; i < s.length(); i++) {
-			char c = s.charAt(i);
-			// handle non special ASCII chars first since they will be most common
-			if ((c >= 0 && c <= 33)
-			    || (c >= 35 && c <= 37)
-			    || (c >= 39 && c <= 59)
-			    || (c == 61)
-			    || (c >= 63 && c <= 159)) {
-				escaped.append(c);
-				continue;
+		// determine the escaped length first, to fill a char array of the exact size
+		int length = s.length();
+		int escapedLength = length;
+		int firstIndex = -1;
+		for (int i = 0; i < length; i++) {
+			char[] reference = getCharacterReference(s.charAt(i));
+			if (reference != null) {
+				if (firstIndex == -1) {
+					firstIndex = i;
+				}
+				escapedLength += reference.length - 1;
 			}
+		}
+		if (firstIndex == -1) {
+			return s;
+		}
 
-			// handle special chars
-			if (c == 34) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 38) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 60) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 62) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 160 && c <= 255) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 338 && c <= 339) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 352 && c <= 353) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 376) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 402) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 710) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 732) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 913 && c <= 929) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 931 && c <= 937) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 945 && c <= 969) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 977 && c <= 978) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 982) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8194 && c <= 8195) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8201) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8204 && c <= 8207) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8211 && c <= 8212) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8216 && c <= 8218) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8220 && c <= 8222) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8224 && c <= 8226) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8230) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8240) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8242 && c <= 8243) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8249 && c <= 8250) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8254) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8260) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8364) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8465) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8472) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8476) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8482) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8501) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8592 && c <= 8596) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8629) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8656 && c <= 8660) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8704) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8706 && c <= 8707) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8709) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8711 && c <= 8713) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8715) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8719) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8721 && c <= 8722) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8727) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8730) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8733 && c <= 8734) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8736) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8743 && c <= 8747) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8756) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8764) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8773) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8776) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8800 && c <= 8801) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8804 && c <= 8805) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8834 && c <= 8836) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8838 && c <= 8839) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8853) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8855) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8869) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 8901) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 8968 && c <= 8971) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c >= 9001 && c <= 9002) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 9674) {
-				writeDecimalReference(c, escaped);
-				continue;
-			}
-			if (c == 9824) {
-				writeDecimalReference(c, escaped);
-				continue;
+		char[] escaped = new char[escapedLength];
+		s.getChars(0, firstIndex, escaped, 0);
+		int pos = firstIndex;
+		for (int i = firstIndex; i < length; i++) {
+			char c = s.charAt(i);
+			char[] reference = getCharacterReference(c);
+			if (reference != null) {
+				System.arraycopy(reference, 0, escaped, pos, reference.length);
+				pos += reference.length;
 			}
-			if (c == 9827) {
-				writeDecimalReference(c, escaped);
-				continue;
+			else {
+				escaped[pos++] = c;
 			}
-
-			// all other chars
-			escaped.append(c);
 		}
-		return escaped.toString();
+		return new String(escaped);
 	}
 
 	/**
@@ -611,6 +381,7 @@ public abstract class HtmlUtils {
 	 * </blockquote>
 	 * Gracefully handles malformed character references by copying original
 	 * characters as is when encountered.<p>
+	 * <p>Returns the given String itself if it does not contain any '&'.
 	 * <p>Reference:
 	 * <a href="http://www.w3.org/TR/html4/sgml/entities.html">
 	 * http://www.w3.org/TR/html4/sgml/entities.html
@@ -620,81 +391,121 @@ public abstract class HtmlUtils {
 		if (s == null) {
 			return null;
 		}
+		int firstIndex = s.indexOf('&');
+		if (firstIndex == -1) {
+			return s;
+		}
 
-		StringBuffer unescaped = new StringBuffer(s.length());
-		for (int i = 0; i < s.length(); i++) {
+		// the unescaped String is never longer than the original one
+		int length = s.length();
+		char[] unescaped = new char[length];
+		s.getChars(0, firstIndex, unescaped, 0);
+		int pos = firstIndex;
+		int i = firstIndex;
+		while (i < length) {
 			char c = s.charAt(i);
 			if (c == '&') {
-				// don't look more than 12 chars ahead as reference like strings
-				// should not be longer than 12 chars in length (including ';')
-				// prevents the entire string from being searched when an '&'
-				// with no following ';' is an encountered
-				int start = Math.min(i + 1, s.length() - 1);
-				int end = Math.min(s.length(), start + 12);
-
-				String reference = s.substring(start, end);
-				int semi = reference.indexOf(';');
-
-				if (semi == -1) {
-					unescaped.append(c);
-					continue;
-				}
-
-				reference = reference.substring(0, semi);
-				i = start + semi;
-
-				// try entity reference first
-				Integer iso = (Integer) ENTITIES.get(reference);
-				if (iso != null) {
-					unescaped.append((char) iso.intValue());
-					continue;
-				}
-
-				if (reference.length() == 0) {
-					unescaped.append(EMPTY_REFERENCE);
-					continue;
-				}
-
-				if (reference.charAt(0) == '#') {
-					if (reference.length() > 2) {
-						int index = 1;
-						if (reference.charAt(1) == 'x' || reference.charAt(1) == 'X') {
-							index = 2;
-						}
-						try {
-							unescaped.append(
-							    (char) Integer.parseInt(
-							        reference.substring(index),
-							        (index == 1) ? 10 : 16));
-							continue;
-						}
-						catch (NumberFormatException e) {
-							// wasn't hex or decimal, copy original chars
-							unescaped.append('&' + reference + ';');
-							continue;
+				int character = -1;
+				int index = i + 1;
+				if (index < length && s.charAt(index) == '#') {
+					// numeric reference, decimal or hex
+					index++;
+					int radix = 10;
+					if (index < length && (s.charAt(index) == 'x' || s.charAt(index) == 'X')) {
+						radix = 16;
+						index++;
+					}
+					int digitsStart = index;
+					int value = 0;
+					while (index < length && value <= Character.MAX_VALUE) {
+						int digit = Character.digit(s.charAt(index), radix);
+						if (digit == -1) {
+							break;
 						}
+						value = value * radix + digit;
+						index++;
 					}
-					unescaped.append(MALFORMED_REFERENCE);
+					if (index > digitsStart && value <= Character.MAX_VALUE) {
+						character = value;
+					}
+				}
+				else {
+					// entity reference: follow the trie as far as the name goes
+					EntityNode node = ENTITY_TRIE;
+					while (node != null && index < length && s.charAt(index) != ';') {
+						node = node.getChild(s.charAt(index));
+						index++;
+					}
+					if (node != null) {
+						character = node.character;
+					}
+				}
+				if (character != -1 && index < length && s.charAt(index) == ';') {
+					unescaped[pos++] = (char) character;
+					i = index + 1;
 					continue;
 				}
-
-				// may not be valid reference, forget it
-				i = start - 1;
+				// may not be valid reference, copy original chars
 			}
-			unescaped.append(c);
+			unescaped[pos++] = c;
+			i++;
 		}
-		return unescaped.toString();
+		return new String(unescaped, 0, pos);
 	}
 
 	/**
-	 * Write the given character as decimal reference.
-	 * @param c the character to write
-	 * @param buf the buffer to write into
+	 * Return the decimal reference for the given character.
+	 * @param c the character to escape
+	 * @return the decimal reference, or null if the character
+	 * does not need to be escaped
 	 */
-	private static void writeDecimalReference(char c, StringBuffer buf) {
-		buf.append(REFERENCE_START);
-		buf.append((int) c);
-		buf.append(';');
+	private static char[] getCharacterReference(char c) {
+		return (c < CHARACTER_REFERENCES.length ? CHARACTER_REFERENCES[c] : null);
+	}
+
+
+	/**
+	 * Node in the trie of entity names, with one child per next character.
+	 * Entity names are short, so the children are searched linearly.
+	 */
+	private static class EntityNode {
+
+		private char[] keys = new char[0];
+
+		private EntityNode[] children = new EntityNode[0];
+
+		/** Character referenced by the entity name ending here, or -1 */
+		private int character = -1;
+
+		private EntityNode getChild(char key) {
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] == key) {
+					return this.children[i];
+				}
+			}
+			return null;
+		}
+
+		private void addEntity(String name, char character) {
+			EntityNode node = this;
+			for (int i = 0; i < name.length(); i++) {
+				char key = name.charAt(i);
+				EntityNode child = node.getChild(key);
+				if (child == null) {
+					child = new EntityNode();
+					char[] keys = new char[node.keys.length + 1];
+					System.arraycopy(node.keys, 0, keys, 0, node.keys.length);
+					keys[node.keys.length] = key;
+					EntityNode[] children = new EntityNode[node.children.length + 1];
+					System.arraycopy(node.children, 0, children, 0, node.children.length);
+					children[node.children.length] = child;
+					node.keys = keys;
+					node.children = children;
+				}
+				node = child;
+			}
+			node.character = character;
+		}
 	}
 
 }
@@ -257,4 +257,37 @@ public abstract class WebUtils {
 		return false;
 	}
 
+	/**
+	 * Check whether the given entity tag matches one of the entity tags in
+	 * the given "If-None-Match" header value, using the weak comparison
+	 * function of HTTP 1.1: "W/" prefixes are ignored, "*" matches any tag.
+	 * @param ifNoneMatch the value of the "If-None-Match" request header
+	 * (may be null)
+	 * @param eTag the current entity tag of the resource, including quotes
+	 * @return whether the client's cached copy matches the given entity tag
+	 */
+	public static boolean matchesETag(String ifNoneMatch, String eTag) {
+		if (ifNoneMatch == null || eTag == null) {
+			return false;
+		}
+		String opaqueTag = stripWeakPrefix(eTag);
+		int start = 0;
+		while (start <= ifNoneMatch.length()) {
+			int end = ifNoneMatch.indexOf(',', start);
+			if (end == -1) {
+				end = ifNoneMatch.length();
+			}
+			String candidate = ifNoneMatch.substring(start, end).trim();
+			if (candidate.equals("*") || stripWeakPrefix(candidate).equals(opaqueTag)) {
+				return true;
+			}
+			start = end + 1;
+		}
+		return false;
+	}
+
+	private static String stripWeakPrefix(String eTag) {
+		return (eTag.startsWith("W/") ? eTag.substring(2) : eTag);
+	}
+
 }
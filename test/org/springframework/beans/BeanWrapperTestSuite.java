@@ -338,6 +338,49 @@ public class BeanWrapperTestSuite extends TestCase {
 		}
 	}
 
+	public void testSetPropertyValuesIgnoresUnknownOnRequest() {
+		TestBean rod = new TestBean();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue(new PropertyValue("name", "rod"));
+		pvs.addPropertyValue(new PropertyValue("submit", "Save"));
+		pvs.addPropertyValue(new PropertyValue("age", "32"));
+		pvs.addPropertyValue(new PropertyValue("_target0", "x"));
+		BeanWrapper bw = new BeanWrapperImpl(rod);
+		bw.setPropertyValues(pvs, true);
+		assertEquals("rod", rod.getName());
+		assertEquals(32, rod.getAge());
+		assertFalse(bw.isWritableProperty("submit"));
+		assertFalse(bw.isReadableProperty("submit"));
+		try {
+			bw.setPropertyValues(pvs, false);
+			fail("Shouldn't have ignored unknown property");
+		}
+		catch (NotWritablePropertyException ex) {
+			// expected
+		}
+	}
+
+	public void testDefaultEditorReusedAcrossConversions() {
+		TestBean tb = new TestBean();
+		BeanWrapper bw = new BeanWrapperImpl(tb);
+		bw.setPropertyValue("age", "32");
+		assertEquals(32, tb.getAge());
+		try {
+			bw.setPropertyValue("age", "thirty");
+			fail("Should throw exception on type mismatch");
+		}
+		catch (TypeMismatchException ex) {
+			// expected
+		}
+		assertEquals(32, tb.getAge());
+		bw.setPropertyValue("age", "33");
+		assertEquals(33, tb.getAge());
+		bw.setPropertyValue("spouse", new TestBean());
+		bw.setPropertyValue("spouse.age", "34");
+		assertEquals(34, tb.getSpouse().getAge());
+		assertEquals(33, tb.getAge());
+	}
+
 	public void testGetNestedProperty() {
 		ITestBean rod = new TestBean("rod", 31);
 		ITestBean kerry = new TestBean("kerry", 35);
@@ -274,6 +274,57 @@ public class PropertyResourceConfigurerTests extends TestCase {
 		}
 	}
 
+	public void testPropertyPlaceholderConfigurerWithIndirectCircularReference() {
+		StaticApplicationContext ac = new StaticApplicationContext();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("name", "name${a}");
+		ac.registerSingleton("tb", TestBean.class, pvs);
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("properties", "a=${b}\nb=x${b}");
+		ac.registerSingleton("configurer", PropertyPlaceholderConfigurer.class, pvs);
+		try {
+			ac.refresh();
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			// expected
+			assertTrue(ex.getMessage().indexOf("'b'") != -1);
+		}
+	}
+
+	public void testPropertyPlaceholderConfigurerWithCustomSyntaxAndPartiallyUnresolvablePlaceholders() {
+		StaticApplicationContext ac = new StaticApplicationContext();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("name", "@{ref}-@{var}@{var}-@{");
+		pvs.addPropertyValue("touchy", "@{var}");
+		ac.registerSingleton("tb", TestBean.class, pvs);
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("placeholderPrefix", "@{");
+		pvs.addPropertyValue("placeholderSuffix", "}@");
+		pvs.addPropertyValue("properties", "var=my@{m}@\nm=value");
+		pvs.addPropertyValue("ignoreUnresolvablePlaceholders", Boolean.TRUE);
+		ac.registerSingleton("configurer", PropertyPlaceholderConfigurer.class, pvs);
+		ac.refresh();
+		TestBean tb = (TestBean) ac.getBean("tb");
+		assertEquals("@{ref}-@{var}@{var}-@{", tb.getName());
+		assertEquals("@{var}", tb.getTouchy());
+
+		ac = new StaticApplicationContext();
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("name", "@{ref}@-@{var}@@{var}@-@{");
+		ac.registerSingleton("tb", TestBean.class, pvs);
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("placeholderPrefix", "@{");
+		pvs.addPropertyValue("placeholderSuffix", "}@");
+		pvs.addPropertyValue("properties", "var=my@{m}@\nm=value");
+		pvs.addPropertyValue("ignoreUnresolvablePlaceholders", Boolean.TRUE);
+		pvs.addPropertyValue("systemPropertiesModeName", "SYSTEM_PROPERTIES_MODE_NEVER");
+		ac.registerSingleton("configurer", PropertyPlaceholderConfigurer.class, pvs);
+		ac.refresh();
+		tb = (TestBean) ac.getBean("tb");
+		assertEquals("@{ref}@-myvaluemyvalue-@{", tb.getName());
+	}
+
 	public void testPreferencesPlaceholderConfigurer() {
 		StaticApplicationContext ac = new StaticApplicationContext();
 		MutablePropertyValues pvs = new MutablePropertyValues();
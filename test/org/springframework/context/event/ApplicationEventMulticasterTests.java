@@ -0,0 +1,336 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.context.event;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.TestListener;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.ThreadPoolTaskExecutor;
+
+/**
+ * @since 1.1
+ */
+public class ApplicationEventMulticasterTests extends TestCase {
+
+	public void testListenerAddedOnlyOnce() {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		TestListener listener = new TestListener();
+		multicaster.addApplicationListener(listener);
+		multicaster.addApplicationListener(listener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(1, listener.getEventCount());
+
+		multicaster.removeApplicationListener(listener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(1, listener.getEventCount());
+	}
+
+	public void testSmartListenerOnlyReceivesSupportedEvents() {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		TestListener plainListener = new TestListener();
+		MyEventListener smartListener = new MyEventListener();
+		multicaster.addApplicationListener(plainListener);
+		multicaster.addApplicationListener(smartListener);
+
+		multicaster.onApplicationEvent(new MyEvent(this));
+		multicaster.onApplicationEvent(new OtherEvent(this));
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(3, plainListener.getEventCount());
+		assertEquals(2, smartListener.eventCount);
+		assertEquals("Support checked once per event class", 2, smartListener.supportsCount);
+
+		multicaster.removeAllListeners();
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(3, plainListener.getEventCount());
+		assertEquals(2, smartListener.eventCount);
+	}
+
+	public void testListenerRemovalDuringPublication() {
+		final ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		final TestListener second = new TestListener();
+		ApplicationListener first = new ApplicationListener() {
+			public void onApplicationEvent(ApplicationEvent e) {
+				multicaster.removeApplicationListener(second);
+			}
+		};
+		multicaster.addApplicationListener(first);
+		multicaster.addApplicationListener(second);
+
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals("Snapshot still includes removed listener", 1, second.getEventCount());
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(1, second.getEventCount());
+	}
+
+	public void testAsyncListenerWithExecutor() throws InterruptedException {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setPoolSize(2);
+		multicaster.setTaskExecutor(executor);
+		ThreadRecordingListener syncListener = new ThreadRecordingListener();
+		AsyncThreadRecordingListener asyncListener = new AsyncThreadRecordingListener();
+		multicaster.addApplicationListener(syncListener);
+		multicaster.addApplicationListener(asyncListener);
+
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertSame(Thread.currentThread(), syncListener.thread);
+		synchronized (asyncListener) {
+			if (asyncListener.thread == null) {
+				asyncListener.wait(5000);
+			}
+		}
+		assertNotNull(asyncListener.thread);
+		assertNotSame(Thread.currentThread(), asyncListener.thread);
+		executor.shutdown();
+	}
+
+	public void testAsyncListenerWithSyncExecutor() {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		multicaster.setTaskExecutor(new SyncTaskExecutor());
+		AsyncThreadRecordingListener asyncListener = new AsyncThreadRecordingListener();
+		multicaster.addApplicationListener(asyncListener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertSame(Thread.currentThread(), asyncListener.thread);
+	}
+
+	public void testRejectionPolicies() throws InterruptedException {
+		BlockingTask blocker = new BlockingTask();
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setQueueCapacity(1);
+		executor.execute(blocker);
+		blocker.awaitStarted();
+		executor.execute(new CountingTask());
+		assertEquals(1, executor.getQueueSize());
+
+		try {
+			executor.execute(new CountingTask());
+			fail("Should have thrown TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+
+		executor.setRejectionPolicyName("REJECTION_POLICY_DISCARD");
+		CountingTask discarded = new CountingTask();
+		executor.execute(discarded);
+		assertEquals(0, discarded.count);
+
+		executor.setRejectionPolicyName("REJECTION_POLICY_CALLER_RUNS");
+		CountingTask callerRuns = new CountingTask();
+		executor.execute(callerRuns);
+		assertEquals(1, callerRuns.count);
+
+		try {
+			executor.setRejectionPolicyName("POOL_SIZE");
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		blocker.release();
+		executor.shutdown();
+	}
+
+	public void testHandOffWithoutQueue() throws InterruptedException {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setPoolSize(2);
+		executor.setQueueCapacity(0);
+		BlockingTask first = new BlockingTask();
+		executor.execute(first);
+		first.awaitStarted();
+		BlockingTask second = new BlockingTask();
+		executor.execute(second);
+		second.awaitStarted();
+		try {
+			executor.execute(new CountingTask());
+			fail("Should have thrown TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+
+		first.release();
+		BlockingTask third = new BlockingTask();
+		boolean accepted = false;
+		for (int i = 0; i < 500 && !accepted; i++) {
+			try {
+				executor.execute(third);
+				accepted = true;
+			}
+			catch (TaskRejectedException ex) {
+				// worker not idle yet
+				Thread.sleep(10);
+			}
+		}
+		assertTrue("Handed to idle worker", accepted);
+		third.awaitStarted();
+		second.release();
+		third.release();
+		executor.shutdown();
+	}
+
+	public void testWorkerSurvivesTaskException() throws InterruptedException {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.execute(new Runnable() {
+			public void run() {
+				throw new IllegalStateException("test");
+			}
+		});
+		BlockingTask blocker = new BlockingTask();
+		executor.execute(blocker);
+		blocker.awaitStarted();
+		blocker.release();
+		executor.shutdown();
+	}
+
+	public void testExecutorShutdownOnContextClose() {
+		StaticApplicationContext ac = new StaticApplicationContext();
+		RootBeanDefinition bd = new RootBeanDefinition(ThreadPoolTaskExecutor.class, null);
+		bd.setDestroyMethodName("shutdown");
+		ac.getDefaultListableBeanFactory().registerBeanDefinition("executor", bd);
+		ac.refresh();
+		ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) ac.getBean("executor");
+		executor.execute(new CountingTask());
+		ac.close();
+		try {
+			executor.execute(new CountingTask());
+			fail("Should have thrown TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+	}
+
+	public void testCustomMulticasterInContext() {
+		StaticApplicationContext ac = new StaticApplicationContext();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("taskExecutor", new SyncTaskExecutor());
+		ac.registerSingleton(StaticApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+		                     ApplicationEventMulticasterImpl.class, pvs);
+		ac.registerSingleton("listener", TestListener.class, null);
+		ac.refresh();
+
+		TestListener listener = (TestListener) ac.getBean("listener");
+		assertEquals("Received ContextRefreshedEvent", 1, listener.getEventCount());
+		ac.publishEvent(new MyEvent(this));
+		assertEquals(2, listener.getEventCount());
+		ApplicationEventMulticasterImpl multicaster = (ApplicationEventMulticasterImpl)
+				ac.getBean(StaticApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME);
+		assertTrue(multicaster.getTaskExecutor() instanceof TaskExecutor);
+	}
+
+
+	public static class MyEvent extends ApplicationEvent {
+
+		public MyEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	public static class OtherEvent extends ApplicationEvent {
+
+		public OtherEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	private static class MyEventListener implements SmartApplicationListener {
+
+		private int eventCount;
+
+		private int supportsCount;
+
+		public boolean supportsEventType(Class eventType) {
+			this.supportsCount++;
+			return MyEvent.class.isAssignableFrom(eventType);
+		}
+
+		public void onApplicationEvent(ApplicationEvent e) {
+			this.eventCount++;
+		}
+	}
+
+
+	private static class ThreadRecordingListener implements ApplicationListener {
+
+		protected Thread thread;
+
+		public synchronized void onApplicationEvent(ApplicationEvent e) {
+			this.thread = Thread.currentThread();
+			notifyAll();
+		}
+	}
+
+
+	private static class AsyncThreadRecordingListener extends ThreadRecordingListener
+			implements AsyncApplicationListener {
+	}
+
+
+	private static class CountingTask implements Runnable {
+
+		private int count;
+
+		public void run() {
+			this.count++;
+		}
+	}
+
+
+	private static class BlockingTask implements Runnable {
+
+		private boolean started;
+
+		private boolean released;
+
+		public synchronized void run() {
+			this.started = true;
+			notifyAll();
+			while (!this.released) {
+				try {
+					wait();
+				}
+				catch (InterruptedException ex) {
+					return;
+				}
+			}
+		}
+
+		public synchronized void awaitStarted() throws InterruptedException {
+			while (!this.started) {
+				wait();
+			}
+		}
+
+		public synchronized void release() {
+			this.released = true;
+			notifyAll();
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.context.support;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.1
+ */
+public class MessageTemplateTests extends TestCase {
+
+	public void testMessageWithoutArguments() {
+		MessageTemplate template = new MessageTemplate("It''s a message");
+		assertFalse(template.hasArguments());
+		assertEquals("It's a message", template.format(null));
+		assertEquals("It's a message", template.format(new Object[] {"arg"}));
+		assertSame(template.format(null), template.format(new Object[0]));
+	}
+
+	public void testSimplePlaceholders() {
+		MessageTemplate template = new MessageTemplate("{1}, {0}!");
+		assertTrue(template.hasArguments());
+		assertEquals("World, Hello!", template.format(new Object[] {"Hello", "World"}));
+		assertEquals("{1}, Hello!", template.format(new Object[] {"Hello"}));
+		assertEquals("{1}, {0}!", template.format(null));
+		assertEquals("null, x!", template.format(new Object[] {"x", null}));
+	}
+
+	public void testQuoting() {
+		assertFormattedLikeMessageFormat("'{0}' is {0}", new Object[] {"x"});
+		assertFormattedLikeMessageFormat("Don''t '{quote}' {0}''s", new Object[] {"me"});
+		assertFormattedLikeMessageFormat("'unterminated {0}", new Object[] {"x"});
+	}
+
+	public void testNumbersAndDates() {
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.GERMAN);
+		try {
+			assertFormattedLikeMessageFormat("{0} items", new Object[] {new Integer(1234567)});
+			assertFormattedLikeMessageFormat("{0} EUR", new Object[] {new Double(1234.5)});
+			assertFormattedLikeMessageFormat("at {0}", new Object[] {new Date(0)});
+		}
+		finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	public void testComplexPatterns() {
+		assertFormattedLikeMessageFormat("{0,number,#.##} of {1}", new Object[] {new Double(1.2345), "x"});
+		assertFormattedLikeMessageFormat("{0,choice,0#none|1#one|1<many}", new Object[] {new Integer(2)});
+		assertFormattedLikeMessageFormat("{10}", new Object[] {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k"});
+	}
+
+	public void testInvalidPattern() {
+		try {
+			new MessageTemplate("{abc");
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+		assertEquals("{abc", AbstractMessageSource.preparseMessage("{abc"));
+	}
+
+	public void testMessageSourceWithMessageFormats() {
+		AbstractMessageSource ms = new AbstractMessageSource() {
+			protected MessageFormat resolveCode(String code, Locale locale) {
+				if ("code".equals(code)) {
+					return createMessageFormat("{0,number} for {1}", locale);
+				}
+				return null;
+			}
+		};
+		assertEquals("1,5 for x", ms.getMessage("code", new Object[] {new Double(1.5), "x"}, Locale.GERMAN));
+		assertEquals("default", ms.getMessage("other", null, "default", Locale.GERMAN));
+	}
+
+	public void testMessageFormatFromResourceBundleMessageSource() {
+		ResourceBundleMessageSource ms = new ResourceBundleMessageSource();
+		ms.setBasename("org/springframework/context/support/messages");
+		assertEquals("message1", ms.resolveCode("code1", Locale.ENGLISH).format(new Object[0]));
+		assertNull(ms.resolveCode("nonexisting", Locale.ENGLISH));
+	}
+
+	private MessageFormat createMessageFormat(String pattern, Locale locale) {
+		MessageFormat messageFormat = new MessageFormat("");
+		messageFormat.setLocale(locale);
+		messageFormat.applyPattern(pattern);
+		return messageFormat;
+	}
+
+	private void assertFormattedLikeMessageFormat(String pattern, Object[] args) {
+		assertEquals(new MessageFormat(pattern).format(args), new MessageTemplate(pattern).format(args));
+	}
+
+}
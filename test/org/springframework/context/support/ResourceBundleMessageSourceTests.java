@@ -16,6 +16,9 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Locale;
 import java.util.Properties;
 
@@ -24,6 +27,7 @@ import junit.framework.TestCase;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.NoSuchMessageException;
+import org.springframework.core.task.SyncTaskExecutor;
 
 /**
  * @author Juergen Hoeller
@@ -176,4 +180,98 @@ public class ResourceBundleMessageSourceTests extends TestCase {
 		assertEquals("message1",  ms.getMessage("code1", null, Locale.ENGLISH));
 	}
 
+	public void testReloadableResourceBundleMessageSourceWithRefresh() throws Exception {
+		File file = File.createTempFile("messages", ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX);
+		try {
+			String filename = file.getAbsolutePath();
+			String basename = filename.substring(0, filename.length() -
+			                                     ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX.length());
+			writeMessage(file, "code1", "message1", 1000000);
+			ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+			ms.setBasename(file.getParentFile().toURL() + new File(basename).getName());
+			ms.setFallbackToSystemLocale(false);
+			ms.setCacheSeconds(0);
+			ms.setRefreshExecutor(new SyncTaskExecutor());
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+
+			writeMessage(file, "code1", "message1 {0}", 2000000);
+			// synchronous refresh, triggered before the actual lookup
+			assertEquals("message1 x", ms.getMessage("code1", new Object[] {"x"}, Locale.ENGLISH));
+
+			ms.setCacheSeconds(-1);
+			writeMessage(file, "code1", "message2", 3000000);
+			assertEquals("message1 x", ms.getMessage("code1", new Object[] {"x"}, Locale.ENGLISH));
+			ms.clearCache();
+			assertEquals("message2", ms.getMessage("code1", null, Locale.ENGLISH));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	public void testReloadableResourceBundleMessageSourceWithRefreshInCallingThread() throws Exception {
+		File file = File.createTempFile("messages", ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX);
+		try {
+			String filename = file.getAbsolutePath();
+			String basename = filename.substring(0, filename.length() -
+			                                     ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX.length());
+			writeMessage(file, "code1", "message1", 1000000);
+			ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+			ms.setBasename(file.getParentFile().toURL() + new File(basename).getName());
+			ms.setFallbackToSystemLocale(false);
+			ms.setCacheSeconds(0);
+			assertNull("No refresh executor by default", ms.getRefreshExecutor());
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+
+			writeMessage(file, "code1", "message2", 2000000);
+			assertEquals("message2", ms.getMessage("code1", null, Locale.ENGLISH));
+			ms.destroy();
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	public void testReloadableResourceBundleMessageSourceWithNewLocaleFile() throws Exception {
+		File file = File.createTempFile("messages", ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX);
+		String filename = file.getAbsolutePath();
+		String basename = filename.substring(0, filename.length() -
+		                                     ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX.length());
+		File germanFile = new File(basename + "_de" + ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX);
+		try {
+			writeMessage(file, "code1", "message1", 1000000);
+			ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+			ms.setBasename(file.getParentFile().toURL() + new File(basename).getName());
+			ms.setFallbackToSystemLocale(false);
+			ms.setCacheSeconds(0);
+			ms.setRefreshExecutor(new SyncTaskExecutor());
+			assertEquals("message1", ms.getMessage("code1", null, Locale.GERMAN));
+
+			writeMessage(germanFile, "code1", "nachricht1", 1000000);
+			assertEquals("nachricht1", ms.getMessage("code1", null, Locale.GERMAN));
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+
+			germanFile.delete();
+			assertEquals("message1", ms.getMessage("code1", null, Locale.GERMAN));
+			ms.destroy();
+		}
+		finally {
+			germanFile.delete();
+			file.delete();
+		}
+	}
+
+	private void writeMessage(File file, String code, String message, long lastModified) throws IOException {
+		Properties props = new Properties();
+		props.setProperty(code, message);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			props.store(out, null);
+		}
+		finally {
+			out.close();
+		}
+		file.setLastModified(lastModified);
+	}
+
 }
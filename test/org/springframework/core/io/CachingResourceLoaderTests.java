@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.core.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * @since 1.1
+ */
+public class CachingResourceLoaderTests extends TestCase {
+
+	private File file;
+
+	protected void setUp() throws IOException {
+		this.file = File.createTempFile("resource", ".txt");
+	}
+
+	protected void tearDown() {
+		this.file.delete();
+	}
+
+	public void testFileContentCachedAndValidated() throws IOException {
+		write("content1", 1000000);
+		CachingResourceLoader loader = new CachingResourceLoader(new DefaultResourceLoader());
+		Resource resource = loader.getResource(this.file.toURL().toString());
+		assertEquals("content1", read(resource));
+
+		// same timestamp: cached content is still valid
+		write("content2", 1000000);
+		assertEquals("content1", read(resource));
+
+		write("content3", 2000000);
+		assertEquals("content3", read(resource));
+		assertEquals(2000000, ((AbstractResource) resource).lastModified());
+
+		loader.setModificationCheckInterval(-1);
+		write("content4", 3000000);
+		assertEquals("content3", read(resource));
+		loader.clearCache();
+		assertEquals("content4", read(resource));
+	}
+
+	public void testLargeContentNotCached() throws IOException {
+		write("content1", 1000000);
+		CachingResourceLoader loader = new CachingResourceLoader(new DefaultResourceLoader());
+		loader.setMaxEntrySize(4);
+		Resource resource = loader.getResource(this.file.toURL().toString());
+		assertEquals("content1", read(resource));
+		write("content2", 1000000);
+		assertEquals("content2", read(resource));
+	}
+
+	public void testStreamContent() throws IOException {
+		final byte[] content = "0123456789".getBytes();
+		final int[] opened = new int[1];
+		ResourceLoader target = new ResourceLoader() {
+			public Resource getResource(String location) {
+				return new AbstractResource() {
+					public InputStream getInputStream() {
+						opened[0]++;
+						return new ByteArrayInputStream(content);
+					}
+					public String getDescription() {
+						return "test resource";
+					}
+				};
+			}
+		};
+		CachingResourceLoader loader = new CachingResourceLoader(target);
+		Resource resource = loader.getResource("test");
+		assertEquals("0123456789", read(resource));
+		assertEquals("0123456789", read(loader.getResource("test")));
+		assertEquals(1, opened[0]);
+
+		loader.setMaxEntrySize(5);
+		loader.clearCache();
+		assertEquals("0123456789", read(resource));
+		assertEquals("0123456789", read(resource));
+		assertEquals(3, opened[0]);
+	}
+
+	public void testPlainResourceValidatedByFileTimestamp() throws IOException {
+		write("content1", 1000000);
+		ResourceLoader target = new ResourceLoader() {
+			public Resource getResource(String location) {
+				return new Resource() {
+					public boolean exists() {
+						return true;
+					}
+					public boolean isOpen() {
+						return false;
+					}
+					public URL getURL() throws IOException {
+						return file.toURL();
+					}
+					public File getFile() {
+						return file;
+					}
+					public InputStream getInputStream() throws IOException {
+						return new FileInputStream(file);
+					}
+					public String getDescription() {
+						return "plain resource";
+					}
+				};
+			}
+		};
+		CachingResourceLoader loader = new CachingResourceLoader(target);
+		Resource resource = loader.getResource("test");
+		assertEquals("content1", read(resource));
+		write("content2", 1000000);
+		assertEquals("content1", read(resource));
+		write("content3", 2000000);
+		assertEquals("content3", read(resource));
+	}
+
+	public void testFileCopyUtilsWithFiles() throws IOException {
+		write("content1", 1000000);
+		assertEquals("content1", new String(FileCopyUtils.copyToByteArray(this.file)));
+		File copy = File.createTempFile("resource", ".txt");
+		try {
+			FileCopyUtils.copy(this.file, copy);
+			assertEquals("content1", new String(FileCopyUtils.copyToByteArray(copy)));
+		}
+		finally {
+			copy.delete();
+		}
+	}
+
+	private void write(String content, long lastModified) throws IOException {
+		FileCopyUtils.copy(new ByteArrayInputStream(content.getBytes()), new FileOutputStream(this.file));
+		this.file.setLastModified(lastModified);
+	}
+
+	private String read(Resource resource) throws IOException {
+		return new String(FileCopyUtils.copyToByteArray(resource.getInputStream()));
+	}
+
+}
@@ -32,17 +32,22 @@ import net.sf.hibernate.ObjectNotFoundException;
 import net.sf.hibernate.PersistentObjectException;
 import net.sf.hibernate.Query;
 import net.sf.hibernate.QueryException;
+import net.sf.hibernate.ScrollableResults;
 import net.sf.hibernate.Session;
 import net.sf.hibernate.SessionFactory;
 import net.sf.hibernate.StaleObjectStateException;
 import net.sf.hibernate.TransientObjectException;
 import net.sf.hibernate.WrongClassException;
+import net.sf.hibernate.engine.SessionFactoryImplementor;
+import net.sf.hibernate.persister.ClassPersister;
 import net.sf.hibernate.type.Type;
 import org.easymock.MockControl;
 
 import org.springframework.beans.TestBean;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.orm.support.QueryCacheRegion;
+import org.springframework.orm.support.QueryResultCache;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
@@ -580,6 +585,128 @@ public class HibernateTemplateTests extends TestCase {
 		sessionControl.verify();
 	}
 
+	public void testSaveAllWithBulkFlushSize() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		List tbs = new ArrayList();
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		for (int i = 0; i < 5; i++) {
+			TestBean tb = new TestBean();
+			tbs.add(tb);
+			session.save(tb);
+			sessionControl.setReturnValue(new Integer(i), 1);
+		}
+		// flushed and cleared after 2 and 4 objects, final flush by template
+		session.flush();
+		sessionControl.setVoidCallable(3);
+		session.clear();
+		sessionControl.setVoidCallable(2);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setBulkFlushSize(2);
+		ht.saveAll(tbs);
+		sfControl.verify();
+		sessionControl.verify();
+	}
+
+	public void testSaveOrUpdateAllWithJdbcBatchSize() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactoryImplementor.class);
+		SessionFactoryImplementor sf = (SessionFactoryImplementor) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		List tbs = new ArrayList();
+		sf.getJdbcBatchSize();
+		sfControl.setReturnValue(3, 1);
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		for (int i = 0; i < 7; i++) {
+			TestBean tb = new TestBean();
+			tbs.add(tb);
+			session.saveOrUpdate(tb);
+			sessionControl.setVoidCallable(1);
+		}
+		// bulk flush size 2 rounded up to JDBC batch size 3
+		session.flush();
+		sessionControl.setVoidCallable(3);
+		session.clear();
+		sessionControl.setVoidCallable(2);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setBulkFlushSize(2);
+		ht.saveOrUpdateAll(tbs);
+		sfControl.verify();
+		sessionControl.verify();
+	}
+
+	public void testScroll() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		MockControl queryControl = MockControl.createControl(Query.class);
+		Query query = (Query) queryControl.getMock();
+		MockControl resultsControl = MockControl.createControl(ScrollableResults.class);
+		ScrollableResults results = (ScrollableResults) resultsControl.getMock();
+		TestBean tb1 = new TestBean();
+		TestBean tb2 = new TestBean();
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.createQuery("some query string");
+		sessionControl.setReturnValue(query, 1);
+		query.setParameter(0, "myvalue");
+		queryControl.setReturnValue(query, 1);
+		query.scroll();
+		queryControl.setReturnValue(results, 1);
+		results.next();
+		resultsControl.setReturnValue(true, 2);
+		results.next();
+		resultsControl.setReturnValue(false, 1);
+		results.get();
+		resultsControl.setReturnValue(new Object[] {tb1}, 1);
+		results.get();
+		resultsControl.setReturnValue(new Object[] {tb2}, 1);
+		results.close();
+		resultsControl.setVoidCallable(1);
+		session.evict(tb1);
+		sessionControl.setVoidCallable(1);
+		session.evict(tb2);
+		sessionControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+		queryControl.replay();
+		resultsControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		final List processed = new ArrayList();
+		ht.scroll("some query string", new Object[] {"myvalue"}, new ResultCallbackHandler() {
+			public void processResult(Object result) {
+				processed.add(result);
+			}
+		});
+		assertEquals(2, processed.size());
+		assertSame(tb1, processed.get(0));
+		assertSame(tb2, processed.get(1));
+		sfControl.verify();
+		sessionControl.verify();
+		queryControl.verify();
+		resultsControl.verify();
+	}
+
 	public void testFind() throws HibernateException {
 		MockControl sfControl = MockControl.createControl(SessionFactory.class);
 		SessionFactory sf = (SessionFactory) sfControl.getMock();
@@ -708,6 +835,156 @@ public class HibernateTemplateTests extends TestCase {
 		queryControl.verify();
 	}
 
+	public void testFindCached() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		MockControl queryControl = MockControl.createControl(Query.class);
+		Query query = (Query) queryControl.getMock();
+		TestBean tb = new TestBean();
+		List list = new ArrayList();
+		list.add(tb);
+		list.add("scalar");
+		sf.openSession((Interceptor) null);
+		sfControl.setMatcher(MockControl.ALWAYS_MATCHER);
+		sfControl.setReturnValue(session, 4);
+		session.createQuery("some query string");
+		sessionControl.setReturnValue(query, 2);
+		query.setParameter(0, "myvalue");
+		queryControl.setReturnValue(query, 2);
+		query.list();
+		queryControl.setReturnValue(list, 2);
+		session.contains(tb);
+		sessionControl.setReturnValue(true, 2);
+		session.contains("scalar");
+		sessionControl.setReturnValue(false, 2);
+		session.getIdentifier(tb);
+		sessionControl.setReturnValue(new Integer(1), 2);
+		session.load(TestBean.class, new Integer(1));
+		sessionControl.setReturnValue(tb, 3);
+		session.save(tb);
+		sessionControl.setReturnValue(new Integer(0), 1);
+		session.flush();
+		sessionControl.setVoidCallable(4);
+		session.close();
+		sessionControl.setReturnValue(null, 4);
+		sfControl.replay();
+		sessionControl.replay();
+		queryControl.replay();
+
+		QueryCacheRegion region = new QueryCacheRegion("beans");
+		region.setEntityClasses(new Class[] {TestBean.class});
+		QueryResultCache cache = new QueryResultCache();
+		cache.setRegions(new QueryCacheRegion[] {region});
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setQueryResultCache(cache);
+		assertTrue(ht.getSessionInterceptor() instanceof QueryResultCacheInterceptor);
+		Object[] values = new Object[] {"myvalue"};
+		assertEquals(list, ht.findCached("beans", "some query string", values));
+		values[0] = "othervalue";
+		List result = ht.findCached("beans", "some query string", new Object[] {"myvalue"});
+		assertEquals("Cached result", list, result);
+		assertNotSame("Own List per call", list, result);
+		assertEquals(1, region.getHitCount());
+		ht.save(tb);
+		assertEquals("Invalidated by save", list, ht.findCached("beans", "some query string", new Object[] {"myvalue"}));
+		assertEquals(1, region.getHitCount());
+		assertEquals(2, region.getMissCount());
+		sfControl.verify();
+		sessionControl.verify();
+		queryControl.verify();
+	}
+
+	public void testFindCachedWithoutClassCache() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactoryImplementor.class);
+		SessionFactoryImplementor sf = (SessionFactoryImplementor) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		MockControl queryControl = MockControl.createControl(Query.class);
+		Query query = (Query) queryControl.getMock();
+		MockControl persisterControl = MockControl.createControl(ClassPersister.class);
+		ClassPersister persister = (ClassPersister) persisterControl.getMock();
+		TestBean tb = new TestBean();
+		List list = new ArrayList();
+		list.add(tb);
+		sf.openSession((Interceptor) null);
+		sfControl.setMatcher(MockControl.ALWAYS_MATCHER);
+		sfControl.setReturnValue(session, 1);
+		session.createQuery("some query string");
+		sessionControl.setReturnValue(query, 1);
+		query.list();
+		queryControl.setReturnValue(list, 1);
+		session.contains(tb);
+		sessionControl.setReturnValue(true, 1);
+		sf.getPersister(TestBean.class);
+		sfControl.setReturnValue(persister, 1);
+		persister.hasCache();
+		persisterControl.setReturnValue(false, 1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+		queryControl.replay();
+		persisterControl.replay();
+
+		QueryResultCache cache = new QueryResultCache();
+		cache.setRegions(new QueryCacheRegion[] {new QueryCacheRegion("beans")});
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setQueryResultCache(cache);
+		try {
+			ht.findCached("beans", "some query string");
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+		sfControl.verify();
+		sessionControl.verify();
+		queryControl.verify();
+		persisterControl.verify();
+	}
+
+	public void testWriteRegisteredAfterFlush() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		TestBean tb = new TestBean();
+		QueryResultCache cache = new QueryResultCache();
+		Interceptor entityInterceptor = new QueryResultCacheInterceptor(cache, null);
+		sf.openSession(entityInterceptor);
+		sfControl.setReturnValue(session, 1);
+		session.delete(tb);
+		sessionControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+
+		final List events = new ArrayList();
+		HibernateTemplate ht = new HibernateTemplate(sf) {
+			public void flushIfNecessary(Session session, boolean existingTransaction) throws HibernateException {
+				super.flushIfNecessary(session, existingTransaction);
+				events.add("flush");
+			}
+			protected void registerWrite(Object entity) {
+				events.add("registerWrite");
+			}
+		};
+		ht.setEntityInterceptor(entityInterceptor);
+		ht.setQueryResultCache(cache);
+		assertSame(entityInterceptor, ht.getSessionInterceptor());
+		ht.delete(tb);
+		assertEquals(2, events.size());
+		assertEquals("flush", events.get(0));
+		assertEquals("registerWrite", events.get(1));
+		sfControl.verify();
+		sessionControl.verify();
+	}
+
 	public void testFindWithParametersAndTypes() throws HibernateException {
 		MockControl sfControl = MockControl.createControl(SessionFactory.class);
 		SessionFactory sf = (SessionFactory) sfControl.getMock();
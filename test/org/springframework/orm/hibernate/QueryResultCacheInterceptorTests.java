@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.hibernate;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import net.sf.hibernate.CallbackException;
+import net.sf.hibernate.Interceptor;
+import org.easymock.MockControl;
+
+import org.springframework.beans.TestBean;
+import org.springframework.orm.support.QueryCacheRegion;
+import org.springframework.orm.support.QueryResultCache;
+import org.springframework.orm.support.QueryResultLoader;
+
+/**
+ * @since 1.1
+ */
+public class QueryResultCacheInterceptorTests extends TestCase {
+
+	private QueryResultCache cache;
+
+	private int loadCount;
+
+	protected void setUp() {
+		QueryCacheRegion region = new QueryCacheRegion("beans");
+		region.setEntityClasses(new Class[] {TestBean.class});
+		this.cache = new QueryResultCache();
+		this.cache.setRegions(new QueryCacheRegion[] {region});
+		this.loadCount = 0;
+	}
+
+	private void query() {
+		this.cache.execute("beans", "key", new QueryResultLoader() {
+			public Object loadResult() {
+				loadCount++;
+				return new ArrayList();
+			}
+		});
+	}
+
+	public void testWritesRegisteredAfterFlush() throws CallbackException {
+		QueryResultCacheInterceptor interceptor = new QueryResultCacheInterceptor(this.cache, null);
+		query();
+		assertFalse(interceptor.onSave(new TestBean(), new Integer(1), null, null, null));
+		assertFalse(interceptor.onFlushDirty(new TestBean(), new Integer(2), null, null, null, null));
+		interceptor.preFlush(null);
+		query();
+		assertEquals("Not invalidated before flush", 1, this.loadCount);
+
+		interceptor.postFlush(null);
+		query();
+		assertEquals("Invalidated after flush", 2, this.loadCount);
+		interceptor.postFlush(null);
+		query();
+		assertEquals("Writes registered once", 2, this.loadCount);
+
+		interceptor.onDelete(new TestBean(), new Integer(1), null, null, null);
+		interceptor.postFlush(null);
+		query();
+		assertEquals("Invalidated by delete", 3, this.loadCount);
+
+		interceptor.onSave("unrelated", "id", null, null, null);
+		interceptor.postFlush(null);
+		query();
+		assertEquals("Not affected", 3, this.loadCount);
+	}
+
+	public void testWithTargetInterceptor() throws CallbackException {
+		MockControl targetControl = MockControl.createControl(Interceptor.class);
+		Interceptor target = (Interceptor) targetControl.getMock();
+		TestBean tb = new TestBean();
+		target.onSave(tb, new Integer(1), null, null, null);
+		targetControl.setReturnValue(true, 1);
+		target.onLoad(tb, new Integer(1), null, null, null);
+		targetControl.setReturnValue(true, 1);
+		target.isUnsaved(tb);
+		targetControl.setReturnValue(Boolean.TRUE, 1);
+		target.postFlush(null);
+		targetControl.setVoidCallable(1);
+		targetControl.replay();
+
+		QueryResultCacheInterceptor interceptor = new QueryResultCacheInterceptor();
+		interceptor.setQueryResultCache(this.cache);
+		interceptor.setTargetInterceptor(target);
+		interceptor.afterPropertiesSet();
+		query();
+		assertTrue(interceptor.onSave(tb, new Integer(1), null, null, null));
+		assertTrue(interceptor.onLoad(tb, new Integer(1), null, null, null));
+		assertEquals(Boolean.TRUE, interceptor.isUnsaved(tb));
+		interceptor.postFlush(null);
+		query();
+		assertEquals(2, this.loadCount);
+		targetControl.verify();
+	}
+
+	public void testWithoutQueryResultCache() {
+		try {
+			new QueryResultCacheInterceptor().afterPropertiesSet();
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
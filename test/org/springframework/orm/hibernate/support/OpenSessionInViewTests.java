@@ -36,6 +36,7 @@ import net.sf.hibernate.SessionFactory;
 import org.easymock.MockControl;
 
 import org.springframework.orm.hibernate.HibernateAccessor;
+import org.springframework.orm.hibernate.SessionFactoryUtils;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.StaticWebApplicationContext;
@@ -138,6 +139,113 @@ public class OpenSessionInViewTests extends TestCase {
 		sessionControl.verify();
 	}
 
+	public void testOpenSessionInViewInterceptorWithLazySession() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		final SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+
+		OpenSessionInViewInterceptor interceptor = new OpenSessionInViewInterceptor();
+		interceptor.setSessionFactory(sf);
+		interceptor.setLazySession(true);
+		MockServletContext sc = new MockServletContext();
+		MockHttpServletRequest request = new MockHttpServletRequest(sc, "GET", "/test");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		// request that doesn't access Hibernate
+		sfControl.replay();
+		sessionControl.replay();
+		interceptor.preHandle(request, response, "handler");
+		assertTrue(TransactionSynchronizationManager.hasResource(sf));
+		interceptor.postHandle(request, response, "handler", null);
+		interceptor.afterCompletion(request, response, "handler", null);
+		assertFalse(TransactionSynchronizationManager.hasResource(sf));
+		sfControl.verify();
+		sessionControl.verify();
+		assertEquals(1, interceptor.getRequestCount());
+		assertEquals(0, interceptor.getSessionRequestCount());
+
+		// request that accesses Hibernate
+		sfControl.reset();
+		sessionControl.reset();
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.setFlushMode(FlushMode.NEVER);
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+		interceptor.preHandle(request, response, "handler");
+		assertSame(session, SessionFactoryUtils.getSession(sf, false));
+		assertSame(session, SessionFactoryUtils.getSession(sf, false));
+		interceptor.postHandle(request, response, "handler", null);
+		interceptor.afterCompletion(request, response, "handler", null);
+		assertFalse(TransactionSynchronizationManager.hasResource(sf));
+		sfControl.verify();
+		sessionControl.verify();
+		assertEquals(2, interceptor.getRequestCount());
+		assertEquals(1, interceptor.getSessionRequestCount());
+	}
+
+	public void testOpenSessionInViewFilterWithLazySession() throws Exception {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		final SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		final Session session = (Session) sessionControl.getMock();
+
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.setFlushMode(FlushMode.NEVER);
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+
+		MockServletContext sc = new MockServletContext();
+		StaticWebApplicationContext wac = new StaticWebApplicationContext();
+		wac.setServletContext(sc);
+		wac.getDefaultListableBeanFactory().registerSingleton("sessionFactory", sf);
+		wac.refresh();
+		sc.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, wac);
+
+		MockFilterConfig filterConfig = new MockFilterConfig() {
+			public Enumeration getInitParameterNames() {
+				return Collections.enumeration(Arrays.asList(new String[] {"lazySession"}));
+			}
+			public String getInitParameter(String s) {
+				return ("lazySession".equals(s) ? "true" : null);
+			}
+		};
+		filterConfig.setupGetServletContext(wac.getServletContext());
+		OpenSessionInViewFilter filter = new OpenSessionInViewFilter();
+		filter.init(filterConfig);
+
+		FilterChain staticChain = new FilterChain() {
+			public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) {
+				assertTrue(TransactionSynchronizationManager.hasResource(sf));
+			}
+		};
+		FilterChain hibernateChain = new FilterChain() {
+			public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) {
+				assertSame(session, SessionFactoryUtils.getSession(sf, false));
+				assertSame(session, SessionFactoryUtils.getSession(sf, false));
+			}
+		};
+
+		filter.doFilter(new MockHttpServletRequest(sc, "GET", "/static"), new MockHttpServletResponse(), staticChain);
+		filter.doFilter(new MockHttpServletRequest(sc, "GET", "/test"), new MockHttpServletResponse(), hibernateChain);
+		filter.doFilter(new MockHttpServletRequest(sc, "GET", "/static"), new MockHttpServletResponse(), staticChain);
+		assertFalse(TransactionSynchronizationManager.hasResource(sf));
+		assertEquals(3, filter.getRequestCount());
+		assertEquals(1, filter.getSessionRequestCount());
+
+		sfControl.verify();
+		sessionControl.verify();
+		wac.close();
+	}
+
 	public void testOpenSessionInViewFilter() throws Exception {
 		MockControl sfControl = MockControl.createControl(SessionFactory.class);
 		final SessionFactory sf = (SessionFactory) sfControl.getMock();
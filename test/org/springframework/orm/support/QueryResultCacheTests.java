@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.orm.support;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.TestBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @since 1.1
+ */
+public class QueryResultCacheTests extends TestCase {
+
+	private QueryResultCache createCache() {
+		QueryCacheRegion beans = new QueryCacheRegion("beans");
+		beans.setEntityClasses(new Class[] {TestBean.class});
+		QueryCacheRegion strings = new QueryCacheRegion("strings");
+		strings.setEntityClasses(new Class[] {String.class});
+		QueryResultCache cache = new QueryResultCache();
+		cache.setRegions(new QueryCacheRegion[] {beans, strings});
+		return cache;
+	}
+
+	public void testCachedResult() {
+		QueryResultCache cache = createCache();
+		CountingLoader loader = new CountingLoader();
+		Object result = cache.execute("beans", new QueryCacheKey("query", new Object[] {"a", null}), loader);
+		assertSame(result, cache.execute("beans", new QueryCacheKey("query", new Object[] {"a", null}), loader));
+		assertEquals(1, loader.count);
+		cache.execute("beans", new QueryCacheKey("query", new Object[] {"b", null}), loader);
+		cache.execute("beans", new QueryCacheKey("query", null), loader);
+		assertEquals(3, loader.count);
+
+		QueryCacheRegion region = cache.getRegion("beans");
+		assertEquals(3, region.getResultCount());
+		assertEquals(1, region.getHitCount());
+		assertEquals(3, region.getMissCount());
+		assertEquals(0.25, cache.getHitRatio("beans"), 0.001);
+		assertEquals(0.0, cache.getHitRatio("strings"), 0.001);
+	}
+
+	public void testKeyValuesCopied() {
+		Object[] values = new Object[] {"a"};
+		QueryCacheKey key = new QueryCacheKey("query", values);
+		values[0] = "b";
+		key.getValues()[0] = "c";
+		assertEquals(new QueryCacheKey("query", new Object[] {"a"}), key);
+		assertEquals(new QueryCacheKey("query", new Object[] {"a"}).hashCode(), key.hashCode());
+	}
+
+	public void testUnknownRegion() {
+		QueryResultCache cache = createCache();
+		try {
+			cache.execute("unknown", "key", new CountingLoader());
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	public void testNullResultNotCached() {
+		QueryResultCache cache = createCache();
+		QueryResultLoader loader = new QueryResultLoader() {
+			public Object loadResult() {
+				return null;
+			}
+		};
+		assertNull(cache.execute("beans", "key", loader));
+		assertEquals(0, cache.getRegion("beans").getResultCount());
+	}
+
+	public void testTimeToLive() {
+		QueryResultCache cache = createCache();
+		cache.getRegion("beans").setTimeToLive(-1);
+		CountingLoader loader = new CountingLoader();
+		cache.execute("beans", "key", loader);
+		cache.execute("beans", "key", loader);
+		assertEquals("Expired result reloaded", 2, loader.count);
+	}
+
+	public void testMaxSize() {
+		QueryResultCache cache = createCache();
+		cache.getRegion("beans").setMaxSize(2);
+		CountingLoader loader = new CountingLoader();
+		cache.execute("beans", "key1", loader);
+		cache.execute("beans", "key2", loader);
+		cache.execute("beans", "key3", loader);
+		assertEquals(2, cache.getRegion("beans").getResultCount());
+		cache.execute("beans", "key1", loader);
+		assertEquals("Least recently used result evicted", 4, loader.count);
+	}
+
+	public void testRegisterWriteWithoutTransaction() {
+		QueryResultCache cache = createCache();
+		CountingLoader loader = new CountingLoader();
+		cache.execute("beans", "key", loader);
+		cache.execute("strings", "key", loader);
+		cache.registerWrite(TestBean.class);
+		assertEquals(0, cache.getRegion("beans").getResultCount());
+		assertEquals("Unaffected region kept", 1, cache.getRegion("strings").getResultCount());
+	}
+
+	public void testRegisterWriteWithCommit() {
+		QueryResultCache cache = createCache();
+		CountingLoader loader = new CountingLoader();
+		cache.execute("beans", "key", loader);
+		cache.execute("strings", "key", loader);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.registerWrite(TestBean.class);
+			assertEquals("Invalidated on commit only", 1, cache.getRegion("beans").getResultCount());
+			cache.execute("beans", "key", loader);
+			assertEquals("Writing transaction bypasses cache", 3, loader.count);
+			cache.execute("strings", "key", loader);
+			assertEquals("Unaffected region still used", 3, loader.count);
+			completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+		assertEquals(0, cache.getRegion("beans").getResultCount());
+		assertEquals(1, cache.getRegion("strings").getResultCount());
+	}
+
+	public void testRegisterWriteWithRollback() {
+		QueryResultCache cache = createCache();
+		CountingLoader loader = new CountingLoader();
+		cache.execute("beans", "key", loader);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.registerWrite(TestBean.class);
+			completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+		assertEquals(1, cache.getRegion("beans").getResultCount());
+		cache.execute("beans", "key", loader);
+		assertEquals(1, loader.count);
+	}
+
+	public void testInvalidationDuringLoad() {
+		final QueryResultCache cache = createCache();
+		QueryResultLoader loader = new QueryResultLoader() {
+			public Object loadResult() {
+				// concurrent write committed while the query is running
+				cache.registerWrite(TestBean.class);
+				return "result";
+			}
+		};
+		assertEquals("result", cache.execute("beans", "key", loader));
+		assertEquals("Stale result not cached", 0, cache.getRegion("beans").getResultCount());
+	}
+
+	public void testInvalidateAll() {
+		QueryResultCache cache = createCache();
+		CountingLoader loader = new CountingLoader();
+		cache.execute("beans", "key", loader);
+		cache.execute("strings", "key", loader);
+		cache.invalidateAll();
+		assertEquals(0, cache.getRegion("beans").getResultCount());
+		assertEquals(0, cache.getRegion("strings").getResultCount());
+	}
+
+	private void completeTransaction(int status) {
+		List synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		for (Iterator it = synchronizations.iterator(); it.hasNext();) {
+			((TransactionSynchronization) it.next()).beforeCompletion();
+		}
+		for (Iterator it = synchronizations.iterator(); it.hasNext();) {
+			((TransactionSynchronization) it.next()).afterCompletion(status);
+		}
+	}
+
+
+	private static class CountingLoader implements QueryResultLoader {
+
+		private int count;
+
+		public Object loadResult() {
+			this.count++;
+			return new ArrayList();
+		}
+	}
+
+}
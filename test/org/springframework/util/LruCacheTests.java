@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.util;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.1
+ */
+public class LruCacheTests extends TestCase {
+
+	public void testEvictsLeastRecentlyUsed() {
+		LruCache cache = new LruCache(2);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertEquals("1", cache.get("a"));
+		cache.put("c", "3");
+		assertEquals("1", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals("3", cache.get("c"));
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getEntryCount());
+	}
+
+	public void testReplaceAndRemove() {
+		LruCache cache = new LruCache(2);
+		cache.put("a", "1");
+		cache.put("a", "2");
+		assertEquals(1, cache.size());
+		assertEquals("2", cache.remove("a"));
+		assertNull(cache.remove("a"));
+		assertEquals(0, cache.size());
+		cache.put("b", "1");
+		cache.clear();
+		assertNull(cache.get("b"));
+		assertEquals(0, cache.size());
+	}
+
+	public void testCustomSize() {
+		LruCache cache = new LruCache(10) {
+			protected int sizeOf(Object key, Object value) {
+				return ((String) value).length();
+			}
+		};
+		cache.put("a", "12345");
+		cache.put("b", "1234");
+		assertEquals(9, cache.size());
+		cache.put("c", "12");
+		assertNull(cache.get("a"));
+		assertEquals(6, cache.size());
+		cache.put("d", "12345678901");
+		assertNull("Entry larger than capacity not cached", cache.get("d"));
+		assertEquals("1234", cache.get("b"));
+	}
+
+	public void testContentCache() {
+		ContentCache cache = new ContentCache(10);
+		CachedContent content = new CachedContent(new byte[6], 1000);
+		cache.put("a", content);
+		assertEquals(6, cache.size());
+		assertSame(content, cache.get("a"));
+		assertEquals(1000, content.getTimestamp());
+		cache.put("b", new CachedContent(new byte[6], 2000));
+		assertNull("Evicted by byte size", cache.get("a"));
+		assertEquals(1, cache.getEntryCount());
+	}
+
+}
@@ -17,6 +17,8 @@
 package org.springframework.validation;
 
 import java.beans.PropertyEditorSupport;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.Map;
 
 import junit.framework.TestCase;
@@ -125,6 +127,32 @@ public class ValidationTestSuite extends TestCase {
 		assertTrue("Same object", tb.equals(rod));
 	}
 
+	public void testBindingWithAllowedFieldsAndPatterns() throws Exception {
+		TestBean rod = new TestBean();
+		DataBinder binder = new DataBinder(rod, "person");
+		binder.setAllowedFields(new String[] {"age", "nam*", "*ouchy"});
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue(new PropertyValue("name", "Rod"));
+		pvs.addPropertyValue(new PropertyValue("touchy", "Rod"));
+		pvs.addPropertyValue(new PropertyValue("age", "32"));
+		pvs.addPropertyValue(new PropertyValue("spouse", new TestBean()));
+		binder.bind(pvs);
+		binder.close();
+		assertEquals("Rod", rod.getName());
+		assertEquals("Rod", rod.getTouchy());
+		assertEquals(32, rod.getAge());
+		assertNull("did not change spouse", rod.getSpouse());
+
+		rod = new TestBean();
+		binder = new DataBinder(rod, "person");
+		binder.setAllowedFields(new String[] {"age"});
+		binder.setAllowedFields(null);
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue(new PropertyValue("spouse", new TestBean()));
+		binder.bind(pvs);
+		assertNotNull("all fields allowed again", rod.getSpouse());
+	}
+
 	public void testCustomEditorForSingleProperty() {
 		TestBean tb = new TestBean();
 		DataBinder binder = new DataBinder(tb, "tb");
@@ -274,6 +302,81 @@ public class ValidationTestSuite extends TestCase {
 	}
 
 
+	public void testBindingErrorsIndexedByField() {
+		TestBean tb = new TestBean();
+		tb.setSpouse(new TestBean());
+		BindingErrors errors = new BindingErrors(tb, "tb");
+		errors.rejectValue("name", "NAME1", "msg");
+		errors.reject("GLOBAL", "msg");
+		errors.rejectValue("age", "AGE", "msg");
+		errors.rejectValue("name", "NAME2", "msg");
+		errors.setNestedPath("spouse");
+		errors.rejectValue("name", "SPOUSE_NAME", "msg");
+
+		assertEquals(5, errors.getErrorCount());
+		assertEquals("NAME1", ((ObjectError) errors.getAllErrors().get(0)).getCode());
+		assertEquals("SPOUSE_NAME", ((ObjectError) errors.getAllErrors().get(4)).getCode());
+		assertEquals(1, errors.getGlobalErrorCount());
+		assertEquals("GLOBAL", errors.getGlobalError().getCode());
+		assertEquals(1, errors.getFieldErrorCount("name"));
+		assertEquals("spouse.name", errors.getFieldError("name").getField());
+		assertFalse(errors.hasFieldErrors("age"));
+
+		errors.setNestedPath("");
+		assertEquals(2, errors.getFieldErrorCount("name"));
+		assertEquals("NAME2", ((FieldError) errors.getFieldErrors("name").get(1)).getCode());
+		assertTrue(errors.hasFieldErrors("age"));
+		assertEquals(0, errors.getFieldErrors("touchy").size());
+		assertNull(errors.getFieldError("touchy"));
+
+		Map model = errors.getModel();
+		assertSame(errors, model.get(BindException.ERROR_KEY_PREFIX + "tb"));
+		assertSame(tb, model.get("tb"));
+	}
+
+	public void testRejectedValueOfNestedFieldError() {
+		TestBean tb = new TestBean();
+		tb.setSpouse(new TestBean());
+		DataBinder binder = new DataBinder(tb, "tb");
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue(new PropertyValue("spouse.age", "32x"));
+		binder.bind(pvs);
+		Errors errors = binder.getErrors();
+		errors.setNestedPath("spouse");
+		assertEquals("32x", errors.getFieldValue("age"));
+	}
+
+	public void testBindExceptionStackTraceFilledInOnClose() {
+		DataBinder binder = new DataBinder(new TestBean(), "tb");
+		binder.setRequiredFields(new String[] {"name"});
+		binder.bind(new MutablePropertyValues());
+		assertEquals("No stack trace before thrown", -1, getStackTrace(binder.getErrors()).indexOf("DataBinder"));
+		try {
+			binder.close();
+			fail("Should have thrown BindException");
+		}
+		catch (BindException ex) {
+			assertSame(binder.getErrors(), ex);
+			assertTrue(getStackTrace(ex).indexOf("DataBinder.close") != -1);
+			assertEquals("BindException: 1 errors; " + ex.getFieldError("name"), ex.getMessage());
+		}
+	}
+
+	public void testBindExceptionStackTraceCapturedWhenCreatedDirectly() {
+		BindException ex = createBindException();
+		assertTrue(getStackTrace(ex).indexOf("createBindException") != -1);
+	}
+
+	private BindException createBindException() {
+		return new BindException(new TestBean(), "tb");
+	}
+
+	private String getStackTrace(Throwable ex) {
+		StringWriter sw = new StringWriter();
+		ex.printStackTrace(new PrintWriter(sw));
+		return sw.toString();
+	}
+
 	private static class TestBeanValidator implements Validator {
 
 		public boolean supports(Class clazz) {
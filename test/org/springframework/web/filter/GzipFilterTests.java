@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.mock.MockHttpServletResponse;
+
+/**
+ * @since 1.1
+ */
+public class GzipFilterTests extends TestCase {
+
+	private static final String LARGE_CONTENT;
+
+	static {
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < 500; i++) {
+			sb.append("<tr><td>Row ").append(i).append("</td></tr>\n");
+		}
+		LARGE_CONTENT = sb.toString();
+	}
+
+	private final GzipFilter filter = new GzipFilter();
+
+	public void testLargeHtmlCompressed() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip, deflate"), response,
+				new ContentWritingFilterChain(LARGE_CONTENT, "text/html", false));
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertEquals("No content length for streamed content", -1, response.getContentLength());
+		byte[] compressed = response.getContentAsByteArray();
+		assertTrue(compressed.length < LARGE_CONTENT.length() / 2);
+		assertEquals(LARGE_CONTENT, decompress(compressed));
+	}
+
+	public void testLargeHtmlCompressedWithWriter() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response,
+				new ContentWritingFilterChain(LARGE_CONTENT, "text/html; charset=ISO-8859-1", true));
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals(LARGE_CONTENT, decompress(response.getContentAsByteArray()));
+	}
+
+	public void testMixedWriterAndStreamWithIntermediateFlushes() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				response.setContentType("text/html");
+				PrintWriter writer = response.getWriter();
+				writer.write("<html>");
+				// an included JSP flushes its writer
+				writer.flush();
+				response.getOutputStream().write(LARGE_CONTENT.getBytes("ISO-8859-1"));
+				writer.write("</html>");
+			}
+		});
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals("<html>" + LARGE_CONTENT + "</html>", decompress(response.getContentAsByteArray()));
+	}
+
+	public void testSmallContentNotCompressed() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				response.setContentType("text/html");
+				PrintWriter writer = response.getWriter();
+				writer.write("<html>");
+				writer.flush();
+				writer.write("</html>");
+			}
+		});
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(13, response.getContentLength());
+		assertEquals("<html></html>", response.getContentAsString());
+	}
+
+	public void testExplicitFlushDecidesEarly() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				response.setContentType("text/html");
+				response.getWriter().write("<html>");
+				response.flushBuffer();
+				response.getWriter().write("</html>");
+			}
+		});
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertTrue(response.isCommitted());
+		assertEquals("<html></html>", decompress(response.getContentAsByteArray()));
+	}
+
+	public void testBinaryContentNotCompressed() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response,
+				new ContentWritingFilterChain(LARGE_CONTENT, "image/png", false));
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(LARGE_CONTENT, response.getContentAsString());
+	}
+
+	public void testCustomContentTypes() throws Exception {
+		filter.setContentTypes(new String[] {"text/*"});
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response,
+				new ContentWritingFilterChain(LARGE_CONTENT, "text/csv", false));
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+
+		response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response,
+				new ContentWritingFilterChain(LARGE_CONTENT, "application/xml", false));
+		assertNull(response.getHeader("Content-Encoding"));
+	}
+
+	public void testGzipNotAccepted() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest(null), response,
+				new ContentWritingFilterChain(LARGE_CONTENT, "text/html", false));
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(LARGE_CONTENT, response.getContentAsString());
+
+		response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("deflate, gzip;q=0"), response,
+				new ContentWritingFilterChain(LARGE_CONTENT, "text/html", false));
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(LARGE_CONTENT, response.getContentAsString());
+	}
+
+	public void testErrorNotCompressed() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(createRequest("gzip"), response, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				response.setContentType("text/html");
+				response.getWriter().write("partial");
+				((HttpServletResponse) response).sendError(HttpServletResponse.SC_NOT_FOUND);
+			}
+		});
+		assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatusCode());
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	public void testPooledResourcesReused() throws Exception {
+		filter.setMaxPoolSize(1);
+		for (int i = 0; i < 3; i++) {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			String content = i + LARGE_CONTENT;
+			filter.doFilter(createRequest("gzip"), response,
+					new ContentWritingFilterChain(content, "text/html", false));
+			assertEquals(content, decompress(response.getContentAsByteArray()));
+		}
+	}
+
+
+	private MockHttpServletRequest createRequest(String acceptEncoding) {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/catalog.html");
+		if (acceptEncoding != null) {
+			request.addHeader("Accept-Encoding", acceptEncoding);
+		}
+		return request;
+	}
+
+	private String decompress(byte[] compressed) throws IOException {
+		InputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int count;
+		while ((count = is.read(buffer)) != -1) {
+			out.write(buffer, 0, count);
+		}
+		return out.toString("ISO-8859-1");
+	}
+
+
+	private static class ContentWritingFilterChain implements FilterChain {
+
+		private final String content;
+
+		private final String contentType;
+
+		private final boolean useWriter;
+
+		private ContentWritingFilterChain(String content, String contentType, boolean useWriter) {
+			this.content = content;
+			this.contentType = contentType;
+			this.useWriter = useWriter;
+		}
+
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+			response.setContentType(this.contentType);
+			if (this.useWriter) {
+				response.getWriter().write(this.content);
+			}
+			else {
+				response.getOutputStream().write(this.content.getBytes("ISO-8859-1"));
+			}
+		}
+	}
+
+}
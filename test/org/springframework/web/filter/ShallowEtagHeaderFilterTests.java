@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.filter;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.mock.MockHttpServletResponse;
+
+/**
+ * @since 1.1
+ */
+public class ShallowEtagHeaderFilterTests extends TestCase {
+
+	private final ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+
+	public void testETagGenerated() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/catalog.html");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new ContentWritingFilterChain("Catalog", false));
+
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		String eTag = response.getHeader("ETag");
+		assertTrue(eTag.startsWith("\"0") && eTag.endsWith("\""));
+		assertEquals("Quoted MD5 hex string", 35, eTag.length());
+		assertEquals(7, response.getContentLength());
+		assertEquals("Catalog", response.getContentAsString());
+
+		MockHttpServletResponse otherResponse = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(null, "GET", "/catalog.html"), otherResponse,
+				new ContentWritingFilterChain("Catalog", true));
+		assertEquals("Same content, same ETag", response.getHeader("ETag"), otherResponse.getHeader("ETag"));
+		assertEquals("Catalog", otherResponse.getContentAsString());
+	}
+
+	public void testNotModified() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/catalog.html");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new ContentWritingFilterChain("Catalog", false));
+		String eTag = response.getHeader("ETag");
+
+		request = new MockHttpServletRequest(null, "GET", "/catalog.html");
+		request.addHeader("If-None-Match", "\"other\", " + eTag);
+		response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new ContentWritingFilterChain("Catalog", false));
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatusCode());
+		assertEquals(eTag, response.getHeader("ETag"));
+		assertEquals("No content", 0, response.getContentAsByteArray().length);
+
+		request = new MockHttpServletRequest(null, "GET", "/catalog.html");
+		request.addHeader("If-None-Match", eTag);
+		response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new ContentWritingFilterChain("Changed catalog", false));
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		assertFalse(eTag.equals(response.getHeader("ETag")));
+		assertEquals("Changed catalog", response.getContentAsString());
+	}
+
+	public void testExistingETagKept() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/catalog.html");
+		request.addHeader("If-None-Match", "\"v1\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new ContentWritingFilterChain("Catalog", false) {
+			public void doFilter(ServletRequest request, ServletResponse passedResponse) throws IOException, ServletException {
+				((HttpServletResponse) passedResponse).setHeader("ETag", "\"v2\"");
+				super.doFilter(request, passedResponse);
+			}
+		});
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		assertEquals("\"v2\"", response.getHeader("ETag"));
+		assertEquals("Catalog", response.getContentAsString());
+	}
+
+	public void testNoETagForPost() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "POST", "/catalog.html");
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new ContentWritingFilterChain("Catalog", false) {
+			public void doFilter(ServletRequest request, ServletResponse passedResponse) throws IOException, ServletException {
+				assertSame("Response not buffered", response, passedResponse);
+				super.doFilter(request, passedResponse);
+			}
+		});
+		assertNull(response.getHeader("ETag"));
+		assertEquals("Catalog", response.getContentAsString());
+	}
+
+	public void testNoETagForError() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/catalog.html");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				((HttpServletResponse) response).sendError(HttpServletResponse.SC_NOT_FOUND);
+			}
+		});
+		assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatusCode());
+		assertNull(response.getHeader("ETag"));
+	}
+
+
+	private static class ContentWritingFilterChain implements FilterChain {
+
+		private final String content;
+
+		private final boolean useWriter;
+
+		private ContentWritingFilterChain(String content, boolean useWriter) {
+			this.content = content;
+			this.useWriter = useWriter;
+		}
+
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+			if (this.useWriter) {
+				response.getWriter().write(this.content);
+			}
+			else {
+				response.getOutputStream().write(this.content.getBytes("ISO-8859-1"));
+			}
+			response.flushBuffer();
+		}
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.web.mock;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.Serializable;
 import java.security.Principal;
 import java.util.Collections;
@@ -57,7 +58,9 @@ public class MockHttpServletRequest implements HttpServletRequest, Serializable
 	private Principal userPrincipal;
 	private String pathInfo;
 	private String	method;
+	private String queryString;
 	private String contextPath;
+	private byte[] content;
 	
 	/** List of locales in descending order */
 	private List locales = new LinkedList();
@@ -138,7 +141,16 @@ public class MockHttpServletRequest implements HttpServletRequest, Serializable
 	}
 
 	public long getDateHeader(java.lang.String p1) {
-		return 1L;
+		String value = (String) headers.get(p1);
+		if (value == null) {
+			return -1L;
+		}
+		try {
+			return Long.parseLong(value);
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Header [" + p1 + "] is not a date: " + value);
+		}
 	}
 
 	public boolean isRequestedSessionIdValid() {
@@ -188,7 +200,7 @@ public class MockHttpServletRequest implements HttpServletRequest, Serializable
 	}
 
 	public String getQueryString() {
-		return null;
+		return queryString;
 	}
 
 	public boolean isRequestedSessionIdFromCookie() {
@@ -200,7 +212,15 @@ public class MockHttpServletRequest implements HttpServletRequest, Serializable
 	}
 
 	public ServletInputStream getInputStream() throws java.io.IOException {
-		return null;
+		if (this.content == null) {
+			return null;
+		}
+		final ByteArrayInputStream in = new ByteArrayInputStream(this.content);
+		return new ServletInputStream() {
+			public int read() {
+				return in.read();
+			}
+		};
 	}
 
 	public Enumeration getAttributeNames() {
@@ -272,7 +292,7 @@ public class MockHttpServletRequest implements HttpServletRequest, Serializable
 	}
 
 	public int getContentLength() {
-		return -1;
+		return (this.content != null ? this.content.length : -1);
 	}
 
 	public String getContentType() {
@@ -304,6 +324,10 @@ public class MockHttpServletRequest implements HttpServletRequest, Serializable
 		this.contentType = contentType;
 	}
 
+	public void setContent(byte[] content) {
+		this.content = content;
+	}
+
 	public void setServletPath(String sp) {
 		servletPath = sp;
 	}
@@ -337,6 +361,10 @@ public class MockHttpServletRequest implements HttpServletRequest, Serializable
 		this.method = method;
 	}
 
+	public void setQueryString(String queryString) {
+		this.queryString = queryString;
+	}
+
 	public void setCookies(Cookie[] cks) {
 		//cookies = new SerializableCookie[cks.length];
 		//for (int i = 0; i < cookies.length; i++)
@@ -16,11 +16,16 @@
 
 package org.springframework.web.mock;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletResponse;
 
@@ -45,6 +50,20 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	
 	public List cookies = new ArrayList(); 
 
+	private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+	private ServletOutputStream outputStream;
+
+	private PrintWriter writer;
+
+	private String characterEncoding = "ISO-8859-1";
+
+	private String contentType;
+
+	private int contentLength = -1;
+
+	private boolean committed;
+
 	/** Creates new MockHttpServletResponse */
 	public MockHttpServletResponse() {
 	}
@@ -70,6 +89,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	}
 
 	public void flushBuffer() throws java.io.IOException {
+		this.committed = true;
 	}
 
 	public void addCookie(javax.servlet.http.Cookie cookie) {
@@ -85,6 +105,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	}
 
 	public void addDateHeader(String str, long param) {
+		headers.put(str, "" + param);
 	}
 
 	public void setLocale(Locale locale) {
@@ -104,15 +125,18 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	}
 
 	public java.io.PrintWriter getWriter() throws java.io.IOException {
-		return new java.io.PrintWriter(System.out);
+		if (this.writer == null) {
+			this.writer = new PrintWriter(new OutputStreamWriter(this.content, this.characterEncoding));
+		}
+		return this.writer;
 	}
 
 	public boolean isCommitted() {
-		return false;
+		return committed;
 	}
 
 	public String getCharacterEncoding() {
-		throw new UnsupportedOperationException("getCharacterEncoding");
+		return characterEncoding;
 	}
 
 	public void setDateHeader(String str, long param) {
@@ -120,10 +144,21 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	}
 
 	public javax.servlet.ServletOutputStream getOutputStream() throws java.io.IOException {
-		throw new UnsupportedOperationException("getOutputStream");
+		if (this.outputStream == null) {
+			this.outputStream = new ServletOutputStream() {
+				public void write(int b) {
+					content.write(b);
+				}
+				public void write(byte[] b, int off, int len) {
+					content.write(b, off, len);
+				}
+			};
+		}
+		return this.outputStream;
 	}
 
 	public void addIntHeader(String str, int param) {
+		headers.put(str, "" + param);
 	}
 
 	public String encodeRedirectUrl(String str) {
@@ -131,12 +166,19 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	}
 
 	public void setIntHeader(String str, int param) {
+		headers.put(str, "" + param);
 	}
 
 	public void setContentType(String str) {
+		this.contentType = str;
+		int charsetIndex = (str != null ? str.toLowerCase().indexOf("charset=") : -1);
+		if (charsetIndex != -1) {
+			this.characterEncoding = str.substring(charsetIndex + "charset=".length()).trim();
+		}
 	}
 
 	public void setContentLength(int param) {
+		this.contentLength = param;
 	}
 
 	public String encodeURL(String str) {
@@ -149,6 +191,9 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	}
 
 	public void reset() {
+		resetBuffer();
+		headers.clear();
+		status = HttpServletResponse.SC_OK;
 	}
 
 	public void addHeader(String str, String str1) {
@@ -168,6 +213,10 @@ public class MockHttpServletResponse implements HttpServletResponse {
 	}
 
 	public void resetBuffer() {
+		if (this.writer != null) {
+			this.writer.flush();
+		}
+		this.content.reset();
 	}
 
 
@@ -175,4 +224,23 @@ public class MockHttpServletResponse implements HttpServletResponse {
 		return status;
 	}
 
+	public String getContentType() {
+		return contentType;
+	}
+
+	public int getContentLength() {
+		return contentLength;
+	}
+
+	public byte[] getContentAsByteArray() {
+		if (this.writer != null) {
+			this.writer.flush();
+		}
+		return this.content.toByteArray();
+	}
+
+	public String getContentAsString() throws UnsupportedEncodingException {
+		return new String(getContentAsByteArray(), this.characterEncoding);
+	}
+
 }
@@ -16,18 +16,24 @@
 
 package org.springframework.web.multipart.cos;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 import javax.servlet.ServletException;
 
 import junit.framework.TestCase;
 
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.web.context.support.StaticWebApplicationContext;
 import org.springframework.web.mock.MockHttpServletRequest;
 import org.springframework.web.mock.MockServletContext;
 import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.StreamingMultipartHttpServletRequest;
 import org.springframework.web.util.WebUtils;
 
 /**
@@ -85,4 +91,166 @@ public class CosMultipartResolverTests extends TestCase {
 		assertTrue(new File("bogusTmpDir").exists());
 		new File("bogusTmpDir").delete();
 	}
+
+	public void testStreamingResolution() throws Exception {
+		byte[] content1 = createContent(100000);
+		byte[] content2 = createContent(1000);
+		MockHttpServletRequest originalRequest = createMultipartRequest(new Object[][] {
+				{"name", null, "Juergen"}, {"file1", "file1.bin", content1}, {"file2", "file2.bin", content2},
+				{"description", null, "desc"}, {"file3", "", new byte[0]}});
+		File tempDir = createTempDir();
+		CosMultipartResolver resolver = new CosMultipartResolver();
+		resolver.setUploadTempDir(new FileSystemResource(tempDir));
+		resolver.setStreaming(true);
+		StreamingMultipartHttpServletRequest request =
+				(StreamingMultipartHttpServletRequest) resolver.resolveMultipart(originalRequest);
+
+		MultipartFile file1 = request.nextFile();
+		assertEquals("file1", file1.getName());
+		assertEquals("file1.bin", file1.getOriginalFilename());
+		assertEquals("application/octet-stream", file1.getContentType());
+		assertEquals("Parsed in front of file", "Juergen", request.getParameter("name"));
+		assertTrue(Arrays.equals(content1, FileCopyUtils.copyToByteArray(file1.getInputStream())));
+		assertEquals("Streamed without temporary file", 0, tempDir.list().length);
+		try {
+			file1.getInputStream();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+
+		MultipartFile file2 = request.nextFile();
+		assertEquals("file2", file2.getName());
+		assertEquals("desc", request.getParameter("description"));
+		assertEquals("Spilled to temporary file", 1, tempDir.list().length);
+		assertEquals(1000, file2.getSize());
+		assertTrue(Arrays.equals(content2, file2.getBytes()));
+		assertNull(request.nextFile());
+
+		assertEquals(3, request.getFileMap().size());
+		assertTrue(request.getFile("file3").isEmpty());
+		assertEquals(0, request.getFile("file3").getSize());
+		assertEquals("Juergen", request.getParameterValues("name")[0]);
+		assertEquals(2, request.getParameterMap().size());
+
+		resolver.cleanupMultipart(request);
+		assertEquals(0, tempDir.list().length);
+		tempDir.delete();
+	}
+
+	public void testStreamingWithSkippedFile() throws Exception {
+		byte[] content1 = createContent(10000);
+		byte[] content2 = createContent(20000);
+		MockHttpServletRequest originalRequest = createMultipartRequest(new Object[][] {
+				{"file1", "file1.bin", content1}, {"file2", "file2.bin", content2}, {"name", null, "Juergen"}});
+		File tempDir = createTempDir();
+		CosMultipartResolver resolver = new CosMultipartResolver();
+		resolver.setUploadTempDir(new FileSystemResource(tempDir));
+		resolver.setStreaming(true);
+		StreamingMultipartHttpServletRequest request =
+				(StreamingMultipartHttpServletRequest) resolver.resolveMultipart(originalRequest);
+
+		MultipartFile file1 = request.nextFile();
+		MultipartFile file2 = request.nextFile();
+		try {
+			file1.getBytes();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		File dest = new File(tempDir, "dest.bin");
+		file2.transferTo(dest);
+		assertTrue(Arrays.equals(content2, FileCopyUtils.copyToByteArray(dest)));
+		assertNull(request.nextFile());
+		assertEquals("Juergen", request.getParameter("name"));
+		dest.delete();
+
+		resolver.cleanupMultipart(request);
+		assertEquals(0, tempDir.list().length);
+		tempDir.delete();
+	}
+
+	public void testStreamingWithParametersFirst() throws Exception {
+		byte[] content1 = createContent(10000);
+		MockHttpServletRequest originalRequest = createMultipartRequest(new Object[][] {
+				{"file1", "file1.bin", content1}, {"name", null, "Juergen"}, {"name", null, "Rod"}});
+		File tempDir = createTempDir();
+		CosMultipartResolver resolver = new CosMultipartResolver();
+		resolver.setUploadTempDir(new FileSystemResource(tempDir));
+		resolver.setStreaming(true);
+		MultipartHttpServletRequest request = resolver.resolveMultipart(originalRequest);
+
+		assertEquals(2, request.getParameterValues("name").length);
+		MultipartFile file1 = request.getFile("file1");
+		assertEquals(1, tempDir.list().length);
+		assertTrue(Arrays.equals(content1, FileCopyUtils.copyToByteArray(file1.getInputStream())));
+
+		resolver.cleanupMultipart(request);
+		assertEquals(0, tempDir.list().length);
+		tempDir.delete();
+	}
+
+	public void testStreamingWithQueryStringParameters() throws Exception {
+		MockHttpServletRequest originalRequest = createMultipartRequest(new Object[][] {
+				{"name", null, "Rod"}, {"file1", "file1.bin", createContent(100)}});
+		originalRequest.setQueryString("name=Juergen&action=upload");
+		CosMultipartResolver resolver = new CosMultipartResolver();
+		resolver.setStreaming(true);
+		MultipartHttpServletRequest request = resolver.resolveMultipart(originalRequest);
+
+		assertEquals("Query string values first", "Juergen", request.getParameter("name"));
+		assertEquals("upload", request.getParameter("action"));
+		assertTrue(Arrays.equals(new String[] {"Juergen", "Rod"}, request.getParameterValues("name")));
+		assertEquals(2, request.getParameterMap().size());
+		assertTrue(Arrays.equals(new String[] {"upload"}, (String[]) request.getParameterMap().get("action")));
+		resolver.cleanupMultipart(request);
+	}
+
+	private byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) (i % 251);
+		}
+		return content;
+	}
+
+	private File createTempDir() throws IOException {
+		File tempDir = File.createTempFile("cosMultipartResolverTests", "");
+		tempDir.delete();
+		tempDir.mkdirs();
+		return tempDir;
+	}
+
+	/**
+	 * Create a multipart request with the given parts,
+	 * each consisting of name, file name (null for form fields) and content.
+	 */
+	private MockHttpServletRequest createMultipartRequest(Object[][] parts) throws IOException {
+		String boundary = "---------------------------7d4a6d158c9";
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		for (int i = 0; i < parts.length; i++) {
+			StringBuffer header = new StringBuffer("--").append(boundary).append("\r\n");
+			header.append("Content-Disposition: form-data; name=\"").append(parts[i][0]).append("\"");
+			if (parts[i][1] != null) {
+				header.append("; filename=\"").append(parts[i][1]).append("\"\r\n");
+				header.append("Content-Type: application/octet-stream");
+			}
+			header.append("\r\n\r\n");
+			body.write(header.toString().getBytes("ISO-8859-1"));
+			if (parts[i][2] instanceof String) {
+				body.write(((String) parts[i][2]).getBytes("ISO-8859-1"));
+			}
+			else {
+				body.write((byte[]) parts[i][2]);
+			}
+			body.write("\r\n".getBytes("ISO-8859-1"));
+		}
+		body.write(("--" + boundary + "--\r\n").getBytes("ISO-8859-1"));
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "POST", "/upload");
+		request.setContentType("multipart/form-data; boundary=" + boundary);
+		request.setContent(body.toByteArray());
+		return request;
+	}
 }
@@ -45,6 +45,7 @@ import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
 import org.springframework.web.servlet.i18n.SessionLocaleResolver;
 import org.springframework.web.servlet.mvc.SimpleControllerHandlerAdapter;
 import org.springframework.web.servlet.mvc.SimpleFormController;
+import org.springframework.web.servlet.support.RequestTimingMetrics;
 import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springframework.web.servlet.theme.SessionThemeResolver;
 import org.springframework.web.servlet.theme.ThemeChangeInterceptor;
@@ -107,6 +108,8 @@ public class ComplexWebApplicationContext extends StaticWebApplicationContext {
 
 		registerSingleton("multipartResolver", MockMultipartResolver.class, null);
 
+		registerSingleton(DispatcherServlet.REQUEST_TIMING_COLLECTOR_BEAN_NAME, RequestTimingMetrics.class, null);
+
 		addMessage("test", Locale.ENGLISH, "test message");
 		addMessage("test", Locale.CANADA, "Canadian & test message");
 
@@ -16,14 +16,18 @@
 
 package org.springframework.web.servlet;
 
+import java.util.Enumeration;
 import java.util.Locale;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import junit.framework.TestCase;
 
+import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.EscapedErrors;
@@ -34,9 +38,15 @@ import org.springframework.web.mock.MockHttpServletResponse;
 import org.springframework.web.mock.MockServletConfig;
 import org.springframework.web.mock.MockServletContext;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.servlet.mvc.BaseCommandController;
+import org.springframework.web.servlet.mvc.Controller;
+import org.springframework.web.servlet.mvc.LastModified;
+import org.springframework.web.servlet.mvc.SimpleFormController;
 import org.springframework.web.servlet.support.RequestContext;
 import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.servlet.support.RequestTimingMetrics;
+import org.springframework.web.servlet.support.TimingHistogram;
 import org.springframework.web.servlet.theme.AbstractThemeResolver;
 
 /**
@@ -62,6 +72,7 @@ public class DispatcherServletTestSuite extends TestCase {
 		complexDispatcherServlet.setContextClass(ComplexWebApplicationContext.class);
 		complexDispatcherServlet.setNamespace("test");
 		complexDispatcherServlet.setPublishContext(false);
+		complexDispatcherServlet.setExposeServerTiming(true);
 		complexDispatcherServlet.init(new MockServletConfig(servletConfig.getServletContext(), "complex"));
 	}
 
@@ -124,6 +135,36 @@ public class DispatcherServletTestSuite extends TestCase {
 		assertTrue("Not forwarded", response.forwarded == null);
 	}
 
+	public void testNotModifiedRequest() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/locale.do");
+		request.addPreferredLocale(Locale.CANADA);
+		request.addHeader("If-Modified-Since", "1000");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		simpleDispatcherServlet.service(request, response);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatusCode());
+		for (Enumeration names = request.getAttributeNames(); names.hasMoreElements();) {
+			String name = (String) names.nextElement();
+			assertFalse("Mapped handler not left on request", name.startsWith(DispatcherServlet.class.getName() + ".MAPPED_HANDLER"));
+		}
+	}
+
+	public void testHandlerMappedOncePerRequest() throws Exception {
+		DispatcherServlet dispatcherServlet = new DispatcherServlet();
+		dispatcherServlet.setContextClass(LookupCountingWebApplicationContext.class);
+		dispatcherServlet.setPublishContext(false);
+		dispatcherServlet.init(new MockServletConfig(servletConfig.getServletContext(), "counting"));
+		LookupCountingHandlerMapping handlerMapping = (LookupCountingHandlerMapping)
+				dispatcherServlet.getWebApplicationContext().getBean("handlerMapping");
+
+		for (int i = 1; i <= 2; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/plain.do");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			dispatcherServlet.service(request, response);
+			assertEquals(Boolean.TRUE, request.getAttribute("handled"));
+			assertEquals("Handler mapped by getLastModified reused", i, handlerMapping.lookupCount);
+		}
+	}
+
 	public void testUnknownRequest() throws Exception {
 		MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/unknown.do");
 		MockHttpServletResponse response = new MockHttpServletResponse();
@@ -170,6 +211,31 @@ public class DispatcherServletTestSuite extends TestCase {
 		assertTrue("Correct message", "Canadian &#38; test message".equals(rc.getMessage(resolvable, true)));
 	}
 
+	public void testRequestTimings() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/form.do");
+		request.addPreferredLocale(Locale.CANADA);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		complexDispatcherServlet.doGet(request, response);
+		assertEquals("forwarded to form", "myform.jsp", response.forwarded);
+		assertNotNull("Server-Timing header", response.getHeader(DispatcherServlet.SERVER_TIMING_HEADER));
+
+		RequestTimingMetrics metrics = (RequestTimingMetrics) complexDispatcherServlet.getWebApplicationContext().getBean(
+				DispatcherServlet.REQUEST_TIMING_COLLECTOR_BEAN_NAME);
+		String handlerName = SimpleFormController.class.getName();
+		assertEquals(1, metrics.getHandlerNames().length);
+		assertEquals(handlerName, metrics.getHandlerNames()[0]);
+		TimingHistogram total = metrics.getTotalHistogram(handlerName);
+		assertEquals(1, total.getCount());
+		long phaseTotal = 0;
+		for (int i = 0; i < RequestTimingCollector.PHASE_COUNT; i++) {
+			TimingHistogram phase = metrics.getPhaseHistogram(handlerName, i);
+			assertTrue(phase.getCount() <= 1);
+			phaseTotal += phase.getTotalNanos();
+		}
+		assertTrue("Phases within total", phaseTotal <= total.getTotalNanos());
+		assertNull(metrics.getTotalHistogram("unknown"));
+	}
+
 	public void testAnotherLocaleRequest() throws Exception {
 		MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/locale.do;abc=def");
 		request.addPreferredLocale(Locale.CANADA);
@@ -186,6 +252,26 @@ public class DispatcherServletTestSuite extends TestCase {
 		assertTrue(request.getAttribute("test2y") == null);
 	}
 
+	public void testRepeatedRequestsWithCachedExecutionPlans() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/locale.do");
+			request.addPreferredLocale(Locale.CANADA);
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			if (i > 0) {
+				assertEquals(98, simpleDispatcherServlet.getLastModified(request));
+			}
+			simpleDispatcherServlet.doGet(request, response);
+			assertTrue("Not forwarded", response.forwarded == null);
+			assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+
+			request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/form.do");
+			request.addPreferredLocale(Locale.CANADA);
+			response = new MockHttpServletResponse();
+			simpleDispatcherServlet.doGet(request, response);
+			assertEquals("forwarded to form", "form", response.forwarded);
+		}
+	}
+
 	public void testExistingMultipartRequest() throws Exception {
 		MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/locale.do;abc=def");
 		request.addPreferredLocale(Locale.CANADA);
@@ -213,6 +299,36 @@ public class DispatcherServletTestSuite extends TestCase {
 		assertTrue(request.getAttribute("test2") == null);
 		assertTrue(request.getAttribute("test2x") == null);
 		assertTrue(request.getAttribute("test2y") == null);
+
+		RequestTimingMetrics metrics = (RequestTimingMetrics) complexDispatcherServlet.getWebApplicationContext().getBean(
+				DispatcherServlet.REQUEST_TIMING_COLLECTOR_BEAN_NAME);
+		String handlerName = ComplexWebApplicationContext.ComplexLocaleChecker.class.getName();
+		assertEquals("Aborted interceptor phase recorded", 1,
+				metrics.getPhaseHistogram(handlerName, RequestTimingCollector.PHASE_INTERCEPTORS).getCount());
+		assertEquals(0, metrics.getPhaseHistogram(handlerName, RequestTimingCollector.PHASE_HANDLER).getCount());
+	}
+
+	public void testRequestTimingsWithHandlerException() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(servletConfig.getServletContext(), "GET", "/locale.do");
+		request.addPreferredLocale(Locale.CANADA);
+		request.addRole("role1");
+		request.addParameter("exception", "yes");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			complexDispatcherServlet.doGet(request, response);
+		}
+		catch (RuntimeException ex) {
+			// handled or not: the timing must be recorded either way
+		}
+
+		RequestTimingMetrics metrics = (RequestTimingMetrics) complexDispatcherServlet.getWebApplicationContext().getBean(
+				DispatcherServlet.REQUEST_TIMING_COLLECTOR_BEAN_NAME);
+		String handlerName = ComplexWebApplicationContext.ComplexLocaleChecker.class.getName();
+		assertEquals(1, metrics.getTotalHistogram(handlerName).getCount());
+		TimingHistogram handlerPhase = metrics.getPhaseHistogram(handlerName, RequestTimingCollector.PHASE_HANDLER);
+		assertEquals("Aborted handler phase recorded", 1, handlerPhase.getCount());
+		assertTrue(handlerPhase.getTotalNanos() > 0);
+		assertTrue(handlerPhase.getTotalNanos() <= metrics.getTotalHistogram(handlerName).getTotalNanos());
 	}
 
 	public void testModelAndViewDefiningException() throws Exception {
@@ -407,4 +523,40 @@ public class DispatcherServletTestSuite extends TestCase {
 		}
 	}
 
+
+	public static class LookupCountingWebApplicationContext extends StaticWebApplicationContext {
+
+		public void refresh() throws BeansException {
+			registerSingleton("handler", LastModifiedController.class, null);
+			MutablePropertyValues pvs = new MutablePropertyValues();
+			pvs.addPropertyValue("mappings", "/plain.do=handler");
+			registerSingleton("handlerMapping", LookupCountingHandlerMapping.class, pvs);
+			super.refresh();
+		}
+	}
+
+
+	public static class LookupCountingHandlerMapping extends SimpleUrlHandlerMapping {
+
+		private int lookupCount = 0;
+
+		protected Object getHandlerInternal(HttpServletRequest request) throws BeansException {
+			this.lookupCount++;
+			return super.getHandlerInternal(request);
+		}
+	}
+
+
+	public static class LastModifiedController implements Controller, LastModified {
+
+		public ModelAndView handleRequest(HttpServletRequest request, HttpServletResponse response) {
+			request.setAttribute("handled", Boolean.TRUE);
+			return null;
+		}
+
+		public long getLastModified(HttpServletRequest request) {
+			return -1;
+		}
+	}
+
 }
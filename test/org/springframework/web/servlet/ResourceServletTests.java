@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.mock.MockHttpServletResponse;
+import org.springframework.web.mock.MockServletConfig;
+import org.springframework.web.mock.MockServletContext;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * @since 1.1
+ */
+public class ResourceServletTests extends TestCase {
+
+	private File warRoot;
+
+	private File smallFile;
+
+	private File largeFile;
+
+	private MockServletContext servletContext;
+
+	private ResourceServlet servlet;
+
+	protected void setUp() throws Exception {
+		this.warRoot = File.createTempFile("resourceServletTests", "");
+		this.warRoot.delete();
+		File downloads = new File(this.warRoot, "downloads");
+		downloads.mkdirs();
+		this.smallFile = createFile(new File(downloads, "small.txt"), 20);
+		this.largeFile = createFile(new File(downloads, "large.bin"), 1000);
+
+		this.servletContext = new MockServletContext(this.warRoot.getAbsolutePath());
+		MockServletConfig config = new MockServletConfig(this.servletContext, "resource");
+		config.addInitParameter("defaultUrl", "/notFound.html");
+		config.addInitParameter("staticResources", "/downloads/**");
+		config.addInitParameter("maxCacheEntrySize", "100");
+		config.addInitParameter("cacheSeconds", "60");
+		this.servlet = new ResourceServlet();
+		this.servlet.init(config);
+	}
+
+	protected void tearDown() {
+		this.smallFile.delete();
+		this.largeFile.delete();
+		this.smallFile.getParentFile().delete();
+		this.warRoot.delete();
+	}
+
+	private File createFile(File file, int length) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		for (int i = 0; i < length; i++) {
+			out.write('a' + (i % 26));
+		}
+		out.close();
+		return file;
+	}
+
+	private MockHttpServletRequest createRequest(String method, String resource) {
+		MockHttpServletRequest request = new MockHttpServletRequest(this.servletContext, method, "/resource.res");
+		request.addParameter(ResourceServlet.RESOURCE_PARAM, resource);
+		return request;
+	}
+
+	public void testServeSmallFile() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(createRequest("GET", "/downloads/small.txt"), response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		assertEquals("abcdefghijklmnopqrst", response.getContentAsString());
+		assertEquals(20, response.getContentLength());
+		assertNotNull(response.getHeader("Last-Modified"));
+		assertNotNull(response.getHeader("ETag"));
+		assertEquals("max-age=60, must-revalidate", response.getHeader("Cache-Control"));
+		assertEquals("bytes", response.getHeader("Accept-Ranges"));
+		assertNull(response.included);
+
+		// served from cache
+		response = new MockHttpServletResponse();
+		this.servlet.service(createRequest("GET", "/downloads/small.txt"), response);
+		assertEquals("abcdefghijklmnopqrst", response.getContentAsString());
+	}
+
+	public void testServeLargeFile() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(createRequest("GET", "/downloads/large.bin"), response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		assertEquals(1000, response.getContentLength());
+		assertEquals(1000, response.getContentAsByteArray().length);
+		assertEquals('a' + (999 % 26), response.getContentAsByteArray()[999]);
+	}
+
+	public void testNotModified() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(createRequest("GET", "/downloads/small.txt"), response);
+		String eTag = response.getHeader("ETag");
+
+		MockHttpServletRequest request = createRequest("GET", "/downloads/small.txt");
+		request.addHeader("If-None-Match", eTag);
+		response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatusCode());
+		assertEquals(0, response.getContentAsByteArray().length);
+
+		this.smallFile.setLastModified(this.smallFile.lastModified() + 10000);
+		response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		assertFalse(eTag.equals(response.getHeader("ETag")));
+	}
+
+	public void testRangeRequests() throws Exception {
+		MockHttpServletRequest request = createRequest("GET", "/downloads/large.bin");
+		request.addHeader("Range", "bytes=26-51");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 26-51/1000", response.getHeader("Content-Range"));
+		assertEquals(26, response.getContentLength());
+		assertEquals("abcdefghijklmnopqrstuvwxyz", response.getContentAsString());
+
+		request = createRequest("GET", "/downloads/small.txt");
+		request.addHeader("Range", "bytes=-5");
+		response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 15-19/20", response.getHeader("Content-Range"));
+		assertEquals("pqrst", response.getContentAsString());
+
+		request = createRequest("GET", "/downloads/small.txt");
+		request.addHeader("Range", "bytes=18-");
+		response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals("st", response.getContentAsString());
+
+		request = createRequest("GET", "/downloads/small.txt");
+		request.addHeader("Range", "bytes=20-30");
+		response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+		assertEquals("bytes */20", response.getHeader("Content-Range"));
+	}
+
+	public void testRangeIgnoredForChangedResource() throws Exception {
+		MockHttpServletRequest request = createRequest("GET", "/downloads/small.txt");
+		request.addHeader("Range", "bytes=0-4");
+		request.addHeader("If-Range", "\"outdated\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		assertEquals(20, response.getContentLength());
+	}
+
+	public void testNonStaticResourceIncluded() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(createRequest("GET", "/WEB-INF/jsp/page.jsp"), response);
+		assertEquals("/WEB-INF/jsp/page.jsp", response.included);
+
+		response = new MockHttpServletResponse();
+		this.servlet.service(createRequest("GET", "/downloads/../WEB-INF/web.xml"), response);
+		assertEquals("/downloads/../WEB-INF/web.xml", response.included);
+	}
+
+	public void testStaticResourceIncludedWithinInclude() throws Exception {
+		MockHttpServletRequest request = createRequest("GET", "/downloads/small.txt");
+		request.setAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE, "/page.jsp");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(request, response);
+		assertEquals("/downloads/small.txt", response.included);
+	}
+
+	public void testMissingStaticResourceFallsBackToInclude() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.servlet.service(createRequest("GET", "/downloads/missing.zip"), response);
+		assertEquals("/downloads/missing.zip", response.included);
+	}
+
+}
@@ -81,6 +81,17 @@ public class CookieLocaleResolverTestSuite extends TestCase {
 		assertEquals(loc.getLanguage(), "nl");
 	}
 
+	public void testResolveLocaleWithoutCookie() {
+		MockServletContext context = new MockServletContext();
+		MockHttpServletRequest request = new MockHttpServletRequest(context, "POST", "test");
+		request.addPreferredLocale(Locale.GERMAN);
+
+		CookieLocaleResolver resolver = getCookieLocaleResolver();
+		assertEquals(Locale.GERMAN, resolver.resolveLocale(request));
+		assertEquals("Fallback locale cached for the request", Locale.GERMAN,
+				request.getAttribute(CookieLocaleResolver.LOCALE_REQUEST_ATTRIBUTE_NAME));
+	}
+
 	public void testSetLocale() {
 		MockServletContext context = new MockServletContext();
 		MockHttpServletRequest request = new MockHttpServletRequest(context, "POST", "test");
@@ -52,6 +52,16 @@ public class MultiActionControllerTestSuite extends TestCase {
 		testDefaultNameExtraction("/bugal.xyz", "bugal");
 		testDefaultNameExtraction("/x/y/z/q/foo.html", "foo");
 		testDefaultNameExtraction("qqq.q", "qqq");
+		testDefaultNameExtraction("/foo.d/bar", "bar");
+		testDefaultNameExtraction("/foo/bar.tar.gz", "bar.tar");
+	}
+
+	public void testDefaultNameExtractionCached() throws Exception {
+		InternalPathMethodNameResolver resolver = new InternalPathMethodNameResolver();
+		String name = resolver.getHandlerMethodName(new MockHttpServletRequest(null, "GET", "/x/foo.html"));
+		assertEquals("foo", name);
+		assertSame(name, resolver.getHandlerMethodName(new MockHttpServletRequest(null, "GET", "/x/foo.html")));
+		assertEquals("bar", resolver.getHandlerMethodName(new MockHttpServletRequest(null, "GET", "/x/bar.html")));
 	}
 
 	public void testDefaultNameExtraction(String in, String expected) throws Exception {
@@ -212,6 +222,19 @@ public class MultiActionControllerTestSuite extends TestCase {
 		//		assertTrue("Only one method invoked", mc.getInvokedMethods() == 1);
 	}
 
+	public void testInvokesCommandMethodRepeatedly() throws Exception {
+		TestMaController mc = new TestMaController();
+		for (int i = 0; i < 4; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/commandNoSession.html");
+			if (i % 2 == 0) {
+				// commandNoSession asserts that the name gets bound to a new command, or stays null
+				request.addParameter("name", "rod" + i);
+			}
+			ModelAndView mv = mc.handleRequest(request, new MockHttpServletResponse());
+			assertEquals("commandNoSession", mv.getViewName());
+		}
+	}
+
 
 	public void testInvokesCommandMethodWithSession() throws Exception {
 		TestMaController mc = new TestMaController();
@@ -301,6 +324,42 @@ public class MultiActionControllerTestSuite extends TestCase {
 		assertTrue("last modified with method is > -1", lastMod == mc.getLastModified(request));
 	}
 
+	public void testLastModifiedWithConditionalRequest() throws Exception {
+		LastModController mc = new LastModController();
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/welcome.html");
+		request.addHeader("If-Modified-Since", "1000");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertNull(mc.handleRequest(request, response));
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatusCode());
+		assertFalse("Handler not invoked", mc.invoked.containsKey("welcome"));
+
+		request = new MockHttpServletRequest(null, "GET", "/welcome.html");
+		request.addHeader("If-Modified-Since", "0");
+		response = new MockHttpServletResponse();
+		ModelAndView mv = mc.handleRequest(request, response);
+		assertEquals("welcome", mv.getViewName());
+		assertEquals(HttpServletResponse.SC_OK, response.getStatusCode());
+		assertEquals("1111", response.getHeader("Last-Modified"));
+		assertTrue("Handler invoked", mc.invoked.containsKey("welcome"));
+	}
+
+	public void testLastModifiedDeterminedOnceViaHandlerAdapter() throws Exception {
+		LastModController mc = new LastModController();
+		SimpleControllerHandlerAdapter adapter = new SimpleControllerHandlerAdapter();
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/welcome.html");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertEquals(1111L, adapter.getLastModified(request, mc));
+		ModelAndView mv = adapter.handle(request, response, mc);
+		assertEquals("welcome", mv.getViewName());
+		assertEquals(1, mc.lastModifiedCount);
+
+		request = new MockHttpServletRequest(null, "POST", "/welcome.html");
+		response = new MockHttpServletResponse();
+		mv = adapter.handle(request, response, mc);
+		assertEquals("welcome", mv.getViewName());
+		assertEquals("Not determined for POST", 1, mc.lastModifiedCount);
+	}
+
 	private ModelAndView testHandlerCaughtException(TestMaController mc, Throwable t) throws Exception {
 		HttpServletRequest request = new MockHttpServletRequest(null, "GET", "/testException.html");
 		request.setAttribute(TestMaController.THROWABLE_ATT, t);
@@ -346,6 +405,30 @@ public class MultiActionControllerTestSuite extends TestCase {
 		testExceptionNoHandler(mc, new Exception());
 	}
 
+	public void testHandlerCaughtExceptionRepeatedly() throws Exception {
+		TestMaController mc = new TestServletExceptionHandler();
+		for (int i = 0; i < 3; i++) {
+			ModelAndView mv = testHandlerCaughtException(mc, new ServletRequestBindingException("foo"));
+			assertEquals("handle(ServletException)", mv.getViewName());
+			testExceptionNoHandler(mc, new RuntimeException());
+			mv = testHandlerCaughtException(mc, new ServletException());
+			assertEquals("handle(ServletException)", mv.getViewName());
+		}
+	}
+
+	public void testExceptionHandlersResetForNewDelegate() throws Exception {
+		TestMaController mc = new TestRTEHandler();
+		ModelAndView mv = testHandlerCaughtException(mc, new RuntimeException());
+		assertEquals("handle(RTE)", mv.getViewName());
+
+		mc.setDelegate(new TestMaController());
+		testExceptionNoHandler(mc, new RuntimeException());
+
+		mc.setDelegate(mc);
+		mv = testHandlerCaughtException(mc, new RuntimeException());
+		assertEquals("handle(RTE)", mv.getViewName());
+	}
+
 	/** No error handlers */
 	public static class TestMaController extends MultiActionController {
 
@@ -473,8 +556,11 @@ public class MultiActionControllerTestSuite extends TestCase {
 			return new ModelAndView("welcome");
 		}
 
+		protected int lastModifiedCount = 0;
+
 		/** Always says content is up to date */
 		public long welcomeLastModified(HttpServletRequest request) {
+			this.lastModifiedCount++;
 			return 1111L;
 		}
 	}
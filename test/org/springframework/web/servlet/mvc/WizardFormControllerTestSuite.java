@@ -33,6 +33,8 @@ import org.springframework.validation.Errors;
 import org.springframework.web.mock.MockHttpServletRequest;
 import org.springframework.web.mock.MockHttpServletResponse;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.formstate.AbstractHiddenFieldFormStateStore;
+import org.springframework.web.servlet.mvc.formstate.ServerSideFormStateStore;
 
 /**
  * @author Juergen Hoeller
@@ -199,6 +201,51 @@ public class WizardFormControllerTestSuite extends TestCase {
 		// returned to initial page of new wizard form
 	}
 
+	public void testServerSideFormStateStore() throws Exception {
+		AbstractWizardFormController wizard = createWizard();
+		ServerSideFormStateStore store = new ServerSideFormStateStore();
+		wizard.setFormStateStore(store);
+		String param = AbstractHiddenFieldFormStateStore.DEFAULT_PARAMETER_NAME;
+
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/wizard");
+		ModelAndView mv = wizard.handleRequest(request, new MockHttpServletResponse());
+		assertEquals("page0", mv.getViewName());
+		assertEquals(3, mv.getModel().size());
+		String token = (String) mv.getModel().get(param);
+		assertNotNull("Form state token exposed", token);
+		assertEquals(1, store.getFormCount());
+
+		request = new MockHttpServletRequest(null, "POST", "/wizard");
+		request.addParameter("name", "myname");
+		request.addParameter(AbstractWizardFormController.PARAM_TARGET + "1", "value");
+		request.addParameter(param, token);
+		mv = wizard.handleRequest(request, new MockHttpServletResponse());
+		assertEquals("page1", mv.getViewName());
+		assertEquals("myname", ((TestBean) mv.getModel().get("tb")).getName());
+		String nextToken = (String) mv.getModel().get(param);
+		assertNotNull("Form state token exposed", nextToken);
+		assertFalse("New token for each page", token.equals(nextToken));
+		assertEquals(1, store.getFormCount());
+
+		request = new MockHttpServletRequest(null, "POST", "/wizard");
+		request.addParameter("age", "32");
+		request.addParameter(AbstractWizardFormController.PARAM_FINISH, "value");
+		request.addParameter(param, nextToken);
+		mv = wizard.handleRequest(request, new MockHttpServletResponse());
+		assertEquals("success", mv.getViewName());
+		TestBean tb = (TestBean) mv.getModel().get("tb");
+		assertEquals("myname", tb.getName());
+		assertEquals(32, tb.getAge());
+		assertEquals(0, store.getFormCount());
+		assertNull("No session created", request.getSession(false));
+
+		request = new MockHttpServletRequest(null, "POST", "/wizard");
+		request.addParameter(AbstractWizardFormController.PARAM_FINISH, "value");
+		request.addParameter(param, nextToken);
+		mv = wizard.handleRequest(request, new MockHttpServletResponse());
+		assertEquals("Used token -> returned to initial page of new wizard form", "page0", mv.getViewName());
+	}
+
 	private AbstractWizardFormController createWizard() {
 		AbstractWizardFormController wizard = new TestWizardController(TestBean.class, "tb");
 		wizard.setPages(new String[] {"page0", "page1"});
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.formstate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+
+/**
+ * @since 1.1
+ */
+public class FormStateStoreTests extends TestCase {
+
+	private static final String PARAM = AbstractHiddenFieldFormStateStore.DEFAULT_PARAMETER_NAME;
+
+	public void testSessionFormStateStore() throws Exception {
+		SessionFormStateStore store = new SessionFormStateStore();
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/form");
+		assertNull(store.getState(request, "form"));
+		assertNull("No session created on lookup", request.getSession(false));
+		store.setState(request, "form", "value");
+		assertEquals("value", request.getSession().getAttribute("form"));
+		Map model = new HashMap();
+		store.exposeState(request, model);
+		assertTrue(model.isEmpty());
+		store.removeState(request, "form");
+		assertNull(store.getState(request, "form"));
+	}
+
+	public void testClientSideFormStateStore() throws Exception {
+		ClientSideFormStateStore store = new ClientSideFormStateStore();
+		store.setSecretKey("secret");
+		HashMap map = new HashMap();
+		map.put("key", new Integer(5));
+		String value = exposeState(store, map);
+
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "POST", "/form");
+		request.addParameter(PARAM, value);
+		assertEquals(map, store.getState(request, "form"));
+		assertEquals(new Integer(1), store.getState(request, "page"));
+		assertNull("No session created", request.getSession(false));
+
+		ClientSideFormStateStore otherStore = new ClientSideFormStateStore();
+		otherStore.setSecretKey("secret");
+		request = new MockHttpServletRequest(null, "POST", "/form");
+		request.addParameter(PARAM, value);
+		assertEquals("Same key on other server", map, otherStore.getState(request, "form"));
+	}
+
+	public void testClientSideFormStateStoreWithTamperedValue() throws Exception {
+		ClientSideFormStateStore store = new ClientSideFormStateStore();
+		store.setSecretKey("secret");
+		String value = exposeState(store, "myform");
+
+		char[] chars = value.toCharArray();
+		chars[chars.length / 2] = (chars[chars.length / 2] == 'A' ? 'B' : 'A');
+		assertNull("Tampered value", getState(store, new String(chars)));
+		assertNull("Malformed value", getState(store, "not base64!"));
+		assertNull("Truncated value", getState(store, "AAAA"));
+
+		ClientSideFormStateStore otherStore = new ClientSideFormStateStore();
+		otherStore.setSecretKey("other");
+		assertNull("Different key", getState(otherStore, value));
+		assertEquals("myform", getState(store, value));
+	}
+
+	public void testServerSideFormStateStore() throws Exception {
+		ServerSideFormStateStore store = new ServerSideFormStateStore();
+		String token = exposeState(store, "myform");
+		assertEquals(32, token.length());
+		assertEquals(1, store.getFormCount());
+
+		assertEquals("myform", getState(store, token));
+		assertEquals(0, store.getFormCount());
+		assertNull("Token can only be used once", getState(store, token));
+		assertNull("Unknown token", getState(store, "unknown"));
+	}
+
+	public void testServerSideFormStateStoreWithMaxForms() throws Exception {
+		ServerSideFormStateStore store = new ServerSideFormStateStore();
+		store.setMaxForms(2);
+		String token1 = exposeState(store, "form1");
+		String token2 = exposeState(store, "form2");
+		String token3 = exposeState(store, "form3");
+		assertEquals(2, store.getFormCount());
+		assertNull("Least recently stored form evicted", getState(store, token1));
+		assertEquals("form2", getState(store, token2));
+		assertEquals("form3", getState(store, token3));
+	}
+
+	public void testServerSideFormStateStoreWithTimeToLive() throws Exception {
+		ServerSideFormStateStore store = new ServerSideFormStateStore();
+		store.setTimeToLive(-1);
+		String token = exposeState(store, "myform");
+		assertNull("Expired form", getState(store, token));
+		assertEquals(0, store.getFormCount());
+	}
+
+	public void testExposeStateWithoutState() throws Exception {
+		ServerSideFormStateStore store = new ServerSideFormStateStore();
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/form");
+		store.setState(request, "form", "myform");
+		store.removeState(request, "form");
+		Map model = new HashMap();
+		store.exposeState(request, model);
+		assertTrue("Nothing exposed", model.isEmpty());
+		assertEquals(0, store.getFormCount());
+	}
+
+	private String exposeState(FormStateStore store, Object form) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/form");
+		store.setState(request, "form", form);
+		store.setState(request, "page", new Integer(1));
+		Map model = new HashMap();
+		store.exposeState(request, model);
+		String value = (String) model.get(PARAM);
+		assertNotNull("Form state exposed", value);
+		return value;
+	}
+
+	private Object getState(FormStateStore store, String value) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "POST", "/form");
+		request.addParameter(PARAM, value);
+		return store.getState(request, "form");
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.support;
+
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.mock.MockServletContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.SimpleWebApplicationContext;
+import org.springframework.web.servlet.theme.FixedThemeResolver;
+
+/**
+ * @since 1.1
+ */
+public class RequestContextTests extends TestCase {
+
+	private MockHttpServletRequest createRequest() {
+		MockServletContext sc = new MockServletContext();
+		MockHttpServletRequest request = new MockHttpServletRequest(sc, "GET", "/test");
+		SimpleWebApplicationContext wac = new SimpleWebApplicationContext();
+		wac.setServletContext(sc);
+		wac.setNamespace("test");
+		wac.refresh();
+		request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, wac);
+		return request;
+	}
+
+	public void testLocaleAndThemeResolvedLazily() throws Exception {
+		MockHttpServletRequest request = createRequest();
+		// no resolvers bound: creation must not resolve anything
+		RequestContext rc = new RequestContext(request);
+		assertNotNull(rc.getWebApplicationContext());
+		try {
+			rc.getLocale();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		try {
+			rc.getTheme();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	public void testLocaleAndThemeResolvedOnce() throws Exception {
+		MockHttpServletRequest request = createRequest();
+		CountingLocaleResolver localeResolver = new CountingLocaleResolver();
+		request.setAttribute(DispatcherServlet.LOCALE_RESOLVER_ATTRIBUTE, localeResolver);
+		request.setAttribute(DispatcherServlet.THEME_RESOLVER_ATTRIBUTE, new FixedThemeResolver());
+
+		RequestContext rc = new RequestContext(request);
+		assertEquals(0, localeResolver.count);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Locale.CANADA, rc.getLocale());
+			assertEquals("Canadian & test message", rc.getMessage("test", null, false));
+		}
+		assertEquals(1, localeResolver.count);
+		assertSame(rc.getTheme(), rc.getTheme());
+	}
+
+
+	private static class CountingLocaleResolver implements LocaleResolver {
+
+		private int count;
+
+		public Locale resolveLocale(HttpServletRequest request) {
+			this.count++;
+			return Locale.CANADA;
+		}
+
+		public void setLocale(HttpServletRequest request, HttpServletResponse response, Locale locale) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.support;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.servlet.RequestTimingCollector;
+
+/**
+ * @since 1.1
+ */
+public class RequestTimingMetricsTests extends TestCase {
+
+	public void testEmptyHistogram() {
+		TimingHistogram histogram = new TimingHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMeanNanos());
+		assertEquals(0, histogram.getPercentileNanos(99));
+	}
+
+	public void testPercentiles() {
+		TimingHistogram histogram = new TimingHistogram();
+		for (int i = 0; i < 99; i++) {
+			histogram.record(1000);
+		}
+		histogram.record(1000000);
+		assertEquals(100, histogram.getCount());
+		assertEquals(99 * 1000 + 1000000, histogram.getTotalNanos());
+		assertEquals(1000000, histogram.getMaxNanos());
+
+		long median = histogram.getPercentileNanos(50);
+		assertTrue("Median within factor 2", median >= 1000 && median < 2000);
+		long p99 = histogram.getPercentileNanos(99);
+		assertTrue("p99 within factor 2", p99 >= 1000 && p99 < 2000);
+		assertEquals(1000000, histogram.getPercentileNanos(100));
+
+		try {
+			histogram.getPercentileNanos(101);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaxNanos());
+	}
+
+	public void testExtremeValues() {
+		TimingHistogram histogram = new TimingHistogram();
+		histogram.record(-5);
+		histogram.record(0);
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(3, histogram.getCount());
+		assertTrue(histogram.getPercentileNanos(50) <= 1);
+		assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(100));
+	}
+
+	public void testRequestTimingMetrics() {
+		RequestTimingMetrics metrics = new RequestTimingMetrics();
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "GET", "/test.do");
+		long[] phaseNanos = new long[RequestTimingCollector.PHASE_COUNT];
+		phaseNanos[RequestTimingCollector.PHASE_HANDLER] = 5000;
+		metrics.requestProcessed(request, "handler", phaseNanos, 6000);
+		metrics.requestProcessed(request, "handler", phaseNanos, 8000);
+		metrics.requestProcessed(request, null, phaseNanos, 8000);
+
+		String handlerName = String.class.getName();
+		assertEquals(1, metrics.getHandlerNames().length);
+		assertEquals(2, metrics.getTotalHistogram(handlerName).getCount());
+		assertEquals(7000, metrics.getTotalHistogram(handlerName).getMeanNanos());
+		assertEquals(2, metrics.getPhaseHistogram(handlerName, RequestTimingCollector.PHASE_HANDLER).getCount());
+		assertEquals(0, metrics.getPhaseHistogram(handlerName, RequestTimingCollector.PHASE_RENDERING).getCount());
+
+		metrics.reset();
+		assertEquals(0, metrics.getHandlerNames().length);
+		assertNull(metrics.getTotalHistogram(handlerName));
+	}
+
+}
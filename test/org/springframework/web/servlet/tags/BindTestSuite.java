@@ -87,6 +87,37 @@ public class BindTestSuite extends AbstractTagTest {
 		assertTrue("Correct errorMessagesAsString", "".equals(status.getErrorMessagesAsString(",")));
 	}
 
+	public void testBindTagsOfTwoViewsInOneRequest() throws JspException {
+		MockPageContext pc = createPageContext();
+		TestBean tb = new TestBean();
+		tb.setName("first");
+		BindException errors = new ServletRequestDataBinder(tb, "tb").getErrors();
+		errors.rejectValue("name", "code1", "message1");
+		pc.getRequest().setAttribute(BindException.ERROR_KEY_PREFIX + "tb", errors);
+		BindTag tag = new BindTag();
+		tag.setPageContext(pc);
+		tag.setPath("tb.name");
+		assertTrue("Correct doStartTag return value", tag.doStartTag() == Tag.EVAL_BODY_INCLUDE);
+		BindStatus status = (BindStatus) pc.getAttribute(BindTag.STATUS_VARIABLE_NAME);
+		assertEquals("first", status.getValue());
+		assertEquals("code1", status.getErrorCode());
+		tag.doEndTag();
+
+		// a second view rendered in the same request exposes its own Errors instance
+		TestBean tb2 = new TestBean();
+		tb2.setName("second");
+		BindException errors2 = new ServletRequestDataBinder(tb2, "tb").getErrors();
+		pc.getRequest().setAttribute(BindException.ERROR_KEY_PREFIX + "tb", errors2);
+		tag = new BindTag();
+		tag.setPageContext(pc);
+		tag.setPath("tb.name");
+		assertTrue("Correct doStartTag return value", tag.doStartTag() == Tag.EVAL_BODY_INCLUDE);
+		status = (BindStatus) pc.getAttribute(BindTag.STATUS_VARIABLE_NAME);
+		assertEquals("second", status.getValue());
+		assertTrue("Correct isError", !status.isError());
+		assertEquals("", status.getErrorCode());
+	}
+
 	public void testBindTagWithGlobalErrors() throws JspException {
 		MockPageContext pc = createPageContext();
 		BindException errors = new ServletRequestDataBinder(new TestBean(), "tb").getErrors();
@@ -27,6 +27,7 @@ import com.mockobjects.servlet.MockPageContext;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.web.mock.MockHttpServletRequest;
 import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.support.RequestContext;
 
 /**
  * @author Juergen Hoeller
@@ -66,6 +67,38 @@ public class MessageTestSuite extends AbstractTagTest {
 		assertTrue("Correct message", "Canadian &#38; test message".equals(message.toString()));
 	}
 
+	public void testLocaleSharedByTags() throws JspException {
+		MockPageContext pc = createPageContext();
+		MockHttpServletRequest request = (MockHttpServletRequest) pc.getRequest();
+		request.addPreferredLocale(Locale.CANADA);
+		final StringBuffer message = new StringBuffer();
+		MessageTag tag = new MessageTag() {
+			protected void writeMessage(String msg) throws IOException {
+				message.append(msg);
+			}
+		};
+		tag.setPageContext(pc);
+		tag.setCode("test");
+		tag.doStartTag();
+		RequestContext sharedContext = (RequestContext) request.getAttribute(RequestContextAwareTag.REQUEST_CONTEXT_ATTRIBUTE);
+		assertNotNull(sharedContext);
+		assertSame(sharedContext.getLocale(), tag.getRequestContext().getLocale());
+
+		MessageTag otherTag = new MessageTag() {
+			protected void writeMessage(String msg) throws IOException {
+				message.append(msg);
+			}
+		};
+		otherTag.setPageContext(pc);
+		otherTag.setCode("test");
+		otherTag.doStartTag();
+		assertSame("Shared RequestContext", sharedContext,
+				request.getAttribute(RequestContextAwareTag.REQUEST_CONTEXT_ATTRIBUTE));
+		assertNotSame("Own RequestContext per tag", tag.getRequestContext(), otherTag.getRequestContext());
+		assertSame(sharedContext.getLocale(), otherTag.getRequestContext().getLocale());
+		assertEquals("Canadian & test messageCanadian & test message", message.toString());
+	}
+
 	public void testMessageTagWithCodeAndText1() throws JspException {
 		MockPageContext pc = createPageContext();
 		final StringBuffer message = new StringBuffer();
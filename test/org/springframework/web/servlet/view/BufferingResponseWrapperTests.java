@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletResponse;
+
+/**
+ * @since 1.1
+ */
+public class BufferingResponseWrapperTests extends TestCase {
+
+	public void testBufferedWithContentLength() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		response.setContentType("text/html; charset=UTF-8");
+		BufferingResponseWrapper wrapper = new BufferingResponseWrapper(response, 1024);
+		PrintWriter writer = wrapper.getWriter();
+		writer.write("Gr\u00fc\u00dfe");
+		writer.flush();
+		wrapper.flushBuffer();
+		assertEquals("Nothing written before finish", 0, response.getContentAsByteArray().length);
+		assertFalse(response.isCommitted());
+		wrapper.finish();
+		wrapper.release();
+
+		assertEquals("Content length in bytes", 7, response.getContentLength());
+		assertEquals("Gr\u00fc\u00dfe", response.getContentAsString());
+	}
+
+	public void testWriterAndOutputStream() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		BufferingResponseWrapper wrapper = new BufferingResponseWrapper(response, 1024);
+		wrapper.getWriter().write("<html>");
+		wrapper.getOutputStream().write("<body/>".getBytes("ISO-8859-1"));
+		wrapper.getWriter().write("</html>");
+		wrapper.finish();
+		wrapper.release();
+		assertEquals(20, response.getContentLength());
+		assertEquals("<html><body/></html>", response.getContentAsString());
+	}
+
+	public void testStreamingAboveBufferSize() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		BufferingResponseWrapper wrapper = new BufferingResponseWrapper(response, 100);
+		PrintWriter writer = wrapper.getWriter();
+		StringBuffer expected = new StringBuffer();
+		for (int i = 0; i < 10000; i++) {
+			writer.write("line " + i + "\n");
+			expected.append("line ").append(i).append("\n");
+		}
+		assertTrue("Streamed before finish", response.getContentAsByteArray().length > 0);
+		wrapper.finish();
+		wrapper.release();
+		assertEquals("No content length for streamed content", -1, response.getContentLength());
+		assertEquals(expected.toString(), response.getContentAsString());
+	}
+
+	public void testReleasedBufferReusedWithoutLeftovers() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		BufferingResponseWrapper wrapper = new BufferingResponseWrapper(response, 1024);
+		wrapper.getWriter().write("failed rendering");
+		// no finish, as rendering failed
+		wrapper.release();
+		assertEquals(0, response.getContentAsByteArray().length);
+
+		for (int i = 0; i < 3; i++) {
+			response = new MockHttpServletResponse();
+			wrapper = new BufferingResponseWrapper(response, 1024);
+			wrapper.getWriter().write("page " + i);
+			wrapper.finish();
+			wrapper.release();
+			assertEquals("page " + i, response.getContentAsString());
+		}
+	}
+
+	public void testResetBuffer() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		BufferingResponseWrapper wrapper = new BufferingResponseWrapper(response, 1024);
+		wrapper.getWriter().write("discarded");
+		wrapper.resetBuffer();
+		wrapper.getWriter().write("content");
+		wrapper.finish();
+		wrapper.release();
+		assertEquals("content", response.getContentAsString());
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.mock.MockHttpServletResponse;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Tests for the output cache of AbstractView.
+ * @since 1.1
+ */
+public class ViewOutputCacheTests extends TestCase {
+
+	public void testOutputCachedPerModelKey() throws Exception {
+		CountingView view = new CountingView();
+		view.setOutputCacheSeconds(60);
+		view.setOutputCacheModelKeys(new String[] {"country"});
+
+		assertEquals("Germany 1", render(view, "Germany", "GET", Locale.ENGLISH));
+		assertEquals("Germany 1", render(view, "Germany", "GET", Locale.ENGLISH));
+		assertEquals("Austria 2", render(view, "Austria", "GET", Locale.ENGLISH));
+		assertEquals("Germany 3", render(view, "Germany", "GET", Locale.GERMAN));
+		assertEquals("Germany 1", render(view, "Germany", "GET", Locale.ENGLISH));
+		assertEquals(3, view.renderCount);
+
+		view.clearOutputCache();
+		assertEquals("Germany 4", render(view, "Germany", "GET", Locale.ENGLISH));
+	}
+
+	public void testCachedOutputWrittenWithContentType() throws Exception {
+		CountingView view = new CountingView();
+		view.setOutputCacheSeconds(60);
+		render(view, "Germany", "GET", Locale.ENGLISH);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		view.render(createModel("Germany"), createRequest("GET", Locale.ENGLISH), response);
+		assertEquals("text/plain", response.getContentType());
+		assertEquals(9, response.getContentLength());
+		assertEquals(1, view.renderCount);
+	}
+
+	public void testNoCachingByDefault() throws Exception {
+		CountingView view = new CountingView();
+		assertEquals("Germany 1", render(view, "Germany", "GET", Locale.ENGLISH));
+		assertEquals("Germany 2", render(view, "Germany", "GET", Locale.ENGLISH));
+	}
+
+	public void testNoCachingForPost() throws Exception {
+		CountingView view = new CountingView();
+		view.setOutputCacheSeconds(60);
+		assertEquals("Germany 1", render(view, "Germany", "POST", Locale.ENGLISH));
+		assertEquals("Germany 2", render(view, "Germany", "POST", Locale.ENGLISH));
+	}
+
+	public void testNoCachingForInclude() throws Exception {
+		CountingView view = new CountingView();
+		view.setOutputCacheSeconds(60);
+		for (int i = 1; i <= 2; i++) {
+			HttpServletRequest request = createRequest("GET", Locale.ENGLISH);
+			request.setAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE, "/countries.html");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			view.render(createModel("Germany"), request, response);
+			assertEquals("Germany " + i, response.getContentAsString());
+			assertEquals("No Content-Length on outer response", -1, response.getContentLength());
+		}
+		assertEquals("Germany 3", render(view, "Germany", "GET", Locale.ENGLISH));
+		assertEquals("Germany 3", render(view, "Germany", "GET", Locale.ENGLISH));
+	}
+
+	public void testNoCachingForError() throws Exception {
+		CountingView view = new CountingView();
+		view.setOutputCacheSeconds(60);
+		view.status = HttpServletResponse.SC_NOT_FOUND;
+		assertEquals("Germany 1", render(view, "Germany", "GET", Locale.ENGLISH));
+		assertEquals("Germany 2", render(view, "Germany", "GET", Locale.ENGLISH));
+	}
+
+	public void testCacheSizeBounded() throws Exception {
+		CountingView view = new CountingView();
+		view.setOutputCacheSeconds(60);
+		view.setOutputCacheModelKeys(new String[] {"country"});
+		view.setOutputCacheSize(20);
+		render(view, "Germany", "GET", Locale.ENGLISH);
+		render(view, "Austria", "GET", Locale.ENGLISH);
+		render(view, "Belgium", "GET", Locale.ENGLISH);
+		assertEquals("Least recently used output evicted", "Germany 4", render(view, "Germany", "GET", Locale.ENGLISH));
+		assertEquals("Belgium 3", render(view, "Belgium", "GET", Locale.ENGLISH));
+	}
+
+	public void testConcurrentRequestsRenderOnce() throws Exception {
+		final CountingView view = new CountingView();
+		view.setOutputCacheSeconds(60);
+		view.renderDelay = 200;
+		final String[] results = new String[5];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						results[index] = render(view, "Germany", "GET", Locale.ENGLISH);
+					}
+					catch (Exception ex) {
+						results[index] = ex.toString();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		assertEquals(1, view.renderCount);
+		for (int i = 0; i < results.length; i++) {
+			assertEquals("Germany 1", results[i]);
+		}
+	}
+
+
+	private String render(AbstractView view, String country, String method, Locale locale) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		view.render(createModel(country), createRequest(method, locale), response);
+		return response.getContentAsString();
+	}
+
+	private Map createModel(String country) {
+		Map model = new HashMap();
+		model.put("country", country);
+		model.put("user", new Object());
+		return model;
+	}
+
+	private HttpServletRequest createRequest(String method, Locale locale) {
+		MockHttpServletRequest request = new MockHttpServletRequest(null, method, "/countries.html");
+		request.addPreferredLocale(locale);
+		return request;
+	}
+
+
+	private static class CountingView extends AbstractView {
+
+		private int renderCount;
+
+		private int status = HttpServletResponse.SC_OK;
+
+		private long renderDelay = 0;
+
+		protected void renderMergedOutputModel(Map model, HttpServletRequest request, HttpServletResponse response)
+				throws Exception {
+			int count;
+			synchronized (this) {
+				count = ++this.renderCount;
+			}
+			if (this.renderDelay > 0) {
+				Thread.sleep(this.renderDelay);
+			}
+			response.setStatus(this.status);
+			response.setContentType("text/plain");
+			PrintWriter writer = response.getWriter();
+			writer.write(model.get("country") + " " + count);
+			writer.flush();
+		}
+	}
+
+}
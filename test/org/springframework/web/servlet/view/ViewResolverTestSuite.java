@@ -247,6 +247,72 @@ public class ViewResolverTestSuite extends TestCase {
 		}
 	}
 
+	public void testCachingViewResolverWithCacheLimit() throws Exception {
+		CountingViewResolver vr = new CountingViewResolver();
+		vr.setCacheLimit(4);
+		View view1 = vr.resolveViewName("view1", Locale.ENGLISH);
+		assertSame(view1, vr.resolveViewName("view1", Locale.ENGLISH));
+		assertNotSame(view1, vr.resolveViewName("view1", Locale.GERMAN));
+		assertEquals(2, vr.loadCount);
+		assertEquals(1, vr.getCacheHitCount());
+		assertEquals(2, vr.getCacheMissCount());
+
+		for (int i = 0; i < 10; i++) {
+			vr.resolveViewName("redirect:/order/" + i, Locale.ENGLISH);
+			// keep view1 in use
+			assertSame(view1, vr.resolveViewName("view1", Locale.ENGLISH));
+		}
+		assertTrue(vr.getCacheSize() <= 4);
+		assertTrue(vr.getCacheEvictionCount() > 0);
+		assertSame("Recently used view not evicted", view1, vr.resolveViewName("view1", Locale.ENGLISH));
+
+		vr.removeFromCache("view1", Locale.ENGLISH);
+		assertNotSame(view1, vr.resolveViewName("view1", Locale.ENGLISH));
+		vr.clearCache();
+		assertEquals(0, vr.getCacheSize());
+	}
+
+	public void testCachingViewResolverWithSegmentedCache() throws Exception {
+		CountingViewResolver vr = new CountingViewResolver();
+		vr.setCacheLimit(64);
+		View view1 = vr.resolveViewName("view1", Locale.ENGLISH);
+		for (int i = 0; i < 1000; i++) {
+			vr.resolveViewName("redirect:/order/" + i, Locale.ENGLISH);
+			vr.resolveViewName("redirect:/order/" + i, Locale.ENGLISH);
+		}
+		assertTrue(vr.getCacheSize() <= 64);
+		assertEquals(1001, vr.loadCount);
+		assertEquals(1001, vr.getCacheMissCount());
+		assertEquals(1000, vr.getCacheHitCount());
+		assertTrue(vr.getCacheEvictionCount() >= 1001 - 64);
+		assertNotNull(view1);
+	}
+
+	public void testCachingViewResolverWithUnresolvableView() throws Exception {
+		CountingViewResolver vr = new CountingViewResolver();
+		assertNull(vr.resolveViewName("unresolvable", Locale.ENGLISH));
+		assertNull(vr.resolveViewName("unresolvable", Locale.ENGLISH));
+		assertEquals(1, vr.loadCount);
+		assertEquals(1, vr.getCacheSize());
+	}
+
+
+	private static class CountingViewResolver extends AbstractCachingViewResolver {
+
+		private int loadCount = 0;
+
+		protected View loadView(String viewName, Locale locale) {
+			this.loadCount++;
+			if ("unresolvable".equals(viewName)) {
+				return null;
+			}
+			return new View() {
+				public void render(Map model, HttpServletRequest request, HttpServletResponse response) {
+				}
+			};
+		}
+	}
+
 
 	public static class TestView extends InternalResourceView {
 
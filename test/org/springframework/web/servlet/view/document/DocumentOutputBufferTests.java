@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view.document;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import junit.framework.TestCase;
+
+import org.springframework.web.mock.MockHttpServletResponse;
+
+/**
+ * @since 1.1
+ */
+public class DocumentOutputBufferTests extends TestCase {
+
+	private File tempDir;
+
+	protected void setUp() throws IOException {
+		this.tempDir = File.createTempFile("documentOutputBufferTests", "");
+		this.tempDir.delete();
+		this.tempDir.mkdirs();
+	}
+
+	protected void tearDown() {
+		File[] files = this.tempDir.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		this.tempDir.delete();
+	}
+
+	public void testSmallDocumentKeptInMemory() throws IOException {
+		DocumentOutputBuffer buffer = new DocumentOutputBuffer(1024, this.tempDir);
+		buffer.write("small document".getBytes("ISO-8859-1"));
+		buffer.close();
+		assertFalse(buffer.isSpilled());
+		assertEquals(0, this.tempDir.listFiles().length);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		buffer.writeTo(response);
+		buffer.release();
+		assertEquals(14, response.getContentLength());
+		assertEquals("small document", response.getContentAsString());
+	}
+
+	public void testLargeDocumentSpilledToTemporaryFile() throws IOException {
+		int length = 20 * 1024 * 1024;
+		DocumentOutputBuffer buffer = new DocumentOutputBuffer(64 * 1024, this.tempDir);
+		byte[] chunk = new byte[4096];
+		for (int written = 0; written < length; written += chunk.length) {
+			for (int i = 0; i < chunk.length; i++) {
+				chunk[i] = expectedByte(written + i);
+			}
+			buffer.write(chunk, 0, chunk.length);
+		}
+		// document writers close the stream when finished
+		buffer.close();
+		assertTrue(buffer.isSpilled());
+		assertEquals(length, buffer.size());
+		assertEquals(1, this.tempDir.listFiles().length);
+
+		// verify the content without holding it in memory
+		CountingResponse response = new CountingResponse();
+		buffer.writeTo(response);
+		assertEquals(length, response.contentLength);
+		assertEquals(length, response.count);
+
+		buffer.release();
+		assertEquals("Temporary file deleted", 0, this.tempDir.listFiles().length);
+	}
+
+	public void testReleaseAfterFailedRendering() throws IOException {
+		DocumentOutputBuffer buffer = new DocumentOutputBuffer(10, this.tempDir);
+		buffer.write(new byte[100]);
+		assertTrue(buffer.isSpilled());
+		buffer.release();
+		assertEquals(0, this.tempDir.listFiles().length);
+	}
+
+	public void testWriteAfterCloseFails() throws IOException {
+		DocumentOutputBuffer buffer = new DocumentOutputBuffer(10, this.tempDir);
+		buffer.close();
+		try {
+			buffer.write(1);
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			// expected
+		}
+		buffer.release();
+	}
+
+	private static byte expectedByte(int index) {
+		return (byte) (index % 251);
+	}
+
+
+	/**
+	 * Response that checks and counts the bytes written instead of keeping them.
+	 */
+	private static class CountingResponse extends HttpServletResponseWrapper {
+
+		private int contentLength = -1;
+
+		private int count = 0;
+
+		private CountingResponse() {
+			super(new MockHttpServletResponse());
+		}
+
+		public void setContentLength(int contentLength) {
+			this.contentLength = contentLength;
+		}
+
+		public ServletOutputStream getOutputStream() {
+			return new ServletOutputStream() {
+				public void write(int b) {
+					assertEquals("Byte at position " + count, expectedByte(count), (byte) b);
+					count++;
+				}
+				public void write(byte[] b, int off, int len) {
+					for (int i = off; i < off + len; i++) {
+						write(b[i]);
+					}
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view.document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfWriter;
+import junit.framework.TestCase;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.mock.MockHttpServletResponse;
+import org.springframework.web.servlet.view.AbstractView;
+
+/**
+ * @since 1.1
+ */
+public class DocumentViewTests extends TestCase {
+
+	public void testLargePdfDocumentWithContentLength() throws Exception {
+		LinesPdfView view = new LinesPdfView();
+		view.setSpillThreshold(16 * 1024);
+		MockHttpServletResponse response = render(view, 5000);
+		assertEquals("application/pdf", response.getContentType());
+		byte[] content = response.getContentAsByteArray();
+		assertTrue("Document spilled", content.length > 16 * 1024);
+		assertEquals(content.length, response.getContentLength());
+		assertTrue(new String(content, 0, 5, "ISO-8859-1").startsWith("%PDF"));
+	}
+
+	public void testStreamedPdfDocument() throws Exception {
+		LinesPdfView view = new LinesPdfView();
+		view.setStreamDocument(true);
+		MockHttpServletResponse response = render(view, 500);
+		byte[] content = response.getContentAsByteArray();
+		assertEquals(-1, response.getContentLength());
+		assertTrue(new String(content, 0, 5, "ISO-8859-1").startsWith("%PDF"));
+	}
+
+	public void testLargeExcelDocumentWithContentLength() throws Exception {
+		LinesExcelView view = new LinesExcelView();
+		view.setSpillThreshold(8 * 1024);
+		MockHttpServletResponse response = render(view, 5000);
+		assertEquals("application/vnd.ms-excel", response.getContentType());
+		byte[] content = response.getContentAsByteArray();
+		assertTrue("Document spilled", content.length > 8 * 1024);
+		assertEquals(content.length, response.getContentLength());
+		// OLE2 signature
+		assertEquals((byte) 0xD0, content[0]);
+		assertEquals((byte) 0xCF, content[1]);
+	}
+
+	public void testStreamedExcelDocument() throws Exception {
+		LinesExcelView view = new LinesExcelView();
+		view.setStreamDocument(true);
+		MockHttpServletResponse response = render(view, 10);
+		assertEquals(-1, response.getContentLength());
+		assertEquals((byte) 0xD0, response.getContentAsByteArray()[0]);
+	}
+
+	private MockHttpServletResponse render(AbstractView view, int lines) throws Exception {
+		Map model = new HashMap();
+		model.put("lines", new Integer(lines));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		view.render(model, new MockHttpServletRequest(null, "GET", "/report.pdf"), response);
+		return response;
+	}
+
+
+	private static class LinesPdfView extends AbstractPdfView {
+
+		protected void buildPdfDocument(Map model, Document pdfDoc, PdfWriter writer, HttpServletRequest request,
+		                                HttpServletResponse response) throws Exception {
+			int lines = ((Integer) model.get("lines")).intValue();
+			for (int i = 0; i < lines; i++) {
+				pdfDoc.add(new Paragraph("Report line " + i));
+			}
+		}
+	}
+
+
+	private static class LinesExcelView extends AbstractExcelView {
+
+		protected void buildExcelDocument(Map model, HSSFWorkbook wb, HttpServletRequest request,
+		                                  HttpServletResponse response) throws Exception {
+			HSSFSheet sheet = wb.createSheet("Report");
+			int lines = ((Integer) model.get("lines")).intValue();
+			for (int i = 0; i < lines; i++) {
+				HSSFRow row = sheet.createRow(i);
+				setText(row.createCell((short) 0), "Report line " + i);
+				row.createCell((short) 1).setCellValue(i);
+			}
+		}
+	}
+
+}
@@ -41,6 +41,8 @@ import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.StaticWebApplicationContext;
 import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
+import org.springframework.web.servlet.view.BufferingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
 
 /**
  * @author Rod Johnson
@@ -282,6 +284,54 @@ public class VelocityViewTests extends TestCase {
 		reqControl.verify();
 	}
 
+	public void testMergeTemplateWithOutputBuffer() throws Exception {
+		final String templateName = "test.vm";
+
+		MockControl wmc = MockControl.createControl(WebApplicationContext.class);
+		WebApplicationContext wac = (WebApplicationContext) wmc.getMock();
+		wac.getParentBeanFactory();
+		wmc.setReturnValue(null);
+		final Template expectedTemplate = new Template();
+		VelocityConfig vc = new VelocityConfig() {
+			public VelocityEngine getVelocityEngine() {
+				return new TestVelocityEngine(templateName, expectedTemplate);
+			}
+		};
+		wac.getBeansOfType(VelocityConfig.class, true, true);
+		Map configurers = new HashMap();
+		configurers.put("velocityConfigurer", vc);
+		wmc.setReturnValue(configurers);
+		wmc.replay();
+
+		MockControl reqControl = MockControl.createControl(HttpServletRequest.class);
+		HttpServletRequest req = (HttpServletRequest) reqControl.getMock();
+		req.getAttribute(UrlPathHelper.INCLUDE_URI_REQUEST_ATTRIBUTE);
+		reqControl.setReturnValue(null);
+		reqControl.replay();
+
+		org.springframework.web.mock.MockHttpServletResponse response =
+				new org.springframework.web.mock.MockHttpServletResponse();
+
+		VelocityView vv = new VelocityView() {
+			protected void mergeTemplate(Template template, Context context, HttpServletResponse response) throws Exception {
+				assertTrue(response instanceof BufferingResponseWrapper);
+				response.getWriter().write("foo=" + context.get("foo"));
+				response.getWriter().flush();
+			}
+		};
+		vv.setUrl(templateName);
+		vv.setApplicationContext(wac);
+		vv.setOutputBufferSize(1024);
+		Map model = new HashMap();
+		model.put("foo", "bar");
+		vv.render(model, req, response);
+
+		assertEquals("foo=bar", response.getContentAsString());
+		assertEquals(7, response.getContentLength());
+		wmc.verify();
+		reqControl.verify();
+	}
+
 	public void testVelocityViewResolver() {
 		VelocityViewResolver resolver = new VelocityViewResolver();
 		resolver.setPrefix("prefix_");
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.view.xslt;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import junit.framework.TestCase;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.mock.MockHttpServletRequest;
+import org.springframework.web.mock.MockHttpServletResponse;
+import org.springframework.web.mock.MockServletContext;
+
+/**
+ * @since 1.1
+ */
+public class XsltViewTests extends TestCase {
+
+	private static final String STYLESHEET = "org/springframework/web/servlet/view/xslt/items.xsl";
+
+	public void testTransformDomNode() throws Exception {
+		final List transformedNodes = new ArrayList();
+		AbstractXsltView view = new AbstractXsltView() {
+			protected Node createDomNode(Map model, String root, HttpServletRequest request,
+			                             HttpServletResponse response) throws Exception {
+				Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+				Element rootElement = doc.createElement(root);
+				doc.appendChild(rootElement);
+				for (Iterator it = ((List) model.get("items")).iterator(); it.hasNext();) {
+					Element item = doc.createElement("item");
+					item.appendChild(doc.createTextNode((String) it.next()));
+					rootElement.appendChild(item);
+				}
+				return doc;
+			}
+			protected void doTransform(HttpServletResponse response, Node dom) throws ServletException, IOException {
+				transformedNodes.add(dom);
+				super.doTransform(response, dom);
+			}
+		};
+		initView(view);
+		assertEquals("none:a,b,", render(view, createModel()).getContentAsString());
+		assertEquals("DOM-based hook invoked", 1, transformedNodes.size());
+	}
+
+	public void testTransformXsltSource() throws Exception {
+		StreamingXsltView view = new StreamingXsltView();
+		initView(view);
+		assertEquals("none:a,b,", render(view, createModel()).getContentAsString());
+	}
+
+	public void testTransformSingleSourceModel() throws Exception {
+		StreamingXsltView view = new StreamingXsltView();
+		initView(view);
+		Map model = new HashMap();
+		model.put("doc", new StreamSource(new StringReader("<doc><item>c</item></doc>")));
+		assertEquals("none:c,", render(view, model).getContentAsString());
+	}
+
+	public void testPooledTransformerWithoutLeftoverParameters() throws Exception {
+		StreamingXsltView view = new StreamingXsltView();
+		view.setTransformerPoolSize(1);
+		initView(view);
+		view.parameters = new HashMap();
+		view.parameters.put("title", "Items");
+		assertEquals("Items:a,b,", render(view, createModel()).getContentAsString());
+		view.parameters = null;
+		assertEquals("none:a,b,", render(view, createModel()).getContentAsString());
+		assertEquals("none:a,b,", render(view, createModel()).getContentAsString());
+	}
+
+	public void testOutputBuffer() throws Exception {
+		StreamingXsltView view = new StreamingXsltView();
+		view.setOutputBufferSize(1024);
+		initView(view);
+		MockHttpServletResponse response = render(view, createModel());
+		assertEquals("none:a,b,", response.getContentAsString());
+		assertEquals(9, response.getContentLength());
+	}
+
+	private void initView(AbstractXsltView view) {
+		StaticWebApplicationContext wac = new StaticWebApplicationContext();
+		wac.setServletContext(new MockServletContext());
+		wac.refresh();
+		view.setStylesheetLocation(new ClassPathResource(STYLESHEET));
+		view.setApplicationContext(wac);
+	}
+
+	private Map createModel() {
+		List items = new ArrayList();
+		items.add("a");
+		items.add("b");
+		Map model = new HashMap();
+		model.put("items", items);
+		model.put("title", "ignored");
+		return model;
+	}
+
+	private MockHttpServletResponse render(AbstractXsltView view, Map model) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		view.render(model, new MockHttpServletRequest(null, "GET", "/items.html"), response);
+		return response;
+	}
+
+
+	/**
+	 * Provides the XML as text, without building a DOM tree.
+	 */
+	private static class StreamingXsltView extends AbstractXsltView {
+
+		private Map parameters;
+
+		protected Source createXsltSource(Map model, String root, HttpServletRequest request,
+		                                  HttpServletResponse response) {
+			StringBuffer xml = new StringBuffer("<").append(root).append(">");
+			for (Iterator it = ((List) model.get("items")).iterator(); it.hasNext();) {
+				xml.append("<item>").append(it.next()).append("</item>");
+			}
+			xml.append("</").append(root).append(">");
+			return new StreamSource(new StringReader(xml.toString()));
+		}
+
+		protected Map getParameters() {
+			return this.parameters;
+		}
+	}
+
+}
@@ -0,0 +1,13 @@
+<?xml version="1.0" encoding="UTF-8"?>
+
+<xsl:stylesheet version="1.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform">
+
+	<xsl:output method="text"/>
+
+	<xsl:param name="title" select="'none'"/>
+
+	<xsl:template match="/">
+		<xsl:value-of select="$title"/>:<xsl:for-each select="//item"><xsl:value-of select="."/>,</xsl:for-each>
+	</xsl:template>
+
+</xsl:stylesheet>
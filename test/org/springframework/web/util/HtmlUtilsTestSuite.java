@@ -16,6 +16,23 @@ import junit.framework.TestCase;
  */
 public class HtmlUtilsTestSuite extends TestCase {
 
+	/**
+	 * Character ranges escaped by the previous range-check implementation,
+	 * plus &hearts; and &diams; which it missed.
+	 */
+	private static final int[][] ESCAPED_RANGES = new int[][] {
+		{34, 34}, {38, 38}, {60, 60}, {62, 62}, {160, 255}, {338, 339}, {352, 353}, {376, 376},
+		{402, 402}, {710, 710}, {732, 732}, {913, 929}, {931, 937}, {945, 969}, {977, 978}, {982, 982},
+		{8194, 8195}, {8201, 8201}, {8204, 8207}, {8211, 8212}, {8216, 8218}, {8220, 8222}, {8224, 8226},
+		{8230, 8230}, {8240, 8240}, {8242, 8243}, {8249, 8250}, {8254, 8254}, {8260, 8260}, {8364, 8364},
+		{8465, 8465}, {8472, 8472}, {8476, 8476}, {8482, 8482}, {8501, 8501}, {8592, 8596}, {8629, 8629},
+		{8656, 8660}, {8704, 8704}, {8706, 8707}, {8709, 8709}, {8711, 8713}, {8715, 8715}, {8719, 8719},
+		{8721, 8722}, {8727, 8727}, {8730, 8730}, {8733, 8734}, {8736, 8736}, {8743, 8747}, {8756, 8756},
+		{8764, 8764}, {8773, 8773}, {8776, 8776}, {8800, 8801}, {8804, 8805}, {8834, 8836}, {8838, 8839},
+		{8853, 8853}, {8855, 8855}, {8869, 8869}, {8901, 8901}, {8968, 8971}, {9001, 9002}, {9674, 9674},
+		{9824, 9824}, {9827, 9827}, {9829, 9830}
+	};
+
 	/**
 	 * Constructor for HtmlUtilsTestSuite.
 	 * @param arg0
@@ -46,4 +63,77 @@ public class HtmlUtilsTestSuite extends TestCase {
 		
 	}
 
+	public void testHtmlEscapeWithoutSpecialCharacters() {
+		String plain = "This is plain text";
+		assertSame(plain, HtmlUtils.htmlEscape(plain));
+		assertEquals("", HtmlUtils.htmlEscape(""));
+		assertNull(HtmlUtils.htmlEscape(null));
+	}
+
+	public void testHtmlEscapeSpecialCharacters() {
+		assertEquals("&#60;b&#62;Tom &#38; Jerry&#60;/b&#62;", HtmlUtils.htmlEscape("<b>Tom & Jerry</b>"));
+		assertEquals("Gr&#252;&#223;e &#8364;5 &#9830;", HtmlUtils.htmlEscape("Gr\u00fc\u00dfe \u20ac5 \u2666"));
+		assertEquals("'\u0100", HtmlUtils.htmlEscape("'\u0100"));
+	}
+
+	public void testHtmlEscapeMatchesPreviousImplementation() {
+		int range = 0;
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			if (range < ESCAPED_RANGES.length && c > ESCAPED_RANGES[range][1]) {
+				range++;
+			}
+			String s = String.valueOf((char) c);
+			if (range < ESCAPED_RANGES.length && c >= ESCAPED_RANGES[range][0]) {
+				assertEquals("&#" + c + ";", HtmlUtils.htmlEscape(s));
+			}
+			else {
+				assertSame(s, HtmlUtils.htmlEscape(s));
+			}
+		}
+	}
+
+	public void testHtmlEscapeAndUnescapePageValues() {
+		String[] values = new String[] {
+			"Order #12345 of 2004-05-17", "Tom & Jerry", "<script>alert('x')</script>", "\"quoted\" value",
+			"Gr\u00fc\u00dfe aus M\u00fcnchen", "Caf\u00e9 cr\u00e8me \u20ac 3,50"
+		};
+		String[] escapedValues = new String[] {
+			"Order #12345 of 2004-05-17", "Tom &#38; Jerry", "&#60;script&#62;alert('x')&#60;/script&#62;",
+			"&#34;quoted&#34; value", "Gr&#252;&#223;e aus M&#252;nchen", "Caf&#233; cr&#232;me &#8364; 3,50"
+		};
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(escapedValues[i], HtmlUtils.htmlEscape(values[i]));
+			assertEquals(values[i], HtmlUtils.htmlUnescape(escapedValues[i]));
+		}
+	}
+
+	public void testHtmlUnescapeReferences() {
+		String plain = "This is plain text";
+		assertSame(plain, HtmlUtils.htmlUnescape(plain));
+		assertEquals("<b>Tom & Jerry</b>", HtmlUtils.htmlUnescape("&lt;b&gt;Tom &amp; Jerry&lt;/b&gt;"));
+		assertEquals("DDD\u00e5\u00e5", HtmlUtils.htmlUnescape("&#68;&#0068;&#x44;&#xE5;&#Xe5;"));
+		assertEquals("\u03a9\u03c9", HtmlUtils.htmlUnescape("&Omega;&omega;"));
+	}
+
+	public void testHtmlUnescapeMalformedReferences() {
+		assertEquals("&;", HtmlUtils.htmlUnescape("&;"));
+		assertEquals("&#;", HtmlUtils.htmlUnescape("&#;"));
+		assertEquals("&#x;", HtmlUtils.htmlUnescape("&#x;"));
+		assertEquals("&#12a;", HtmlUtils.htmlUnescape("&#12a;"));
+		assertEquals("&#99999999;", HtmlUtils.htmlUnescape("&#99999999;"));
+		assertEquals("&amp", HtmlUtils.htmlUnescape("&amp"));
+		assertEquals("&ampx;", HtmlUtils.htmlUnescape("&ampx;"));
+		assertEquals("&unknown; &", HtmlUtils.htmlUnescape("&unknown; &amp;"));
+		assertEquals("Tom & Jerry", HtmlUtils.htmlUnescape("Tom & Jerry"));
+	}
+
+	public void testEscapeUnescapeRoundTrip() {
+		StringBuffer all = new StringBuffer();
+		for (char c = 0; c < 10000; c++) {
+			all.append(c);
+		}
+		String s = all.toString();
+		assertEquals(s, HtmlUtils.htmlUnescape(HtmlUtils.htmlEscape(s)));
+	}
+
 }